@@ -1,6 +1,7 @@
 package com.gdx.uch2;
 
 import com.badlogic.gdx.Screen;
+import com.gdx.uch2.util.FrameProfiler;
 
 /**
  * Classe Singleton gèreant les différents écrans de jeu
@@ -56,6 +57,8 @@ public class ScreenManager {
         if (currentScreen != null) {
             currentScreen.dispose();
         }
+
+        FrameProfiler.getInstance().beginTransition(screen.getClass().getSimpleName());
     }
 
     /**
@@ -1,7 +1,11 @@
 package com.gdx.uch2;
 
 import com.badlogic.gdx.Game;
-import com.gdx.uch2.ui.MainMenu;
+import com.badlogic.gdx.Gdx;
+import com.gdx.uch2.networking.client.GameClientHandler;
+import com.gdx.uch2.ui.LoadingScreen;
+import com.gdx.uch2.util.Assets;
+import com.gdx.uch2.util.FrameProfiler;
 
 /**
  * Classe principale du jeu, génère l'écran de menu principal
@@ -18,12 +22,21 @@ public class UltimateChickenHorse2 extends Game {
 	@Override
 	public void create() {
 		ScreenManager.getInstance().initialize(this);
-		MainMenu main = new MainMenu();
-		setScreen(main);
+		// Charge les ressources en arrière-plan avant d'afficher le menu principal
+		setScreen(new LoadingScreen());
+	}
+
+	@Override
+	public void render() {
+		// Applique les messages reçus par le thread réseau avant de dessiner la frame
+		GameClientHandler.applyPendingUpdates();
+		FrameProfiler.getInstance().recordTransitionFrame(Gdx.graphics.getRawDeltaTime());
+		super.render();
 	}
 
 	@Override
 	public void dispose() {
 		super.dispose();
+		Assets.getInstance().dispose();
 	}
 }
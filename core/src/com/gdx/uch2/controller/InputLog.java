@@ -0,0 +1,76 @@
+package com.gdx.uch2.controller;
+
+import java.util.Arrays;
+
+/**
+ * Journal des entrées appliquées à chaque pas de la simulation du joueur, accompagnées d'une somme de contrôle de
+ * l'état obtenu, et de l'état de la simulation au début de l'enregistrement. Avec le même niveau et le même journal,
+ * la simulation reproduit exactement les mêmes états, ce qui permet de rejouer une partie ou de détecter une
+ * divergence en comparant les sommes de contrôle.
+ */
+public class InputLog {
+    private int[] inputs = new int[1024];
+    private int[] checksums = new int[1024];
+    private int size = 0;
+    private PlayerController.Snapshot initialState;
+
+    /**
+     * @return l'état de la simulation avant le premier pas, null s'il n'a pas été capturé
+     */
+    public PlayerController.Snapshot getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * @param initialState l'état de la simulation avant le premier pas
+     */
+    public void setInitialState(PlayerController.Snapshot initialState) {
+        this.initialState = initialState;
+    }
+
+    /**
+     * Ajoute un pas au journal
+     * @param input entrées appliquées pendant le pas (combinaison des constantes INPUT_* de PlayerController)
+     * @param checksum somme de contrôle de l'état à la fin du pas
+     */
+    public void record(int input, int checksum) {
+        if (size == inputs.length) {
+            inputs = Arrays.copyOf(inputs, size * 2);
+            checksums = Arrays.copyOf(checksums, size * 2);
+        }
+        inputs[size] = input;
+        checksums[size] = checksum;
+        ++size;
+    }
+
+    /**
+     * @return le nombre de pas enregistrés
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param tick numéro du pas
+     * @return les entrées appliquées pendant ce pas
+     */
+    public int getInput(int tick) {
+        return inputs[tick];
+    }
+
+    /**
+     * @param tick numéro du pas
+     * @return la somme de contrôle de l'état à la fin de ce pas
+     */
+    public int getChecksum(int tick) {
+        return checksums[tick];
+    }
+
+    /**
+     * Vide le journal, état initial compris
+     */
+    public void clear() {
+        size = 0;
+        initialState = null;
+    }
+}
@@ -0,0 +1,156 @@
+package com.gdx.uch2.controller;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.entities.LevelTemplate;
+import com.gdx.uch2.util.Assets;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Singleton gardant en mémoire les niveaux déjà analysés, indexés par numéro et par empreinte de leur contenu.
+ * Un niveau n'est lu qu'une seule fois par processus, quel que soit le nombre de parties, de rounds ou de clients
+ * qui l'utilisent : chacun reçoit une copie partageant la grille du modèle.
+ * Les niveaux reçus d'un serveur sont en plus enregistrés dans un cache local ({@link #CACHE_DIR}), retrouvé par
+ * empreinte lors des parties suivantes.
+ * Peut être utilisé depuis n'importe quel thread.
+ */
+public class LevelCache {
+    private static class Instance {
+        static final LevelCache instance = new LevelCache();
+    }
+
+    /**
+     * Dossier local des niveaux reçus d'un serveur
+     */
+    public static final String CACHE_DIR = "cache/levels/";
+
+    private final Map<Integer, LevelTemplate> byId = new HashMap<>();
+    private final Map<Long, LevelTemplate> byHash = new HashMap<>();
+
+    private LevelCache() {
+    }
+
+    /**
+     * @return l'instance unique du singleton
+     */
+    public static LevelCache getInstance() {
+        return Instance.instance;
+    }
+
+    /**
+     * Donne le modèle d'un niveau livré avec le jeu, en le chargeant lors du premier appel
+     * @param number numéro du niveau
+     * @return le modèle du niveau
+     */
+    public synchronized LevelTemplate getTemplate(int number) {
+        LevelTemplate template = byId.get(number);
+        if (template == null) {
+            Level level = LevelLoader.loadLevel(number);
+            template = put(new LevelTemplate(number, LevelFile.write(level), level));
+            byId.put(number, template);
+        }
+        return template;
+    }
+
+    /**
+     * @param hash empreinte du contenu d'un niveau
+     * @return le modèle déjà chargé ayant cette empreinte, null s'il n'y en a pas
+     */
+    public synchronized LevelTemplate getTemplate(long hash) {
+        return byHash.get(hash);
+    }
+
+    /**
+     * Cherche un niveau par son empreinte en mémoire, dans le cache local, puis parmi les niveaux livrés avec le jeu
+     * @param hash empreinte du contenu du niveau
+     * @param number numéro du niveau, utilisé pour chercher parmi les niveaux livrés
+     * @return le modèle du niveau, null s'il n'est pas disponible localement
+     */
+    public synchronized LevelTemplate find(long hash, int number) {
+        LevelTemplate template = byHash.get(hash);
+        if (template != null) {
+            return template;
+        }
+
+        FileHandle cached = Gdx.files.local(cachePath(hash));
+        if (cached.exists()) {
+            byte[] data = cached.readBytes();
+            template = LevelFile.hash(data) == hash ? decode(number, data) : null;
+            if (template != null) {
+                return put(template);
+            }
+            System.out.println("Niveau en cache invalide : " + cached.path());
+        }
+
+        // un niveau livré peut différer de celui du serveur, seule l'empreinte fait foi
+        if (!byId.containsKey(number) && !Gdx.files.internal(Assets.compiledLevelPath(number)).exists()
+                && !Gdx.files.internal(Assets.levelPath(number)).exists()) {
+            return null;
+        }
+        template = getTemplate(number);
+        return template.getHash() == hash ? template : null;
+    }
+
+    /**
+     * Ajoute un niveau reçu d'un serveur en mémoire et dans le cache local
+     * @param number numéro du niveau sur le serveur
+     * @param data le niveau encodé
+     * @return le modèle du niveau, null si les données ne sont pas un niveau valide
+     */
+    public synchronized LevelTemplate add(int number, byte[] data) {
+        LevelTemplate template = decode(number, data);
+        if (template == null) {
+            return null;
+        }
+        try {
+            Gdx.files.local(cachePath(template.getHash())).writeBytes(data, false);
+        } catch (RuntimeException e) {
+            System.out.println("Impossible d'enregistrer le niveau dans le cache : " + e.getMessage());
+        }
+        return put(template);
+    }
+
+    /**
+     * Vide le cache en mémoire. Les copies déjà créées restent valides.
+     */
+    public synchronized void clear() {
+        byId.clear();
+        byHash.clear();
+    }
+
+    /**
+     * Crée une copie modifiable d'un niveau livré avec le jeu pour une partie
+     * @param number numéro du niveau
+     * @return la copie du niveau
+     */
+    public Level newLevel(int number) {
+        return getTemplate(number).instantiate();
+    }
+
+    /**
+     * @param hash empreinte du contenu d'un niveau
+     * @return le chemin local du niveau dans le cache
+     */
+    public static String cachePath(long hash) {
+        return CACHE_DIR + Long.toHexString(hash) + LevelFile.EXTENSION;
+    }
+
+    // deux niveaux au contenu identique partagent le même modèle
+    private LevelTemplate put(LevelTemplate template) {
+        LevelTemplate existing = byHash.get(template.getHash());
+        if (existing != null) {
+            return existing;
+        }
+        byHash.put(template.getHash(), template);
+        return template;
+    }
+
+    private static LevelTemplate decode(int number, byte[] data) {
+        Level level = LevelFile.read(ByteBuffer.wrap(data));
+        return level == null ? null : new LevelTemplate(number, data, level);
+    }
+}
@@ -0,0 +1,238 @@
+package com.gdx.uch2.controller;
+
+import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Format binaire compilé des niveaux, lu en une seule lecture au lieu de décoder et parcourir une image.
+ * Contenu, en big-endian :
+ * <ul>
+ *     <li>en-tête : {@link #MAGIC}, {@link #VERSION}, largeur et hauteur (int)</li>
+ *     <li>position d'apparition (deux int, -1 si absente)</li>
+ *     <li>nombre d'arrivées (int), puis leurs positions (deux int chacune)</li>
+ *     <li>grille des codes de type, ligne par ligne depuis le bas, compressée par plages : un code (byte) suivi de la
+ *     longueur de la plage (entier variable de 7 bits par octet)</li>
+ * </ul>
+ */
+public class LevelFile {
+
+    /**
+     * Extension des niveaux compilés
+     */
+    public static final String EXTENSION = ".lvl";
+
+    /**
+     * Nombre maximal de cases d'un niveau compilé (4096x4096). Un en-tête annonçant un niveau plus grand est refusé.
+     */
+    public static final int MAX_CELLS = 1 << 24;
+
+    /**
+     * Taille maximale en bytes d'un niveau encodé, au-delà de laquelle la décompression s'arrête
+     */
+    public static final int MAX_SIZE = 1 << 24;
+
+    private static final int MAGIC = 0x55434C56; // "UCLV"
+    private static final byte VERSION = 1;
+    private static final Block.Type[] TYPES = Block.Type.values();
+
+    private LevelFile() {
+    }
+
+    /**
+     * Encode un niveau dans le format compilé
+     * @param level le niveau à encoder
+     * @return le niveau encodé
+     */
+    public static byte[] write(Level level) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(level.getWidth());
+            out.writeInt(level.getHeight());
+
+            Vector2 spawn = level.getSpawnPosition();
+            out.writeInt(spawn == null ? -1 : (int) spawn.x);
+            out.writeInt(spawn == null ? -1 : (int) spawn.y);
+            List<Vector2> finishes = level.getFinishPositions();
+            out.writeInt(finishes.size());
+            for (Vector2 finish : finishes) {
+                out.writeInt((int) finish.x);
+                out.writeInt((int) finish.y);
+            }
+
+            byte code = Level.EMPTY;
+            int run = 0;
+            for (int y = 0; y < level.getHeight(); ++y) {
+                for (int x = 0; x < level.getWidth(); ++x) {
+                    byte current = level.getTypeCode(x, y);
+                    if (current != code && run > 0) {
+                        writeRun(out, code, run);
+                        run = 0;
+                    }
+                    code = current;
+                    ++run;
+                }
+            }
+            if (run > 0) {
+                writeRun(out, code, run);
+            }
+        } catch (IOException e) {
+            // impossible en mémoire
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Décode un niveau compilé
+     * @param data le contenu d'un fichier de niveau compilé
+     * @return le niveau décodé, null si les données ne sont pas un niveau compilé valide
+     */
+    public static Level read(ByteBuffer data) {
+        try {
+            if (data.getInt() != MAGIC || data.get() != VERSION) {
+                return null;
+            }
+            int width = data.getInt();
+            int height = data.getInt();
+            // les tailles sont vérifiées avant toute allocation, les données pouvant venir du réseau
+            if (width <= 0 || height <= 0 || (long) width * height > MAX_CELLS) {
+                return null;
+            }
+
+            int spawnX = data.getInt();
+            int spawnY = data.getInt();
+            int nbFinishes = data.getInt();
+            if (nbFinishes < 0 || nbFinishes > data.remaining() / 8) {
+                return null;
+            }
+            Level level = new Level(width, height);
+            Vector2[] finishes = new Vector2[nbFinishes];
+            for (int i = 0; i < nbFinishes; ++i) {
+                finishes[i] = new Vector2(data.getInt(), data.getInt());
+            }
+
+            long cells = (long) width * height;
+            long cell = 0;
+            while (cell < cells) {
+                byte code = data.get();
+                int run = readVarInt(data);
+                if (run <= 0 || cell + run > cells || code < Level.EMPTY || code > TYPES.length) {
+                    return null;
+                }
+                if (code != Level.EMPTY) {
+                    Block.Type type = TYPES[code - 1];
+                    for (long c = cell; c < cell + run; ++c) {
+                        level.setType((int) (c % width), (int) (c / width), type);
+                    }
+                }
+                cell += run;
+            }
+
+            // les marques d'arrivée sont posées une fois la grille remplie
+            if (spawnX >= 0) {
+                level.setSpawnPosition(new Vector2(spawnX, spawnY));
+            }
+            for (Vector2 finish : finishes) {
+                level.addFinishPosition(finish);
+            }
+            return level;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calcule l'empreinte d'un niveau encodé (FNV-1a sur 64 bits), identique pour deux niveaux au contenu identique
+     * @param data le niveau encodé par {@link #write(Level)}
+     * @return l'empreinte
+     */
+    public static long hash(byte[] data) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Compresse un niveau encodé pour son envoi sur le réseau
+     * @param data le niveau encodé
+     * @return les données compressées
+     */
+    public static byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 16);
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            bytes.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Décompresse un niveau compressé par {@link #compress(byte[])}
+     * @param data les données compressées
+     * @return le niveau encodé, null si les données sont invalides ou si le niveau encodé dépasse {@link #MAX_SIZE}
+     */
+    public static byte[] decompress(byte[] data) {
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(MAX_SIZE, data.length * 4L));
+        byte[] buffer = new byte[4096];
+        try {
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    return null;
+                }
+                if (bytes.size() + n > MAX_SIZE) {
+                    return null;
+                }
+                bytes.write(buffer, 0, n);
+            }
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeRun(DataOutputStream out, byte code, int run) throws IOException {
+        out.writeByte(code);
+        while ((run & ~0x7F) != 0) {
+            out.writeByte((run & 0x7F) | 0x80);
+            run >>>= 7;
+        }
+        out.writeByte(run);
+    }
+
+    private static int readVarInt(ByteBuffer data) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 35);
+        return value;
+    }
+}
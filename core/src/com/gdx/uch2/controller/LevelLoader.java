@@ -1,20 +1,21 @@
 package com.gdx.uch2.controller;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.math.Vector2;
 import com.gdx.uch2.entities.Block;
 import com.gdx.uch2.entities.Level;
-import com.gdx.uch2.entities.ProtectedArea;
-import com.gdx.uch2.entities.Trap;
+import com.gdx.uch2.util.Assets;
+
+import java.nio.ByteBuffer;
 
 /**
- * Classe permettant de convertir une image en niveau
+ * Classe permettant de convertir une image en niveau.
+ * Un niveau compilé ({@link LevelFile}) est utilisé s'il existe, l'image n'est décodée qu'à défaut.
  */
 public class LevelLoader {
 
-    private static final String LEVEL_PREFIX    = "levels/level-";
-
     private static final int    BOX             = 0x000000; // black
     private static final int    BLOCK           = 0x111111;
     private static final int    G_UP            = 0x222222;
@@ -30,52 +31,104 @@ public class LevelLoader {
      * @return le niveau généré
      */
     public static Level loadLevel(int number) {
-        Level level = new Level();
+        // A compiled level is read in one go
+        FileHandle compiled = Gdx.files.internal(Assets.compiledLevelPath(number));
+        if (compiled.exists()) {
+            Level level = LevelFile.read(ByteBuffer.wrap(compiled.readBytes()));
+            if (level != null) {
+                return level;
+            }
+            System.out.println("Niveau compilé invalide, lecture de l'image : " + compiled.path());
+        }
+
+        // Uses the preloaded Pixmap when available, otherwise decodes the png
+        String path = Assets.levelPath(number);
+        Pixmap shared = Assets.getInstance().acquireIfLoaded(path, Pixmap.class);
+        Pixmap pixmap = shared != null ? shared : new Pixmap(Gdx.files.internal(path));
+
+        Level level = fromPixmap(pixmap);
 
-        // Loading the png into a Pixmap
-        Pixmap pixmap = new Pixmap(Gdx.files.internal(LEVEL_PREFIX + number + ".png"));
+        if (shared != null) {
+            Assets.getInstance().release(path);
+        } else {
+            pixmap.dispose();
+        }
+        return level;
+    }
 
+    /**
+     * Convertit une image décodée en niveau, en lisant directement ses pixels
+     * @param pixmap l'image du niveau, qui n'est pas modifiée
+     * @return le niveau généré
+     */
+    public static Level fromPixmap(Pixmap pixmap) {
         // setting the size of the level based on the size of the pixmap
-        level.setWidth(pixmap.getWidth());
-        level.setHeight(pixmap.getHeight());
+        Level level = new Level(pixmap.getWidth(), pixmap.getHeight());
+        int width = level.getWidth();
+        int height = level.getHeight();
 
-        // creating the backing blocks array
-        Block[][] blocks = new Block[level.getWidth()][level.getHeight()];
-        for (int col = 0; col < level.getWidth(); col++) {
-            for (int row = 0; row < level.getHeight(); row++) {
-                blocks[col][row] = null;
-            }
+        int bytesPerPixel;
+        switch (pixmap.getFormat()) {
+            case RGBA8888: bytesPerPixel = 4; break;
+            case RGB888: bytesPerPixel = 3; break;
+            default: bytesPerPixel = 0; break;
         }
 
-        for (int row = 0; row < level.getHeight(); row++) {
-            for (int col = 0; col < level.getWidth(); col++) {
-                int pixel = (pixmap.getPixel(col, row) >>> 8) & 0xffffff;
-                int iRow = level.getHeight() - 1 - row;
-                if (pixel == BOX) {
-                    blocks[col][iRow] = new Block(new Vector2(col, iRow), Block.Type.BOX);
-                } else if (pixel == BLOCK) {
-                    blocks[col][iRow] = new Block(new Vector2(col, iRow), Block.Type.BLOCK);
-                } else if (pixel == G_UP) {
-                    blocks[col][iRow] = new Trap(new Vector2(col, iRow), Block.Type.G_UP);
-                } else if (pixel == G_DOWN) {
-                    blocks[col][iRow] = new Trap(new Vector2(col, iRow), Block.Type.G_DOWN);
-                } else if (pixel == LETHAL) {
-                    blocks[col][iRow] = new Trap(new Vector2(col, iRow), Block.Type.LETHAL);
-                } else if (pixel == START_POS) {
-                    level.setSpawnPosition(new Vector2(col, iRow));
-                    blocks[col][iRow] = new ProtectedArea(new Vector2(col, iRow));
-                } else if (pixel == FINISH_POS) {
-                    level.addFinishPosition(new Vector2(col, iRow));
-                    blocks[col][iRow] = new ProtectedArea(new Vector2(col, iRow));
-                } else if (pixel == PROTECTED) {
-                    blocks[col][iRow] = new ProtectedArea(new Vector2(col, iRow));
+        ByteBuffer pixels = pixmap.getPixels();
+        for (int row = 0; row < height; row++) {
+            int iRow = height - 1 - row;
+            int i = row * width * bytesPerPixel;
+            for (int col = 0; col < width; col++) {
+                int pixel;
+                if (bytesPerPixel == 0) {
+                    pixel = (pixmap.getPixel(col, row) >>> 8) & 0xffffff;
+                } else {
+                    // absolute reads: the shared pixmap buffer position is left untouched
+                    pixel = (pixels.get(i) & 0xff) << 16 | (pixels.get(i + 1) & 0xff) << 8 | (pixels.get(i + 2) & 0xff);
+                    i += bytesPerPixel;
                 }
+                setPixel(level, col, iRow, pixel);
             }
         }
+        return level;
+    }
 
-        // setting the blocks
-        level.setBlocks(blocks);
+    /**
+     * Convertit des pixels en niveau
+     * @param width largeur de l'image
+     * @param height hauteur de l'image
+     * @param rgb couleurs 0xRRGGBB des pixels, ligne par ligne depuis le haut de l'image
+     * @return le niveau généré
+     */
+    public static Level fromRgb(int width, int height, int[] rgb) {
+        Level level = new Level(width, height);
+        for (int row = 0; row < height; row++) {
+            int iRow = height - 1 - row;
+            for (int col = 0; col < width; col++) {
+                setPixel(level, col, iRow, rgb[row * width + col] & 0xffffff);
+            }
+        }
         return level;
     }
 
-}
\ No newline at end of file
+    private static void setPixel(Level level, int col, int iRow, int pixel) {
+        switch (pixel) {
+            case BOX: level.setType(col, iRow, Block.Type.BOX); break;
+            case BLOCK: level.setType(col, iRow, Block.Type.BLOCK); break;
+            case G_UP: level.setType(col, iRow, Block.Type.G_UP); break;
+            case G_DOWN: level.setType(col, iRow, Block.Type.G_DOWN); break;
+            case LETHAL: level.setType(col, iRow, Block.Type.LETHAL); break;
+            case START_POS:
+                level.setSpawnPosition(new Vector2(col, iRow));
+                level.setType(col, iRow, Block.Type.PROTECTED_AREA);
+                break;
+            case FINISH_POS:
+                level.addFinishPosition(new Vector2(col, iRow));
+                level.setType(col, iRow, Block.Type.PROTECTED_AREA);
+                break;
+            case PROTECTED: level.setType(col, iRow, Block.Type.PROTECTED_AREA); break;
+            default: break;
+        }
+    }
+
+}
@@ -1,34 +1,49 @@
 package com.gdx.uch2.controller;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.Pool;
 import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
 import com.gdx.uch2.entities.Player;
 import com.gdx.uch2.entities.Player.State;
 import com.gdx.uch2.entities.World;
 import com.gdx.uch2.networking.GamePhase;
 import com.gdx.uch2.networking.client.GameClientHandler;
 import com.gdx.uch2.networking.client.MessageSender;
-import com.gdx.uch2.networking.messages.PlayerState;
-
-import java.util.HashMap;
-import java.util.Map;
+import com.gdx.uch2.util.Assets;
+import com.gdx.uch2.util.Constants;
 
 /**
- * Classe permettant de contrôler les mouvements et actions d'un joueur
+ * Classe permettant de contrôler les mouvements et actions d'un joueur.
+ * La simulation est déterministe : le temps simulé ne dépend que des pas effectués, les entrées (y compris la phase
+ * de jeu) ne sont prises en compte qu'au début de chaque pas. Les mêmes entrées depuis le même état sur le même niveau
+ * produisent donc exactement les mêmes états, ce qui peut être vérifié avec un {@link InputLog}. Cela suppose des
+ * calculs flottants stricts IEEE 754, comme ceux de toutes les JVM depuis Java 17 et, en pratique, des JVM x86-64
+ * antérieures (SSE2) : sur une JVM plus ancienne utilisant la FPU x87, deux machines peuvent diverger.
+ * Un pas de simulation n'a aucun effet hors du joueur et du contrôleur : les sons et les messages au serveur sont
+ * produits par {@link #update(float)} d'après les événements du pas, et ne sont donc pas rejoués par
+ * {@link #replay(InputLog, float)}.
  */
 public class PlayerController {
 
     /**
-     * Touches sur lesquelles l'utilisateur pour contrôler le joueur
+     * Entrées du joueur, combinables en masque de bits. LEFT, RIGHT et JUMP indiquent les touches maintenues pendant
+     * un pas de simulation, les autres indiquent des événements survenus depuis le pas précédent.
      */
-    enum Keys {
-        LEFT, RIGHT, JUMP
-    }
+    public static final int INPUT_LEFT          = 1;
+    public static final int INPUT_RIGHT         = 1 << 1;
+    public static final int INPUT_JUMP          = 1 << 2;
+    public static final int INPUT_JUMP_PRESSED  = 1 << 3;
+    public static final int INPUT_JUMP_RELEASED = 1 << 4;
+    public static final int INPUT_GIVE_UP       = 1 << 5;
+    public static final int INPUT_MOVING        = 1 << 6; // phase de mouvement, sans elle les déplacements sont ignorés
+
+    private static final int EVENT_JUMP   = 1;
+    private static final int EVENT_DEATH  = 1 << 1;
+    private static final int EVENT_FINISH = 1 << 2;
 
     private static final long LONG_JUMP_PRESS 	= 220;
     private static final float ACCELERATION 	= 20;
@@ -44,18 +59,19 @@ public class PlayerController {
 
     private World 	world;
     private Player 	player;
-    private long	jumpPressedTime;
+    private double  simulationTime = 0; // secondes simulées depuis la création du contrôleur
+    private double	jumpPressedTime;
     private boolean jumpingActive;
     private boolean jumpingPressed;
     private float jumpingPosition;
     private boolean grounded = false;
-    private long recoilBeginTime;
+    private double recoilBeginTime;
     private boolean finished = false;
     private float epsilon = 0.02f;
 
-    private Sound jumpingSound = Gdx.audio.newSound(Gdx.files.internal("sound/jump.mp3"));
-    private Sound deathSound = Gdx.audio.newSound(Gdx.files.internal("sound/death.mp3"));
-    private Sound finishSound = Gdx.audio.newSound(Gdx.files.internal("sound/finish.mp3"));
+    private Sound jumpingSound = Assets.getInstance().acquireSound(Assets.SOUND_JUMP);
+    private Sound deathSound = Assets.getInstance().acquireSound(Assets.SOUND_DEATH);
+    private Sound finishSound = Assets.getInstance().acquireSound(Assets.SOUND_FINISH);
 
     private Pool<Rectangle> rectPool = new Pool<Rectangle>() {
         @Override
@@ -64,9 +80,13 @@ public class PlayerController {
         }
     };
 
-    private Map<PlayerController.Keys, Boolean> keys = new HashMap<>();
+    private int keys = 0;
+    private int heldInput = 0;
+    private int pendingEvents = 0;
+    private int events = 0; // événements survenus pendant le dernier pas (EVENT_*)
+    private InputLog inputLog;
 
-    private Array<Block> collidable = new Array<>();
+    private IntArray collidable = new IntArray();
 
     /**
      * Constructeur
@@ -75,9 +95,63 @@ public class PlayerController {
     public PlayerController(World world) {
         this.world = world;
         this.player = world.getPlayer();
-        keys.put(Keys.LEFT, false);
-        keys.put(Keys.RIGHT, false);
-        keys.put(Keys.JUMP, false);
+    }
+
+    /**
+     * Rend les sons utilisés par le contrôleur
+     */
+    public void dispose() {
+        Assets.getInstance().release(Assets.SOUND_JUMP);
+        Assets.getInstance().release(Assets.SOUND_DEATH);
+        Assets.getInstance().release(Assets.SOUND_FINISH);
+    }
+
+    /**
+     * Enregistre l'état actuel, puis les entrées et l'état de chaque pas de simulation dans le journal donné
+     * @param inputLog le journal à remplir, vidé au préalable, null pour arrêter l'enregistrement
+     */
+    public void setInputLog(InputLog inputLog) {
+        this.inputLog = inputLog;
+        if (inputLog != null) {
+            inputLog.clear();
+            inputLog.setInitialState(saveState());
+        }
+    }
+
+    /**
+     * Capture l'état complet de la simulation : le joueur, le temps simulé et les minuteries de saut
+     * @return l'état capturé, indépendant du contrôleur
+     */
+    public Snapshot saveState() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.player.set(player);
+        snapshot.simulationTime = simulationTime;
+        snapshot.jumpPressedTime = jumpPressedTime;
+        snapshot.jumpingActive = jumpingActive;
+        snapshot.jumpingPressed = jumpingPressed;
+        snapshot.jumpingPosition = jumpingPosition;
+        snapshot.grounded = grounded;
+        snapshot.recoilBeginTime = recoilBeginTime;
+        snapshot.finished = finished;
+        snapshot.keys = keys;
+        return snapshot;
+    }
+
+    /**
+     * Remet la simulation dans un état capturé par {@link #saveState()}
+     * @param snapshot l'état à restaurer
+     */
+    public void restoreState(Snapshot snapshot) {
+        player.set(snapshot.player);
+        simulationTime = snapshot.simulationTime;
+        jumpPressedTime = snapshot.jumpPressedTime;
+        jumpingActive = snapshot.jumpingActive;
+        jumpingPressed = snapshot.jumpingPressed;
+        jumpingPosition = snapshot.jumpingPosition;
+        grounded = snapshot.grounded;
+        recoilBeginTime = snapshot.recoilBeginTime;
+        finished = snapshot.finished;
+        keys = snapshot.keys;
     }
 
     // ** Key presses and touches **************** //
@@ -86,52 +160,51 @@ public class PlayerController {
      * Indique que le joueur appuie sur la touche pour aller à gauche
      */
     public void leftPressed() {
-        keys.get(keys.put(Keys.LEFT, true));
+        heldInput |= INPUT_LEFT;
     }
 
     /**
      * Indique que le joueur appuie sur la touche pour aller à droite
      */
     public void rightPressed() {
-        keys.get(keys.put(Keys.RIGHT, true));
+        heldInput |= INPUT_RIGHT;
     }
 
     /**
      * Indique que le joueur appuie sur la touche pour sauter
      */
     public void jumpPressed() {
-        jumpingPressed = true;
-        keys.get(keys.put(Keys.JUMP, true));
+        heldInput |= INPUT_JUMP;
+        pendingEvents |= INPUT_JUMP_PRESSED;
     }
 
     /**
      * Indique que le joueur relâche la touche pour aller à gauche
      */
     public void leftReleased() {
-        keys.get(keys.put(Keys.LEFT, false));
+        heldInput &= ~INPUT_LEFT;
     }
 
     /**
      * Indique que le joueur relâche la touche pour aller à droite
      */
     public void rightReleased() {
-        keys.get(keys.put(Keys.RIGHT, false));
+        heldInput &= ~INPUT_RIGHT;
     }
 
     /**
      * Indique que le joueur relâche la touche pour sauter
      */
     public void jumpReleased() {
-        keys.get(keys.put(Keys.JUMP, false));
-        jumpingActive = false;
+        heldInput &= ~INPUT_JUMP;
+        pendingEvents |= INPUT_JUMP_RELEASED;
     }
 
     /**
      * Indique que le joueur appuie sur la touche pour abandonner le round
      */
     public void giveUp() {
-        if (!finished)
-            player.kill();
+        pendingEvents |= INPUT_GIVE_UP;
     }
 
     /**
@@ -139,7 +212,112 @@ public class PlayerController {
      * @param delta temps écoulé depuis le dernier appel à cette méthode
      */
     public void update(float delta) {
+        int input = heldInput | pendingEvents;
+        if (GameClientHandler.currentPhase == GamePhase.Moving) {
+            input |= INPUT_MOVING;
+        }
+        pendingEvents = 0;
+        step(delta, input);
+
+        if (inputLog != null) {
+            inputLog.record(input, getChecksum());
+        }
+        if ((events & EVENT_JUMP) != 0) {
+            jumpingSound.play(0.4f);
+        }
+        if ((events & EVENT_DEATH) != 0) {
+            deathSound.play(0.6f);
+            MessageSender.getInstance().sendDeath();
+        } else if ((events & EVENT_FINISH) != 0) {
+            finishSound.play(0.7f);
+            MessageSender.getInstance().sendFinish();
+        }
+        MessageSender.getInstance().setCurrentState(player.isDead() ? State.DEAD : player.getState(),
+                player.getPosition().x, player.getPosition().y, System.nanoTime());
+    }
+
+    /**
+     * Rejoue un journal d'entrées depuis son état initial, ou depuis l'état actuel s'il n'en a pas, et compare les
+     * états obtenus avec ceux enregistrés. Le rejeu ne joue aucun son et n'envoie aucun message.
+     * @param log le journal à rejouer
+     * @param delta durée d'un pas de simulation, identique à celle utilisée lors de l'enregistrement
+     * @return le numéro du premier pas dont l'état diverge, -1 si tous les états sont identiques
+     */
+    public int replay(InputLog log, float delta) {
+        if (log.getInitialState() != null) {
+            restoreState(log.getInitialState());
+        }
+        for (int tick = 0; tick < log.size(); ++tick) {
+            step(delta, log.getInput(tick));
+            if (getChecksum() != log.getChecksum(tick)) {
+                return tick;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Calcule une somme de contrôle de l'état complet de la simulation : le joueur, le temps simulé et les minuteries
+     * de saut. Deux simulations parties du même état et ayant reçu les mêmes entrées obtiennent la même somme de
+     * contrôle.
+     * @return la somme de contrôle
+     */
+    public int getChecksum() {
+        int h = Float.floatToIntBits(player.getPosition().x);
+        h = 31 * h + Float.floatToIntBits(player.getPosition().y);
+        h = 31 * h + Float.floatToIntBits(player.getVelocity().x);
+        h = 31 * h + Float.floatToIntBits(player.getVelocity().y);
+        h = 31 * h + Float.floatToIntBits(player.getAcceleration().x);
+        h = 31 * h + Float.floatToIntBits(player.getAcceleration().y);
+        h = 31 * h + Float.floatToIntBits(player.getStateTime());
+        h = 31 * h + player.getState().ordinal();
+        h = 31 * h + (player.isDead() ? 1 : 0);
+        h = 31 * h + (player.isFacingLeft() ? 1 : 0);
+        // la classe de l'effet, dont le nom a la même empreinte d'une exécution à l'autre
+        h = 31 * h + (player.getEffect() == null ? 0 : player.getEffect().getClass().getName().hashCode());
+        h = 31 * h + hash(simulationTime);
+        h = 31 * h + hash(jumpPressedTime);
+        h = 31 * h + hash(recoilBeginTime);
+        h = 31 * h + Float.floatToIntBits(jumpingPosition);
+        h = 31 * h + (jumpingActive ? 1 : 0);
+        h = 31 * h + (jumpingPressed ? 1 : 0);
+        h = 31 * h + (grounded ? 1 : 0);
+        h = 31 * h + (finished ? 1 : 0);
+        h = 31 * h + keys;
+        return h;
+    }
+
+    private static int hash(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    // Applique les entrées données au début d'un pas de simulation
+    private void applyInput(int input) {
+        keys = input;
+        if ((input & INPUT_JUMP_RELEASED) != 0) {
+            jumpingActive = false;
+        }
+        if ((input & INPUT_JUMP_PRESSED) != 0) {
+            jumpingPressed = true;
+        }
+        if ((input & INPUT_GIVE_UP) != 0 && !finished) {
+            player.kill();
+        }
+    }
+
+    private boolean isHeld(int key) {
+        return (keys & key) != 0;
+    }
+
+    // Effectue un pas de simulation
+    private void step(float delta, int input) {
+        events = 0;
+        simulationTime += delta;
+        applyInput(input);
+
         State bak = player.getState();
+        player.savePreviousPosition();
         if (!finished && !player.isDead()) {
             // Processing the input - setting the states of Player
             processInput();
@@ -149,7 +327,7 @@ public class PlayerController {
             player.kill();
         } else {
             // Fix resume mess after long inactivity
-            delta = Math.min(delta, 0.025f);
+            delta = Math.min(delta, Constants.MAX_FRAME_TIME);
 
             // Setting initial vertical acceleration
             player.getAcceleration().y = GRAVITY;
@@ -198,23 +376,12 @@ public class PlayerController {
         if (player.isDead()) {
             finish();
         }
-
-        MessageSender.getInstance().setCurrentState(
-                new PlayerState(MessageSender.getInstance().getPlayerID(),
-                        player.isDead() ? State.DEAD : player.getState(),
-                        player.getPosition().x, player.getPosition().y, System.nanoTime()));
     }
 
     //Mort ou arrivé
     private void finish() {
         if(!finished){
-            if (player.isDead()) {
-                deathSound.play(0.6f);
-                MessageSender.getInstance().sendDeath();
-            } else {
-                finishSound.play(0.7f);
-                MessageSender.getInstance().sendFinish();
-            }
+            events |= player.isDead() ? EVENT_DEATH : EVENT_FINISH;
             finished = true;
             player.setState(State.IDLE);
         }
@@ -231,10 +398,8 @@ public class PlayerController {
         playerRect.set(player.getBounds().x, player.getBounds().y, player.getBounds().width, player.getBounds().height);
 
         // Check victory
-        for(Block finishblock : world.getLevel().getFinishBlocks()){
-            if (playerRect.overlaps(finishblock.getBounds())) {
-                finish();
-            }
+        if (world.getLevel().overlapsFinish(playerRect)) {
+            finish();
         }
 
 
@@ -245,144 +410,186 @@ public class PlayerController {
             fakeVeloctiy = true;
         }
 
-        // we first check the movement on the horizontal X axis
-        int startX, endX;
-        int startY = (int) player.getBounds().y;
-        int endY = (int) (player.getBounds().y + player.getBounds().height);
-        // if Player is heading left then we check if he collides with the block on his left
-        // we check the block on his right otherwise
-        if (player.getVelocity().x < 0) {
-            startX = endX = (int) Math.floor(player.getBounds().x + player.getVelocity().x);
-        } else {
-            startX = endX = (int) Math.floor(player.getBounds().x + player.getBounds().width + player.getVelocity().x);
-        }
-
-        // get the block(s) player can collide with
-        populateCollidableBlocks(startX, startY, endX, endY);
-
-        // simulate player's movement on the X
-
-        playerRect.x += player.getVelocity().x;
-
         // clear collision boxes in world
+        rectPool.freeAll(world.getCollisionRects());
         world.getCollisionRects().clear();
 
-        boolean collide = false;
-        // if player collides, make his horizontal velocity 0
-        for (Block block : collidable) {
-            if (block == null) continue;
-            if (!block.isSolid()) continue;
-            if (playerRect.overlaps(block.getBounds())) {
-                collide = true;
-
-                if (player.getPosition().x < jumpingPosition - epsilon
-                        || player.getPosition().x > jumpingPosition + epsilon) {
-                    jumpingActive = false;
-                }
-                if(!grounded) {
-                    player.setState(State.SLIDING);
+        // we first sweep the movement on the horizontal X axis, through every column crossed during this step
+        float dx = player.getVelocity().x;
+        boolean collide = sweepX(playerRect, dx) < 1;
+        // if player collides, make him touch the first block hit and make his horizontal velocity 0
+        for (int i = 0; i < collidable.size; i += 2) {
+            int col = collidable.get(i);
+            int row = collidable.get(i + 1);
+            if (player.getPosition().x < jumpingPosition - epsilon
+                    || player.getPosition().x > jumpingPosition + epsilon) {
+                jumpingActive = false;
+            }
+            if(!grounded) {
+                player.setState(State.SLIDING);
 
-                    if (player.getVelocity().x < 0) {
-                        player.setFacingLeft(true);
-                    } else if (player.getVelocity().x > 0){
-                        player.setFacingLeft(false);
-                    }
+                if (dx < 0) {
+                    player.setFacingLeft(true);
+                } else if (dx > 0){
+                    player.setFacingLeft(false);
                 }
+            }
 
-                // Apply block action if any
-                block.action(player);
-
-                world.getCollisionRects().add(block.getBounds());
+            // Apply block action if any
+            world.getLevel().action(col, row, player);
 
-                // Fix oscillating state at colliding
-                if (player.getVelocity().x < 0) {
-                    player.translate(new Vector2(block.getBounds().x + block.getBounds().width - player.getBounds().x, 0));
-                } else if (player.getVelocity().x > 0){
-                    player.translate(new Vector2(block.getBounds().x - player.getBounds().x - player.getBounds().width, 0));
-                }
+            world.getCollisionRects().add(rectPool.obtain().set(col, row, Block.SIZE, Block.SIZE));
 
-                player.getVelocity().x = 0;
+            // Fix oscillating state at colliding
+            if (dx < 0) {
+                player.translate(col + Block.SIZE - player.getBounds().x, 0);
+            } else if (dx > 0){
+                player.translate(col - player.getBounds().x - player.getBounds().width, 0);
             }
+
+            player.getVelocity().x = 0;
         }
 
+        if (!collide && !fakeVeloctiy) {
+            player.translate(dx, 0);
+        }
         if (fakeVeloctiy) {
             player.getVelocity().x = 0;
         }
 
-        // reset the x position of the collision box
+        // the same thing on the vertical Y axis, from the new horizontal position
         playerRect.x = player.getBounds().x;
-
-        // the same thing but on the vertical Y axis
-        startX = (int) player.getBounds().x;
-        endX = (int) (player.getBounds().x + player.getBounds().width);
-        if (player.getVelocity().y <= 0) {
-            startY = endY = (int) Math.floor(player.getBounds().y + player.getVelocity().y);
-        } else {
-            startY = endY = (int) Math.floor(player.getBounds().y + player.getBounds().height + player.getVelocity().y);
-        }
-
-        playerRect.y += player.getVelocity().y;
-
-        populateCollidableBlocks(startX, startY, endX, endY);
+        float dy = player.getVelocity().y;
+        boolean collideY = sweepY(playerRect, dy) < 1;
 
         State backup = player.getState();
         if (player.getState() != State.SLIDING || !collide) {
             player.setState(State.JUMPING);
         }
         grounded = false;
-        for (Block block : collidable) {
-            if (block == null) continue;
-            if (!block.isSolid()) continue;
-            if (playerRect.overlaps(block.getBounds())) {
-                jumpingActive = false;
-                if (player.getVelocity().y < 0) {
-                    // Fix oscillating state at landing
-                    player.translate(new Vector2(0, block.getBounds().y + block.getBounds().height - player.getBounds().y));
-
-                    player.setState(backup);
-                    grounded = true;
-                }
+        for (int i = 0; i < collidable.size; i += 2) {
+            int col = collidable.get(i);
+            int row = collidable.get(i + 1);
+            jumpingActive = false;
+            if (dy < 0) {
+                // Fix oscillating state at landing
+                player.translate(0, row + Block.SIZE - player.getBounds().y);
+
+                player.setState(backup);
+                grounded = true;
+            } else {
+                // Stop against the ceiling
+                player.translate(0, Math.max(0, row - player.getBounds().y - player.getBounds().height));
+            }
 
-                player.getVelocity().y = 0;
+            player.getVelocity().y = 0;
 
-                // Apply block action if any
-                block.action(player);
+            // Apply block action if any
+            world.getLevel().action(col, row, player);
 
-                world.getCollisionRects().add(block.getBounds());
-            }
+            world.getCollisionRects().add(rectPool.obtain().set(col, row, Block.SIZE, Block.SIZE));
         }
-        // reset the collision box's position on Y
-        playerRect.y = player.getBounds().y;
 
+        if (!collideY) {
+            player.translate(0, dy);
+        }
 
-        player.translate(player.getVelocity());
+        rectPool.free(playerRect);
 
         // un-scale velocity (not in frame time)
         player.getVelocity().scl(1 / delta);
 
     }
 
+    /**
+     * Balaye la hitbox du joueur horizontalement, colonne par colonne, sur tout le déplacement du pas. Les cases
+     * solides de la première colonne touchée sont placées dans collidable.
+     * @param rect hitbox du joueur
+     * @param dx déplacement horizontal pendant le pas
+     * @return la fraction du déplacement effectuée avant le contact (temps d'impact), 1 s'il n'y a pas de contact
+     */
+    private float sweepX(Rectangle rect, float dx) {
+        collidable.clear();
+        int rowStart = (int) Math.floor(rect.y);
+        int rowEnd = (int) Math.ceil(rect.y + rect.height) - 1;
+        if (dx < 0) {
+            float edge = rect.x;
+            int last = (int) Math.floor(edge + dx);
+            for (int col = (int) Math.ceil(edge) - 1; col >= last; --col) {
+                if (populateCollidableBlocks(col, rowStart, col, rowEnd)) {
+                    return timeOfImpact(col + Block.SIZE - edge, dx);
+                }
+            }
+        } else if (dx > 0) {
+            float edge = rect.x + rect.width;
+            int last = (int) Math.ceil(edge + dx) - 1;
+            for (int col = (int) Math.floor(edge); col <= last; ++col) {
+                if (populateCollidableBlocks(col, rowStart, col, rowEnd)) {
+                    return timeOfImpact(col - edge, dx);
+                }
+            }
+        }
+        return 1;
+    }
 
-    private void populateCollidableBlocks(int startX, int startY, int endX, int endY) {
+    /**
+     * Balaye la hitbox du joueur verticalement, ligne par ligne, sur tout le déplacement du pas. Les cases solides
+     * de la première ligne touchée sont placées dans collidable.
+     * @param rect hitbox du joueur
+     * @param dy déplacement vertical pendant le pas
+     * @return la fraction du déplacement effectuée avant le contact (temps d'impact), 1 s'il n'y a pas de contact
+     */
+    private float sweepY(Rectangle rect, float dy) {
         collidable.clear();
+        int colStart = (int) Math.floor(rect.x);
+        int colEnd = (int) Math.ceil(rect.x + rect.width) - 1;
+        if (dy < 0) {
+            float edge = rect.y;
+            int last = (int) Math.floor(edge + dy);
+            for (int row = (int) Math.ceil(edge) - 1; row >= last; --row) {
+                if (populateCollidableBlocks(colStart, row, colEnd, row)) {
+                    return timeOfImpact(row + Block.SIZE - edge, dy);
+                }
+            }
+        } else if (dy > 0) {
+            float edge = rect.y + rect.height;
+            int last = (int) Math.ceil(edge + dy) - 1;
+            for (int row = (int) Math.floor(edge); row <= last; ++row) {
+                if (populateCollidableBlocks(colStart, row, colEnd, row)) {
+                    return timeOfImpact(row - edge, dy);
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static float timeOfImpact(float distance, float move) {
+        return Math.max(0, Math.min(1, distance / move));
+    }
+
+    // Place les coordonnées des cases solides de la zone donnée dans collidable (x puis y), retourne true si au moins
+    // une case a été trouvée. Le test se fait sur la couche de collision du niveau, sans objet Block.
+    private boolean populateCollidableBlocks(int startX, int startY, int endX, int endY) {
+        Level level = world.getLevel();
         for (int x = startX; x <= endX; x++) {
             for (int y = startY; y <= endY; y++) {
-                if (x >= 0 && x < world.getLevel().getWidth() && y >=0 && y < world.getLevel().getHeight()) {
-                    collidable.add(world.getLevel().get(x, y));
+                if (level.isSolid(x, y)) {
+                    collidable.add(x, y);
                 }
             }
         }
+        return collidable.size > 0;
     }
 
 
-    private boolean processInput() {
-        if(GameClientHandler.currentPhase == GamePhase.Moving){
-            if (keys.get(Keys.JUMP)) {
+    private void processInput() {
+        if (isHeld(INPUT_MOVING)) {
+            if (isHeld(INPUT_JUMP)) {
                 if (jumpingPressed && (!player.getState().equals(State.JUMPING))) {
-                    jumpingSound.play(0.4f);
+                    events |= EVENT_JUMP;
                     jumpingActive = true;
                     jumpingPressed = false;
-                    jumpPressedTime = System.currentTimeMillis();
+                    jumpPressedTime = simulationTime;
                     jumpingPosition = player.getPosition().x;
 
                     player.getVelocity().y = MAX_JUMP_SPEED;
@@ -390,16 +597,16 @@ public class PlayerController {
 
                     if (player.getState() == State.SLIDING) {
                         jumpingPosition = -1;
-                        recoilBeginTime = System.currentTimeMillis();
+                        recoilBeginTime = simulationTime;
                         player.getAcceleration().x = 0;
 
                         if (player.isFacingLeft()) {
-                            if (!keys.get(Keys.LEFT)) {
+                            if (!isHeld(INPUT_LEFT)) {
                                 player.setFacingLeft(false);
                             }
                             player.getVelocity().x = MAX_JUMP_SPEED;
                         } else {
-                            if (!keys.get(Keys.RIGHT)) {
+                            if (!isHeld(INPUT_RIGHT)) {
                                 player.setFacingLeft(true);
                             }
                             player.getVelocity().x = -MAX_JUMP_SPEED;
@@ -408,7 +615,7 @@ public class PlayerController {
 
                     player.setState(State.JUMPING);
                 } else if (jumpingActive){
-                    if ((System.currentTimeMillis() - jumpPressedTime) >= LONG_JUMP_PRESS) {
+                    if ((simulationTime - jumpPressedTime) * 1000 >= LONG_JUMP_PRESS) {
                         jumpingActive = false;
                     } else {
                         player.getVelocity().y = MAX_JUMP_SPEED;
@@ -418,14 +625,14 @@ public class PlayerController {
 
             float tmp;
             boolean flag = player.isFacingLeft();
-            if (keys.get(Keys.LEFT)) {
+            if (isHeld(INPUT_LEFT)) {
                 // left is pressed
                 player.setFacingLeft(true);
                 if (!player.getState().equals(State.JUMPING)) {
                     player.setState(State.WALKING);
                 }
                 tmp = -ACCELERATION;
-            } else if (keys.get(Keys.RIGHT)) {
+            } else if (isHeld(INPUT_RIGHT)) {
                 // left is pressed
                 player.setFacingLeft(false);
                 if (!player.getState().equals(State.JUMPING)) {
@@ -441,12 +648,29 @@ public class PlayerController {
 
             }
 
-            if (System.currentTimeMillis() - recoilBeginTime >= SLIDING_JUMP_RECOIL_TIME
+            if ((simulationTime - recoilBeginTime) * 1000 >= SLIDING_JUMP_RECOIL_TIME
                     || flag != player.isFacingLeft()) {
                 player.getAcceleration().x = tmp;
             }
         }
-        return false;
     }
 
+    /**
+     * État complet de la simulation d'un joueur, capturé par {@link #saveState()}
+     */
+    public static class Snapshot {
+        private final Player player = new Player(new Vector2());
+        private double simulationTime;
+        private double jumpPressedTime;
+        private boolean jumpingActive;
+        private boolean jumpingPressed;
+        private float jumpingPosition;
+        private boolean grounded;
+        private double recoilBeginTime;
+        private boolean finished;
+        private int keys;
+
+        private Snapshot() {
+        }
+    }
 }
@@ -52,6 +52,25 @@ public class Block {
         this.type = type;
     }
 
+    /**
+     * Crée un block du type donné, avec la classe correspondant à son comportement
+     * @param type le type de block
+     * @param pos la position du block
+     * @return le block créé
+     */
+    public static Block create(Type type, Vector2 pos) {
+        switch (type) {
+            case LETHAL:
+            case G_DOWN:
+            case G_UP:
+                return new Trap(pos, type);
+            case PROTECTED_AREA:
+                return new ProtectedArea(pos);
+            default:
+                return new Block(pos, type);
+        }
+    }
+
     /**
      *
      * @return la position du block
@@ -1,26 +1,114 @@
 package com.gdx.uch2.entities;
 
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Classe représentant un niveau
+ * Classe représentant un niveau.
+ * Le contenu du niveau est une grille compacte de codes de type (un byte par case), accompagnée d'une couche de
+ * collision d'un bit par case. Le comportement d'un block ne dépend que de son type : il est porté par une instance
+ * partagée par type. Les objets Block retournés par {@link #get(int, int)} sont des vues créées à la demande.
+ * La grille est découpée en chunks de {@link #CHUNK_SIZE} cases de côté, alloués seulement s'ils contiennent au moins
+ * une case non vide : la mémoire utilisée dépend du contenu du niveau et non de sa taille.
+ * Une copie d'un niveau ({@link #Level(Level)}) partage ses chunks avec l'original : un chunk partagé n'est copié que
+ * lorsque l'un des deux niveaux le modifie.
+ * Un chunk non vide peut aussi être déchargé ({@link #unloadAll()}, {@link #streamChunks(int[], int, int)}) : il est
+ * alors gardé sous une forme compacte, compressée par plages, et décodé de nouveau au premier accès à l'une de ses
+ * cases. Seuls les chunks proches des joueurs restent ainsi décodés, quelle que soit la taille du niveau. Un accès
+ * pouvant décoder un chunk, un niveau ne doit pas être lu par plusieurs threads à la fois.
+ * Une somme de contrôle du contenu de la grille (hachage de Zobrist) est tenue à jour à chaque modification, pour
+ * comparer deux niveaux sans les parcourir.
  */
 public class Level {
 
+    /**
+     * Code de type d'une case vide. Les autres codes valent l'ordinal du type de block plus un.
+     */
+    public static final byte EMPTY = 0;
+
+    /**
+     * Nombre de cases d'un côté de chunk
+     */
+    public static final int CHUNK_SIZE = 32;
+
+    private static final int CHUNK_SHIFT = 5;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final Block.Type[] TYPES = Block.Type.values();
+
+    /**
+     * Instances partagées portant le comportement de chaque type de block
+     */
+    private static final Block[] BEHAVIOURS = new Block[TYPES.length];
+    static {
+        for (Block.Type type : TYPES) {
+            BEHAVIOURS[type.ordinal()] = Block.create(type, new Vector2());
+        }
+    }
+
     private int width;
     private int height;
-    private Block[][] blocks;
+    private int chunksX;
+    private int chunksY;
+    private Chunk[] chunks = new Chunk[0];
+    private byte[][] packed = new byte[0][];
+    private int loadedChunks;
+    private int[] chunkVersions = new int[0];
+    private long checksum;
     private Vector2 spawnPosition;
-    private List<Vector2> finishPositions = new LinkedList<>();
+    private List<Vector2> finishPositions = new ArrayList<>();
 
     /**
      * Constructeur sans arguments
      */
     public Level() {  }
 
+    /**
+     * Constructeur créant un niveau vide de la taille donnée
+     * @param width largeur du niveau
+     * @param height hauteur du niveau
+     */
+    public Level(int width, int height) {
+        this.width = width;
+        this.height = height;
+        allocate();
+    }
+
+    /**
+     * Constructeur créant une copie du niveau donné. Les chunks sont partagés entre les deux niveaux et copiés lors de
+     * leur première modification, la copie est donc peu coûteuse tant que les niveaux restent semblables.
+     * @param other le niveau à copier
+     */
+    public Level(Level other) {
+        width = other.width;
+        height = other.height;
+        chunksX = other.chunksX;
+        chunksY = other.chunksY;
+        other.share();
+        chunks = other.chunks.clone();
+        packed = other.packed.clone();
+        chunkVersions = other.chunkVersions.clone();
+        checksum = other.checksum;
+        spawnPosition = other.spawnPosition == null ? null : new Vector2(other.spawnPosition);
+        for (Vector2 pos : other.finishPositions) {
+            finishPositions.add(new Vector2(pos));
+        }
+    }
+
+    /**
+     * Marque tous les chunks du niveau comme partagés : ils seront copiés avant toute modification
+     */
+    void share() {
+        for (Chunk chunk : chunks) {
+            if (chunk != null && !chunk.shared) {
+                chunk.shared = true;
+            }
+        }
+    }
+
     /**
      *
      * @return la largeur du niveau
@@ -30,11 +118,12 @@ public class Level {
     }
 
     /**
-     * Donne une valeur à la largeur du niveau
+     * Donne une valeur à la largeur du niveau. Le contenu du niveau est vidé.
      * @param width nouvelle largeur
      */
     public void setWidth(int width) {
         this.width = width;
+        allocate();
     }
 
     /**
@@ -46,37 +135,192 @@ public class Level {
     }
 
     /**
-     * Donne une valeur à la hauteur du niveau
+     * Donne une valeur à la hauteur du niveau. Le contenu du niveau est vidé.
      * @param height nouvelle hauteur
      */
     public void setHeight(int height) {
         this.height = height;
+        allocate();
     }
 
     /**
-     *
-     * @return les blocks du niveau
-     */
-    public Block[][] getBlocks() {
-        return blocks;
-    }
-
-    /**
-     * Donne un nouvel agencement de blocks
-     * @param blocks le nouvel agencement de blocks
+     * Remplace le contenu du niveau par l'agencement de blocks donné
+     * @param blocks le nouvel agencement de blocks, indexé par [x][y]
      */
     public void setBlocks(Block[][] blocks) {
-        this.blocks = blocks;
+        for (int x = 0; x < width; ++x) {
+            for (int y = 0; y < height; ++y) {
+                set(x, y, blocks[x][y]);
+            }
+        }
     }
 
     /**
-     * Obtient le block à la position donnée en paramètre
+     * Obtient une vue du block à la position donnée en paramètre. La vue est créée à chaque appel : les boucles
+     * internes doivent préférer {@link #getType(int, int)} et {@link #isSolid(int, int)}.
      * @param x position X du block demandé
      * @param y position Y du block demandé
-     * @return le block demandé
+     * @return le block demandé, null si la case est vide
      */
     public Block get(int x, int y) {
-        return blocks[x][y];
+        Block.Type type = getType(x, y);
+        return type == null ? null : Block.create(type, new Vector2(x, y));
+    }
+
+    /**
+     * Place un block à la position donnée, en remplaçant le block existant
+     * @param x position X de la case
+     * @param y position Y de la case
+     * @param block le block à placer, null pour vider la case
+     * @throws IndexOutOfBoundsException si la case est hors du niveau
+     */
+    public void set(int x, int y, Block block) {
+        setType(x, y, block == null ? null : block.getType());
+    }
+
+    /**
+     * Place un block du type donné à la position donnée, en remplaçant le block existant
+     * @param x position X de la case
+     * @param y position Y de la case
+     * @param type le type du block à placer, null pour vider la case
+     * @throws IndexOutOfBoundsException si la case est hors du niveau
+     */
+    public void setType(int x, int y, Block.Type type) {
+        // sans ce test, une case hors du niveau tomberait dans la marge d'un chunk ou dans un autre chunk
+        if (!contains(x, y)) {
+            throw new IndexOutOfBoundsException("Case (" + x + ", " + y + ") hors du niveau " + width + "x" + height);
+        }
+        int c = (y >> CHUNK_SHIFT) * chunksX + (x >> CHUNK_SHIFT);
+        Chunk chunk = chunks[c] != null || packed[c] == null ? chunks[c] : load(c);
+        if (chunk == null) {
+            if (type == null) {
+                return;
+            }
+            chunk = chunks[c] = new Chunk();
+        } else if (chunk.shared) {
+            chunk = chunks[c] = chunk.copy();
+        }
+        int i = cellIndex(x, y);
+        byte old = chunk.types[i];
+        chunk.set(i, type);
+        checksum ^= zobrist(x, y, old) ^ zobrist(x, y, chunk.types[i]);
+        ++chunkVersions[c];
+        if (chunk.isEmpty()) {
+            chunks[c] = null;
+        }
+    }
+
+    /**
+     * Vide la case à la position donnée
+     * @param x position X de la case
+     * @param y position Y de la case
+     * @throws IndexOutOfBoundsException si la case est hors du niveau
+     */
+    public void remove(int x, int y) {
+        setType(x, y, null);
+    }
+
+    /**
+     * @param x position X de la case
+     * @param y position Y de la case
+     * @return true si la case fait partie du niveau
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Indique si la case donnée contient un block solide. Les cases hors du niveau ne sont pas solides.
+     * @param x position X de la case
+     * @param y position Y de la case
+     * @return true si la case est solide, false sinon
+     */
+    public boolean isSolid(int x, int y) {
+        Chunk chunk = chunkAt(x, y);
+        return chunk != null && chunk.isSolid(cellIndex(x, y));
+    }
+
+    /**
+     * @param x position X de la case
+     * @param y position Y de la case
+     * @return le code de type de la case, {@link #EMPTY} si elle est vide ou hors du niveau
+     */
+    public byte getTypeCode(int x, int y) {
+        Chunk chunk = chunkAt(x, y);
+        return chunk == null ? EMPTY : chunk.types[cellIndex(x, y)];
+    }
+
+    /**
+     * @param x position X de la case
+     * @param y position Y de la case
+     * @return le type du block de la case, null si elle est vide ou hors du niveau
+     */
+    public Block.Type getType(int x, int y) {
+        byte code = getTypeCode(x, y);
+        return code == EMPTY ? null : TYPES[code - 1];
+    }
+
+    /**
+     * Applique l'action du block de la case donnée sur le joueur qui le touche
+     * @param x position X de la case
+     * @param y position Y de la case
+     * @param player le joueur sur lequel appliquer l'action
+     */
+    public void action(int x, int y, Player player) {
+        Block.Type type = getType(x, y);
+        if (type != null) {
+            BEHAVIOURS[type.ordinal()].action(player);
+        }
+    }
+
+    /**
+     * Indique si la case donnée est une arrivée
+     * @param x position X de la case
+     * @param y position Y de la case
+     * @return true si la case est une arrivée, false sinon
+     */
+    public boolean isFinish(int x, int y) {
+        Chunk chunk = chunkAt(x, y);
+        return chunk != null && chunk.isFinish(cellIndex(x, y));
+    }
+
+    /**
+     * Indique si la case donnée contient un piège
+     * @param x position X de la case
+     * @param y position Y de la case
+     * @return true si la case contient un piège, false sinon
+     */
+    public boolean isTrap(int x, int y) {
+        Block.Type type = getType(x, y);
+        return type == Block.Type.LETHAL || type == Block.Type.G_UP || type == Block.Type.G_DOWN;
+    }
+
+    /**
+     * Indique si la case donnée fait partie d'une zone protégée
+     * @param x position X de la case
+     * @param y position Y de la case
+     * @return true si la case est protégée, false sinon
+     */
+    public boolean isProtected(int x, int y) {
+        return getType(x, y) == Block.Type.PROTECTED_AREA;
+    }
+
+    /**
+     * Indique si un rectangle chevauche une arrivée. Seules les cases couvertes par le rectangle sont testées.
+     * @param rect le rectangle à tester, en unités du niveau
+     * @return true si le rectangle chevauche au moins une case d'arrivée
+     */
+    public boolean overlapsFinish(Rectangle rect) {
+        int colEnd = (int) Math.ceil(rect.x + rect.width) - 1;
+        int rowEnd = (int) Math.ceil(rect.y + rect.height) - 1;
+        for (int x = (int) Math.floor(rect.x); x <= colEnd; ++x) {
+            for (int y = (int) Math.floor(rect.y); y <= rowEnd; ++y) {
+                if (isFinish(x, y)) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     /**
@@ -107,8 +351,9 @@ public class Level {
      */
     public Block[] getFinishBlocks() {
         Block[] ret = new Block[finishPositions.size()];
-        for(int i = 0; i < finishPositions.size(); ++i){
-            ret[i] = new Block(finishPositions.get(i));
+        int i = 0;
+        for (Vector2 pos : finishPositions) {
+            ret[i++] = new Block(pos);
         }
         return ret;
     }
@@ -119,5 +364,329 @@ public class Level {
      */
     public void addFinishPosition(Vector2 newFinishPosition) {
         finishPositions.add(newFinishPosition);
+        markFinish(newFinishPosition);
+    }
+
+    /**
+     * @return le nombre de chunks sur la largeur du niveau
+     */
+    public int getChunksX() {
+        return chunksX;
+    }
+
+    /**
+     * @return le nombre de chunks sur la hauteur du niveau
+     */
+    public int getChunksY() {
+        return chunksY;
+    }
+
+    /**
+     * Indique si un chunk contient au moins une case non vide
+     * @param chunkX position X du chunk, en chunks
+     * @param chunkY position Y du chunk, en chunks
+     * @return true si le chunk est alloué, false s'il est vide
+     */
+    public boolean isChunkAllocated(int chunkX, int chunkY) {
+        int c = chunkY * chunksX + chunkX;
+        return chunks[c] != null || packed[c] != null;
+    }
+
+    /**
+     * Indique si un chunk est décodé. Un chunk déchargé reste alloué sous sa forme compacte.
+     * @param chunkX position X du chunk, en chunks
+     * @param chunkY position Y du chunk, en chunks
+     * @return true si le chunk est décodé, false s'il est vide ou déchargé
+     */
+    public boolean isChunkLoaded(int chunkX, int chunkY) {
+        return chunks[chunkY * chunksX + chunkX] != null;
+    }
+
+    /**
+     * Donne le numéro de version d'un chunk, incrémenté à chaque modification de son contenu. Permet de savoir si
+     * une représentation du chunk construite auparavant est encore à jour.
+     * @param chunkX position X du chunk, en chunks
+     * @param chunkY position Y du chunk, en chunks
+     * @return le numéro de version du chunk
+     */
+    public int getChunkVersion(int chunkX, int chunkY) {
+        return chunkVersions[chunkY * chunksX + chunkX];
+    }
+
+    /**
+     * @return la somme de contrôle du contenu de la grille, égale pour deux niveaux de même taille ayant les mêmes
+     * blocks aux mêmes positions
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return le nombre de chunks décodés appartenant à ce seul niveau, c'est-à-dire alloués, copiés ou décodés depuis
+     * sa création
+     */
+    public int getOwnedChunks() {
+        int n = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk != null && !chunk.shared) {
+                ++n;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return le nombre de chunks alloués, décodés ou déchargés
+     */
+    public int getAllocatedChunks() {
+        int n = 0;
+        for (int c = 0; c < chunks.length; ++c) {
+            if (chunks[c] != null || packed[c] != null) {
+                ++n;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return le nombre de chunks décodés
+     */
+    public int getLoadedChunks() {
+        int n = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk != null) {
+                ++n;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return le nombre de chunks décodés depuis leur forme compacte depuis la création du niveau
+     */
+    public int getChunkLoads() {
+        return loadedChunks;
+    }
+
+    /**
+     * Décharge tous les chunks décodés. Utilisé pour les modèles de niveau, qui ne sont jamais lus directement.
+     */
+    public void unloadAll() {
+        for (int c = 0; c < chunks.length; ++c) {
+            if (chunks[c] != null) {
+                unload(c);
+            }
+        }
+    }
+
+    /**
+     * Décode les chunks proches des positions données et décharge ceux qui en sont éloignés. Un chunk est décodé s'il
+     * est à au plus radius chunks de l'une des positions, et déchargé s'il est à plus de radius + 1 chunks de toutes :
+     * un joueur qui fait des allers-retours sur la bordure d'un chunk ne le fait pas décoder à chaque passage.
+     * Les chunks déchargés restent lisibles, ils sont décodés de nouveau au premier accès.
+     * @param centers positions en chunks, X puis Y pour chaque position
+     * @param count nombre de positions
+     * @param radius distance en chunks, sur chaque axe, des chunks à garder décodés
+     */
+    public void streamChunks(int[] centers, int count, int radius) {
+        for (int cy = 0; cy < chunksY; ++cy) {
+            for (int cx = 0; cx < chunksX; ++cx) {
+                int distance = Integer.MAX_VALUE;
+                for (int i = 0; i < count; ++i) {
+                    distance = Math.min(distance,
+                            Math.max(Math.abs(cx - centers[2 * i]), Math.abs(cy - centers[2 * i + 1])));
+                }
+                int c = cy * chunksX + cx;
+                if (distance <= radius && chunks[c] == null && packed[c] != null) {
+                    load(c);
+                } else if (distance > radius + 1 && chunks[c] != null) {
+                    unload(c);
+                }
+            }
+        }
+    }
+
+    private void markFinish(Vector2 pos) {
+        int x = (int) pos.x;
+        int y = (int) pos.y;
+        if (!contains(x, y)) {
+            return;
+        }
+        int c = (y >> CHUNK_SHIFT) * chunksX + (x >> CHUNK_SHIFT);
+        if (chunks[c] == null && packed[c] != null) {
+            load(c);
+        }
+        if (chunks[c] == null) {
+            chunks[c] = new Chunk();
+        } else if (chunks[c].shared) {
+            chunks[c] = chunks[c].copy();
+        }
+        chunks[c].markFinish(cellIndex(x, y));
+        ++chunkVersions[c];
+    }
+
+    // Retourne le chunk contenant la case donnée, décodé si besoin, null si la case est hors du niveau ou si le chunk
+    // est vide
+    private Chunk chunkAt(int x, int y) {
+        if (!contains(x, y)) {
+            return null;
+        }
+        int c = (y >> CHUNK_SHIFT) * chunksX + (x >> CHUNK_SHIFT);
+        Chunk chunk = chunks[c];
+        return chunk != null || packed[c] == null ? chunk : load(c);
+    }
+
+    // Décode un chunk déchargé. Les marques d'arrivée, absentes de la forme compacte, sont reprises des positions
+    // d'arrivée du niveau.
+    private Chunk load(int c) {
+        Chunk chunk = new Chunk();
+        byte[] runs = packed[c];
+        int i = 0;
+        for (int r = 0; r < runs.length; r += 2) {
+            byte code = runs[r];
+            int end = i + (runs[r + 1] & 0xFF) + 1;
+            for (; i < end; ++i) {
+                if (code != EMPTY) {
+                    chunk.set(i, TYPES[code - 1]);
+                }
+            }
+        }
+        int x0 = (c % chunksX) << CHUNK_SHIFT;
+        int y0 = (c / chunksX) << CHUNK_SHIFT;
+        for (Vector2 pos : finishPositions) {
+            int x = (int) pos.x;
+            int y = (int) pos.y;
+            if (x >= x0 && x < x0 + CHUNK_SIZE && y >= y0 && y < y0 + CHUNK_SIZE && contains(x, y)) {
+                chunk.markFinish(cellIndex(x, y));
+            }
+        }
+        chunks[c] = chunk;
+        packed[c] = null;
+        ++loadedChunks;
+        return chunk;
+    }
+
+    // Remplace un chunk décodé par sa forme compacte : des paires (code, longueur - 1) de plages d'au plus 256 cases.
+    // La version du chunk est inchangée, son contenu l'étant aussi.
+    private void unload(int c) {
+        byte[] types = chunks[c].types;
+        byte[] runs = new byte[2 * countRuns(types)];
+        int r = 0;
+        int start = 0;
+        for (int i = 1; i <= types.length; ++i) {
+            if (i == types.length || types[i] != types[start] || i - start == 256) {
+                runs[r++] = types[start];
+                runs[r++] = (byte) (i - start - 1);
+                start = i;
+            }
+        }
+        packed[c] = runs;
+        chunks[c] = null;
+    }
+
+    private static int countRuns(byte[] types) {
+        int n = 0;
+        int start = 0;
+        for (int i = 1; i <= types.length; ++i) {
+            if (i == types.length || types[i] != types[start] || i - start == 256) {
+                ++n;
+                start = i;
+            }
+        }
+        return n;
+    }
+
+    // Valeur aléatoire mais reproductible associée à un code de type sur une case, nulle pour une case vide
+    private static long zobrist(int x, int y, byte code) {
+        if (code == EMPTY) {
+            return 0;
+        }
+        long z = ((long) x << 40) ^ ((long) y << 8) ^ code;
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int cellIndex(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+
+    // Crée une grille vide à la taille actuelle du niveau
+    private void allocate() {
+        chunksX = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+        chunksY = (height + CHUNK_MASK) >> CHUNK_SHIFT;
+        chunks = new Chunk[chunksX * chunksY];
+        packed = new byte[chunksX * chunksY][];
+        chunkVersions = new int[chunksX * chunksY];
+        checksum = 0;
+        for (Vector2 pos : finishPositions) {
+            markFinish(pos);
+        }
+    }
+
+    /**
+     * Bloc de CHUNK_SIZE x CHUNK_SIZE cases, indexées ligne par ligne.
+     * Un chunk partagé entre plusieurs niveaux n'est plus jamais modifié.
+     */
+    private static class Chunk {
+        private static final int CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+        final byte[] types;
+        final long[] solid;
+        long[] finish;
+        int used = 0;
+        boolean shared;
+
+        Chunk() {
+            types = new byte[CELLS];
+            solid = new long[CELLS / 64];
+        }
+
+        private Chunk(Chunk other) {
+            types = other.types.clone();
+            solid = other.solid.clone();
+            finish = other.finish == null ? null : other.finish.clone();
+            used = other.used;
+        }
+
+        // Copie modifiable d'un chunk partagé
+        Chunk copy() {
+            return new Chunk(this);
+        }
+
+        void set(int i, Block.Type type) {
+            byte code = type == null ? EMPTY : (byte) (type.ordinal() + 1);
+            if (types[i] == EMPTY && code != EMPTY) {
+                ++used;
+            } else if (types[i] != EMPTY && code == EMPTY) {
+                --used;
+            }
+            types[i] = code;
+            if (type != null && BEHAVIOURS[type.ordinal()].isSolid()) {
+                solid[i >>> 6] |= 1L << i;
+            } else {
+                solid[i >>> 6] &= ~(1L << i);
+            }
+        }
+
+        boolean isSolid(int i) {
+            return (solid[i >>> 6] & (1L << i)) != 0;
+        }
+
+        void markFinish(int i) {
+            if (finish == null) {
+                finish = new long[CELLS / 64];
+            }
+            finish[i >>> 6] |= 1L << i;
+        }
+
+        boolean isFinish(int i) {
+            return finish != null && (finish[i >>> 6] & (1L << i)) != 0;
+        }
+
+        boolean isEmpty() {
+            return used == 0 && finish == null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.gdx.uch2.entities;
+
+import com.gdx.uch2.controller.LevelFile;
+
+/**
+ * Niveau analysé une seule fois et jamais modifié, partagé par toutes les parties jouées sur ce niveau.
+ * Les chunks du modèle sont gardés sous leur forme compacte. Chaque partie en obtient une copie par
+ * {@link #instantiate()}, qui partage cette forme compacte et ne décode que les chunks auxquels elle accède.
+ */
+public class LevelTemplate {
+    private final int id;
+    private final byte[] data;
+    private final long hash;
+    private final Level base;
+
+    /**
+     * Constructeur. Le niveau donné ne doit plus être utilisé directement ensuite.
+     * @param id numéro du niveau
+     * @param data le niveau encodé par {@link LevelFile#write(Level)}, dont est tirée l'empreinte du contenu
+     * @param base le niveau analysé
+     */
+    public LevelTemplate(int id, byte[] data, Level base) {
+        this.id = id;
+        this.data = data;
+        this.hash = LevelFile.hash(data);
+        this.base = base;
+        base.unloadAll();
+    }
+
+    /**
+     * @return le numéro du niveau
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return l'empreinte du contenu du niveau
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return le niveau encodé, à ne pas modifier
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Crée une copie modifiable du niveau, partageant les chunks compacts du modèle
+     * @return la copie du niveau
+     */
+    public Level instantiate() {
+        return new Level(base);
+    }
+}
@@ -25,6 +25,7 @@ public class Player {
 
     private Effect      effect;
     private Vector2 	position = new Vector2(0f, 0f);
+    private Vector2 	previousPosition = new Vector2(0f, 0f);
     private Vector2 	acceleration = new Vector2();
     private Vector2 	velocity = new Vector2();
     private Rectangle 	bounds = new Rectangle();
@@ -136,10 +137,28 @@ public class Player {
      */
     public void setPosition(Vector2 position) {
         this.position = position;
+        this.previousPosition.set(position);
         this.bounds.x = position.x + OFFSET.x;
         this.bounds.y = position.y + OFFSET.y;
     }
 
+    /**
+     * Mémorise la position actuelle comme position du pas de simulation précédent
+     */
+    public void savePreviousPosition() {
+        previousPosition.set(position);
+    }
+
+    /**
+     * Calcule la position à afficher entre le pas de simulation précédent et le pas actuel
+     * @param alpha avancement entre les deux pas, entre 0 et 1
+     * @param out vecteur dans lequel écrire le résultat
+     * @return out
+     */
+    public Vector2 getInterpolatedPosition(float alpha, Vector2 out) {
+        return out.set(previousPosition).lerp(position, alpha);
+    }
+
     /**
      * Applique une translation au joueur
      * @param v destination
@@ -150,6 +169,43 @@ public class Player {
         this.bounds.y += v.y;
     }
 
+    /**
+     * Applique une translation au joueur
+     * @param x déplacement horizontal
+     * @param y déplacement vertical
+     */
+    public void translate(float x, float y) {
+        this.position.add(x, y);
+        this.bounds.x += x;
+        this.bounds.y += y;
+    }
+
+    /**
+     * Copie l'état complet d'un autre joueur, sans partager ses vecteurs
+     * @param other le joueur à copier
+     * @return ce joueur
+     */
+    public Player set(Player other) {
+        effect = other.effect;
+        position.set(other.position);
+        previousPosition.set(other.previousPosition);
+        acceleration.set(other.acceleration);
+        velocity.set(other.velocity);
+        bounds.set(other.bounds);
+        state = other.state;
+        facingLeft = other.facingLeft;
+        stateTime = other.stateTime;
+        dead = other.dead;
+        return this;
+    }
+
+    /**
+     * @return l'effet appliqué au joueur, null s'il n'y en a pas
+     */
+    public Effect getEffect() {
+        return effect;
+    }
+
     /**
      * Ajoute un effet spécial au joueur
      * @param effect effet à ajouter
@@ -11,6 +11,11 @@ import com.gdx.uch2.effects.StrongGravity;
  */
 public class Trap extends Block {
 
+    // Les effets ne portent aucun état : une seule instance par effet est partagée par tous les pièges
+    private static final Effect KILL = new Kill();
+    private static final Effect LOW_GRAVITY = new LowGravity();
+    private static final Effect STRONG_GRAVITY = new StrongGravity();
+
     /**
      * Effet appliqué au joueur s'il touche le block
      */
@@ -24,10 +29,10 @@ public class Trap extends Block {
     public Trap(Vector2 pos, Block.Type type) {
         super(pos, type);
         switch (type){
-            case LETHAL: effect = new Kill(); break;
-            case G_DOWN: effect = new LowGravity(); break;
-            case G_UP: effect = new StrongGravity(); break;
-            default: effect = new Kill(); break;
+            case LETHAL: effect = KILL; break;
+            case G_DOWN: effect = LOW_GRAVITY; break;
+            case G_UP: effect = STRONG_GRAVITY; break;
+            default: effect = KILL; break;
         }
     }
 
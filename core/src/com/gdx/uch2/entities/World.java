@@ -1,17 +1,15 @@
 package com.gdx.uch2.entities;
 
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
-import com.gdx.uch2.controller.LevelLoader;
+import com.gdx.uch2.controller.LevelCache;
 import com.gdx.uch2.networking.client.MessageSender;
 import com.gdx.uch2.networking.messages.PlayerState;
+import com.gdx.uch2.util.Assets;
 
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Classe représentant un monde/niveau dans lequel évoluent les personnages
@@ -44,21 +42,46 @@ public class World {
      */
     public static World currentWorld;
 
+    /**
+     * Distance en chunks autour de chaque joueur dans laquelle les chunks du niveau restent décodés. La vue étant plus
+     * petite qu'un chunk de chaque côté du joueur, un chunk suffit.
+     */
+    private static final int STREAM_RADIUS = 1;
+
+    /**
+     * Chunk occupé par chaque joueur lors du dernier chargement, X puis Y
+     */
+    private int[] playerChunks = new int[0];
+    private int nbPlayerChunks = -1;
+
     /**
      * Constructeur à partir d'un numéro de niveau
      * @param noLevel numéro du niveau à utiliser pour ce monde
      */
     public World(int noLevel) {
-        createWorld(noLevel);
-        sound = Gdx.audio.newSound(Gdx.files.internal("sound/main_theme.mp3"));
+        this(LevelCache.getInstance().newLevel(noLevel));
+    }
+
+    /**
+     * Constructeur à partir d'un niveau déjà chargé, par exemple reçu du serveur
+     * @param level niveau à utiliser pour ce monde, qui lui appartient ensuite
+     */
+    public World(Level level) {
+        this.level = level;
+        resetPlayer();
+        sound = Assets.getInstance().acquireSound(Assets.MAIN_THEME);
         sound.loop(0.2f);
     }
 
     /**
-     * Arrête la musique
+     * Arrête la musique et rend le son partagé
      */
     public void stopMusic(){
-        sound.stop();
+        if (sound != null) {
+            sound.stop();
+            sound = null;
+            Assets.getInstance().release(Assets.MAIN_THEME);
+        }
     }
 
     // Getters -----------
@@ -88,50 +111,12 @@ public class World {
     }
     // --------------------
 
-    /**
-     * Retourne uniquement les blocks qui doivent être dessinés
-     * @param width largeur
-     * @param height hauteur
-     * @return les blocks qui doivent être dessinés
-     */
-    public List<Block> getDrawableBlocks(int width, int height) {
-        int x = (int) player.getBounds().x - width;
-        int y = (int) player.getBounds().y - height;
-        if (x < 0) {
-            x = 0;
-        }
-        if (y < 0) {
-            y = 0;
-        }
-        int x2 = x + 2 * width;
-        int y2 = y + 2 * height;
-        if (x2 > level.getWidth()) {
-            x2 = level.getWidth() - 1;
-        }
-        if (y2 > level.getHeight()) {
-            y2 = level.getHeight() - 1;
-        }
-
-        List<Block> blocks = new ArrayList<>();
-        Block block;
-        for (int col = x; col <= x2; col++) {
-            for (int row = y; row <= y2; row++) {
-                block = level.getBlocks()[col][row];
-                if (block != null) {
-                    blocks.add(block);
-                }
-            }
-        }
-        return blocks;
-    }
-
-
     /**
      * Place un block dans le monde
      * @param b le block à placer
      */
     public void placeBlock(Block b){
-        level.getBlocks()[(int) b.getPosition().x][(int) b.getPosition().y] = b;
+        level.set((int) b.getPosition().x, (int) b.getPosition().y, b);
     }
 
     /**
@@ -140,12 +125,40 @@ public class World {
      * @param y coordonnée y
      */
     public void removeBlock(int x, int y){
-        level.getBlocks()[x][y] = null;
+        level.remove(x, y);
     }
 
-    private void createWorld(int noLevel) {
-        level = LevelLoader.loadLevel(noLevel);
-        resetPlayer();
+    /**
+     * Décode les chunks du niveau autour du joueur local et des adversaires, et décharge les autres. Le niveau n'est
+     * parcouru que si l'un des joueurs a changé de chunk depuis l'appel précédent : à appeler à chaque frame.
+     */
+    public void streamLevel() {
+        int max = 1 + OnlinePlayerManager.getInstance().getPlayers().size();
+        if (playerChunks.length < 2 * max) {
+            playerChunks = new int[2 * max];
+        }
+        boolean moved = setPlayerChunk(0, player.getPosition());
+        int count = 1;
+        for (OnlinePlayer online : OnlinePlayerManager.getInstance().getPlayers()) {
+            // un adversaire n'a pas de position avant son premier état
+            if (online.getPosition() != null) {
+                moved |= setPlayerChunk(count++, online.getPosition());
+            }
+        }
+        if (moved || count != nbPlayerChunks) {
+            nbPlayerChunks = count;
+            level.streamChunks(playerChunks, count, STREAM_RADIUS);
+        }
+    }
+
+    // Range le chunk de la position donnée, retourne true s'il a changé
+    private boolean setPlayerChunk(int i, Vector2 position) {
+        int cx = Math.max(0, (int) position.x) / Level.CHUNK_SIZE;
+        int cy = Math.max(0, (int) position.y) / Level.CHUNK_SIZE;
+        boolean moved = playerChunks[2 * i] != cx || playerChunks[2 * i + 1] != cy;
+        playerChunks[2 * i] = cx;
+        playerChunks[2 * i + 1] = cy;
+        return moved;
     }
 
     /**
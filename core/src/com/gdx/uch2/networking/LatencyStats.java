@@ -0,0 +1,113 @@
+package com.gdx.uch2.networking;
+
+import com.gdx.uch2.networking.messages.Ping;
+import com.gdx.uch2.networking.metrics.Histogram;
+
+/**
+ * Statistiques glissantes de latence d'une connexion : temps d'aller-retour (RTT), gigue et taux de perte des Pings
+ */
+public class LatencyStats {
+    private static final int WINDOW = 64;
+    private static final long TIMEOUT = 2000000000L; // 2 secondes, en nanosecondes
+
+    private final long[] sentAt = new long[WINDOW];
+    private final int[] sequences = new int[WINDOW];
+    private final boolean[] acknowledged = new boolean[WINDOW];
+    private int nextSequence = 0;
+
+    private final Histogram rttHistogram = new Histogram();
+    private volatile float rtt = 0;
+    private volatile float smoothedRtt = 0;
+    private volatile float jitter = 0;
+
+    /**
+     * Crée le prochain Ping à envoyer et le note comme en attente de réponse
+     * @param now moment de l'envoi en nanosecondes
+     * @return le Ping à envoyer
+     */
+    public synchronized Ping nextPing(long now) {
+        int seq = nextSequence++;
+        int slot = slot(seq);
+        sentAt[slot] = now;
+        sequences[slot] = seq;
+        acknowledged[slot] = false;
+        return new Ping(seq, now);
+    }
+
+    /**
+     * Traite la réponse à un Ping envoyé par {@link #nextPing(long)}
+     * @param pong la réponse reçue
+     * @param now moment de la réception en nanosecondes
+     */
+    public synchronized void onPong(Ping pong, long now) {
+        int slot = slot(pong.getSequence());
+        if (sequences[slot] != pong.getSequence() || acknowledged[slot] || sentAt[slot] == 0) {
+            return;
+        }
+        acknowledged[slot] = true;
+
+        // l'heure d'envoi notée localement fait foi, l'horodatage renvoyé par le pair n'est pas vérifiable
+        long elapsed = now - sentAt[slot];
+        float sample = elapsed / 1e6f;
+        if (rttHistogram.getCount() == 0) {
+            smoothedRtt = sample;
+        } else {
+            // Estimateurs de la RFC 3550 (gigue) et de la RFC 6298 (RTT lissé)
+            jitter += (Math.abs(sample - rtt) - jitter) / 16f;
+            smoothedRtt += (sample - smoothedRtt) / 8f;
+        }
+        rtt = sample;
+        rttHistogram.record(elapsed / 1000);
+    }
+
+    /**
+     * @return le dernier RTT mesuré en millisecondes
+     */
+    public float getRtt() {
+        return rtt;
+    }
+
+    /**
+     * @return le RTT lissé en millisecondes
+     */
+    public float getSmoothedRtt() {
+        return smoothedRtt;
+    }
+
+    /**
+     * @return la gigue en millisecondes
+     */
+    public float getJitter() {
+        return jitter;
+    }
+
+    /**
+     * @return l'histogramme des RTT mesurés, en microsecondes
+     */
+    public Histogram getRttHistogram() {
+        return rttHistogram;
+    }
+
+    /**
+     * Calcule le taux de perte sur les derniers Pings dont le délai de réponse est écoulé
+     * @param now moment actuel en nanosecondes
+     * @return le taux de perte, entre 0 et 1
+     */
+    public synchronized float getLoss(long now) {
+        int expired = 0;
+        int lost = 0;
+        for (int i = 0; i < WINDOW; ++i) {
+            if (sentAt[i] != 0 && now - sentAt[i] > TIMEOUT) {
+                ++expired;
+                if (!acknowledged[i]) {
+                    ++lost;
+                }
+            }
+        }
+        return expired == 0 ? 0 : (float) lost / expired;
+    }
+
+    private static int slot(int sequence) {
+        return (sequence & Integer.MAX_VALUE) % WINDOW;
+    }
+}
@@ -2,6 +2,7 @@ package com.gdx.uch2.networking;
 
 import com.gdx.uch2.networking.serialization.DecoderStream;
 import com.gdx.uch2.networking.serialization.EncoderStream;
+import com.gdx.uch2.networking.simulation.NetworkSimulator;
 
 import java.io.IOException;
 import java.net.Socket;
@@ -12,34 +13,42 @@ import java.net.Socket;
 public class PlayerContext {
     private int id;
     private Socket socket;
+    private final LatencyStats latency = new LatencyStats();
     public DecoderStream in = null;
     public EncoderStream out = null;
 
     /**
-     * Constructeur
+     * Constructeur utilisé par le serveur
      * @param id l'ID du joueur
      * @param socket le Socket à encapsuler
      */
     public PlayerContext(int id, Socket socket) {
+        this(id, socket, NetworkSimulator.Direction.DOWNSTREAM);
+    }
+
+    /**
+     * Constructeur utilisé par le client
+     * @param socket le socket à encapsuler
+     */
+    public PlayerContext(Socket socket) {
+        this(-1, socket, NetworkSimulator.Direction.UPSTREAM);
+    }
+
+    private PlayerContext(int id, Socket socket, NetworkSimulator.Direction outDirection) {
         this.id = id;
         this.socket = socket;
         try {
+            // chaque message est envoyé dès qu'il est écrit : sans cela, un message suivant de près un autre attend
+            // l'acquittement du précédent
+            socket.setTcpNoDelay(true);
             this.in = new DecoderStream(socket.getInputStream());
-            this.out = new EncoderStream(socket.getOutputStream());
+            this.out = new EncoderStream(NetworkSimulator.getInstance().wrap(socket.getOutputStream(), outDirection));
         } catch (IOException e) {
             e.printStackTrace();
         }
 
     }
 
-    /**
-     * Constructeur
-     * @param socket le socket à encapsuler
-     */
-    public PlayerContext(Socket socket) {
-        this(-1, socket);
-    }
-
     /**
      * Modifie la valeur de l'id du joueur
      * @param id la nouvelle valeur de l'id du joueur
@@ -63,4 +72,12 @@ public class PlayerContext {
     public Socket getSocket() {
         return socket;
     }
+
+    /**
+     *
+     * @return les statistiques de latence de la connexion
+     */
+    public LatencyStats getLatency() {
+        return latency;
+    }
 }
@@ -0,0 +1,34 @@
+package com.gdx.uch2.networking;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * TimerTask envoyant régulièrement un Ping sur chacune des connexions données, afin de mesurer leur latence
+ */
+public class SendPing extends TimerTask {
+    private PlayerContext[] contexts;
+    private Timer timer;
+
+    /**
+     * Constructeur
+     * @param timer timer de l'action
+     * @param contexts Contextes des connexions sur lesquelles envoyer les Pings
+     */
+    public SendPing(Timer timer, PlayerContext... contexts) {
+        this.timer = timer;
+        this.contexts = contexts;
+    }
+
+    @Override
+    public void run() {
+        for (PlayerContext ctx : contexts) {
+            ctx.out.writeMessage(ctx.getLatency().nextPing(System.nanoTime()), false);
+
+            if (ctx.out.e != null) {
+                timer.cancel();
+                timer.purge();
+            }
+        }
+    }
+}
@@ -1,26 +1,39 @@
 package com.gdx.uch2.networking.client;
 
 import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.controller.LevelCache;
+import com.gdx.uch2.controller.LevelFile;
+import com.gdx.uch2.entities.LevelTemplate;
 import com.gdx.uch2.entities.OnlinePlayerManager;
 import com.gdx.uch2.entities.Player;
 import com.gdx.uch2.entities.World;
 import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.messages.LevelData;
+import com.gdx.uch2.networking.messages.LevelRequest;
 import com.gdx.uch2.networking.messages.MessageType;
 import com.gdx.uch2.networking.messages.PlayerState;
 import com.gdx.uch2.util.Constants;
+import com.gdx.uch2.util.Threads;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 
 /**
- * Client du jeu
+ * Client du jeu.
+ * Le GameStart annonce l'empreinte du niveau de la partie : si le client ne le possède pas déjà (en mémoire, dans le
+ * cache local ou parmi les niveaux livrés), il le demande au serveur et ne confirme le début de la partie qu'une fois
+ * le niveau reçu.
+ * La recherche du niveau et la création du monde, qui utilisent les ressources partagées, sont faites par le thread de
+ * rendu, au travers de la file du {@link GameClientHandler}.
  */
 public class GameClient {
     private final int port;
     private final String hostname;
     private final String nickname;
     private static GameClientWorker worker;
+    private static volatile long levelReadyMillis = -1;
+    private static volatile boolean levelDownloaded;
 
     /**
      * Constructeur publique
@@ -32,15 +45,37 @@ public class GameClient {
         this.port = port;
         this.hostname = hostname;
         this.nickname = nickname;
+        levelReadyMillis = -1;
         worker = new GameClientWorker();
-        Thread t = new Thread(worker);
-        t.start();
+        Threads.start(worker, "game-client");
+    }
+
+    /**
+     * @return la durée en millisecondes entre la réception du GameStart et le chargement du niveau de la dernière
+     * partie, -1 si le niveau n'est pas encore prêt
+     */
+    public static long getLevelReadyMillis() {
+        return levelReadyMillis;
+    }
+
+    /**
+     * @return true si le niveau de la dernière partie a dû être téléchargé depuis le serveur
+     */
+    public static boolean isLevelDownloaded() {
+        return levelDownloaded;
     }
 
     private class GameClientWorker implements Runnable {
-        private Socket socket;
-        private PlayerContext context;
-        private boolean closeRequested;
+        private volatile Socket socket;
+        private volatile PlayerContext context;
+        private volatile boolean closeRequested;
+        private GameClientHandler handler;
+        private long gameStartTime;
+        private int levelNumber;
+        private long levelHash;
+        private byte[] download;
+        private long downloadChecksum;
+        private int downloaded;
 
         @Override
         public void run() {
@@ -53,7 +88,7 @@ public class GameClient {
                 socket.connect(new InetSocketAddress(hostname, port), 2000);
 
                 context = new PlayerContext(socket);
-                GameClientHandler handler = new GameClientHandler(context);
+                handler = new GameClientHandler(context);
                 context.out.writeMessage(nickname);
 
                 type = context.in.getType();
@@ -75,6 +110,8 @@ public class GameClient {
 
                     if (type == MessageType.CloseConnection) {
                         break;
+                    } else if (type == MessageType.LevelData) {
+                        processLevelData(context);
                     } else if (type != null) {
                         handler.readMessage(type);
                     }
@@ -108,20 +145,105 @@ public class GameClient {
         }
 
         /**
-         * Traite un message reçu de type GameStart
+         * Traite un message reçu de type GameStart. Le message est lu sur le thread réseau, puis les joueurs, le niveau
+         * et le monde sont initialisés ensemble par le thread de rendu, qui ne voit jamais une partie à moitié créée.
          * @param ctx le contexte du joueur
          */
-        private void processGameStart(PlayerContext ctx) {
-            MessageSender.getInstance().setPlayerID(ctx.getId());
-            OnlinePlayerManager.getInstance().init(ctx.getId(), nickname);
-            World.currentWorld = new World(ctx.in.readInt());
-            OnlinePlayerManager.getInstance().setNbRound(ctx.in.readInt());
+        private void processGameStart(final PlayerContext ctx) {
+            gameStartTime = System.nanoTime();
+            levelNumber = ctx.in.readInt();
+            levelHash = ctx.in.readLong();
+            final int nbRound = ctx.in.readInt();
             int nbPlayers = ctx.in.readInt();
 
+            final int[] ids = new int[nbPlayers];
+            final String[] nicknames = new String[nbPlayers];
             for (int i = 0; i < nbPlayers; ++i) {
-                OnlinePlayerManager.getInstance().initPlayer(ctx.in.readInt(), ctx.in.readString());
+                ids[i] = ctx.in.readInt();
+                nicknames[i] = ctx.in.readString();
             }
 
+            final long hash = levelHash;
+            final int number = levelNumber;
+            handler.publish(new Runnable() {
+                @Override
+                public void run() {
+                    MessageSender.getInstance().setPlayerID(ctx.getId());
+                    OnlinePlayerManager.getInstance().init(ctx.getId(), nickname);
+                    OnlinePlayerManager.getInstance().setNbRound(nbRound);
+                    for (int i = 0; i < ids.length; ++i) {
+                        OnlinePlayerManager.getInstance().initPlayer(ids[i], nicknames[i]);
+                    }
+
+                    LevelTemplate template = LevelCache.getInstance().find(hash, number);
+                    if (template != null) {
+                        startLevel(ctx, template, false);
+                    } else {
+                        ctx.out.writeMessage(new LevelRequest(hash));
+                    }
+                }
+            });
+        }
+
+        /**
+         * Traite un morceau du niveau demandé au serveur, et commence la partie une fois le niveau complet.
+         * Le niveau compressé est vérifié avant d'être décompressé, puis le niveau encodé avant d'être décodé et mis
+         * en cache.
+         * @param ctx le contexte du joueur
+         * @throws IOException si le niveau reçu est invalide
+         */
+        private void processLevelData(PlayerContext ctx) throws IOException {
+            LevelData chunk = ctx.in.readLevelData();
+            if (chunk == null || chunk.getHash() != levelHash) return;
+
+            // la taille et la position du morceau sont bornées par le DecoderStream
+            if (download == null) {
+                download = new byte[chunk.getTotal()];
+                downloadChecksum = chunk.getChecksum();
+                downloaded = 0;
+            }
+            if (chunk.getTotal() != download.length || chunk.getChecksum() != downloadChecksum
+                    || chunk.getOffset() + chunk.getData().length > download.length) {
+                throw new IOException("Niveau reçu invalide");
+            }
+            System.arraycopy(chunk.getData(), 0, download, chunk.getOffset(), chunk.getData().length);
+            downloaded += chunk.getData().length;
+            if (downloaded < download.length) return;
+
+            byte[] compressed = download;
+            download = null;
+            if (LevelFile.hash(compressed) != downloadChecksum) {
+                throw new IOException("Niveau reçu invalide");
+            }
+            byte[] data = LevelFile.decompress(compressed);
+            if (data == null || LevelFile.hash(data) != levelHash) {
+                throw new IOException("Niveau reçu invalide");
+            }
+            final LevelTemplate template = LevelCache.getInstance().add(levelNumber, data);
+            if (template == null) {
+                throw new IOException("Niveau reçu invalide");
+            }
+            final PlayerContext context = ctx;
+            handler.publish(new Runnable() {
+                @Override
+                public void run() {
+                    startLevel(context, template, true);
+                }
+            });
+        }
+
+        /**
+         * Crée le monde de la partie et confirme au serveur que le client est prêt. Doit être appelée depuis le thread
+         * de rendu.
+         * @param ctx le contexte du joueur
+         * @param template le modèle du niveau de la partie
+         * @param downloaded true si le niveau a été reçu du serveur
+         */
+        private void startLevel(PlayerContext ctx, LevelTemplate template, boolean downloaded) {
+            World.currentWorld = new World(template.instantiate());
+            levelDownloaded = downloaded;
+            levelReadyMillis = (System.nanoTime() - gameStartTime) / 1000000;
+
             ctx.out.writeMessage(MessageType.AckGameStart);
             startSending(ctx);
         }
@@ -140,11 +262,29 @@ public class GameClient {
     }
 
     /**
-     * Envoie un message au serveur pour terminer la connexion
+     * Envoie un message au serveur pour terminer la connexion. Si la connexion n'est pas encore établie, elle est
+     * abandonnée.
      */
     public static void closeConnection() {
+        // serveur lancé sans client local
+        GameClientWorker current = worker;
+        if (current == null) {
+            return;
+        }
 
-        worker.closeRequested = true;
-        worker.context.out.writeMessage(MessageType.CloseConnection);
+        current.closeRequested = true;
+        PlayerContext context = current.context;
+        if (context != null) {
+            context.out.writeMessage(MessageType.CloseConnection);
+            return;
+        }
+
+        Socket socket = current.socket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
     }
 }
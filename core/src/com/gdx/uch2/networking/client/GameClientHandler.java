@@ -7,12 +7,33 @@ import com.gdx.uch2.entities.Player;
 import com.gdx.uch2.entities.World;
 import com.gdx.uch2.networking.GamePhase;
 import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.messages.BlockPositions;
+import com.gdx.uch2.networking.messages.GameState;
+import com.gdx.uch2.networking.messages.LevelEdit;
+import com.gdx.uch2.networking.messages.LevelEditBatch;
 import com.gdx.uch2.networking.messages.MessageType;
 import com.gdx.uch2.networking.messages.ObjectPlacement;
+import com.gdx.uch2.networking.messages.PhaseChange;
+import com.gdx.uch2.networking.messages.Ping;
 import com.gdx.uch2.networking.messages.PlayerState;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
- * Classe Traitant les informations reçues du serveur
+ * Classe Traitant les informations reçues du serveur.
+ * Les messages sont décodés sur le thread réseau, mais les modifications de l'état du jeu qui en découlent sont
+ * déposées dans une file et appliquées par le thread de rendu, une fois par frame, dans
+ * {@link #applyPendingUpdates()}. Le thread de rendu est ainsi le seul à modifier les données qu'il affiche.
+ * Les messages fréquents qui remplacent les précédents ne passent pas par la file : seul le dernier GameState reçu et
+ * la dernière position du block de chaque joueur sont gardés jusqu'à la frame suivante. La file, qui ne contient
+ * plus que des événements rares, est bornée : si le thread de rendu ne la vide plus, le thread réseau attend.
+ * Les modifications du niveau sont appliquées dans l'ordre de leurs numéros par un {@link LevelReplica}, qui
+ * demande au serveur celles qui manquent.
  */
 public class GameClientHandler {
 
@@ -24,6 +45,14 @@ public class GameClientHandler {
     static private boolean isOver;
     static private boolean roundOver;
     static private int nRound;
+    static private volatile long snapshotsReceived;
+    static private LevelReplica replica;
+    static private final int MAX_PENDING_UPDATES = 1024;
+    static private final BlockingQueue<Runnable> pendingUpdates = new LinkedBlockingQueue<>(MAX_PENDING_UPDATES);
+    // Dernier GameState reçu, pas encore appliqué
+    static private final AtomicReference<GameState> pendingState = new AtomicReference<>();
+    // Dernière position reçue du block en cours de placement de chaque joueur, pas encore appliquée
+    static private final Map<Integer, Block> pendingBlocks = new LinkedHashMap<>();
     private final PlayerContext ctx;
 
     /**
@@ -45,18 +74,35 @@ public class GameClientHandler {
             case GameStateUpdate:
                 processGameStateUpdate();
                 break;
-            case BlockPlaced:
-                processBlockPlacement();
+            case LevelEdit:
+                processLevelEdit();
+                break;
+            case LevelEditBatch:
+                processLevelEditBatch();
                 break;
-            case BlockPosition:
-                processBlockPosition();
+            case PhaseChange:
+                processPhaseChange();
+                break;
+            case BlockPositions:
+                processBlockPositions();
                 break;
             case EndGame:
-                isOver = true;
+                publish(new Runnable() {
+                    @Override
+                    public void run() {
+                        isOver = true;
+                    }
+                });
                 break;
             case Score:
                 processScoreUpdate();
                 break;
+            case Ping:
+                processPing();
+                break;
+            case Pong:
+                processPong();
+                break;
             default:
                 System.out.println("CLI: Message non traitable par le client : " + type);
                 break;
@@ -77,6 +123,43 @@ public class GameClientHandler {
      */
     public static int getnRound() { return nRound; }
 
+    /**
+     * Applique dans l'ordre de réception toutes les modifications reçues du serveur depuis le dernier appel, puis le
+     * dernier GameState et les dernières positions des blocks en cours de placement.
+     * Doit être appelée depuis le thread de rendu.
+     */
+    public static void applyPendingUpdates() {
+        Runnable update;
+        while ((update = pendingUpdates.poll()) != null) {
+            update.run();
+        }
+
+        GameState state = pendingState.getAndSet(null);
+        if (state != null) {
+            OnlinePlayerManager.getInstance().update(state);
+        }
+
+        synchronized (pendingBlocks) {
+            if (pendingBlocks.isEmpty()) {
+                return;
+            }
+            Iterator<Map.Entry<Integer, Block>> it = pendingBlocks.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Integer, Block> entry = it.next();
+                // positions en retard sur la fin de la phase de placement
+                if (currentPhase == GamePhase.Editing) {
+                    OnlinePlayerManager.getInstance().setBlockPosition(entry.getKey(), entry.getValue());
+                }
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return le nombre de GameStates reçus depuis le début de la partie
+     */
+    public static long getSnapshotsReceived() { return snapshotsReceived; }
+
     /**
      * Réinitialise les champs static
      */
@@ -85,6 +168,13 @@ public class GameClientHandler {
         isOver = false;
         roundOver = false;
         nRound = 0;
+        snapshotsReceived = 0;
+        replica = null;
+        pendingUpdates.clear();
+        pendingState.set(null);
+        synchronized (pendingBlocks) {
+            pendingBlocks.clear();
+        }
     }
 
     /**
@@ -99,44 +189,139 @@ public class GameClientHandler {
      * Traite un message de type GameStateUpdate
      */
     private void processGameStateUpdate(){
-        OnlinePlayerManager.getInstance().update(ctx.in.readGameState());
+        final GameState state = ctx.in.readGameState();
+        if (state == null) return;
+
+        ++snapshotsReceived;
+        // remplace le GameState précédent s'il n'a pas encore été appliqué
+        pendingState.set(state);
     }
 
     /**
      * Traite un message de type Score
      */
     private void processScoreUpdate(){
-        OnlinePlayerManager.getInstance().setScores(ctx.in.readScore());
+        final int[] scores = ctx.in.readScore();
+        if (scores == null) return;
+
+        publish(new Runnable() {
+            @Override
+            public void run() {
+                OnlinePlayerManager.getInstance().setScores(scores);
+            }
+        });
     }
 
+    /**
+     * Transmet une modification de l'état du jeu au thread de rendu. Attend si la file est pleine.
+     * @param update la modification à appliquer
+     */
+    void publish(Runnable update) {
+        try {
+            pendingUpdates.put(update);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
 
-    private void processBlockPlacement(){
-        ObjectPlacement op = ctx.in.readObjectPlacement();
 
-        if(op.getBlock() == null) {
-            roundOver = true;
-            startEditingPhase();
-        }else{
-            roundOver = false;
-            Block newBlock = op.getBlock();
-            if(newBlock.getType() == Block.Type.ANTIBLOCK){
-                World.currentWorld.removeBlock((int)newBlock.getPosition().x, (int)newBlock.getPosition().y);
-            }else{
-                World.currentWorld.placeBlock(newBlock);
+    /**
+     * Répond à un Ping du serveur
+     */
+    private void processPing(){
+        Ping ping = ctx.in.readPing();
+        if (ping != null) {
+            ctx.out.writeMessage(ping, true);
+        }
+    }
+
+    /**
+     * Traite la réponse du serveur à un Ping
+     */
+    private void processPong(){
+        Ping pong = ctx.in.readPing();
+        if (pong != null) {
+            ctx.getLatency().onPong(pong, System.nanoTime());
+        }
+    }
+
+    private void processLevelEdit(){
+        final LevelEdit edit = ctx.in.readLevelEdit();
+        if (edit == null) return;
+
+        publish(new Runnable() {
+            @Override
+            public void run() {
+                roundOver = false;
+                requestSync(getReplica().apply(edit));
+            }
+        });
+    }
+
+    private void processLevelEditBatch(){
+        final LevelEditBatch batch = ctx.in.readLevelEditBatch();
+        if (batch == null) return;
+
+        publish(new Runnable() {
+            @Override
+            public void run() {
+                requestSync(getReplica().apply(batch));
             }
+        });
+    }
+
+    private void processPhaseChange(){
+        final PhaseChange phaseChange = ctx.in.readPhaseChange();
+        if (phaseChange == null) return;
 
+        // les positions reçues avant le changement de phase appartiennent à la phase précédente
+        synchronized (pendingBlocks) {
+            pendingBlocks.clear();
         }
 
-        if(op.getPlayerID() == -1){
-            OnlinePlayerManager.getInstance().resetPlacementBlocks();
-            startMovementPhase();
+        publish(new Runnable() {
+            @Override
+            public void run() {
+                if (phaseChange.getPhase() == GamePhase.Editing) {
+                    roundOver = true;
+                    startEditingPhase();
+                } else {
+                    OnlinePlayerManager.getInstance().resetPlacementBlocks();
+                    startMovementPhase();
+                }
+                requestSync(getReplica().check(phaseChange.getSeq()));
+            }
+        });
+    }
+
+    // Copie locale du niveau du monde courant, recréée lorsque le monde change
+    private static LevelReplica getReplica() {
+        if (replica == null || replica.getLevel() != World.currentWorld.getLevel()) {
+            replica = new LevelReplica(World.currentWorld.getLevel());
         }
+        return replica;
     }
 
-    private void processBlockPosition() {
-       ObjectPlacement op = ctx.in.readObjectPlacement();
-       OnlinePlayerManager.getInstance().setBlockPosition(op.getPlayerID(), op.getBlock());
+    // Appelée sur le thread de rendu : la demande est envoyée par le timer de MessageSender
+    private static void requestSync(int fromSeq) {
+        if (fromSeq != LevelReplica.IN_SYNC) {
+            MessageSender.getInstance().requestLevelSync(fromSeq);
+        }
+    }
+
+    private void processBlockPositions() {
+        BlockPositions blockPositions = ctx.in.readBlockPositions();
+        if (blockPositions == null) return;
+
+        // remplace les positions précédentes des mêmes joueurs si elles n'ont pas encore été appliquées
+        synchronized (pendingBlocks) {
+            for (ObjectPlacement op : blockPositions.getPositions()) {
+                if (op.getPlayerID() != ctx.getId()) {
+                    pendingBlocks.put(op.getPlayerID(), op.getBlock());
+                }
+            }
+        }
     }
 
 
@@ -0,0 +1,113 @@
+package com.gdx.uch2.networking.client;
+
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.networking.messages.LevelEdit;
+import com.gdx.uch2.networking.messages.LevelEditBatch;
+
+/**
+ * Copie locale du niveau tenue à jour à partir des modifications numérotées du serveur. Les modifications sont
+ * appliquées dans l'ordre ; une modification manquante ou une somme de contrôle différente de celle du serveur
+ * entraîne une demande de synchronisation, à laquelle le serveur répond par un seul lot.
+ */
+public class LevelReplica {
+
+    /**
+     * Valeur retournée lorsqu'aucune synchronisation n'est nécessaire
+     */
+    public static final int IN_SYNC = -1;
+
+    private final Level level;
+    private int version;
+    private boolean syncPending;
+    // le niveau local diffère même après une synchronisation complète : plus rien ne sert d'en redemander
+    private boolean diverged;
+
+    /**
+     * Constructeur
+     * @param level le niveau local, dans l'état initial de la partie
+     */
+    public LevelReplica(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Applique une modification reçue du serveur
+     * @param edit la modification
+     * @return le numéro à partir duquel demander une synchronisation, ou {@link #IN_SYNC}
+     */
+    public int apply(LevelEdit edit) {
+        if (edit.getSeq() <= version) {
+            return IN_SYNC;
+        }
+        if (edit.getSeq() > version + 1) {
+            return requestSync(version);
+        }
+        LevelEdit.apply(level, edit.getBlock());
+        version = edit.getSeq();
+        if (level.getChecksum() != edit.getChecksum() && !diverged) {
+            System.out.println("CLI: Niveau désynchronisé à la modification " + version);
+            version = 0;
+            return requestSync(0);
+        }
+        return IN_SYNC;
+    }
+
+    /**
+     * Applique un lot de modifications reçu en réponse à une demande de synchronisation
+     * @param batch le lot
+     * @return le numéro à partir duquel demander une synchronisation, ou {@link #IN_SYNC}
+     */
+    public int apply(LevelEditBatch batch) {
+        syncPending = false;
+        if (batch.getFromSeq() > version) {
+            return requestSync(version);
+        }
+        for (Block b : batch.getBlocks()) {
+            LevelEdit.apply(level, b);
+        }
+        version = Math.max(version, batch.getToSeq());
+        if (level.getChecksum() != batch.getChecksum()) {
+            System.out.println("CLI: Niveau désynchronisé après le lot " + batch);
+            if (batch.getFromSeq() > 0) {
+                // le lot complet réécrit toutes les cases modifiées depuis le début de la partie
+                version = 0;
+                return requestSync(0);
+            }
+            diverged = true;
+        }
+        return IN_SYNC;
+    }
+
+    /**
+     * Vérifie que toutes les modifications jusqu'à un numéro donné ont été appliquées
+     * @param seq numéro de la dernière modification annoncée par le serveur
+     * @return le numéro à partir duquel demander une synchronisation, ou {@link #IN_SYNC}
+     */
+    public int check(int seq) {
+        return version < seq ? requestSync(version) : IN_SYNC;
+    }
+
+    /**
+     * @return le niveau local
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return le numéro de la dernière modification appliquée
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    // Une seule demande est en cours à la fois, les modifications reçues entre-temps sont couvertes par la réponse
+    private int requestSync(int fromSeq) {
+        if (syncPending) {
+            return IN_SYNC;
+        }
+        syncPending = true;
+        return fromSeq;
+    }
+}
@@ -1,12 +1,18 @@
 package com.gdx.uch2.networking.client;
 
 import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Player;
 import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.SendPing;
+import com.gdx.uch2.networking.messages.LevelSyncRequest;
 import com.gdx.uch2.networking.messages.MessageType;
 import com.gdx.uch2.networking.messages.ObjectPlacement;
 import com.gdx.uch2.networking.messages.PlayerState;
+import com.gdx.uch2.util.Constants;
 
 import java.util.Timer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Classe singleton permettant d'envoyer des messages au serveur depuis un autre thread
@@ -27,9 +33,14 @@ public class MessageSender {
     }
 
     private PlayerContext ctx;
-    private PlayerState currentState;
+    // État courant du joueur, modifié sur place à chaque pas de simulation et copié par le timer pour l'envoi
+    private final PlayerState currentState = new PlayerState(-1, Player.State.IDLE, 0, 0, 0);
     private int playerID = -1;
     private boolean canPlace;
+    // Dernière position du block en cours de placement, pas encore envoyée
+    private final AtomicReference<Block> pendingMovement = new AtomicReference<>();
+    // Numéro à partir duquel demander une synchronisation du niveau, pas encore envoyé
+    private final AtomicInteger pendingSync = new AtomicInteger(LevelReplica.IN_SYNC);
 
     /**
      * @return si le joueur est autorisé à placer un block ou pas
@@ -48,18 +59,39 @@ public class MessageSender {
 
 
     /**
-     * @return L'état actuel du joueur
+     * @return une copie de l'état actuel du joueur
      */
-    public PlayerState getCurrentState(){
-        return currentState;
+    public synchronized PlayerState getCurrentState(){
+        PlayerState copy = new PlayerState(-1, Player.State.IDLE, 0, 0, 0);
+        copy.set(currentState);
+        return copy;
+    }
+
+    /**
+     * Copie l'état actuel du joueur dans un snapshot existant, sans allocation
+     * @param dst le snapshot à remplir
+     */
+    synchronized void copyCurrentState(PlayerState dst) {
+        dst.set(currentState);
     }
 
     /**
      * Modifie l'état courant du joueur, qui est envoyé régulièrement
-     * @param newState le nouvel état du joueur
+     * @param newState le nouvel état du joueur, copié
      */
-    public void setCurrentState(PlayerState newState){
-        this.currentState = newState;
+    public synchronized void setCurrentState(PlayerState newState){
+        currentState.set(newState);
+    }
+
+    /**
+     * Modifie l'état courant du joueur sur place, sans allocation. Appelée à chaque pas de simulation.
+     * @param state l'état du joueur
+     * @param posX la position X du joueur
+     * @param posY la position Y du joueur
+     * @param time le timestamp de l'état
+     */
+    public synchronized void setCurrentState(Player.State state, float posX, float posY, long time) {
+        currentState.set(playerID, state, posX, posY, time);
     }
 
     /**
@@ -70,6 +102,13 @@ public class MessageSender {
         this.ctx = ctx;
     }
 
+    /**
+     * @return le contexte de la connexion avec le serveur
+     */
+    public PlayerContext getContext(){
+        return ctx;
+    }
+
     /**
      * Donne un ID au joueur
      * @param playerID l'ID du joueur
@@ -109,19 +148,65 @@ public class MessageSender {
         ctx.out.writeMessage(new ObjectPlacement(playerID, block));
     }
 
+    /**
+     * Retient la position du block en cours de placement. Elle est envoyée au serveur au plus une fois toutes les
+     * {@link Constants#BLOCK_POSITION_INTERVAL} millisecondes, seule la dernière position étant envoyée.
+     * @param block le block déplacé
+     */
     public void sendBlockMovement(final Block block) {
-        ctx.out.writeMessage(new ObjectPlacement(playerID, block), false);
+        pendingMovement.set(block);
+    }
+
+    /**
+     * Envoie au serveur la dernière position du block en cours de placement, si elle a changé depuis l'envoi précédent
+     * @param ctx le contexte de la connexion avec le serveur
+     */
+    void flushBlockMovement(PlayerContext ctx) {
+        Block block = pendingMovement.getAndSet(null);
+        if (block != null) {
+            ctx.out.writeMessage(new ObjectPlacement(playerID, block), false);
+        }
+    }
+
+    /**
+     * Retient une demande de synchronisation du niveau, envoyée au serveur par le timer avec la position du block en
+     * cours de placement. Le thread de rendu n'écrit ainsi jamais sur la socket. Si plusieurs demandes s'accumulent
+     * avant l'envoi, seule celle qui part du plus petit numéro est envoyée, puisqu'elle couvre les autres.
+     * @param fromSeq numéro de la première modification manquante
+     */
+    public void requestLevelSync(int fromSeq) {
+        int pending;
+        do {
+            pending = pendingSync.get();
+            if (pending != LevelReplica.IN_SYNC && pending <= fromSeq) {
+                return;
+            }
+        } while (!pendingSync.compareAndSet(pending, fromSeq));
+    }
+
+    /**
+     * Envoie au serveur la demande de synchronisation du niveau en attente, s'il y en a une
+     * @param ctx le contexte de la connexion avec le serveur
+     */
+    void flushLevelSync(PlayerContext ctx) {
+        int fromSeq = pendingSync.getAndSet(LevelReplica.IN_SYNC);
+        if (fromSeq != LevelReplica.IN_SYNC) {
+            ctx.out.writeMessage(new LevelSyncRequest(fromSeq));
+        }
     }
 
 
     /**
-     * Crée un timer envoyant régulièrement le PlayerState actuel au serveur.
+     * Crée un timer envoyant régulièrement le PlayerState actuel, la position du block en cours de placement, les
+     * demandes de synchronisation du niveau et un Ping au serveur.
      * @param delay Le délai avant le lancement du timer
      * @param tickDuration la durée d'un tick de timer
      */
     public void start(int delay, int tickDuration){
         Timer timer = new Timer();
         timer.schedule(new SendPlayerState(timer, ctx), delay, tickDuration);
+        timer.schedule(new SendBlockPosition(timer, ctx), delay, Constants.BLOCK_POSITION_INTERVAL);
+        timer.schedule(new SendPing(timer, ctx), delay, Constants.PING_INTERVAL);
     }
 
 }
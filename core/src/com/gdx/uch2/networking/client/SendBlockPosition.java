@@ -0,0 +1,37 @@
+package com.gdx.uch2.networking.client;
+
+import com.gdx.uch2.networking.PlayerContext;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * TimerTask envoyant au serveur la dernière position du block en cours de placement, si elle a changé depuis l'envoi
+ * précédent. Les déplacements de la souris entre deux envois sont ainsi regroupés en un seul message. Envoie aussi
+ * la demande de synchronisation du niveau retenue par le thread de rendu, s'il y en a une.
+ */
+public class SendBlockPosition extends TimerTask {
+    private PlayerContext ctx;
+    private Timer timer;
+
+    /**
+     * Constructeur
+     * @param timer timer de l'action
+     * @param ctx contexte de la connexion avec le serveur
+     */
+    public SendBlockPosition(Timer timer, PlayerContext ctx) {
+        this.timer = timer;
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void run() {
+        MessageSender.getInstance().flushBlockMovement(ctx);
+        MessageSender.getInstance().flushLevelSync(ctx);
+
+        if (ctx.out.e != null) {
+            timer.cancel();
+            timer.purge();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.gdx.uch2.networking.client;
 
+import com.gdx.uch2.entities.Player;
 import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.messages.PlayerState;
 
 import java.util.Timer;
 import java.util.TimerTask;
@@ -9,6 +11,7 @@ public class SendPlayerState extends TimerTask {
 
     private PlayerContext ctx;
     private Timer timer;
+    private final PlayerState state = new PlayerState(-1, Player.State.IDLE, 0, 0, 0);
 
     public SendPlayerState(Timer timer, PlayerContext ctx){
         this.timer = timer;
@@ -17,7 +20,8 @@ public class SendPlayerState extends TimerTask {
 
     @Override
     public void run() {
-        ctx.out.writeMessage(MessageSender.getInstance().getCurrentState());
+        MessageSender.getInstance().copyCurrentState(state);
+        ctx.out.writeMessage(state);
 
         if (ctx.out.e != null) {
             timer.cancel();
@@ -0,0 +1,29 @@
+package com.gdx.uch2.networking.messages;
+
+/**
+ * Positions des blocks en cours de placement des joueurs, envoyées par le serveur une fois par tick pendant la phase
+ * de placement. Seule la dernière position de chaque joueur ayant bougé depuis le tick précédent est envoyée.
+ */
+public class BlockPositions {
+    private final ObjectPlacement[] positions;
+
+    /**
+     * Constructeur
+     * @param positions dernière position du block de chaque joueur ayant bougé
+     */
+    public BlockPositions(ObjectPlacement[] positions) {
+        this.positions = positions;
+    }
+
+    /**
+     * @return dernière position du block de chaque joueur ayant bougé
+     */
+    public ObjectPlacement[] getPositions() {
+        return positions;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockPositions " + positions.length + " players";
+    }
+}
@@ -0,0 +1,69 @@
+package com.gdx.uch2.networking.messages;
+
+/**
+ * Morceau d'un niveau compressé envoyé par le serveur. Un niveau est découpé en plusieurs morceaux, envoyés chacun
+ * comme un message distinct pour ne pas retarder les autres messages.
+ */
+public class LevelData {
+    private final long hash;
+    private final long checksum;
+    private final int total;
+    private final int offset;
+    private final byte[] data;
+
+    /**
+     * Constructeur
+     * @param hash empreinte du contenu du niveau
+     * @param checksum empreinte du niveau compressé, vérifiée avant sa décompression
+     * @param total taille totale du niveau compressé
+     * @param offset position du morceau dans le niveau compressé
+     * @param data contenu du morceau
+     */
+    public LevelData(long hash, long checksum, int total, int offset, byte[] data) {
+        this.hash = hash;
+        this.checksum = checksum;
+        this.total = total;
+        this.offset = offset;
+        this.data = data;
+    }
+
+    /**
+     * @return l'empreinte du contenu du niveau
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return l'empreinte du niveau compressé
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return la taille totale du niveau compressé
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return la position du morceau dans le niveau compressé
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return le contenu du morceau
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "LevelData " + Long.toHexString(hash) + " [" + offset + ", " + (offset + data.length) + "[ / " + total;
+    }
+}
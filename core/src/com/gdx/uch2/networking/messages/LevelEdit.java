@@ -0,0 +1,78 @@
+package com.gdx.uch2.networking.messages;
+
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+
+/**
+ * Modification du niveau enregistrée par le serveur et envoyée à tous les clients. Les modifications sont numérotées
+ * à partir de 1 dans leur ordre d'application, et chacune porte la somme de contrôle du niveau une fois appliquée, ce
+ * qui permet au client de vérifier qu'il n'en a manqué aucune.
+ */
+public class LevelEdit {
+    private final int seq;
+    private final int playerID;
+    private final Block block;
+    private final long checksum;
+
+    /**
+     * Constructeur
+     * @param seq numéro de la modification
+     * @param playerID ID du joueur ayant placé le block
+     * @param block le block placé, un ANTIBLOCK vidant la case
+     * @param checksum somme de contrôle du niveau après la modification
+     */
+    public LevelEdit(int seq, int playerID, Block block, long checksum) {
+        this.seq = seq;
+        this.playerID = playerID;
+        this.block = block;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Applique le placement d'un block sur un niveau
+     * @param level le niveau à modifier
+     * @param block le block placé, un ANTIBLOCK vidant la case
+     */
+    public static void apply(Level level, Block block) {
+        int x = (int) block.getPosition().x;
+        int y = (int) block.getPosition().y;
+        if (block.getType() == Block.Type.ANTIBLOCK) {
+            level.remove(x, y);
+        } else {
+            level.set(x, y, block);
+        }
+    }
+
+    /**
+     * @return le numéro de la modification
+     */
+    public int getSeq() {
+        return seq;
+    }
+
+    /**
+     * @return l'ID du joueur ayant placé le block
+     */
+    public int getPlayerID() {
+        return playerID;
+    }
+
+    /**
+     * @return le block placé
+     */
+    public Block getBlock() {
+        return block;
+    }
+
+    /**
+     * @return la somme de contrôle du niveau après la modification
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public String toString() {
+        return "LevelEdit#" + seq + " " + block.getType() + " " + block.getPosition();
+    }
+}
@@ -0,0 +1,62 @@
+package com.gdx.uch2.networking.messages;
+
+import com.gdx.uch2.entities.Block;
+
+/**
+ * Ensemble de modifications du niveau envoyé à un client qui doit rattraper son retard. Seul le dernier block placé
+ * sur chaque case est conservé : le lot remplace toutes les modifications suivant {@link #getFromSeq()} jusqu'à
+ * {@link #getToSeq()} comprise.
+ */
+public class LevelEditBatch {
+    private final int fromSeq;
+    private final int toSeq;
+    private final Block[] blocks;
+    private final long checksum;
+
+    /**
+     * Constructeur
+     * @param fromSeq numéro de la dernière modification déjà appliquée par le client
+     * @param toSeq numéro de la dernière modification contenue dans le lot
+     * @param blocks dernier block placé sur chaque case modifiée, un ANTIBLOCK vidant la case
+     * @param checksum somme de contrôle du niveau après la modification toSeq
+     */
+    public LevelEditBatch(int fromSeq, int toSeq, Block[] blocks, long checksum) {
+        this.fromSeq = fromSeq;
+        this.toSeq = toSeq;
+        this.blocks = blocks;
+        this.checksum = checksum;
+    }
+
+    /**
+     * @return le numéro de la dernière modification déjà appliquée par le client
+     */
+    public int getFromSeq() {
+        return fromSeq;
+    }
+
+    /**
+     * @return le numéro de la dernière modification contenue dans le lot
+     */
+    public int getToSeq() {
+        return toSeq;
+    }
+
+    /**
+     * @return le dernier block placé sur chaque case modifiée
+     */
+    public Block[] getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * @return la somme de contrôle du niveau après la modification toSeq
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public String toString() {
+        return "LevelEditBatch ]" + fromSeq + ", " + toSeq + "] " + blocks.length + " blocks";
+    }
+}
@@ -0,0 +1,29 @@
+package com.gdx.uch2.networking.messages;
+
+/**
+ * Demande d'un niveau au serveur, envoyée par un client qui ne possède pas localement le niveau annoncé au début de la
+ * partie
+ */
+public class LevelRequest {
+    private final long hash;
+
+    /**
+     * Constructeur
+     * @param hash empreinte du contenu du niveau demandé
+     */
+    public LevelRequest(long hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * @return l'empreinte du contenu du niveau demandé
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "LevelRequest " + Long.toHexString(hash);
+    }
+}
@@ -0,0 +1,29 @@
+package com.gdx.uch2.networking.messages;
+
+/**
+ * Demande des modifications du niveau manquantes, envoyée par un client ayant détecté un trou dans les numéros des
+ * modifications reçues ou une somme de contrôle différente de celle du serveur
+ */
+public class LevelSyncRequest {
+    private final int fromSeq;
+
+    /**
+     * Constructeur
+     * @param fromSeq numéro de la dernière modification appliquée correctement par le client, 0 pour tout recevoir
+     */
+    public LevelSyncRequest(int fromSeq) {
+        this.fromSeq = fromSeq;
+    }
+
+    /**
+     * @return numéro de la dernière modification appliquée correctement par le client
+     */
+    public int getFromSeq() {
+        return fromSeq;
+    }
+
+    @Override
+    public String toString() {
+        return "LevelSyncRequest from " + fromSeq;
+    }
+}
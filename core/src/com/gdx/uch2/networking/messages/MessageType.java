@@ -14,6 +14,15 @@ public enum MessageType {
     Death,
     EndGame,
     Score,
-    CloseConnection
+    CloseConnection,
+    Ping,
+    Pong,
+    LevelRequest,
+    LevelData,
+    LevelEdit,
+    LevelEditBatch,
+    LevelSyncRequest,
+    PhaseChange,
+    BlockPositions
     ;
 }
@@ -3,7 +3,9 @@ package com.gdx.uch2.networking.messages;
 import com.gdx.uch2.entities.Block;
 
 /**
- * Classe échangée entre le client et le serveur pour gérer la phase de placement
+ * Classe échangée entre le client et le serveur pour gérer la phase de placement : placement d'un block envoyé par un
+ * client, ou position du block en cours de placement d'un joueur. Le serveur transmet les placements aux clients sous
+ * forme de {@link LevelEdit}.
  */
 public class ObjectPlacement {
     private int playerID;
@@ -12,12 +14,8 @@ public class ObjectPlacement {
 
     /**
      * Constructeur
-     * @param playerID Si le message est envoyé d'un client vers le serveur, playerID signifie l'ID du joueur plaçant le block.
-     *                 Si le message est envoyé du serveur vers un client, playerID vaut 0 en temps
-     *                 normal et -1 si le message marque la fin de la phase de placement
-     * @param block Si le message est envoyé d'un client vers le serveur, block signifie le block que le joueur souhaite placer.
-     *              Si le message est envoyé du serveur vers un client, block signifie le block à placer sur les niveaux
-     *              locaux des clients. Si block est null, cela signifie le début de la phase de placement.
+     * @param playerID l'ID du joueur plaçant le block
+     * @param block le block que le joueur place ou s'apprête à placer
      */
     public ObjectPlacement(int playerID, Block block){
         this.playerID = playerID;
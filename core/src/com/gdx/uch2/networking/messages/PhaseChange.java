@@ -0,0 +1,40 @@
+package com.gdx.uch2.networking.messages;
+
+import com.gdx.uch2.networking.GamePhase;
+
+/**
+ * Début d'une phase de jeu, envoyé par le serveur à tous les clients
+ */
+public class PhaseChange {
+    private final GamePhase phase;
+    private final int seq;
+
+    /**
+     * Constructeur
+     * @param phase la phase qui commence
+     * @param seq numéro de la dernière modification du niveau avant le début de la phase
+     */
+    public PhaseChange(GamePhase phase, int seq) {
+        this.phase = phase;
+        this.seq = seq;
+    }
+
+    /**
+     * @return la phase qui commence
+     */
+    public GamePhase getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return le numéro de la dernière modification du niveau avant le début de la phase
+     */
+    public int getSeq() {
+        return seq;
+    }
+
+    @Override
+    public String toString() {
+        return "PhaseChange " + phase + " at " + seq;
+    }
+}
@@ -0,0 +1,40 @@
+package com.gdx.uch2.networking.messages;
+
+/**
+ * Sonde de latence échangée entre le client et le serveur. Un Pong renvoie tels quels le numéro de séquence et le
+ * timestamp du Ping auquel il répond, ce qui permet à l'émetteur de calculer le temps d'aller-retour avec sa propre
+ * horloge.
+ */
+public class Ping {
+    private final int sequence;
+    private final long timestamp;
+
+    /**
+     * Constructeur
+     * @param sequence numéro de séquence du Ping
+     * @param timestamp moment de l'envoi du Ping selon l'horloge de l'émetteur, en nanosecondes
+     */
+    public Ping(int sequence, long timestamp) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return le numéro de séquence du Ping
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return le moment de l'envoi du Ping selon l'horloge de l'émetteur, en nanosecondes
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "Ping#" + sequence + ", time=" + timestamp;
+    }
+}
@@ -30,6 +30,30 @@ public class PlayerState {
         this.time = time;
     }
 
+    /**
+     * Modifie tout le snapshot, pour réutiliser un même objet d'un état à l'autre
+     * @param playerID l'id du joueur
+     * @param state l'état actuel du joueur
+     * @param posX la position X du joueur
+     * @param posY la position Y du joueur
+     * @param time le timestamp indiquant le moment du snapshot
+     */
+    public void set(int playerID, Player.State state, float posX, float posY, long time) {
+        this.playerID = playerID;
+        this.state = state;
+        this.posX = posX;
+        this.posY = posY;
+        this.time = time;
+    }
+
+    /**
+     * Copie un autre snapshot
+     * @param other le snapshot à copier
+     */
+    public void set(PlayerState other) {
+        set(other.playerID, other.state, other.posX, other.posY, other.time);
+    }
+
     /**
      *
      * @return l'id du joueur
@@ -0,0 +1,98 @@
+package com.gdx.uch2.networking.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramme à seaux exponentiels (puissances de 2) utilisable depuis plusieurs threads sans verrou
+ */
+public class Histogram {
+    private static final int NB_BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Enregistre une valeur
+     * @param value la valeur à enregistrer, les valeurs négatives sont ramenées à 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(value);
+        buckets.incrementAndGet(Math.min(bucket, NB_BUCKETS - 1));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * @return le nombre de valeurs enregistrées
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return la somme des valeurs enregistrées
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * @return la plus grande valeur enregistrée
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return la moyenne des valeurs enregistrées, 0 si aucune valeur n'a été enregistrée
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Estime un percentile. La valeur retournée est la borne supérieure du seau contenant le percentile demandé.
+     * @param p le percentile voulu, entre 0 et 1
+     * @return l'estimation du percentile
+     */
+    public long getPercentile(double p) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(p * n);
+        long acc = 0;
+        for (int i = 0; i < NB_BUCKETS; ++i) {
+            acc += buckets.get(i);
+            if (acc >= target) {
+                return Math.min(i == 0 ? 0 : (1L << i) - 1, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Remet l'histogramme à zéro
+     */
+    public void reset() {
+        for (int i = 0; i < NB_BUCKETS; ++i) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,69 @@
+package com.gdx.uch2.networking.metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+
+/**
+ * Point d'accès HTTP minimaliste, limité à la machine locale, répondant à toute requête par le contenu de
+ * {@link NetworkMetrics#dump()} au format texte
+ */
+public class MetricsEndpoint implements Runnable {
+    private final int port;
+
+    /**
+     * Constructeur
+     * @param port port sur lequel écoute le point d'accès
+     */
+    public MetricsEndpoint(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public void run() {
+        ServerSocket serverSocket;
+        try {
+            serverSocket = new ServerSocket(port, 10, InetAddress.getLoopbackAddress());
+        } catch (IOException ex) {
+            System.out.println("SRV: Impossible de démarrer le point d'accès des métriques : " + ex);
+            return;
+        }
+
+        while (!serverSocket.isClosed()) {
+            try (Socket client = serverSocket.accept()) {
+                client.setSoTimeout(1000);
+                skipRequest(client.getInputStream());
+
+                byte[] body = NetworkMetrics.getInstance().dump().getBytes(Charset.forName("UTF-8"));
+                String header = "HTTP/1.0 200 OK\r\n"
+                        + "Content-Type: text/plain; charset=utf-8\r\n"
+                        + "Content-Length: " + body.length + "\r\n"
+                        + "Connection: close\r\n\r\n";
+                OutputStream out = client.getOutputStream();
+                out.write(header.getBytes(Charset.forName("US-ASCII")));
+                out.write(body);
+                out.flush();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    // Lit la requête jusqu'à la ligne vide terminant les en-têtes, sans l'interpréter
+    private static void skipRequest(InputStream in) throws IOException {
+        int matched = 0;
+        int read = 0;
+        int c;
+        while (matched < 4 && read < 8192 && (c = in.read()) != -1) {
+            ++read;
+            if ((c == '\r' && matched % 2 == 0) || (c == '\n' && matched % 2 == 1)) {
+                ++matched;
+            } else {
+                matched = c == '\r' ? 1 : 0;
+            }
+        }
+    }
+}
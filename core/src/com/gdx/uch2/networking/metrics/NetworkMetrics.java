@@ -0,0 +1,332 @@
+package com.gdx.uch2.networking.metrics;
+
+import com.gdx.uch2.networking.GamePhase;
+import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.messages.MessageType;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Singleton regroupant les métriques du serveur : durée des ticks, messages et bytes échangés par type de message et
+ * par connexion, attente sur les verrous d'écriture, durée des rounds et des phases, parties et connexions actives.
+ * La collecte est désactivée par défaut. Lorsqu'elle est désactivée, les méthodes d'enregistrement ne font qu'une
+ * lecture de booléen.
+ */
+public class NetworkMetrics implements NetworkMetricsMBean {
+    private static class Instance {
+        static final NetworkMetrics instance = new NetworkMetrics();
+    }
+
+    /**
+     * Propriété système donnant le port du point d'accès texte des métriques. Si elle est définie, le serveur active
+     * la collecte, s'enregistre auprès de JMX et démarre le point d'accès.
+     */
+    public static final String PORT_PROPERTY = "uch2.metrics.port";
+
+    private static final String MBEAN_NAME = "com.gdx.uch2:type=NetworkMetrics";
+
+    private static final int NB_TYPES = MessageType.values().length;
+
+    private volatile boolean enabled = false;
+    private boolean registered = false;
+
+    private final AtomicLongArray messagesOut = new AtomicLongArray(NB_TYPES);
+    private final AtomicLongArray bytesOut = new AtomicLongArray(NB_TYPES);
+    private final AtomicLongArray messagesIn = new AtomicLongArray(NB_TYPES);
+    private final AtomicLongArray bytesIn = new AtomicLongArray(NB_TYPES);
+
+    private final Histogram tickDuration = new Histogram();
+    private final Histogram roundDuration = new Histogram();
+    private final Histogram[] phaseDurations = new Histogram[GamePhase.values().length];
+    private final AtomicLong lockWait = new AtomicLong();
+
+    private final AtomicInteger activeRooms = new AtomicInteger();
+    private final Map<PlayerContext, Boolean> connections = new ConcurrentHashMap<>();
+
+    private NetworkMetrics() {
+        for (int i = 0; i < phaseDurations.length; ++i) {
+            phaseDurations[i] = new Histogram();
+        }
+    }
+
+    /**
+     * @return l'instance unique du singleton
+     */
+    public static NetworkMetrics getInstance() {
+        return Instance.instance;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Lit la propriété système {@link #PORT_PROPERTY} et, si elle est définie, active la collecte, enregistre le
+     * MBean et démarre le point d'accès texte. Sans effet si la propriété est absente ou déjà traitée.
+     */
+    public synchronized void startFromSystemProperties() {
+        String port = System.getProperty(PORT_PROPERTY);
+        if (port == null || registered) {
+            return;
+        }
+
+        enabled = true;
+        registered = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(MBEAN_NAME));
+        } catch (Exception e) {
+            System.out.println("SRV: Impossible d'enregistrer le MBean des métriques : " + e);
+        }
+
+        try {
+            Thread t = new Thread(new MetricsEndpoint(Integer.parseInt(port)), "metrics-endpoint");
+            t.setDaemon(true);
+            t.start();
+        } catch (NumberFormatException e) {
+            System.out.println("SRV: Port des métriques invalide : " + port);
+        }
+    }
+
+    /**
+     * Enregistre un message envoyé
+     * @param type type du message
+     * @param bytes nombre de bytes écrits
+     */
+    public void recordMessageOut(MessageType type, int bytes) {
+        if (!enabled || type == null) return;
+        messagesOut.incrementAndGet(type.ordinal());
+        bytesOut.addAndGet(type.ordinal(), bytes);
+    }
+
+    /**
+     * Enregistre des bytes envoyés qui complètent un message déjà compté
+     * @param type type du message complété
+     * @param bytes nombre de bytes écrits
+     */
+    public void recordBytesOut(MessageType type, int bytes) {
+        if (!enabled || type == null) return;
+        bytesOut.addAndGet(type.ordinal(), bytes);
+    }
+
+    /**
+     * Enregistre la réception d'un message
+     * @param type type du message reçu
+     */
+    public void recordMessageIn(MessageType type) {
+        if (!enabled || type == null) return;
+        messagesIn.incrementAndGet(type.ordinal());
+    }
+
+    /**
+     * Enregistre des bytes reçus appartenant à un message
+     * @param type type du message auquel appartiennent les bytes
+     * @param bytes nombre de bytes lus
+     */
+    public void recordBytesIn(MessageType type, long bytes) {
+        if (!enabled || type == null) return;
+        bytesIn.addAndGet(type.ordinal(), bytes);
+    }
+
+    /**
+     * Enregistre un temps d'attente sur un verrou d'écriture
+     * @param nanos durée de l'attente en nanosecondes
+     */
+    public void recordLockWait(long nanos) {
+        if (!enabled) return;
+        lockWait.addAndGet(nanos);
+    }
+
+    /**
+     * Enregistre la durée d'un tick du serveur
+     * @param nanos durée du tick en nanosecondes
+     */
+    public void recordTick(long nanos) {
+        if (!enabled) return;
+        tickDuration.record(nanos / 1000);
+    }
+
+    /**
+     * Enregistre la durée d'une phase de jeu terminée
+     * @param phase la phase terminée
+     * @param millis durée de la phase en millisecondes
+     */
+    public void recordPhase(GamePhase phase, long millis) {
+        if (!enabled || phase == null) return;
+        phaseDurations[phase.ordinal()].record(millis);
+    }
+
+    /**
+     * Enregistre la durée d'un round terminé
+     * @param millis durée du round en millisecondes
+     */
+    public void recordRound(long millis) {
+        if (!enabled) return;
+        roundDuration.record(millis);
+    }
+
+    /**
+     * Indique qu'une partie a démarré
+     */
+    public void roomOpened() {
+        activeRooms.incrementAndGet();
+    }
+
+    /**
+     * Indique qu'une partie s'est terminée
+     */
+    public void roomClosed() {
+        activeRooms.decrementAndGet();
+    }
+
+    /**
+     * Indique qu'une connexion avec un client a été ouverte
+     * @param ctx contexte de la connexion
+     */
+    public void connectionOpened(PlayerContext ctx) {
+        connections.put(ctx, Boolean.TRUE);
+    }
+
+    /**
+     * Indique qu'une connexion avec un client a été fermée
+     * @param ctx contexte de la connexion
+     */
+    public void connectionClosed(PlayerContext ctx) {
+        connections.remove(ctx);
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return connections.size();
+    }
+
+    @Override
+    public int getActiveRooms() {
+        return activeRooms.get();
+    }
+
+    @Override
+    public long getTickCount() {
+        return tickDuration.getCount();
+    }
+
+    @Override
+    public double getTickMeanMicros() {
+        return tickDuration.getMean();
+    }
+
+    @Override
+    public long getTickP99Micros() {
+        return tickDuration.getPercentile(0.99);
+    }
+
+    @Override
+    public long getLockWaitMicros() {
+        return lockWait.get() / 1000;
+    }
+
+    @Override
+    public long getMessagesOut() {
+        return sum(messagesOut);
+    }
+
+    @Override
+    public long getMessagesIn() {
+        return sum(messagesIn);
+    }
+
+    @Override
+    public long getBytesOut() {
+        return sum(bytesOut);
+    }
+
+    @Override
+    public long getBytesIn() {
+        return sum(bytesIn);
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        line(sb, "uch2_metrics_enabled", enabled ? 1 : 0);
+        line(sb, "uch2_active_rooms", activeRooms.get());
+        line(sb, "uch2_active_connections", connections.size());
+        histogram(sb, "uch2_tick_duration_us", "", tickDuration);
+        histogram(sb, "uch2_round_duration_ms", "", roundDuration);
+        for (GamePhase phase : GamePhase.values()) {
+            histogram(sb, "uch2_phase_duration_ms", "phase=\"" + phase + "\"", phaseDurations[phase.ordinal()]);
+        }
+        line(sb, "uch2_lock_wait_us", lockWait.get() / 1000);
+
+        for (MessageType type : MessageType.values()) {
+            String label = "{type=\"" + type + "\"}";
+            line(sb, "uch2_messages_out" + label, messagesOut.get(type.ordinal()));
+            line(sb, "uch2_bytes_out" + label, bytesOut.get(type.ordinal()));
+            line(sb, "uch2_messages_in" + label, messagesIn.get(type.ordinal()));
+            line(sb, "uch2_bytes_in" + label, bytesIn.get(type.ordinal()));
+        }
+
+        for (PlayerContext ctx : connections.keySet()) {
+            String label = "{player=\"" + ctx.getId() + "\"}";
+            if (ctx.out != null) {
+                line(sb, "uch2_connection_messages_out" + label, ctx.out.getMessagesWritten());
+                line(sb, "uch2_connection_bytes_out" + label, ctx.out.getBytesWritten());
+            }
+            if (ctx.in != null) {
+                line(sb, "uch2_connection_messages_in" + label, ctx.in.getMessagesRead());
+                line(sb, "uch2_connection_bytes_in" + label, ctx.in.getBytesRead());
+            }
+            line(sb, "uch2_connection_rtt_us" + label, (long) (ctx.getLatency().getSmoothedRtt() * 1000));
+            line(sb, "uch2_connection_jitter_us" + label, (long) (ctx.getLatency().getJitter() * 1000));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < NB_TYPES; ++i) {
+            messagesOut.set(i, 0);
+            bytesOut.set(i, 0);
+            messagesIn.set(i, 0);
+            bytesIn.set(i, 0);
+        }
+        tickDuration.reset();
+        roundDuration.reset();
+        for (Histogram h : phaseDurations) {
+            h.reset();
+        }
+        lockWait.set(0);
+    }
+
+    private static long sum(AtomicLongArray array) {
+        long acc = 0;
+        for (int i = 0; i < array.length(); ++i) {
+            acc += array.get(i);
+        }
+        return acc;
+    }
+
+    private static void line(StringBuilder sb, String name, long value) {
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void histogram(StringBuilder sb, String name, String labels, Histogram h) {
+        String prefix = labels.isEmpty() ? "{" : "{" + labels + ",";
+        String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+        line(sb, name + "_count" + suffix, h.getCount());
+        line(sb, name + prefix + "quantile=\"0.5\"}", h.getPercentile(0.5));
+        line(sb, name + prefix + "quantile=\"0.99\"}", h.getPercentile(0.99));
+        line(sb, name + "_max" + suffix, h.getMax());
+    }
+}
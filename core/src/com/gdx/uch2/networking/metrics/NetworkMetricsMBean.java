@@ -0,0 +1,78 @@
+package com.gdx.uch2.networking.metrics;
+
+/**
+ * Interface JMX exposant les métriques réseau du serveur
+ */
+public interface NetworkMetricsMBean {
+
+    /**
+     * @return true si la collecte des métriques est active
+     */
+    boolean isEnabled();
+
+    /**
+     * Active ou désactive la collecte des métriques
+     * @param enabled true pour activer la collecte
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return le nombre de connexions actives
+     */
+    int getActiveConnections();
+
+    /**
+     * @return le nombre de parties en cours
+     */
+    int getActiveRooms();
+
+    /**
+     * @return le nombre de ticks effectués
+     */
+    long getTickCount();
+
+    /**
+     * @return la durée moyenne d'un tick en microsecondes
+     */
+    double getTickMeanMicros();
+
+    /**
+     * @return le 99e percentile de la durée d'un tick en microsecondes
+     */
+    long getTickP99Micros();
+
+    /**
+     * @return le temps d'attente total sur les verrous d'écriture en microsecondes
+     */
+    long getLockWaitMicros();
+
+    /**
+     * @return le nombre total de messages envoyés
+     */
+    long getMessagesOut();
+
+    /**
+     * @return le nombre total de messages reçus
+     */
+    long getMessagesIn();
+
+    /**
+     * @return le nombre total de bytes envoyés
+     */
+    long getBytesOut();
+
+    /**
+     * @return le nombre total de bytes reçus
+     */
+    long getBytesIn();
+
+    /**
+     * @return toutes les métriques au format texte
+     */
+    String dump();
+
+    /**
+     * Remet toutes les métriques à zéro
+     */
+    void reset();
+}
@@ -0,0 +1,57 @@
+package com.gdx.uch2.networking.serialization;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream comptant le nombre de bytes lus
+ */
+class CountingInputStream extends FilterInputStream {
+    private volatile long count = 0;
+
+    /**
+     * Constructeur
+     * @param in InputStream dont on compte les bytes lus
+     */
+    CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * @return le nombre de bytes lus depuis la création du stream
+     */
+    long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            ++count;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
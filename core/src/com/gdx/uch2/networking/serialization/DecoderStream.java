@@ -1,23 +1,50 @@
 package com.gdx.uch2.networking.serialization;
 
 import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.controller.LevelFile;
 import com.gdx.uch2.entities.Block;
 import com.gdx.uch2.entities.Player;
-import com.gdx.uch2.entities.ProtectedArea;
-import com.gdx.uch2.entities.Trap;
+import com.gdx.uch2.networking.GamePhase;
+import com.gdx.uch2.networking.messages.BlockPositions;
+import com.gdx.uch2.networking.metrics.NetworkMetrics;
 import com.gdx.uch2.networking.messages.GameState;
+import com.gdx.uch2.networking.messages.LevelData;
+import com.gdx.uch2.networking.messages.LevelEdit;
+import com.gdx.uch2.networking.messages.LevelEditBatch;
+import com.gdx.uch2.networking.messages.LevelRequest;
+import com.gdx.uch2.networking.messages.LevelSyncRequest;
 import com.gdx.uch2.networking.messages.MessageType;
 import com.gdx.uch2.networking.messages.ObjectPlacement;
+import com.gdx.uch2.networking.messages.PhaseChange;
+import com.gdx.uch2.networking.messages.Ping;
 import com.gdx.uch2.networking.messages.PlayerState;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * InputStream décodant les bytes lus en fonction de la méthode utilisée
  */
 public class DecoderStream extends FilterInputStream {
 
+    /**
+     * Capacité initiale maximale d'un tableau dont la taille est annoncée par le pair : au-delà, il grandit au fil des
+     * éléments reçus
+     */
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
+    /**
+     * Nombre maximal de positions dans un message BlockPositions, qui en contient au plus une par joueur
+     */
+    private static final int MAX_BLOCK_POSITIONS = 1 << 16;
+
     private final DataInputStream stream;
+    private final CountingInputStream counter;
+    private final NetworkMetrics metrics = NetworkMetrics.getInstance();
+    private MessageType lastType;
+    private long lastTypeOffset = 0;
+    private volatile long messagesRead = 0;
     public IOException e = null;
 
 
@@ -26,8 +53,13 @@ public class DecoderStream extends FilterInputStream {
      * @param stream Inputstream sur lequel ajouter le DecoderStream
      */
     public DecoderStream(InputStream stream) {
-        super(new DataInputStream(new BufferedInputStream(stream)));
+        this(new CountingInputStream(new BufferedInputStream(stream)));
+    }
+
+    private DecoderStream(CountingInputStream counter) {
+        super(new DataInputStream(counter));
         this.stream = (DataInputStream) in;
+        this.counter = counter;
     }
 
     /**
@@ -35,6 +67,11 @@ public class DecoderStream extends FilterInputStream {
      * @return le type de message lu
      */
     public MessageType getType() {
+        // Les bytes lus depuis le dernier type appartiennent au message précédent
+        long offset = counter.getCount();
+        metrics.recordBytesIn(lastType, offset - lastTypeOffset);
+        lastTypeOffset = offset;
+
         MessageType m = null;
         try {
             m = MessageType.values()[stream.readInt()];
@@ -43,9 +80,28 @@ public class DecoderStream extends FilterInputStream {
             this.e = e;
         }
 
+        if (m != null) {
+            ++messagesRead;
+            metrics.recordMessageIn(m);
+        }
+        lastType = m;
         return m;
     }
 
+    /**
+     * @return le nombre de messages lus sur ce stream
+     */
+    public long getMessagesRead() {
+        return messagesRead;
+    }
+
+    /**
+     * @return le nombre de bytes lus sur ce stream
+     */
+    public long getBytesRead() {
+        return counter.getCount();
+    }
+
     /**
      * Lit un PlayerState
      * @return le PlayerState lu
@@ -130,7 +186,8 @@ public class DecoderStream extends FilterInputStream {
             id = stream.readInt();
             int typeIdx = stream.readInt();
             if (typeIdx >= 0) {
-                type = Block.Type.values()[typeIdx];
+                // un type inconnu est lu comme une absence de block
+                type = typeIdx < Block.Type.values().length ? Block.Type.values()[typeIdx] : null;
                 x = stream.readFloat();
                 y = stream.readFloat();
             }
@@ -142,16 +199,201 @@ public class DecoderStream extends FilterInputStream {
 
         if (type == null) return new ObjectPlacement(id, null);
 
-        switch (type) {
-            case PROTECTED_AREA:
-                return new ObjectPlacement(id, new ProtectedArea(new Vector2(x, y)));
-            case LETHAL:
-            case G_DOWN:
-            case G_UP:
-                return new ObjectPlacement(id, new Trap(new Vector2(x, y), type));
-            default:
-                return new ObjectPlacement(id, new Block(new Vector2(x, y), type));
+        return new ObjectPlacement(id, Block.create(type, new Vector2(x, y)));
+    }
+
+    /**
+     * Lit les positions des blocks en cours de placement de plusieurs joueurs
+     * @return les positions lues
+     */
+    public BlockPositions readBlockPositions() {
+        ObjectPlacement[] positions;
+        try {
+            int count = stream.readInt();
+            if (count < 0 || count > MAX_BLOCK_POSITIONS) {
+                throw new IOException("Nombre de positions invalide : " + count);
+            }
+            List<ObjectPlacement> read = new ArrayList<>(Math.min(count, MAX_INITIAL_CAPACITY));
+            for (int i = 0; i < count; ++i) {
+                int id = stream.readInt();
+                Block.Type type = readBlockType();
+                float x = stream.readFloat();
+                float y = stream.readFloat();
+                read.add(new ObjectPlacement(id, Block.create(type, new Vector2(x, y))));
+            }
+            positions = read.toArray(new ObjectPlacement[0]);
+            this.e = null;
+        } catch (IOException e) {
+            this.e = e;
+            return null;
         }
+
+        return new BlockPositions(positions);
+    }
+
+    /**
+     * Lit un Ping ou un Pong
+     * @return la sonde lue
+     */
+    public Ping readPing() {
+        int sequence;
+        long timestamp;
+        try {
+            sequence = stream.readInt();
+            timestamp = stream.readLong();
+            this.e = null;
+        } catch (IOException e) {
+            this.e = e;
+            return null;
+        }
+
+        return new Ping(sequence, timestamp);
+    }
+
+    /**
+     * Lit une demande de niveau
+     * @return la demande lue
+     */
+    public LevelRequest readLevelRequest() {
+        long hash;
+        try {
+            hash = stream.readLong();
+            this.e = null;
+        } catch (IOException e) {
+            this.e = e;
+            return null;
+        }
+
+        return new LevelRequest(hash);
+    }
+
+    /**
+     * Lit un morceau de niveau
+     * @return le morceau lu
+     */
+    public LevelData readLevelData() {
+        long hash;
+        long checksum;
+        int total;
+        int offset;
+        byte[] data;
+        try {
+            hash = stream.readLong();
+            checksum = stream.readLong();
+            total = stream.readInt();
+            offset = stream.readInt();
+            int length = stream.readInt();
+            if (length < 0 || offset < 0 || total < 0 || total > LevelFile.MAX_SIZE || length > total - offset) {
+                throw new IOException("Morceau de niveau invalide");
+            }
+            data = new byte[length];
+            stream.readFully(data);
+            this.e = null;
+        } catch (IOException e) {
+            this.e = e;
+            return null;
+        }
+
+        return new LevelData(hash, checksum, total, offset, data);
+    }
+
+    /**
+     * Lit une modification du niveau
+     * @return la modification lue
+     */
+    public LevelEdit readLevelEdit() {
+        try {
+            int seq = stream.readInt();
+            int playerID = stream.readInt();
+            Block block = readBlock();
+            long checksum = stream.readLong();
+            this.e = null;
+            return new LevelEdit(seq, playerID, block, checksum);
+        } catch (IOException e) {
+            this.e = e;
+            return null;
+        }
+    }
+
+    /**
+     * Lit un lot de modifications du niveau
+     * @return le lot lu
+     */
+    public LevelEditBatch readLevelEditBatch() {
+        try {
+            int fromSeq = stream.readInt();
+            int toSeq = stream.readInt();
+            // un lot contient au plus un block par case du niveau
+            int count = stream.readInt();
+            if (count < 0 || count > LevelFile.MAX_CELLS) {
+                throw new IOException("Taille de lot invalide : " + count);
+            }
+            // le tableau grandit avec les blocks réellement reçus, pas avec la taille annoncée
+            List<Block> read = new ArrayList<>(Math.min(count, MAX_INITIAL_CAPACITY));
+            for (int i = 0; i < count; ++i) {
+                read.add(readBlock());
+            }
+            Block[] blocks = read.toArray(new Block[0]);
+            long checksum = stream.readLong();
+            this.e = null;
+            return new LevelEditBatch(fromSeq, toSeq, blocks, checksum);
+        } catch (IOException e) {
+            this.e = e;
+            return null;
+        }
+    }
+
+    /**
+     * Lit une demande de synchronisation du niveau
+     * @return la demande lue
+     */
+    public LevelSyncRequest readLevelSyncRequest() {
+        int fromSeq;
+        try {
+            fromSeq = stream.readInt();
+            this.e = null;
+        } catch (IOException e) {
+            this.e = e;
+            return null;
+        }
+
+        return new LevelSyncRequest(fromSeq);
+    }
+
+    /**
+     * Lit un changement de phase
+     * @return le changement de phase lu
+     */
+    public PhaseChange readPhaseChange() {
+        GamePhase phase;
+        int seq;
+        try {
+            phase = GamePhase.values()[stream.readInt()];
+            seq = stream.readInt();
+            this.e = null;
+        } catch (IOException e) {
+            this.e = e;
+            return null;
+        }
+
+        return new PhaseChange(phase, seq);
+    }
+
+    // Type de block, lu par son ordinal
+    private Block.Type readBlockType() throws IOException {
+        int typeIdx = stream.readInt();
+        if (typeIdx < 0 || typeIdx >= Block.Type.values().length) {
+            throw new IOException("Type de block invalide : " + typeIdx);
+        }
+        return Block.Type.values()[typeIdx];
+    }
+
+    // Block d'une modification du niveau : type et case
+    private Block readBlock() throws IOException {
+        Block.Type type = readBlockType();
+        int x = stream.readInt();
+        int y = stream.readInt();
+        return Block.create(type, new Vector2(x, y));
     }
 
     /**
@@ -171,6 +413,23 @@ public class DecoderStream extends FilterInputStream {
         return i;
     }
 
+    /**
+     * Lit un entier sur 64 bits
+     * @return l'entier lu
+     */
+    public long readLong() {
+        long l;
+        try {
+            l = stream.readLong();
+            this.e = null;
+        } catch (IOException e) {
+            this.e = e;
+            return -1;
+        }
+
+        return l;
+    }
+
     /**
      * Lit une String
      * @return la String lue
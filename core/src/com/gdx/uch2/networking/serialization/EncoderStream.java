@@ -1,9 +1,18 @@
 package com.gdx.uch2.networking.serialization;
 
 import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.networking.messages.BlockPositions;
+import com.gdx.uch2.networking.metrics.NetworkMetrics;
 import com.gdx.uch2.networking.messages.GameState;
+import com.gdx.uch2.networking.messages.LevelData;
+import com.gdx.uch2.networking.messages.LevelEdit;
+import com.gdx.uch2.networking.messages.LevelEditBatch;
+import com.gdx.uch2.networking.messages.LevelRequest;
+import com.gdx.uch2.networking.messages.LevelSyncRequest;
 import com.gdx.uch2.networking.messages.MessageType;
 import com.gdx.uch2.networking.messages.ObjectPlacement;
+import com.gdx.uch2.networking.messages.PhaseChange;
+import com.gdx.uch2.networking.messages.Ping;
 import com.gdx.uch2.networking.messages.PlayerState;
 
 import java.io.*;
@@ -15,6 +24,10 @@ import java.util.concurrent.Semaphore;
 public class EncoderStream extends FilterOutputStream {
     private Semaphore mutex;
     private DataOutputStream stream;
+    private final NetworkMetrics metrics = NetworkMetrics.getInstance();
+    private MessageType lastType;
+    private volatile long messagesWritten = 0;
+    private volatile long bytesWritten = 0;
     public IOException e = null;
 
     /**
@@ -32,7 +45,7 @@ public class EncoderStream extends FilterOutputStream {
      * @param messageType le type de message à écrire
      */
     public void writeMessage(MessageType messageType) {
-        writeMessage(messageType.ordinal());
+        writeInt(messageType.ordinal(), messageType);
     }
 
     /**
@@ -40,11 +53,40 @@ public class EncoderStream extends FilterOutputStream {
      * @param i l'entier à écrire
      */
     public void writeMessage(int i) {
+        writeInt(i, null);
+    }
+
+    private void writeInt(int i, MessageType type) {
         try {
-            mutex.acquire();
+            acquire();
             try {
+                int before = stream.size();
                 stream.writeInt(i);
                 stream.flush();
+                count(type, before);
+                this.e = null;
+            } catch (IOException e) {
+                this.e = e;
+            } finally {
+                mutex.release();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Ecrit un entier sur 64 bits
+     * @param l l'entier à écrire
+     */
+    public void writeMessage(long l) {
+        try {
+            acquire();
+            try {
+                int before = stream.size();
+                stream.writeLong(l);
+                stream.flush();
+                count(null, before);
                 this.e = null;
             } catch (IOException e) {
                 this.e = e;
@@ -62,10 +104,12 @@ public class EncoderStream extends FilterOutputStream {
      */
     public void writeMessage(String s) {
         try {
-            mutex.acquire();
+            acquire();
             try {
+                int before = stream.size();
                 stream.writeUTF(s);
                 stream.flush();
+                count(null, before);
                 this.e = null;
             } catch (IOException e) {
                 this.e = e;
@@ -83,13 +127,15 @@ public class EncoderStream extends FilterOutputStream {
      */
     public void writeMessage(int[] scores){
         try {
-            mutex.acquire();
+            acquire();
+            int before = stream.size();
             stream.writeInt(MessageType.Score.ordinal());
             stream.writeInt(scores.length);
             for(int i = 0; i < scores.length; ++i){
                 stream.writeInt(scores[i]);
             }
             stream.flush();
+            count(MessageType.Score, before);
             this.e = null;
         } catch (InterruptedException e) {
             e.printStackTrace();
@@ -107,9 +153,11 @@ public class EncoderStream extends FilterOutputStream {
      */
     public void writeMessage(PlayerState playerState){
         try {
-            mutex.acquire();
+            acquire();
+            int before = stream.size();
             writeMessage(playerState, true);
             stream.flush();
+            count(MessageType.PlayerStateUpdate, before);
             this.e = null;
         } catch (InterruptedException e) {
             e.printStackTrace();
@@ -143,8 +191,9 @@ public class EncoderStream extends FilterOutputStream {
      */
     public void writeMessage(GameState gameState){
         try {
-            mutex.acquire();
+            acquire();
             try {
+                int before = stream.size();
                 // GameStateUpdate.
                 stream.writeInt(MessageType.GameStateUpdate.ordinal());
                 // Taille.
@@ -153,6 +202,7 @@ public class EncoderStream extends FilterOutputStream {
                     writeMessage(playerState, false);
                 }
                 stream.flush();
+                count(MessageType.GameStateUpdate, before);
                 this.e = null;
             } catch (IOException e) {
                 this.e = e;
@@ -179,8 +229,10 @@ public class EncoderStream extends FilterOutputStream {
      */
     public void writeMessage(ObjectPlacement objectPlacement, boolean finalPosition) {
         try {
-            mutex.acquire();
+            acquire();
             try {
+                int before = stream.size();
+                MessageType type = finalPosition ? MessageType.BlockPlaced : MessageType.BlockPosition;
                 // BlockPlaced.
                 if (finalPosition) {
                     stream.writeInt(MessageType.BlockPlaced.ordinal());
@@ -198,6 +250,37 @@ public class EncoderStream extends FilterOutputStream {
                     stream.writeFloat(objectPlacement.getBlock().getPosition().y);
                 }
                 stream.flush();
+                count(type, before);
+                this.e = null;
+            } catch (IOException e) {
+                this.e = e;
+            } finally {
+                mutex.release();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Ecrit les positions des blocks en cours de placement de plusieurs joueurs
+     * @param blockPositions les positions à écrire
+     */
+    public void writeMessage(BlockPositions blockPositions) {
+        try {
+            acquire();
+            try {
+                int before = stream.size();
+                stream.writeInt(MessageType.BlockPositions.ordinal());
+                stream.writeInt(blockPositions.getPositions().length);
+                for (ObjectPlacement op : blockPositions.getPositions()) {
+                    stream.writeInt(op.getPlayerID());
+                    stream.writeInt(op.getBlock().getType().ordinal());
+                    stream.writeFloat(op.getBlock().getPosition().x);
+                    stream.writeFloat(op.getBlock().getPosition().y);
+                }
+                stream.flush();
+                count(MessageType.BlockPositions, before);
                 this.e = null;
             } catch (IOException e) {
                 this.e = e;
@@ -209,6 +292,241 @@ public class EncoderStream extends FilterOutputStream {
         }
     }
 
+    /**
+     * Ecrit un Ping ou un Pong
+     * @param ping la sonde à écrire
+     * @param reply true pour écrire un Pong en réponse à un Ping reçu, false pour écrire un Ping
+     */
+    public void writeMessage(Ping ping, boolean reply) {
+        try {
+            acquire();
+            try {
+                int before = stream.size();
+                MessageType type = reply ? MessageType.Pong : MessageType.Ping;
+                stream.writeInt(type.ordinal());
+                stream.writeInt(ping.getSequence());
+                stream.writeLong(ping.getTimestamp());
+                stream.flush();
+                count(type, before);
+                this.e = null;
+            } catch (IOException e) {
+                this.e = e;
+            } finally {
+                mutex.release();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Ecrit une demande de niveau
+     * @param request la demande à écrire
+     */
+    public void writeMessage(LevelRequest request) {
+        try {
+            acquire();
+            try {
+                int before = stream.size();
+                stream.writeInt(MessageType.LevelRequest.ordinal());
+                stream.writeLong(request.getHash());
+                stream.flush();
+                count(MessageType.LevelRequest, before);
+                this.e = null;
+            } catch (IOException e) {
+                this.e = e;
+            } finally {
+                mutex.release();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Ecrit un morceau de niveau
+     * @param levelData le morceau à écrire
+     */
+    public void writeMessage(LevelData levelData) {
+        try {
+            acquire();
+            try {
+                int before = stream.size();
+                stream.writeInt(MessageType.LevelData.ordinal());
+                stream.writeLong(levelData.getHash());
+                stream.writeLong(levelData.getChecksum());
+                stream.writeInt(levelData.getTotal());
+                stream.writeInt(levelData.getOffset());
+                stream.writeInt(levelData.getData().length);
+                stream.write(levelData.getData());
+                stream.flush();
+                count(MessageType.LevelData, before);
+                this.e = null;
+            } catch (IOException e) {
+                this.e = e;
+            } finally {
+                mutex.release();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Ecrit une modification du niveau
+     * @param edit la modification à écrire
+     */
+    public void writeMessage(LevelEdit edit) {
+        try {
+            acquire();
+            try {
+                int before = stream.size();
+                stream.writeInt(MessageType.LevelEdit.ordinal());
+                stream.writeInt(edit.getSeq());
+                stream.writeInt(edit.getPlayerID());
+                writeBlock(edit.getBlock());
+                stream.writeLong(edit.getChecksum());
+                stream.flush();
+                count(MessageType.LevelEdit, before);
+                this.e = null;
+            } catch (IOException e) {
+                this.e = e;
+            } finally {
+                mutex.release();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Ecrit un lot de modifications du niveau
+     * @param batch le lot à écrire
+     */
+    public void writeMessage(LevelEditBatch batch) {
+        try {
+            acquire();
+            try {
+                int before = stream.size();
+                stream.writeInt(MessageType.LevelEditBatch.ordinal());
+                stream.writeInt(batch.getFromSeq());
+                stream.writeInt(batch.getToSeq());
+                stream.writeInt(batch.getBlocks().length);
+                for (Block b : batch.getBlocks()) {
+                    writeBlock(b);
+                }
+                stream.writeLong(batch.getChecksum());
+                stream.flush();
+                count(MessageType.LevelEditBatch, before);
+                this.e = null;
+            } catch (IOException e) {
+                this.e = e;
+            } finally {
+                mutex.release();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Ecrit une demande de synchronisation du niveau
+     * @param request la demande à écrire
+     */
+    public void writeMessage(LevelSyncRequest request) {
+        try {
+            acquire();
+            try {
+                int before = stream.size();
+                stream.writeInt(MessageType.LevelSyncRequest.ordinal());
+                stream.writeInt(request.getFromSeq());
+                stream.flush();
+                count(MessageType.LevelSyncRequest, before);
+                this.e = null;
+            } catch (IOException e) {
+                this.e = e;
+            } finally {
+                mutex.release();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Ecrit un changement de phase
+     * @param phaseChange le changement de phase à écrire
+     */
+    public void writeMessage(PhaseChange phaseChange) {
+        try {
+            acquire();
+            try {
+                int before = stream.size();
+                stream.writeInt(MessageType.PhaseChange.ordinal());
+                stream.writeInt(phaseChange.getPhase().ordinal());
+                stream.writeInt(phaseChange.getSeq());
+                stream.flush();
+                count(MessageType.PhaseChange, before);
+                this.e = null;
+            } catch (IOException e) {
+                this.e = e;
+            } finally {
+                mutex.release();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Block d'une modification du niveau : type et case
+    private void writeBlock(Block b) throws IOException {
+        stream.writeInt(b.getType().ordinal());
+        stream.writeInt((int) b.getPosition().x);
+        stream.writeInt((int) b.getPosition().y);
+    }
+
+    /**
+     * @return le nombre de messages écrits sur ce stream
+     */
+    public long getMessagesWritten() {
+        return messagesWritten;
+    }
+
+    /**
+     * @return le nombre de bytes écrits sur ce stream
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    // Prend le verrou d'écriture en mesurant l'attente si les métriques sont actives. Sans attente, rien n'est mesuré :
+    // le cas courant ne lit pas l'horloge.
+    private void acquire() throws InterruptedException {
+        if (mutex.tryAcquire()) {
+            return;
+        }
+        if (metrics.isEnabled()) {
+            long start = System.nanoTime();
+            mutex.acquire();
+            metrics.recordLockWait(System.nanoTime() - start);
+        } else {
+            mutex.acquire();
+        }
+    }
+
+    // Comptabilise les bytes écrits depuis before. Un type null signifie que les bytes complètent le message précédent
+    private void count(MessageType type, int before) {
+        int bytes = stream.size() - before;
+        bytesWritten += bytes;
+        if (type != null) {
+            lastType = type;
+            ++messagesWritten;
+            metrics.recordMessageOut(type, bytes);
+        } else {
+            metrics.recordBytesOut(lastType, bytes);
+        }
+    }
+
     /**
      * Ferme le stream
      */
@@ -1,10 +1,22 @@
 package com.gdx.uch2.networking.server;
 
+import com.gdx.uch2.controller.LevelFile;
+import com.gdx.uch2.entities.Block;
 import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.entities.LevelTemplate;
 import com.gdx.uch2.networking.GamePhase;
 import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.messages.LevelData;
+import com.gdx.uch2.networking.messages.LevelEdit;
+import com.gdx.uch2.networking.messages.LevelRequest;
+import com.gdx.uch2.networking.messages.LevelSyncRequest;
 import com.gdx.uch2.networking.messages.MessageType;
 import com.gdx.uch2.networking.messages.ObjectPlacement;
+import com.gdx.uch2.networking.messages.PhaseChange;
+import com.gdx.uch2.networking.messages.Ping;
+import com.gdx.uch2.networking.metrics.NetworkMetrics;
+import com.gdx.uch2.util.Constants;
+import com.gdx.uch2.util.Threads;
 
 import java.util.Arrays;
 
@@ -19,6 +31,9 @@ public class CentralGameManager {
     private boolean[] hasPlaced;
     private GamePhase currentPhase;
     private Level map;
+    private final LevelTemplate template;
+    private final LevelData[] levelChunks;
+    private final LevelEditLog editLog;
     private int nbPlayersReady = 0;
     private int round;
     private final int nbRounds;
@@ -26,14 +41,22 @@ public class CentralGameManager {
     private final int PTS_FIRST = 10, PTS_ARRIVED = 5;
     private int[] scoring;
     private boolean firstArrived;
+    private long phaseStart;
+    private long roundStart;
 
     /**
      * Constructeur
-     * @param map niveau dans lequel se joue la partie
+     * @param template modèle du niveau, envoyé aux clients qui ne le possèdent pas
+     * @param map niveau dans lequel se joue la partie, copie du modèle
      * @param nbRounds nombre de rounds que durera la partie
      */
-    public CentralGameManager(Level map, int nbRounds){
+    public CentralGameManager(LevelTemplate template, Level map, int nbRounds){
+        this.template = template;
         this.map = map;
+        editLog = new LevelEditLog(map);
+        // le niveau est compressé et découpé avant l'arrivée des joueurs, pour ne pas retarder leur entrée en jeu
+        levelChunks = SendLevel.split(template.getHash(), LevelFile.compress(template.getData()),
+                Constants.LEVEL_CHUNK_SIZE);
         this.nbRounds = nbRounds;
         firstArrived = true;
 
@@ -52,7 +75,7 @@ public class CentralGameManager {
         Arrays.fill(scoring, 0);
         hasPlaced = new boolean[players.length];
         firstArrived = true;
-
+        NetworkMetrics.getInstance().roomOpened();
     }
 
 
@@ -82,6 +105,18 @@ public class CentralGameManager {
             case AckGameStart:
                 processAckGameStart(context);
                 break;
+            case Ping:
+                processPing(context);
+                break;
+            case Pong:
+                processPong(context);
+                break;
+            case LevelRequest:
+                processLevelRequest(context);
+                break;
+            case LevelSyncRequest:
+                processLevelSyncRequest(context);
+                break;
             default:
                 System.out.println("SRV: Type de messages inconnu : " + type);
                 break;
@@ -106,21 +141,29 @@ public class CentralGameManager {
     }
 
     private void startMovementPhase(){
+        endPhase();
         currentPhase = GamePhase.Moving;
         Arrays.fill(finished, 0);
         Arrays.fill(dead, false);
         Arrays.fill(hasPlaced, false);
         firstArrived = true;
+        ServerGameStateTickManager.getInstance().clearBlockPositions();
     }
 
     private void startEditingPhase(){
-        final int STARTER_ID = 0;
-
+        endPhase();
+        roundStart = phaseStart;
         currentPhase = GamePhase.Editing;
+        sendPhaseToAllPlayers();
+    }
 
-        //Send an object with Block = null to inform players that the editing phase is starting
-        ObjectPlacement op = new ObjectPlacement(STARTER_ID, null);
-        sendBlockToAllPlayers(op);
+    // Enregistre la durée de la phase courante et démarre le chronomètre de la suivante
+    private void endPhase() {
+        long now = System.currentTimeMillis();
+        if (currentPhase != null) {
+            NetworkMetrics.getInstance().recordPhase(currentPhase, now - phaseStart);
+        }
+        phaseStart = now;
     }
 
     private void computePoints(){
@@ -171,7 +214,7 @@ public class CentralGameManager {
 
 
         if(allFinished){
-            new Thread(new Runnable() {
+            Threads.start(new Runnable() {
                 @Override
                 public void run() {
                     try {
@@ -179,6 +222,7 @@ public class CentralGameManager {
                     } catch (InterruptedException ignored) {
                     }
                     resetPlayersPositions();
+                    NetworkMetrics.getInstance().recordRound(System.currentTimeMillis() - roundStart);
                     if (++round < nbRounds) {
                         computePoints();
                         startEditingPhase();
@@ -186,7 +230,7 @@ public class CentralGameManager {
                         endGame();
                     }
                 }
-            }).start();
+            }, "round-end");
         }
     }
 
@@ -198,6 +242,9 @@ public class CentralGameManager {
             }
         }
 
+        if (!isOver) {
+            NetworkMetrics.getInstance().roomClosed();
+        }
         isOver = true;
         try {
             Thread.sleep(500);
@@ -213,47 +260,110 @@ public class CentralGameManager {
         }
     }
 
+    private void processPing(PlayerContext ctx) {
+        Ping ping = ctx.in.readPing();
+        if (ping != null) {
+            ctx.out.writeMessage(ping, true);
+        }
+    }
+
+    private void processPong(PlayerContext ctx) {
+        Ping pong = ctx.in.readPing();
+        if (pong != null) {
+            ctx.getLatency().onPong(pong, System.nanoTime());
+        }
+    }
+
+    private void processLevelRequest(PlayerContext ctx) {
+        LevelRequest request = ctx.in.readLevelRequest();
+        if (request == null) return;
+
+        if (request.getHash() != template.getHash()) {
+            System.out.println("SRV: Niveau demandé inconnu : " + request);
+            return;
+        }
+        // l'envoi a son propre thread pour que la lecture des messages du client continue
+        Threads.start(new SendLevel(ctx, levelChunks), "level-stream-" + ctx.getId());
+    }
+
     private void processPlayerState(PlayerContext ctx){
         ServerGameStateTickManager.getInstance().setPlayerState(ctx.in.readPlayerState());
 
     }
 
-    private void processObjectPlacement(PlayerContext ctx){
+    // Synchronisée pour que les modifications soient envoyées dans l'ordre de leurs numéros
+    private synchronized void processObjectPlacement(PlayerContext ctx){
+        //Reads the message
+        ObjectPlacement op = ctx.in.readObjectPlacement();
+        if (op == null || op.getBlock() == null || currentPhase != GamePhase.Editing) return;
+
+        // l'ID annoncé par le client n'est pas fiable, seule la connexion identifie le joueur
+        int id = ctx.getId();
+        if (hasPlaced[id] || !canPlace(op.getBlock())) {
+            System.out.println("SRV: placement refusé pour le joueur " + id + " : " + op.getBlock().getType()
+                    + " en " + op.getBlock().getPosition());
+            return;
+        }
 
-        if(currentPhase == GamePhase.Editing) {
-            //Reads the message
-            ObjectPlacement op = ctx.in.readObjectPlacement();
+        hasPlaced[id] = true;
+        sendEditToAllPlayers(editLog.append(id, op.getBlock()));
 
-            hasPlaced[op.getPlayerID()] = true;
+        boolean acc = true;
+        for (int i = 0; i < hasPlaced.length; ++i) {
+            acc = acc && hasPlaced[i];
+        }
 
-            boolean acc = true;
-            for (int i = 0; i < hasPlaced.length; ++i) {
-                acc = acc && hasPlaced[i];
-            }
+        if (acc) {
+            startMovementPhase();
+            sendPhaseToAllPlayers();
+        }
+    }
 
-            if (acc) {
-                startMovementPhase();
-                sendBlockToAllPlayers(new ObjectPlacement(-1, op.getBlock()));
-            } else {
-                sendBlockToAllPlayers(new ObjectPlacement(0, op.getBlock()));
-            }
+    // Mêmes règles que l'écran de placement : une case du niveau, vide sauf pour un ANTIBLOCK qui vide une case
+    // occupée, jamais une zone protégée
+    private boolean canPlace(Block block) {
+        int x = (int) block.getPosition().x;
+        int y = (int) block.getPosition().y;
+        if (!map.contains(x, y) || block.getType() == Block.Type.PROTECTED_AREA) {
+            return false;
+        }
+        Block.Type current = map.getType(x, y);
+        if (block.getType() == Block.Type.ANTIBLOCK) {
+            return current != null && current != Block.Type.PROTECTED_AREA;
+        }
+        return current == null;
+    }
+
+    private void processLevelSyncRequest(PlayerContext ctx) {
+        LevelSyncRequest request = ctx.in.readLevelSyncRequest();
+        if (request != null) {
+            ctx.out.writeMessage(editLog.getSince(request.getFromSeq()));
         }
     }
 
     private void processBlockPosition(PlayerContext ctx) {
         ObjectPlacement op = ctx.in.readObjectPlacement();
+        if (op == null || op.getBlock() == null || currentPhase != GamePhase.Editing) {
+            return;
+        }
 
-        for (PlayerContext c : players) {
-            if (c.getId() != ctx.getId()) {
-                c.out.writeMessage(op, false);
+        // relayée au prochain tick avec les positions des autres joueurs
+        ServerGameStateTickManager.getInstance().setBlockPosition(new ObjectPlacement(ctx.getId(), op.getBlock()));
+    }
+
+    private void sendEditToAllPlayers(LevelEdit edit){
+        for (PlayerContext ctx : players) {
+            if (!ctx.getSocket().isClosed()) {
+                ctx.out.writeMessage(edit);
             }
         }
     }
 
-    private void sendBlockToAllPlayers(final ObjectPlacement op){
+    private void sendPhaseToAllPlayers(){
+        PhaseChange phaseChange = new PhaseChange(currentPhase, editLog.getVersion());
         for (PlayerContext ctx : players) {
             if (!ctx.getSocket().isClosed()) {
-                ctx.out.writeMessage(op);
+                ctx.out.writeMessage(phaseChange);
             }
         }
     }
@@ -1,12 +1,15 @@
 package com.gdx.uch2.networking.server;
 
-import com.gdx.uch2.controller.LevelLoader;
+import com.gdx.uch2.controller.LevelCache;
 import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.entities.LevelTemplate;
 import com.gdx.uch2.networking.PlayerContext;
 import com.gdx.uch2.networking.client.ErrorHandler;
 import com.gdx.uch2.networking.client.GameClient;
 import com.gdx.uch2.networking.messages.MessageType;
+import com.gdx.uch2.networking.metrics.NetworkMetrics;
 import com.gdx.uch2.util.Constants;
+import com.gdx.uch2.util.Threads;
 
 import java.io.IOException;
 import java.net.ServerSocket;
@@ -28,6 +31,7 @@ public class GameServer implements Runnable {
     private boolean full = false;
 
     private int port;
+    private LevelTemplate template;
     private Level level;
     private int numlevel;
     private int nbPlayers;
@@ -43,9 +47,21 @@ public class GameServer implements Runnable {
      * @param nbRounds nombre de rounds que durera la partie
      */
     public GameServer(int port, int noLevel, int nbPlayers, int nbRounds){
+        this(port, LevelCache.getInstance().getTemplate(noLevel), nbPlayers, nbRounds);
+    }
+
+    /**
+     * Constructeur pour un niveau quelconque, envoyé aux clients qui ne le possèdent pas
+     * @param port port sur lequel écoute le serveur
+     * @param template modèle du niveau sur lequel se joue la partie
+     * @param nbPlayers nombre de joueurs à atteindre pour que la partie commence
+     * @param nbRounds nombre de rounds que durera la partie
+     */
+    public GameServer(int port, LevelTemplate template, int nbPlayers, int nbRounds){
         this.port = port;
-        this.numlevel = noLevel;
-        this.level = LevelLoader.loadLevel(noLevel);
+        this.numlevel = template.getId();
+        this.template = template;
+        this.level = template.instantiate();
         this.nbPlayers = nbPlayers;
         players = new PlayerContext[nbPlayers];
         nicknames = new String[nbPlayers];
@@ -54,6 +70,7 @@ public class GameServer implements Runnable {
 
     @Override
     public void run() {
+        NetworkMetrics.getInstance().startFromSystemProperties();
 
         try {
             serverSocket = new ServerSocket(port);
@@ -63,7 +80,7 @@ public class GameServer implements Runnable {
         }
 
         int id = -1;
-        manager = new CentralGameManager(level, nbRounds);
+        manager = new CentralGameManager(template, level, nbRounds);
         while (!full) {
             try {
                 Socket clientSocket = serverSocket.accept();
@@ -79,8 +96,7 @@ public class GameServer implements Runnable {
                 players[id] = ctx;
                 nicknames[id] = ctx.in.readString();
 
-                Thread t = new Thread(new PlayerHandler(manager, ctx));
-                t.start();
+                Threads.start(new PlayerHandler(manager, ctx), "player-handler-" + id);
 
                 if(id == nbPlayers - 1){
                     full = true;
@@ -107,6 +123,7 @@ public class GameServer implements Runnable {
             ctx.out.writeMessage(MessageType.GameStart);
             ctx.out.writeMessage(ctx.getId());
             ctx.out.writeMessage(numlevel);
+            ctx.out.writeMessage(template.getHash());
             ctx.out.writeMessage(nbRounds);
             ctx.out.writeMessage(players.length - 1);
 
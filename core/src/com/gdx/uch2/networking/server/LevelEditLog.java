@@ -0,0 +1,74 @@
+package com.gdx.uch2.networking.server;
+
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.networking.messages.LevelEdit;
+import com.gdx.uch2.networking.messages.LevelEditBatch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journal des modifications du niveau d'une partie, tenu par le serveur. Chaque placement est appliqué au niveau du
+ * serveur puis ajouté au journal avec le numéro suivant et la somme de contrôle du niveau obtenu. Le journal ne fait
+ * que grandir : un client en retard peut en demander la fin à partir de la dernière modification qu'il a appliquée.
+ */
+public class LevelEditLog {
+    private final Level level;
+    private final List<LevelEdit> edits = new ArrayList<>();
+
+    /**
+     * Constructeur
+     * @param level le niveau de la partie, modifié uniquement par ce journal
+     */
+    public LevelEditLog(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Applique un placement au niveau et l'ajoute au journal
+     * @param playerID ID du joueur ayant placé le block
+     * @param block le block placé, un ANTIBLOCK vidant la case
+     * @return la modification ajoutée
+     */
+    public synchronized LevelEdit append(int playerID, Block block) {
+        LevelEdit.apply(level, block);
+        LevelEdit edit = new LevelEdit(edits.size() + 1, playerID, block, level.getChecksum());
+        edits.add(edit);
+        return edit;
+    }
+
+    /**
+     * @return le numéro de la dernière modification, 0 si le niveau n'a pas été modifié
+     */
+    public synchronized int getVersion() {
+        return edits.size();
+    }
+
+    /**
+     * @return la somme de contrôle actuelle du niveau
+     */
+    public synchronized long getChecksum() {
+        return level.getChecksum();
+    }
+
+    /**
+     * Rassemble les modifications suivant un numéro donné en un seul lot, ne gardant que le dernier block placé sur
+     * chaque case
+     * @param fromSeq numéro de la dernière modification déjà appliquée par le client
+     * @return le lot des modifications manquantes
+     */
+    public synchronized LevelEditBatch getSince(int fromSeq) {
+        fromSeq = Math.max(0, Math.min(fromSeq, edits.size()));
+        Map<Long, Block> last = new LinkedHashMap<>();
+        for (LevelEdit edit : edits.subList(fromSeq, edits.size())) {
+            Block b = edit.getBlock();
+            long cell = (long) (int) b.getPosition().y * level.getWidth() + (int) b.getPosition().x;
+            last.remove(cell);
+            last.put(cell, b);
+        }
+        return new LevelEditBatch(fromSeq, edits.size(), last.values().toArray(new Block[0]), level.getChecksum());
+    }
+}
@@ -2,6 +2,7 @@ package com.gdx.uch2.networking.server;
 
 import com.gdx.uch2.networking.PlayerContext;
 import com.gdx.uch2.networking.messages.MessageType;
+import com.gdx.uch2.networking.metrics.NetworkMetrics;
 
 import java.io.IOException;
 
@@ -27,6 +28,7 @@ public class PlayerHandler implements Runnable {
     @Override
     public void run() {
         MessageType type;
+        NetworkMetrics.getInstance().connectionOpened(context);
 
         while(!manager.isOver()){
 
@@ -50,6 +52,7 @@ public class PlayerHandler implements Runnable {
     }
 
     private void clean() {
+        NetworkMetrics.getInstance().connectionClosed(context);
         if (context.in != null) {
             context.in.close();
         }
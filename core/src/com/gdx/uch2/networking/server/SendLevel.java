@@ -0,0 +1,55 @@
+package com.gdx.uch2.networking.server;
+
+import com.gdx.uch2.controller.LevelFile;
+import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.messages.LevelData;
+
+/**
+ * Envoi d'un niveau compressé à un client, morceau par morceau. Chaque morceau est un message distinct : le verrou
+ * d'écriture est rendu entre deux morceaux, ce qui laisse passer les GameStates et les Pings pendant l'envoi.
+ */
+public class SendLevel implements Runnable {
+    private final PlayerContext ctx;
+    private final LevelData[] chunks;
+
+    /**
+     * Constructeur
+     * @param ctx contexte du client destinataire
+     * @param chunks morceaux du niveau à envoyer, dans l'ordre
+     */
+    public SendLevel(PlayerContext ctx, LevelData[] chunks) {
+        this.ctx = ctx;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Découpe un niveau compressé en morceaux
+     * @param hash empreinte du contenu du niveau
+     * @param compressed le niveau compressé
+     * @param chunkSize taille maximale d'un morceau
+     * @return les morceaux du niveau, dans l'ordre
+     */
+    public static LevelData[] split(long hash, byte[] compressed, int chunkSize) {
+        long checksum = LevelFile.hash(compressed);
+        int count = Math.max(1, (compressed.length + chunkSize - 1) / chunkSize);
+        LevelData[] chunks = new LevelData[count];
+        for (int i = 0; i < count; ++i) {
+            int offset = i * chunkSize;
+            byte[] data = new byte[Math.min(chunkSize, compressed.length - offset)];
+            System.arraycopy(compressed, offset, data, 0, data.length);
+            chunks[i] = new LevelData(hash, checksum, compressed.length, offset, data);
+        }
+        return chunks;
+    }
+
+    @Override
+    public void run() {
+        for (LevelData chunk : chunks) {
+            ctx.out.writeMessage(chunk);
+            if (ctx.out.e != null) {
+                return;
+            }
+            Thread.yield();
+        }
+    }
+}
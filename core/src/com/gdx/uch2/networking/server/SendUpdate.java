@@ -2,13 +2,16 @@ package com.gdx.uch2.networking.server;
 
 
 import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.messages.BlockPositions;
 import com.gdx.uch2.networking.messages.GameState;
+import com.gdx.uch2.networking.metrics.NetworkMetrics;
 
 import java.util.Timer;
 import java.util.TimerTask;
 
 /**
- * TimerTask envoyant le GameState à tous les joueurs régulièrement
+ * TimerTask envoyant le GameState à tous les joueurs régulièrement, ainsi que les positions des blocks en cours de
+ * placement ayant bougé depuis le tick précédent
  */
 public class SendUpdate extends TimerTask {
     private PlayerContext[] players;
@@ -26,14 +29,23 @@ public class SendUpdate extends TimerTask {
 
     @Override
     public void run() {
+        NetworkMetrics metrics = NetworkMetrics.getInstance();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
         GameState gs = ServerGameStateTickManager.getInstance().getGameState();
+        BlockPositions blockPositions = ServerGameStateTickManager.getInstance().pollBlockPositions();
         for(PlayerContext ctx : players){
             ctx.out.writeMessage(gs);
+            if (blockPositions != null) {
+                ctx.out.writeMessage(blockPositions);
+            }
 
             if (ctx.out.e != null) {
                 timer.cancel();
                 timer.purge();
             }
         }
+        if (metrics.isEnabled()) {
+            metrics.recordTick(System.nanoTime() - start);
+        }
     }
 }
@@ -3,9 +3,15 @@ package com.gdx.uch2.networking.server;
 import com.badlogic.gdx.math.Vector2;
 import com.gdx.uch2.entities.Player;
 import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.SendPing;
+import com.gdx.uch2.networking.messages.BlockPositions;
 import com.gdx.uch2.networking.messages.GameState;
+import com.gdx.uch2.networking.messages.ObjectPlacement;
 import com.gdx.uch2.networking.messages.PlayerState;
+import com.gdx.uch2.util.Constants;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Timer;
 
 /**
@@ -19,6 +25,8 @@ public class ServerGameStateTickManager {
     private Timer timer;
     private PlayerContext[] players;
     private GameState gameState;
+    // Dernière position du block en cours de placement de chaque joueur ayant bougé depuis le dernier tick
+    private final Map<Integer, ObjectPlacement> blockPositions = new LinkedHashMap<>();
 
     private ServerGameStateTickManager(){
     }
@@ -50,7 +58,42 @@ public class ServerGameStateTickManager {
     }
 
     /**
-     * Crée le timer et envoie régulièrement un nouveau gameState à tous les joueurs.
+     * Retient la position du block en cours de placement d'un joueur, envoyée à tous les joueurs au prochain tick.
+     * Seule la dernière position reçue pendant un tick est gardée.
+     * @param position la nouvelle position
+     */
+    public void setBlockPosition(ObjectPlacement position) {
+        synchronized (blockPositions) {
+            blockPositions.put(position.getPlayerID(), position);
+        }
+    }
+
+    /**
+     * Retire les positions retenues depuis le dernier appel
+     * @return les positions des blocks ayant bougé depuis le dernier appel, null si aucun n'a bougé
+     */
+    public BlockPositions pollBlockPositions() {
+        synchronized (blockPositions) {
+            if (blockPositions.isEmpty()) {
+                return null;
+            }
+            ObjectPlacement[] positions = blockPositions.values().toArray(new ObjectPlacement[0]);
+            blockPositions.clear();
+            return new BlockPositions(positions);
+        }
+    }
+
+    /**
+     * Oublie les positions retenues, qui n'ont plus de sens à la fin de la phase de placement
+     */
+    public void clearBlockPositions() {
+        synchronized (blockPositions) {
+            blockPositions.clear();
+        }
+    }
+
+    /**
+     * Crée le timer et envoie régulièrement un nouveau gameState et un Ping à tous les joueurs.
      * @param delay délai après lequel l'envoi commencera
      * @param tickDuration durée entre 2 envois
      * @param initPos position initiale
@@ -60,6 +103,7 @@ public class ServerGameStateTickManager {
 
         this.timer = new Timer();
         timer.schedule(new SendUpdate(timer, players), delay, tickDuration);
+        timer.schedule(new SendPing(timer, players), delay, Constants.PING_INTERVAL);
     }
 
     /**
@@ -0,0 +1,193 @@
+package com.gdx.uch2.networking.simulation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Random;
+
+/**
+ * OutputStream retardant l'écriture des données selon des conditions réseau simulées. Chaque flush forme un segment
+ * qui est transmis au stream sous-jacent par un thread dédié, à l'heure calculée selon la bande passante, la latence,
+ * la gigue et les pertes. Comme TCP, le stream conserve l'ordre des données : un segment perdu n'est pas supprimé mais
+ * retransmis après un délai, ce qui retarde aussi tous les segments suivants.
+ * Les segments ne sont jamais réordonnés : les messages du jeu passent par une connexion TCP, qui ne livre jamais les
+ * données dans le désordre à l'application, et un message peut être écrit en plusieurs flush (type puis contenu).
+ * Un paquet réordonné sur le réseau ne se voit donc que comme un retard des données qui le suivent, ce que simulent
+ * déjà la gigue et les retransmissions.
+ * Les heures sont données par une {@link NetworkClock} : avec une horloge manuelle et une même graine, les mêmes
+ * écritures sont livrées aux mêmes heures.
+ */
+public class ImpairedOutputStream extends OutputStream {
+    private static final long MIN_RETRANSMISSION_DELAY = 200; // millisecondes
+
+    private final OutputStream out;
+    private final NetworkConditions conditions;
+    private final NetworkClock clock;
+    private final Random random;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    // segments pas encore écrits, dans l'ordre de livraison, le premier restant en tête pendant son écriture
+    private final ArrayDeque<Segment> queue = new ArrayDeque<>();
+    private final Thread deliveryThread;
+
+    private long linkFreeAt = 0;
+    private long lastDeliveryAt = 0;
+    private volatile IOException error = null;
+    private boolean closed = false;
+
+    private static class Segment {
+        final byte[] data;
+        final long deliverAt;
+
+        Segment(byte[] data, long deliverAt) {
+            this.data = data;
+            this.deliverAt = deliverAt;
+        }
+    }
+
+    /**
+     * Constructeur
+     * @param out stream sur lequel les données sont finalement écrites
+     * @param conditions conditions réseau à simuler
+     * @param clock horloge donnant les heures de livraison
+     * @param seed graine du générateur aléatoire de ce stream
+     */
+    public ImpairedOutputStream(OutputStream out, NetworkConditions conditions, NetworkClock clock, long seed) {
+        this.out = out;
+        this.conditions = conditions;
+        this.clock = clock;
+        this.random = new Random(seed);
+        clock.register(this);
+        this.deliveryThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                deliver();
+            }
+        }, "impaired-output");
+        deliveryThread.setDaemon(true);
+        deliveryThread.start();
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        checkError();
+        pending.write(b);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        checkError();
+        pending.write(b, off, len);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        checkError();
+        if (pending.size() == 0) {
+            return;
+        }
+
+        byte[] data = pending.toByteArray();
+        pending.reset();
+        enqueue(new Segment(data, schedule(data.length)));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        enqueue(new Segment(null, lastDeliveryAt));
+    }
+
+    /**
+     * Attend que tous les segments dont l'heure de livraison est au plus l'heure donnée aient été écrits sur le stream
+     * sous-jacent, ou que la livraison se soit arrêtée sur une erreur
+     * @param time heure de l'horloge, en millisecondes
+     * @throws InterruptedException si le thread est interrompu pendant l'attente
+     */
+    public void awaitDelivered(long time) throws InterruptedException {
+        synchronized (queue) {
+            while (!queue.isEmpty() && queue.peekFirst().deliverAt <= time) {
+                queue.wait();
+            }
+        }
+    }
+
+    private void enqueue(Segment segment) {
+        synchronized (queue) {
+            queue.addLast(segment);
+            queue.notifyAll();
+        }
+    }
+
+    // Calcule l'heure de livraison d'un segment, en millisecondes
+    private long schedule(int size) {
+        long now = clock.now();
+
+        long departure = Math.max(now, linkFreeAt);
+        if (conditions.getBandwidth() > 0) {
+            linkFreeAt = departure + size * 1000L / conditions.getBandwidth();
+        } else {
+            linkFreeAt = departure;
+        }
+
+        long delay = conditions.getLatency();
+        if (conditions.getJitter() > 0) {
+            delay += random.nextInt(conditions.getJitter() + 1);
+        }
+        if (conditions.getLoss() > 0 && random.nextFloat() < conditions.getLoss()) {
+            delay += Math.max(MIN_RETRANSMISSION_DELAY, 2L * conditions.getLatency());
+        }
+
+        lastDeliveryAt = Math.max(linkFreeAt + delay, lastDeliveryAt);
+        return lastDeliveryAt;
+    }
+
+    private void deliver() {
+        try {
+            while (true) {
+                Segment s;
+                synchronized (queue) {
+                    while (queue.isEmpty()) {
+                        queue.wait();
+                    }
+                    s = queue.peekFirst();
+                }
+                clock.awaitTime(s.deliverAt);
+
+                if (s.data == null) {
+                    out.close();
+                    return;
+                }
+                out.write(s.data);
+                out.flush();
+                synchronized (queue) {
+                    queue.removeFirst();
+                    queue.notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            error = e;
+        } catch (InterruptedException ignored) {
+        } finally {
+            // plus rien ne sera livré : les attentes de livraison se terminent
+            clock.unregister(this);
+            synchronized (queue) {
+                queue.clear();
+                queue.notifyAll();
+            }
+        }
+    }
+
+    private void checkError() throws IOException {
+        if (error != null) {
+            throw error;
+        }
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
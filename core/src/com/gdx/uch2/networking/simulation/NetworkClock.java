@@ -0,0 +1,97 @@
+package com.gdx.uch2.networking.simulation;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Horloge des livraisons simulées, en millisecondes. L'horloge système fait avancer la simulation en temps réel.
+ * Une horloge manuelle n'avance que par {@link #advance(long)} : les heures de livraison ne dépendent alors que des
+ * écritures, de la graine et du temps avancé, et non de la vitesse de la machine, ce qui rend une simulation
+ * reproductible.
+ */
+public class NetworkClock {
+
+    /**
+     * Horloge système, utilisée par défaut
+     */
+    public static final NetworkClock SYSTEM = new NetworkClock(false);
+
+    private final boolean manual;
+    private final CopyOnWriteArrayList<ImpairedOutputStream> streams = new CopyOnWriteArrayList<>();
+    private long now = 0;
+
+    private NetworkClock(boolean manual) {
+        this.manual = manual;
+    }
+
+    /**
+     * Crée une horloge manuelle, à 0 jusqu'au premier appel de {@link #advance(long)}
+     * @return l'horloge créée
+     */
+    public static NetworkClock manual() {
+        return new NetworkClock(true);
+    }
+
+    /**
+     * @return true si l'horloge n'avance que par {@link #advance(long)}
+     */
+    public boolean isManual() {
+        return manual;
+    }
+
+    /**
+     * @return l'heure actuelle en millisecondes
+     */
+    public synchronized long now() {
+        return manual ? now : System.currentTimeMillis();
+    }
+
+    /**
+     * Avance une horloge manuelle milliseconde par milliseconde. À chaque milliseconde, attend que tous les streams
+     * utilisant cette horloge aient écrit les segments dus : au retour, les données dont l'heure de livraison est
+     * passée sont sur les streams sous-jacents.
+     * @param millis durée à avancer, en millisecondes
+     * @throws IllegalStateException si l'horloge est l'horloge système
+     * @throws InterruptedException si le thread est interrompu pendant l'attente des livraisons
+     */
+    public void advance(long millis) throws InterruptedException {
+        if (!manual) {
+            throw new IllegalStateException("L'horloge système ne peut pas être avancée");
+        }
+        for (long i = 0; i < millis; ++i) {
+            long time;
+            synchronized (this) {
+                time = ++now;
+                notifyAll();
+            }
+            for (ImpairedOutputStream stream : streams) {
+                stream.awaitDelivered(time);
+            }
+        }
+    }
+
+    // Attend l'heure donnée
+    void awaitTime(long time) throws InterruptedException {
+        if (!manual) {
+            long wait = time - System.currentTimeMillis();
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+            return;
+        }
+        synchronized (this) {
+            while (now < time) {
+                wait();
+            }
+        }
+    }
+
+    void register(ImpairedOutputStream stream) {
+        if (manual) {
+            streams.add(stream);
+        }
+    }
+
+    void unregister(ImpairedOutputStream stream) {
+        streams.remove(stream);
+    }
+}
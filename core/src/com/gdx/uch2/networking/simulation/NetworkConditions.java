@@ -0,0 +1,101 @@
+package com.gdx.uch2.networking.simulation;
+
+/**
+ * Conditions réseau simulées dans un sens de communication : latence, gigue, pertes et bande passante
+ */
+public class NetworkConditions {
+
+    /**
+     * Conditions parfaites, aucune dégradation n'est appliquée
+     */
+    public static final NetworkConditions NONE = new NetworkConditions(0, 0, 0, 0, 0);
+
+    private final int latency;
+    private final int jitter;
+    private final float loss;
+    private final int bandwidth;
+    private final long seed;
+
+    /**
+     * Constructeur
+     * @param latency latence ajoutée dans ce sens, en millisecondes
+     * @param jitter variation maximale de la latence, en millisecondes
+     * @param loss probabilité qu'un segment soit perdu puis retransmis, entre 0 et 1
+     * @param bandwidth bande passante en bytes par seconde, 0 pour ne pas la limiter
+     * @param seed graine de la simulation, dont est tirée celle de chaque connexion et de chaque sens, pour des
+     *             simulations reproductibles
+     */
+    public NetworkConditions(int latency, int jitter, float loss, int bandwidth, long seed) {
+        if (latency < 0 || jitter < 0 || loss < 0 || loss > 1 || bandwidth < 0) {
+            throw new IllegalArgumentException("Conditions réseau invalides");
+        }
+        this.latency = latency;
+        this.jitter = jitter;
+        this.loss = loss;
+        this.bandwidth = bandwidth;
+        this.seed = seed;
+    }
+
+    /**
+     * Lit des conditions depuis les propriétés système {@code <prefix>.latency}, {@code <prefix>.jitter},
+     * {@code <prefix>.loss}, {@code <prefix>.bandwidth} et {@code <prefix>.seed}. Les propriétés absentes valent 0.
+     * @param prefix préfixe des propriétés
+     * @return les conditions lues
+     * @throws IllegalArgumentException si une propriété n'est pas un nombre ou si les conditions sont invalides
+     */
+    public static NetworkConditions fromSystemProperties(String prefix) {
+        return new NetworkConditions(
+                Integer.parseInt(System.getProperty(prefix + ".latency", "0")),
+                Integer.parseInt(System.getProperty(prefix + ".jitter", "0")),
+                Float.parseFloat(System.getProperty(prefix + ".loss", "0")),
+                Integer.parseInt(System.getProperty(prefix + ".bandwidth", "0")),
+                Long.parseLong(System.getProperty(prefix + ".seed", "0")));
+    }
+
+    /**
+     * @return true si ces conditions dégradent la communication
+     */
+    public boolean isImpaired() {
+        return latency > 0 || jitter > 0 || loss > 0 || bandwidth > 0;
+    }
+
+    /**
+     * @return la latence ajoutée, en millisecondes
+     */
+    public int getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return la variation maximale de la latence, en millisecondes
+     */
+    public int getJitter() {
+        return jitter;
+    }
+
+    /**
+     * @return la probabilité qu'un segment soit perdu puis retransmis
+     */
+    public float getLoss() {
+        return loss;
+    }
+
+    /**
+     * @return la bande passante en bytes par seconde, 0 si elle n'est pas limitée
+     */
+    public int getBandwidth() {
+        return bandwidth;
+    }
+
+    /**
+     * @return la graine de la simulation
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return "latency=" + latency + "ms, jitter=" + jitter + "ms, loss=" + loss + ", bandwidth=" + bandwidth + "B/s";
+    }
+}
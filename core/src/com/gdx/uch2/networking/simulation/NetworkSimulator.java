@@ -0,0 +1,130 @@
+package com.gdx.uch2.networking.simulation;
+
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Singleton configurant la simulation de conditions réseau dégradées. Les conditions sont appliquées aux streams
+ * de sortie des connexions créées après leur configuration, séparément pour chaque sens de communication.
+ * Elles peuvent être données par programme ou par les propriétés système {@code uch2.netsim.up.*} et
+ * {@code uch2.netsim.down.*} (voir {@link NetworkConditions#fromSystemProperties(String)}).
+ * Chaque stream reçoit sa propre graine, tirée de celle des conditions, du numéro de la connexion dans l'ordre de
+ * création et du sens : deux connexions ne subissent pas la même séquence de gigue et de pertes, et une même suite de
+ * connexions la subit à l'identique d'une exécution à l'autre.
+ */
+public class NetworkSimulator {
+    private static class Instance {
+        static final NetworkSimulator instance = new NetworkSimulator();
+    }
+
+    /**
+     * Sens de communication
+     */
+    public enum Direction {
+        /**
+         * Du client vers le serveur
+         */
+        UPSTREAM,
+        /**
+         * Du serveur vers le client
+         */
+        DOWNSTREAM
+    }
+
+    private volatile NetworkConditions upstream;
+    private volatile NetworkConditions downstream;
+    private volatile NetworkClock clock = NetworkClock.SYSTEM;
+    private final AtomicLong streams = new AtomicLong();
+
+    private NetworkSimulator() {
+        upstream = readConditions("uch2.netsim.up");
+        downstream = readConditions("uch2.netsim.down");
+    }
+
+    // Une propriété invalide est ignorée plutôt que d'empêcher toute connexion
+    private static NetworkConditions readConditions(String prefix) {
+        try {
+            return NetworkConditions.fromSystemProperties(prefix);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Conditions réseau simulées invalides (" + prefix + ".*), simulation désactivée : "
+                    + e.getMessage());
+            return NetworkConditions.NONE;
+        }
+    }
+
+    /**
+     * @return l'instance unique du singleton
+     */
+    public static NetworkSimulator getInstance() {
+        return Instance.instance;
+    }
+
+    /**
+     * Modifie les conditions simulées dans un sens de communication
+     * @param direction le sens de communication
+     * @param conditions les nouvelles conditions
+     */
+    public void setConditions(Direction direction, NetworkConditions conditions) {
+        if (direction == Direction.UPSTREAM) {
+            upstream = conditions;
+        } else {
+            downstream = conditions;
+        }
+    }
+
+    /**
+     * @param direction le sens de communication
+     * @return les conditions simulées dans ce sens
+     */
+    public NetworkConditions getConditions(Direction direction) {
+        return direction == Direction.UPSTREAM ? upstream : downstream;
+    }
+
+    /**
+     * Modifie l'horloge des streams créés ensuite
+     * @param clock la nouvelle horloge, {@link NetworkClock#SYSTEM} pour le temps réel
+     */
+    public void setClock(NetworkClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @return l'horloge des streams créés ensuite
+     */
+    public NetworkClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Supprime toute dégradation simulée, revient à l'horloge système et remet à zéro la numérotation des connexions
+     */
+    public void reset() {
+        upstream = NetworkConditions.NONE;
+        downstream = NetworkConditions.NONE;
+        clock = NetworkClock.SYSTEM;
+        streams.set(0);
+    }
+
+    /**
+     * Applique les conditions d'un sens de communication à un stream de sortie
+     * @param out le stream de sortie d'une connexion
+     * @param direction le sens dans lequel ce stream transmet les données
+     * @return le stream à utiliser, qui est out lui-même si aucune dégradation n'est configurée
+     */
+    public OutputStream wrap(OutputStream out, Direction direction) {
+        NetworkConditions conditions = getConditions(direction);
+        if (!conditions.isImpaired()) {
+            return out;
+        }
+        return new ImpairedOutputStream(out, conditions, clock,
+                streamSeed(conditions.getSeed(), streams.getAndIncrement(), direction));
+    }
+
+    // Mélange (SplitMix64) de la graine des conditions, du numéro du stream et du sens
+    private static long streamSeed(long seed, long stream, Direction direction) {
+        long z = seed + (2 * stream + direction.ordinal() + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
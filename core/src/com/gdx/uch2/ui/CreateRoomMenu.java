@@ -14,12 +14,15 @@ import com.gdx.uch2.networking.client.ErrorHandler;
 import com.gdx.uch2.networking.client.GameClient;
 import com.gdx.uch2.networking.server.GameServer;
 import com.gdx.uch2.ui.uiUtil.GameParameters;
+import com.gdx.uch2.util.Assets;
 
 /**
  * Ecran de création de partie
  */
 public class CreateRoomMenu implements Screen {
     private Stage stage;
+    private Skin skin;
+    private Texture chicken;
     private static String nickname = "Player";
     private static int port = 12345;
     private static int level = 1;
@@ -43,11 +46,11 @@ public class CreateRoomMenu implements Screen {
 
         stage.addActor(table);
 
-        // temporary until we have asset manager in
-        Skin skin = new Skin(Gdx.files.internal("neon/skin/neon-ui.json"));
+        skin = Assets.getInstance().acquireSkin();
 
         // Create Image
-        Image chickenImg = new Image(new Texture(Gdx.files.internal(("chicken.png"))));
+        chicken = Assets.getInstance().acquireChicken();
+        Image chickenImg = new Image(chicken);
         chickenImg.setWidth(129);
         chickenImg.setHeight(200);
 
@@ -249,6 +252,12 @@ public class CreateRoomMenu implements Screen {
     @Override
     public void dispose() {
         stage.dispose();
+        if (skin != null) {
+            Assets.getInstance().release(Assets.SKIN);
+        }
+        if (chicken != null) {
+            Assets.getInstance().release(Assets.CHICKEN);
+        }
     }
 }
 
@@ -11,12 +11,14 @@ import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.gdx.uch2.ScreenManager;
 import com.gdx.uch2.entities.OnlinePlayerManager;
 import com.gdx.uch2.entities.World;
+import com.gdx.uch2.util.Assets;
 
 /**
  * Ecran de fin de partie
  */
 public class EndGameScreen implements Screen {
     private Stage stage;
+    private Skin skin;
 
     /**
      * Constructeur
@@ -38,8 +40,7 @@ public class EndGameScreen implements Screen {
 
         stage.addActor(table);
 
-        // temporary until we have asset manager in
-        Skin skin = new Skin(Gdx.files.internal("neon/skin/neon-ui.json"));
+        skin = Assets.getInstance().acquireSkin();
 
         // Create Image
         /*
@@ -185,5 +186,8 @@ public class EndGameScreen implements Screen {
     @Override
     public void dispose() {
         stage.dispose();
+        if (skin != null) {
+            Assets.getInstance().release(Assets.SKIN);
+        }
     }
 }
\ No newline at end of file
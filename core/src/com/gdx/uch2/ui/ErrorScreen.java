@@ -15,12 +15,14 @@ import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.gdx.uch2.ScreenManager;
 import com.gdx.uch2.entities.World;
 import com.gdx.uch2.networking.client.ErrorHandler;
+import com.gdx.uch2.util.Assets;
 
 /**
  * Ecran d'erreur
  */
 public class ErrorScreen extends ScreenAdapter {
     private Stage stage;
+    private Skin skin;
     private String error;
 
     /**
@@ -46,7 +48,7 @@ public class ErrorScreen extends ScreenAdapter {
 
         stage.addActor(table);
 
-        Skin skin = new Skin(Gdx.files.internal("neon/skin/neon-ui.json"));
+        skin = Assets.getInstance().acquireSkin();
 
         final Label errorLabel = new Label(error, skin);
         errorLabel.setWidth(800);
@@ -80,4 +82,12 @@ public class ErrorScreen extends ScreenAdapter {
         stage.act(Math.min(Gdx.graphics.getDeltaTime(), 1 / 30f));
         stage.draw();
     }
+
+    @Override
+    public void dispose() {
+        stage.dispose();
+        if (skin != null) {
+            Assets.getInstance().release(Assets.SKIN);
+        }
+    }
 }
@@ -5,7 +5,7 @@ import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.ScreenAdapter;
 import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.utils.Align;
@@ -19,29 +19,37 @@ import com.gdx.uch2.entities.World;
 import com.gdx.uch2.networking.client.ErrorHandler;
 import com.gdx.uch2.networking.client.GameClient;
 import com.gdx.uch2.networking.client.GameClientHandler;
+import com.gdx.uch2.ui.uiUtil.NetGraph;
+import com.gdx.uch2.ui.uiUtil.ProfilerOverlay;
+import com.gdx.uch2.util.Assets;
+import com.gdx.uch2.util.Constants;
+import com.gdx.uch2.util.FrameProfiler;
 import com.gdx.uch2.view.WorldRenderer;
 
 /**
  * Ecran de jeu de phase de mouvement
  */
 public class GameScreen extends ScreenAdapter implements InputProcessor {
+    private World world;
     private WorldRenderer renderer;
     private PlayerController controller;
     private Stage stage;
     private Label[] nicknamesLabel;
-    private float ppuX, ppuY;
+    private NetGraph netGraph;
+    private ProfilerOverlay profilerOverlay;
+    private final Vector2 labelPosition = new Vector2();
+    private float accumulator = 0;
 
     /**
      * Constructuer
      * @param world World sur lequel est basé l'écran
      */
     public GameScreen(World world) {
+        this.world = world;
         stage = new Stage(new ScreenViewport());
         renderer = new WorldRenderer(world, stage.getBatch(), false);
         controller = new PlayerController(world);
         nicknamesLabel = new Label[OnlinePlayerManager.getInstance().getNicknames().length];
-        ppuX = stage.getWidth() / world.getLevel().getWidth();
-        ppuY = stage.getHeight() / world.getLevel().getHeight();
     }
 
     @Override
@@ -49,10 +57,19 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
         for(int i = 0; i < nicknamesLabel.length; ++i) {
             if (i != OnlinePlayerManager.getInstance().getPlayerId()) {
                 nicknamesLabel[i] = new Label(OnlinePlayerManager.getInstance().getNicknames()[i],
-                        new Label.LabelStyle(new BitmapFont(), null));
+                        new Label.LabelStyle(Assets.getInstance().getDefaultFont(), null));
                 stage.addActor(nicknamesLabel[i]);
             }
         }
+
+        netGraph = new NetGraph();
+        netGraph.setPosition(10, stage.getHeight() - 10, Align.topLeft);
+        stage.addActor(netGraph);
+
+        profilerOverlay = new ProfilerOverlay();
+        profilerOverlay.setPosition(stage.getWidth() - 10, stage.getHeight() - 10, Align.topRight);
+        stage.addActor(profilerOverlay);
+
         Gdx.input.setInputProcessor(this);
     }
 
@@ -69,27 +86,54 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
             return;
         }
 
+        FrameProfiler profiler = FrameProfiler.getInstance();
+        profiler.beginFrame();
+
         Gdx.gl.glClearColor(153f / 255, 187f / 255, 1, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-        controller.update(delta);
+        // La simulation avance par pas fixes, indépendamment de la fréquence d'affichage
+        accumulator += Math.min(delta, Constants.MAX_FRAME_TIME);
+        profiler.start(FrameProfiler.Section.CONTROLLER);
+        while (accumulator >= Constants.PHYSICS_STEP) {
+            controller.update(Constants.PHYSICS_STEP);
+            accumulator -= Constants.PHYSICS_STEP;
+        }
+        profiler.stop(FrameProfiler.Section.CONTROLLER);
+        renderer.setInterpolationAlpha(accumulator / Constants.PHYSICS_STEP);
+
+        profiler.start(FrameProfiler.Section.ONLINE_PLAYERS);
         OnlinePlayerManager.getInstance().updatePlayers(delta);
+        profiler.stop(FrameProfiler.Section.ONLINE_PLAYERS);
+        world.streamLevel();
+
+        profiler.start(FrameProfiler.Section.BACKGROUND);
         renderer.renderBackground();
+        profiler.stop(FrameProfiler.Section.BACKGROUND);
 
         for (int i = 0; i < nicknamesLabel.length; ++i) {
             if (i != OnlinePlayerManager.getInstance().getPlayerId()) {
                 OnlinePlayer p = OnlinePlayerManager.getInstance().getPlayer(i);
-                nicknamesLabel[i].setPosition((p.getPosition().x + Player.OFFSET.x + Player.HITBOX_WIDTH / 2f ) * ppuX - nicknamesLabel[i].getWidth() / 2,
-                        (p.getPosition().y + Player.HITBOX_HEIGHT + Player.OFFSET.y + 0.2f) * ppuY);
+                labelPosition.set(p.getPosition().x + Player.OFFSET.x + Player.HITBOX_WIDTH / 2f,
+                        p.getPosition().y + Player.HITBOX_HEIGHT + Player.OFFSET.y + 0.2f);
+                renderer.unscale(labelPosition);
+                nicknamesLabel[i].setPosition(labelPosition.x - nicknamesLabel[i].getWidth() / 2, labelPosition.y);
                 nicknamesLabel[i].setAlignment(Align.center);
             }
         }
 
+        netGraph.update(delta);
+        profilerOverlay.update(delta);
+        profiler.start(FrameProfiler.Section.STAGE);
         stage.draw();
+        profiler.stop(FrameProfiler.Section.STAGE);
+        int stageCalls = FrameProfiler.getRenderCalls(stage.getBatch());
 
+        profiler.start(FrameProfiler.Section.PLAYERS);
         renderer.renderPlayers();
+        profiler.stop(FrameProfiler.Section.PLAYERS);
 
-
+        profiler.endFrame(renderer.getLastDrawCalls() + stageCalls);
     }
 
     @Override
@@ -99,6 +143,9 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
 
     @Override
     public void dispose() {
+        renderer.dispose();
+        controller.dispose();
+        stage.dispose();
     }
 
     // * InputProcessor methods ***************************//
@@ -124,6 +171,12 @@ public class GameScreen extends ScreenAdapter implements InputProcessor {
             controller.jumpReleased();
         if (keycode == Keys.K)
             controller.giveUp();
+        if (keycode == Keys.N)
+            netGraph.setVisible(!netGraph.isVisible());
+        if (keycode == Keys.P)
+            profilerOverlay.toggle();
+        if (keycode == Keys.L && FrameProfiler.getInstance().isEnabled())
+            FrameProfiler.getInstance().dumpCsv();
         if(keycode == Keys.ESCAPE) {
             World.currentWorld.stopMusic();
             GameClient.closeConnection();
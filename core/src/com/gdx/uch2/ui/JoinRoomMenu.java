@@ -12,12 +12,15 @@ import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.gdx.uch2.ScreenManager;
 import com.gdx.uch2.networking.client.GameClient;
 import com.gdx.uch2.ui.uiUtil.GameParameters;
+import com.gdx.uch2.util.Assets;
 
 /**
  * Ecran de connexion à une partie
  */
 public class JoinRoomMenu implements Screen {
     private Stage stage;
+    private Skin skin;
+    private Texture chicken;
     private static String hostname = "localhost";
     private static String nickname = "Player";
     private static int port = 12345;
@@ -39,11 +42,11 @@ public class JoinRoomMenu implements Screen {
 
         stage.addActor(table);
 
-        // temporary until we have asset manager in
-        Skin skin = new Skin(Gdx.files.internal("neon/skin/neon-ui.json"));
+        skin = Assets.getInstance().acquireSkin();
 
         // Create Image
-        Image chickenImg = new Image(new Texture(Gdx.files.internal(("chicken.png"))));
+        chicken = Assets.getInstance().acquireChicken();
+        Image chickenImg = new Image(chicken);
         chickenImg.setWidth(129);
         chickenImg.setHeight(200);
 
@@ -201,6 +204,12 @@ public class JoinRoomMenu implements Screen {
     @Override
     public void dispose() {
         stage.dispose();
+        if (skin != null) {
+            Assets.getInstance().release(Assets.SKIN);
+        }
+        if (chicken != null) {
+            Assets.getInstance().release(Assets.CHICKEN);
+        }
     }
 }
 
@@ -0,0 +1,63 @@
+package com.gdx.uch2.ui;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.ScreenAdapter;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.utils.viewport.ScreenViewport;
+import com.gdx.uch2.ScreenManager;
+import com.gdx.uch2.util.Assets;
+
+/**
+ * Ecran de chargement affiché au démarrage pendant le chargement asynchrone des ressources du jeu
+ */
+public class LoadingScreen extends ScreenAdapter {
+    private Stage stage;
+    private Label progressLabel;
+
+    /**
+     * Constructeur
+     */
+    public LoadingScreen() {
+        stage = new Stage(new ScreenViewport());
+        Assets.getInstance().queuePreload();
+    }
+
+    @Override
+    public void show() {
+        Table table = new Table();
+        table.setFillParent(true);
+        stage.addActor(table);
+
+        progressLabel = new Label("Loading... 0%", new Label.LabelStyle(Assets.getInstance().getDefaultFont(), null));
+        table.add(progressLabel).center();
+    }
+
+    @Override
+    public void render(float delta) {
+        // Le chargement avance un peu à chaque frame pour que l'écran reste fluide
+        if (Assets.getInstance().update()) {
+            ScreenManager.getInstance().showScreen(new MainMenu());
+            return;
+        }
+
+        Gdx.gl.glClearColor(0f, 0f, 0f, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+
+        progressLabel.setText("Loading... " + (int) (Assets.getInstance().getProgress() * 100) + "%");
+        stage.act(Math.min(Gdx.graphics.getDeltaTime(), 1 / 30f));
+        stage.draw();
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        stage.getViewport().update(width, height, true);
+    }
+
+    @Override
+    public void dispose() {
+        stage.dispose();
+    }
+}
@@ -12,12 +12,15 @@ import com.badlogic.gdx.scenes.scene2d.ui.*;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.gdx.uch2.ScreenManager;
+import com.gdx.uch2.util.Assets;
 
 /**
  * Ecran de menu principal
  */
 public class MainMenu implements Screen {
     private Stage stage;
+    private Skin skin;
+    private Texture chicken;
 
     /**
      * Constructeur
@@ -36,11 +39,11 @@ public class MainMenu implements Screen {
 
         stage.addActor(table);
 
-        // temporary until we have asset manager in
-        Skin skin = new Skin(Gdx.files.internal("neon/skin/neon-ui.json"));
+        skin = Assets.getInstance().acquireSkin();
 
         // Create Image
-        Image chickenImg = new Image(new Texture(Gdx.files.internal(("chicken.png"))));
+        chicken = Assets.getInstance().acquireChicken();
+        Image chickenImg = new Image(chicken);
         chickenImg.setWidth(129);
         chickenImg.setHeight(200);
 
@@ -134,5 +137,11 @@ public class MainMenu implements Screen {
     @Override
     public void dispose() {
         stage.dispose();
+        if (skin != null) {
+            Assets.getInstance().release(Assets.SKIN);
+        }
+        if (chicken != null) {
+            Assets.getInstance().release(Assets.CHICKEN);
+        }
     }
 }
@@ -6,7 +6,6 @@ import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.ScreenAdapter;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
@@ -16,13 +15,15 @@ import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.gdx.uch2.ScreenManager;
 import com.gdx.uch2.entities.Block;
 import com.gdx.uch2.entities.OnlinePlayerManager;
-import com.gdx.uch2.entities.Trap;
 import com.gdx.uch2.entities.World;
 import com.gdx.uch2.networking.GamePhase;
 import com.gdx.uch2.networking.client.ErrorHandler;
 import com.gdx.uch2.networking.client.GameClient;
 import com.gdx.uch2.networking.client.GameClientHandler;
 import com.gdx.uch2.networking.client.MessageSender;
+import com.gdx.uch2.ui.uiUtil.ProfilerOverlay;
+import com.gdx.uch2.util.Assets;
+import com.gdx.uch2.util.FrameProfiler;
 import com.gdx.uch2.view.WorldRenderer;
 
 /**
@@ -35,10 +36,12 @@ public class PlacementScreen extends ScreenAdapter implements InputProcessor {
     private Block.Type blockType;
     private Label message;
     private Label[] choicesLabel;
-    private final Label.LabelStyle defaultStyle = new Label.LabelStyle(new BitmapFont(), null);
-    private final Label.LabelStyle selectStyle = new Label.LabelStyle(new BitmapFont(), Color.CHARTREUSE);
+    private final Label.LabelStyle defaultStyle = new Label.LabelStyle(Assets.getInstance().getDefaultFont(), null);
+    private final Label.LabelStyle selectStyle = new Label.LabelStyle(Assets.getInstance().getDefaultFont(), Color.CHARTREUSE);
     private Vector2 mousePosition;
     private Label[] nicknamesLabel;
+    private ProfilerOverlay profilerOverlay;
+    private final Vector2 labelPosition = new Vector2();
 
     private int height;
 
@@ -63,7 +66,7 @@ public class PlacementScreen extends ScreenAdapter implements InputProcessor {
         table.setFillParent(true);
         stage.addActor(table);
 
-        message = new Label("...", new Label.LabelStyle(new BitmapFont(), null));
+        message = new Label("...", new Label.LabelStyle(Assets.getInstance().getDefaultFont(), null));
         choicesLabel = new Label[] {
             new Label("Key [1] : Pick a box", selectStyle),
             new Label("Key [2] : Pick a lethal trap", defaultStyle),
@@ -75,7 +78,7 @@ public class PlacementScreen extends ScreenAdapter implements InputProcessor {
 
         table.add(message).center().padBottom(40);
         table.row();
-        table.add(new Label("TOOLBOX", new Label.LabelStyle(new BitmapFont(), null))).center().padBottom(20);
+        table.add(new Label("TOOLBOX", new Label.LabelStyle(Assets.getInstance().getDefaultFont(), null))).center().padBottom(20);
         table.row();
 
         for (Label l : choicesLabel) {
@@ -86,10 +89,14 @@ public class PlacementScreen extends ScreenAdapter implements InputProcessor {
         for(int i = 0; i < nicknamesLabel.length; ++i) {
             if (i != OnlinePlayerManager.getInstance().getPlayerId()) {
                 nicknamesLabel[i] = new Label(OnlinePlayerManager.getInstance().getNicknames()[i],
-                        new Label.LabelStyle(new BitmapFont(), null));
+                        new Label.LabelStyle(Assets.getInstance().getDefaultFont(), null));
                 stage.addActor(nicknamesLabel[i]);
             }
         }
+
+        profilerOverlay = new ProfilerOverlay();
+        profilerOverlay.setPosition(stage.getWidth() - 10, stage.getHeight() - 10, Align.topRight);
+        stage.addActor(profilerOverlay);
     }
 
     @Override
@@ -105,26 +112,28 @@ public class PlacementScreen extends ScreenAdapter implements InputProcessor {
             return;
         }
 
+        FrameProfiler profiler = FrameProfiler.getInstance();
+        profiler.beginFrame();
+
         Gdx.gl.glClearColor(153f / 255, 187f / 255, 1, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-        renderer.renderBackground();
+        world.streamLevel();
+
+        // Fond, blocks fantômes des adversaires et curseur sont dessinés dans une seule passe
+        profiler.start(FrameProfiler.Section.BACKGROUND);
+        renderer.begin();
 
         for (int i = 0; i < nicknamesLabel.length; ++i) {
             if (i != OnlinePlayerManager.getInstance().getPlayerId()) {
                 Block b = OnlinePlayerManager.getInstance().getPlayer(i).getPlacementBlock();
-                if (b != null && ((world.getLevel().getBlocks()[(int) b.getPosition().x][(int) b.getPosition().y] == null && b.getType() != Block.Type.ANTIBLOCK)
-                        || (b.getType() == Block.Type.ANTIBLOCK
-                        && world.getLevel().getBlocks()[(int) b.getPosition().x][(int) b.getPosition().y] != null
-                        && world.getLevel().getBlocks()[(int) b.getPosition().x][(int) b.getPosition().y].getType() != Block.Type.PROTECTED_AREA))) {
-                    renderer.renderBlock(b.getType(), b.getPosition());
-
-                    Vector2 pos = new Vector2(b.getPosition());
-                    pos.x += 0.5;
-                    pos.y += 1.2;
-                    renderer.unscale(pos);
+                if (b != null && canPlace(b.getType(), (int) b.getPosition().x, (int) b.getPosition().y)) {
+                    renderer.drawBlock(b.getType(), b.getPosition());
+
+                    labelPosition.set(b.getPosition().x + 0.5f, b.getPosition().y + 1.2f);
+                    renderer.unscale(labelPosition);
                     nicknamesLabel[i].setVisible(true);
-                    nicknamesLabel[i].setPosition(pos.x - nicknamesLabel[i].getWidth() / 2, pos.y);
+                    nicknamesLabel[i].setPosition(labelPosition.x - nicknamesLabel[i].getWidth() / 2, labelPosition.y);
                     nicknamesLabel[i].setAlignment(Align.center);
                 } else {
                     nicknamesLabel[i].setVisible(false);
@@ -135,18 +144,21 @@ public class PlacementScreen extends ScreenAdapter implements InputProcessor {
 
         if(MessageSender.getInstance().getCanPlace()) {
             message.setText("Place an item on the map\n\n\n");
-            if (mousePosition != null
-                    && ((world.getLevel().getBlocks()[(int) mousePosition.x][(int) mousePosition.y] == null && blockType != Block.Type.ANTIBLOCK)
-                    || (blockType == Block.Type.ANTIBLOCK
-                    && world.getLevel().getBlocks()[(int) mousePosition.x][(int) mousePosition.y] != null
-                    && world.getLevel().getBlocks()[(int) mousePosition.x][(int) mousePosition.y].getType() != Block.Type.PROTECTED_AREA))) {
-                renderer.renderBlock(blockType, mousePosition);
+            if (mousePosition != null && canPlace(blockType, (int) mousePosition.x, (int) mousePosition.y)) {
+                renderer.drawBlock(blockType, mousePosition);
             }
         } else {
             message.setText("Waiting for the other players placing their items\n\n\n");
         }
+        renderer.end();
+        profiler.stop(FrameProfiler.Section.BACKGROUND);
 
+        profilerOverlay.update(delta);
+        profiler.start(FrameProfiler.Section.STAGE);
         stage.draw();
+        profiler.stop(FrameProfiler.Section.STAGE);
+
+        profiler.endFrame(renderer.getLastDrawCalls() + FrameProfiler.getRenderCalls(stage.getBatch()));
     }
 
     @Override
@@ -158,6 +170,8 @@ public class PlacementScreen extends ScreenAdapter implements InputProcessor {
     @Override
     public void dispose() {
         super.dispose();
+        renderer.dispose();
+        stage.dispose();
     }
 
     // * InputProcessor methods ***************************//
@@ -201,6 +215,16 @@ public class PlacementScreen extends ScreenAdapter implements InputProcessor {
                 select = 4;
                 break;
 
+            case Input.Keys.P:
+                profilerOverlay.toggle();
+                break;
+
+            case Input.Keys.L:
+                if (FrameProfiler.getInstance().isEnabled()) {
+                    FrameProfiler.getInstance().dumpCsv();
+                }
+                break;
+
             case Input.Keys.ESCAPE:
                 World.currentWorld.stopMusic();
                 GameClient.closeConnection();
@@ -241,10 +265,9 @@ public class PlacementScreen extends ScreenAdapter implements InputProcessor {
                 renderer.scale(pos);
                 x = (int) pos.x;
                 y = (int) pos.y;
-                Block[][] blocks = world.getLevel().getBlocks();
                 Block b = getBlock(x, y);
-                if ((blocks[x][y] == null && b.getType() != Block.Type.ANTIBLOCK) || (b.getType() == Block.Type.ANTIBLOCK && blocks[x][y] != null && blocks[x][y].getType() != Block.Type.PROTECTED_AREA)) {
-                    MessageSender.getInstance().sendBlockPlacement(getBlock(x, y));
+                if (canPlace(b.getType(), x, y)) {
+                    MessageSender.getInstance().sendBlockPlacement(b);
                 }
             }
         }
@@ -252,19 +275,18 @@ public class PlacementScreen extends ScreenAdapter implements InputProcessor {
         return true;
     }
 
-    private Block getBlock(float x, float y) {
-        Block block;
-        if(blockType == null) blockType = Block.Type.BOX;
-        switch (blockType){
-            case BOX:
-            case ANTIBLOCK:
-            case BLOCK: block = new Block(new Vector2(x, y), blockType); break;
-            case LETHAL:
-            case G_DOWN:
-            case G_UP: block = new Trap(new Vector2(x, y), blockType); break;
-            default: block = new Block(new Vector2(x, y), Block.Type.BOX); break;
+    // Indique si un block du type donné peut être placé sur la case donnée
+    private boolean canPlace(Block.Type type, int x, int y) {
+        Block.Type current = world.getLevel().getType(x, y);
+        if (type == Block.Type.ANTIBLOCK) {
+            return current != null && current != Block.Type.PROTECTED_AREA;
         }
-        return block;
+        return current == null;
+    }
+
+    private Block getBlock(float x, float y) {
+        if(blockType == null || blockType == Block.Type.PROTECTED_AREA) blockType = Block.Type.BOX;
+        return Block.create(blockType, new Vector2(x, y));
     }
 
     @Override
@@ -11,12 +11,15 @@ import com.badlogic.gdx.scenes.scene2d.ui.*;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.gdx.uch2.ScreenManager;
 import com.gdx.uch2.entities.OnlinePlayerManager;
+import com.gdx.uch2.util.Assets;
 
 /**
  * Ecran d'affichage des scores intermédiaires
  */
 public class ScoreScreen implements Screen {
     private Stage stage;
+    private Skin skin;
+    private Texture chicken;
     private int nRound;
 
     /**
@@ -26,6 +29,8 @@ public class ScoreScreen implements Screen {
         stage = new Stage(new ScreenViewport());
         Gdx.input.setInputProcessor(stage);
         this.nRound = nRound;
+        // Recharge en arrière-plan les ressources de la manche suivante qui auraient été libérées
+        Assets.getInstance().queuePreload();
     }
 
     /**
@@ -48,11 +53,11 @@ public class ScoreScreen implements Screen {
 
         stage.addActor(table);
 
-        // temporary until we have asset manager in
-        Skin skin = new Skin(Gdx.files.internal("neon/skin/neon-ui.json"));
+        skin = Assets.getInstance().acquireSkin();
 
         // Create Image
-        Image chickenImg = new Image(new Texture(Gdx.files.internal(("chicken.png"))));
+        chicken = Assets.getInstance().acquireChicken();
+        Image chickenImg = new Image(chicken);
         chickenImg.setWidth(129);
         chickenImg.setHeight(200);
 
@@ -148,6 +153,8 @@ public class ScoreScreen implements Screen {
 
     @Override
     public void render(float delta) {
+        Assets.getInstance().update();
+
         // clear the screen ready for next set of images to be drawn
         Gdx.gl.glClearColor(0f, 0f, 0f, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
@@ -180,5 +187,11 @@ public class ScoreScreen implements Screen {
     @Override
     public void dispose() {
         stage.dispose();
+        if (skin != null) {
+            Assets.getInstance().release(Assets.SKIN);
+        }
+        if (chicken != null) {
+            Assets.getInstance().release(Assets.CHICKEN);
+        }
     }
 }
\ No newline at end of file
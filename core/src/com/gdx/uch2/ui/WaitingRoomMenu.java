@@ -13,12 +13,14 @@ import com.gdx.uch2.networking.GamePhase;
 import com.gdx.uch2.networking.client.ErrorHandler;
 import com.gdx.uch2.networking.client.GameClientHandler;
 import com.gdx.uch2.ui.uiUtil.GameParameters;
+import com.gdx.uch2.util.Assets;
 
 /**
  * Ecran de salle d'attente
  */
 public class WaitingRoomMenu implements Screen {
     private Stage stage;
+    private Skin skin;
     private GameParameters params;
     private InputListener cancelOperation;
 
@@ -47,8 +49,7 @@ public class WaitingRoomMenu implements Screen {
         stage.addActor(table);
         table.setFillParent(true);
 
-        // temporary until we have asset manager in
-        Skin skin = new Skin(Gdx.files.internal("neon/skin/neon-ui.json"));
+        skin = Assets.getInstance().acquireSkin();
 
         Label hostnameLabel = new Label("hostname : " + params.hostname, skin);
         Label portLabel = new Label("port : " + params.port, skin);
@@ -127,5 +128,8 @@ public class WaitingRoomMenu implements Screen {
     @Override
     public void dispose() {
         stage.dispose();
+        if (skin != null) {
+            Assets.getInstance().release(Assets.SKIN);
+        }
     }
 }
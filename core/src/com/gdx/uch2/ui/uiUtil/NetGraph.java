@@ -0,0 +1,65 @@
+package com.gdx.uch2.ui.uiUtil;
+
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.utils.Align;
+import com.gdx.uch2.networking.LatencyStats;
+import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.client.GameClientHandler;
+import com.gdx.uch2.networking.client.MessageSender;
+import com.gdx.uch2.util.Assets;
+
+/**
+ * Affichage compact de l'état du réseau : RTT, gigue, pertes, fréquence des snapshots et débits
+ */
+public class NetGraph extends Label {
+    private static final float REFRESH_PERIOD = 0.5f;
+
+    private final StringBuilder text = new StringBuilder();
+    private float elapsed = REFRESH_PERIOD;
+    private long lastSnapshots;
+    private long lastBytesIn;
+    private long lastBytesOut;
+
+    /**
+     * Constructeur
+     */
+    public NetGraph() {
+        super("", new LabelStyle(Assets.getInstance().getDefaultFont(), null));
+        setAlignment(Align.topLeft);
+    }
+
+    /**
+     * Met à jour les valeurs affichées. Le texte n'est recalculé qu'à intervalle régulier.
+     * @param delta temps écoulé depuis le dernier appel
+     */
+    public void update(float delta) {
+        elapsed += delta;
+        PlayerContext ctx = MessageSender.getInstance().getContext();
+        if (elapsed < REFRESH_PERIOD || ctx == null || !isVisible()) {
+            return;
+        }
+
+        long snapshots = GameClientHandler.getSnapshotsReceived();
+        long bytesIn = ctx.in.getBytesRead();
+        long bytesOut = ctx.out.getBytesWritten();
+        LatencyStats latency = ctx.getLatency();
+
+        text.setLength(0);
+        text.append("RTT ").append(Math.round(latency.getSmoothedRtt())).append(" ms")
+                .append("  jitter ").append(Math.round(latency.getJitter())).append(" ms")
+                .append("  loss ").append(Math.round(latency.getLoss(System.nanoTime()) * 100)).append(" %\n")
+                .append("snapshots ").append(Math.round((snapshots - lastSnapshots) / elapsed)).append("/s")
+                .append("  in ").append(Math.round((bytesIn - lastBytesIn) / elapsed)).append(" B/s")
+                .append("  out ").append(Math.round((bytesOut - lastBytesOut) / elapsed)).append(" B/s");
+        // Garde le coin supérieur gauche en place lorsque la taille du texte change
+        float top = getTop();
+        setText(text);
+        pack();
+        setY(top - getHeight());
+
+        lastSnapshots = snapshots;
+        lastBytesIn = bytesIn;
+        lastBytesOut = bytesOut;
+        elapsed = 0;
+    }
+}
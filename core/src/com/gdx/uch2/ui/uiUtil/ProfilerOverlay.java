@@ -0,0 +1,91 @@
+package com.gdx.uch2.ui.uiUtil;
+
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.utils.Align;
+import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.client.GameClientHandler;
+import com.gdx.uch2.networking.client.MessageSender;
+import com.gdx.uch2.util.Assets;
+import com.gdx.uch2.util.FrameProfiler;
+
+/**
+ * Affichage des mesures du {@link FrameProfiler} : percentiles de la durée des frames, détail par partie,
+ * ramasse-miettes, allocations, appels de dessin et réception réseau
+ */
+public class ProfilerOverlay extends Label {
+    private static final float REFRESH_PERIOD = 0.5f;
+    private static final int AVERAGE_FRAMES = 60;
+
+    private final StringBuilder text = new StringBuilder();
+    private float elapsed = REFRESH_PERIOD;
+    private long lastSnapshots;
+    private long lastBytesIn;
+
+    /**
+     * Constructeur. L'overlay est visible seulement si le profiler est activé.
+     */
+    public ProfilerOverlay() {
+        super("", new LabelStyle(Assets.getInstance().getDefaultFont(), null));
+        setAlignment(Align.topRight);
+        setVisible(FrameProfiler.getInstance().isEnabled());
+    }
+
+    /**
+     * Active ou désactive le profiler et l'overlay
+     */
+    public void toggle() {
+        FrameProfiler profiler = FrameProfiler.getInstance();
+        profiler.setEnabled(!profiler.isEnabled());
+        setVisible(profiler.isEnabled());
+        elapsed = REFRESH_PERIOD;
+    }
+
+    /**
+     * Met à jour les valeurs affichées. Le texte n'est recalculé qu'à intervalle régulier.
+     * @param delta temps écoulé depuis le dernier appel
+     */
+    public void update(float delta) {
+        elapsed += delta;
+        FrameProfiler profiler = FrameProfiler.getInstance();
+        if (elapsed < REFRESH_PERIOD || !profiler.isEnabled()) {
+            return;
+        }
+
+        text.setLength(0);
+        text.append("frame p50 ").append(format(profiler.getFramePercentile(50)))
+                .append("  p95 ").append(format(profiler.getFramePercentile(95)))
+                .append("  p99 ").append(format(profiler.getFramePercentile(99))).append(" ms\n");
+        for (FrameProfiler.Section section : FrameProfiler.Section.values()) {
+            text.append(section.getLabel()).append(' ')
+                    .append(format(profiler.getSectionAverage(section, AVERAGE_FRAMES))).append(" ms\n");
+        }
+
+        long allocated = profiler.pollAllocatedBytes();
+        text.append("GC ").append(profiler.pollGcCount()).append(" (").append(profiler.pollGcTime()).append(" ms)")
+                .append("  alloc ").append(allocated < 0 ? "n/a" : Math.round(allocated / elapsed / 1024) + " KB/s")
+                .append("\ndraw calls ").append(profiler.getLastDrawCalls());
+
+        PlayerContext ctx = MessageSender.getInstance().getContext();
+        if (ctx != null) {
+            long snapshots = GameClientHandler.getSnapshotsReceived();
+            long bytesIn = ctx.in.getBytesRead();
+            text.append("\nnet in ").append(Math.round((bytesIn - lastBytesIn) / elapsed)).append(" B/s  ")
+                    .append(Math.round((snapshots - lastSnapshots) / elapsed)).append(" snapshots/s");
+            lastSnapshots = snapshots;
+            lastBytesIn = bytesIn;
+        }
+
+        // Garde le coin supérieur droit en place lorsque la taille du texte change
+        float top = getTop();
+        float right = getRight();
+        setText(text);
+        pack();
+        setPosition(right - getWidth(), top - getHeight());
+        elapsed = 0;
+    }
+
+    // Arrondi au dixième de milliseconde
+    private static float format(float ms) {
+        return Math.round(ms * 10) / 10f;
+    }
+}
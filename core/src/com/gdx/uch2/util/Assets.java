@@ -0,0 +1,277 @@
+package com.gdx.uch2.util;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.gdx.uch2.controller.LevelFile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Singleton donnant accès aux ressources partagées du jeu (atlas, skin, textures, sons).
+ * Les ressources sont chargées une seule fois et comptées par référence : chaque {@link #acquire(String, Class)} doit
+ * être suivi d'un {@link #release(String)}, et une ressource est libérée lorsque plus personne ne l'utilise.
+ * Les ressources graphiques doivent être obtenues depuis le thread de rendu.
+ * Au démarrage, {@link #queuePreload()} met en file toutes les ressources du jeu, qui sont ensuite chargées en
+ * arrière-plan par {@link #update()} et gardées en mémoire jusqu'à la fermeture du jeu.
+ */
+public class Assets {
+    private static class Instance {
+        static final Assets instance = new Assets();
+    }
+
+    /**
+     * Skin des menus
+     */
+    public static final String SKIN = "neon/skin/neon-ui.json";
+
+    /**
+     * Image du poulet des menus
+     */
+    public static final String CHICKEN = "chicken.png";
+
+    /**
+     * Sons du jeu
+     */
+    public static final String SOUND_JUMP = "sound/jump.mp3";
+    public static final String SOUND_DEATH = "sound/death.mp3";
+    public static final String SOUND_FINISH = "sound/finish.mp3";
+    public static final String MAIN_THEME = "sound/main_theme.mp3";
+
+    /**
+     * Numéros des niveaux disponibles
+     */
+    public static final int[] LEVELS = {1, 2, 3, 21, 22};
+
+    private static final String LEVEL_PREFIX = "levels/level-";
+
+    private AssetManager manager;
+    private BitmapFont defaultFont;
+    private final Map<String, Integer> references = new HashMap<>();
+    private final List<String> pendingPins = new ArrayList<>();
+
+    private Assets() {
+    }
+
+    /**
+     * @return l'instance unique du singleton
+     */
+    public static Assets getInstance() {
+        return Instance.instance;
+    }
+
+    /**
+     * @return le gestionnaire de ressources sous-jacent, créé au premier appel
+     */
+    public synchronized AssetManager getManager() {
+        if (manager == null) {
+            manager = new AssetManager();
+        }
+        return manager;
+    }
+
+    /**
+     * @param number numéro du niveau
+     * @return le chemin de l'image du niveau
+     */
+    public static String levelPath(int number) {
+        return LEVEL_PREFIX + number + ".png";
+    }
+
+    /**
+     * @param number numéro du niveau
+     * @return le chemin du niveau compilé
+     */
+    public static String compiledLevelPath(int number) {
+        return LEVEL_PREFIX + number + LevelFile.EXTENSION;
+    }
+
+    /**
+     * Met en file le chargement asynchrone de toutes les ressources du jeu. Une fois chargées, elles sont épinglées :
+     * elles comptent une référence supplémentaire et restent en mémoire entre les écrans.
+     * Les ressources déjà chargées ou en file sont ignorées.
+     */
+    public synchronized void queuePreload() {
+        preload(SKIN, Skin.class);
+        preload(CHICKEN, Texture.class);
+        if (Gdx.files.internal(Constants.GAME_ATLAS).exists()) {
+            preload(Constants.GAME_ATLAS, TextureAtlas.class);
+        } else {
+            preload(Constants.BLOCKS_ATLAS, TextureAtlas.class);
+            preload(Constants.PLAYER_1_ATLAS, TextureAtlas.class);
+            preload(Constants.OPPONENTS_ATLAS, TextureAtlas.class);
+        }
+        preload(SOUND_JUMP, Sound.class);
+        preload(SOUND_DEATH, Sound.class);
+        preload(SOUND_FINISH, Sound.class);
+        preload(MAIN_THEME, Sound.class);
+        for (int level : LEVELS) {
+            // un niveau compilé est lu directement, sans passer par son image
+            if (!Gdx.files.internal(compiledLevelPath(level)).exists()) {
+                preload(levelPath(level), Pixmap.class);
+            }
+        }
+    }
+
+    private void preload(String name, Class<?> type) {
+        AssetManager manager = getManager();
+        if (!manager.contains(name) && Gdx.files.internal(name).exists()) {
+            manager.load(name, type);
+            pendingPins.add(name);
+        }
+    }
+
+    /**
+     * Fait avancer le chargement asynchrone pendant une frame. Doit être appelé depuis le thread de rendu.
+     * @return true si toutes les ressources en file sont chargées
+     */
+    public synchronized boolean update() {
+        boolean done = getManager().update();
+        if (done && !pendingPins.isEmpty()) {
+            for (String name : pendingPins) {
+                Integer count = references.get(name);
+                references.put(name, count == null ? 1 : count + 1);
+            }
+            pendingPins.clear();
+        }
+        return done;
+    }
+
+    /**
+     * @return la progression du chargement asynchrone, entre 0 et 1
+     */
+    public synchronized float getProgress() {
+        return getManager().getProgress();
+    }
+
+    /**
+     * Obtient une ressource uniquement si elle est déjà chargée, sans jamais la charger.
+     * Utilisable depuis un autre thread que celui de rendu.
+     * @param name nom du fichier de la ressource
+     * @param type classe de la ressource
+     * @param <T> type de la ressource
+     * @return la ressource partagée, ou null si elle n'est pas chargée
+     */
+    public synchronized <T> T acquireIfLoaded(String name, Class<T> type) {
+        if (manager == null || !manager.isLoaded(name, type)) {
+            return null;
+        }
+        return acquire(name, type);
+    }
+
+    /**
+     * Obtient une ressource en incrémentant son compteur de références. La ressource est chargée si nécessaire.
+     * @param name nom du fichier de la ressource
+     * @param type classe de la ressource
+     * @param <T> type de la ressource
+     * @return la ressource partagée
+     */
+    public synchronized <T> T acquire(String name, Class<T> type) {
+        AssetManager manager = getManager();
+        if (!manager.isLoaded(name, type)) {
+            if (!manager.contains(name, type)) {
+                manager.load(name, type);
+            }
+            manager.finishLoadingAsset(name);
+        }
+        Integer count = references.get(name);
+        references.put(name, count == null ? 1 : count + 1);
+        return manager.get(name, type);
+    }
+
+    /**
+     * Rend une ressource obtenue par {@link #acquire(String, Class)}. Elle est libérée si plus personne ne l'utilise.
+     * @param name nom du fichier de la ressource
+     */
+    public synchronized void release(String name) {
+        Integer count = references.get(name);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            references.put(name, count - 1);
+        } else {
+            references.remove(name);
+            if (manager != null && manager.isLoaded(name)) {
+                manager.unload(name);
+            }
+        }
+    }
+
+    /**
+     * @param name nom du fichier de la ressource
+     * @return le nombre d'utilisateurs actuels de la ressource
+     */
+    public synchronized int getReferenceCount(String name) {
+        Integer count = references.get(name);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * @return la police par défaut, partagée par tous les labels qui n'utilisent pas de skin
+     */
+    public synchronized BitmapFont getDefaultFont() {
+        if (defaultFont == null) {
+            defaultFont = new BitmapFont();
+        }
+        return defaultFont;
+    }
+
+    /**
+     * Libère toutes les ressources, à la fermeture du jeu
+     */
+    public synchronized void dispose() {
+        if (manager != null) {
+            manager.dispose();
+            manager = null;
+        }
+        references.clear();
+        pendingPins.clear();
+        if (defaultFont != null) {
+            defaultFont.dispose();
+            defaultFont = null;
+        }
+    }
+
+    /**
+     * Raccourci pour obtenir la skin des menus
+     * @return la skin partagée
+     */
+    public Skin acquireSkin() {
+        return acquire(SKIN, Skin.class);
+    }
+
+    /**
+     * Raccourci pour obtenir l'image du poulet des menus
+     * @return la texture partagée
+     */
+    public Texture acquireChicken() {
+        return acquire(CHICKEN, Texture.class);
+    }
+
+    /**
+     * Raccourci pour obtenir un atlas
+     * @param name nom du fichier de l'atlas
+     * @return l'atlas partagé
+     */
+    public TextureAtlas acquireAtlas(String name) {
+        return acquire(name, TextureAtlas.class);
+    }
+
+    /**
+     * Raccourci pour obtenir un son
+     * @param name nom du fichier du son
+     * @return le son partagé
+     */
+    public Sound acquireSound(String name) {
+        return acquire(name, Sound.class);
+    }
+}
@@ -19,11 +19,61 @@ public class Constants {
      */
     public static final String OPPONENTS_ATLAS = "players/opponents.atlas";
 
+    /**
+     * Nom de fichier de l'atlas unique regroupant les sprites du joueur, des adversaires et des blocks, généré au build
+     * par la tâche gradle packAtlas. Les atlas séparés sont utilisés s'il est absent.
+     */
+    public static final String GAME_ATLAS = "game.atlas";
+
+    /**
+     * Préfixes des régions de l'atlas unique, selon leur atlas d'origine
+     */
+    public static final String PLAYER_PREFIX = "player";
+    public static final String OPPONENTS_PREFIX = "opponents";
+    public static final String BLOCKS_PREFIX = "blocks";
+
     /**
      * Durée en millisecondes séparant les envois de GameStates et des PlayerStates
      */
     public static final int TICK_DURATION = 125;
 
+    /**
+     * Durée en millisecondes séparant les envois de Pings, pour la mesure de la latence
+     */
+    public static final int PING_INTERVAL = 500;
+
+    /**
+     * Durée minimale en millisecondes séparant deux envois de la position du block en cours de placement. Le serveur
+     * ne relaie ces positions qu'une fois par tick, des envois plus fréquents seraient perdus.
+     */
+    public static final int BLOCK_POSITION_INTERVAL = TICK_DURATION;
+
+    /**
+     * Taille maximale en bytes d'un morceau de niveau envoyé par le serveur
+     */
+    public static final int LEVEL_CHUNK_SIZE = 4096;
+
+    /**
+     * Durée en secondes d'un pas de la simulation physique du joueur local (120 Hz)
+     */
+    public static final float PHYSICS_STEP = 1 / 120f;
+
+    /**
+     * Durée maximale en secondes d'une frame prise en compte par la simulation, pour éviter de simuler un grand nombre
+     * de pas après une longue interruption
+     */
+    public static final float MAX_FRAME_TIME = 0.25f;
+
+    /**
+     * Largeur maximale en unités de niveau de la zone affichée. Un niveau plus large défile en suivant le joueur.
+     */
+    public static final float MAX_VIEW_WIDTH = 48;
+
+    /**
+     * Hauteur maximale en unités de niveau de la zone affichée. Un niveau plus haut défile en suivant le joueur.
+     */
+    public static final float MAX_VIEW_HEIGHT = 27;
+
     /**
      * Vitesse de la boucle de jeu principale
      */
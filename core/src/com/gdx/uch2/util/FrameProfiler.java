@@ -0,0 +1,357 @@
+package com.gdx.uch2.util;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Singleton mesurant la durée des frames du client et de leurs différentes parties. Tant qu'il est désactivé, chaque
+ * appel se limite à tester un booléen. Les dernières frames mesurées peuvent être exportées en CSV, et la pire frame
+ * suivant chaque changement d'écran est affichée.
+ * Toutes les méthodes doivent être appelées depuis le thread de rendu.
+ */
+public class FrameProfiler {
+    private static class Instance {
+        static final FrameProfiler instance = new FrameProfiler();
+    }
+
+    /**
+     * Parties d'une frame mesurées séparément
+     */
+    public enum Section {
+        CONTROLLER("controller"),
+        ONLINE_PLAYERS("online players"),
+        BACKGROUND("background"),
+        PLAYERS("players"),
+        STAGE("stage");
+
+        private final String label;
+
+        Section(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return le nom affiché de la partie
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final int HISTORY = 4096;
+    // Nombre de frames observées après un changement d'écran pour trouver la pire durée de frame
+    private static final int TRANSITION_FRAMES = 30;
+    private static final Section[] SECTIONS = Section.values();
+
+    // Mesure des allocations du thread de rendu, disponible seulement sur les JVM HotSpot
+    private static final Method ALLOCATED_BYTES;
+
+    static {
+        Method allocatedBytes = null;
+        try {
+            Class<?> hotspot = Class.forName("com.sun.management.ThreadMXBean");
+            if (hotspot.isInstance(ManagementFactory.getThreadMXBean())) {
+                allocatedBytes = hotspot.getMethod("getThreadAllocatedBytes", long.class);
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            allocatedBytes = null;
+        }
+        ALLOCATED_BYTES = allocatedBytes;
+    }
+
+    private boolean enabled;
+
+    private long frameStart;
+    private long lastFrameEnd;
+    private final long[] sectionStart = new long[SECTIONS.length];
+    private final long[] sectionTime = new long[SECTIONS.length];
+
+    // Historique circulaire des dernières frames, en nanosecondes : intervalle entre deux frames et temps passé dans
+    // le rendu de l'écran
+    private final long[] frameTimes = new long[HISTORY];
+    private final long[] cpuTimes = new long[HISTORY];
+    private final long[][] sectionTimes = new long[SECTIONS.length][HISTORY];
+    private final int[] drawCalls = new int[HISTORY];
+    private int count;
+    private int next;
+
+    private final long[] sorted = new long[HISTORY];
+    private long lastGcCount;
+    private long lastGcTime;
+    private long lastAllocated;
+
+    private String transitionName;
+    private int transitionFrames;
+    private float worstTransitionFrame;
+
+    private FrameProfiler() {
+    }
+
+    /**
+     * @return l'instance unique du singleton
+     */
+    public static FrameProfiler getInstance() {
+        return Instance.instance;
+    }
+
+    /**
+     * @return true si les frames sont mesurées
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Active ou désactive les mesures. L'historique est vidé à chaque activation.
+     * @param enabled true pour mesurer les frames
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            count = 0;
+            next = 0;
+            frameStart = 0;
+            lastFrameEnd = 0;
+            lastGcCount = getGcCount();
+            lastGcTime = getGcTime();
+            lastAllocated = getAllocatedBytes();
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * Commence la mesure d'une frame
+     */
+    public void beginFrame() {
+        if (!enabled) {
+            return;
+        }
+        frameStart = System.nanoTime();
+        Arrays.fill(sectionTime, 0);
+    }
+
+    /**
+     * Commence la mesure d'une partie de la frame
+     * @param section la partie mesurée
+     */
+    public void start(Section section) {
+        if (enabled) {
+            sectionStart[section.ordinal()] = System.nanoTime();
+        }
+    }
+
+    /**
+     * Termine la mesure d'une partie de la frame. Une partie mesurée plusieurs fois par frame est cumulée.
+     * @param section la partie mesurée
+     */
+    public void stop(Section section) {
+        if (enabled) {
+            sectionTime[section.ordinal()] += System.nanoTime() - sectionStart[section.ordinal()];
+        }
+    }
+
+    /**
+     * Termine la mesure de la frame courante et l'ajoute à l'historique
+     * @param calls nombre d'appels de dessin de la frame
+     */
+    public void endFrame(int calls) {
+        if (!enabled || frameStart == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (lastFrameEnd == 0) {
+            // la durée de la première frame après l'activation n'est pas connue
+            lastFrameEnd = now;
+            return;
+        }
+        frameTimes[next] = now - lastFrameEnd;
+        cpuTimes[next] = now - frameStart;
+        lastFrameEnd = now;
+        for (int i = 0; i < SECTIONS.length; ++i) {
+            sectionTimes[i][next] = sectionTime[i];
+        }
+        drawCalls[next] = calls;
+        next = (next + 1) % HISTORY;
+        count = Math.min(count + 1, HISTORY);
+    }
+
+    /**
+     * @param batch un Batch venant de terminer une passe de rendu
+     * @return le nombre d'appels de dessin de cette passe, si le Batch les compte
+     */
+    public static int getRenderCalls(Batch batch) {
+        return batch instanceof SpriteBatch ? ((SpriteBatch) batch).renderCalls : 0;
+    }
+
+    /**
+     * Calcule un percentile de la durée des frames de l'historique, mesurée d'une fin de frame à la suivante
+     * @param percentile percentile voulu, entre 0 et 100
+     * @return la durée en millisecondes
+     */
+    public float getFramePercentile(float percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        System.arraycopy(frameTimes, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        int index = Math.min(count - 1, (int) Math.ceil(percentile / 100 * count) - 1);
+        return sorted[Math.max(0, index)] / 1e6f;
+    }
+
+    /**
+     * @param section la partie voulue
+     * @param frames nombre de frames les plus récentes prises en compte
+     * @return la durée moyenne de la partie en millisecondes
+     */
+    public float getSectionAverage(Section section, int frames) {
+        int n = Math.min(frames, count);
+        if (n == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 1; i <= n; ++i) {
+            total += sectionTimes[section.ordinal()][(next - i + HISTORY) % HISTORY];
+        }
+        return total / (n * 1e6f);
+    }
+
+    /**
+     * @return le nombre d'appels de dessin de la dernière frame mesurée
+     */
+    public int getLastDrawCalls() {
+        return count == 0 ? 0 : drawCalls[(next - 1 + HISTORY) % HISTORY];
+    }
+
+    /**
+     * @return le nombre de collectes du ramasse-miettes depuis l'appel précédent
+     */
+    public long pollGcCount() {
+        long gcCount = getGcCount();
+        long result = gcCount - lastGcCount;
+        lastGcCount = gcCount;
+        return result;
+    }
+
+    /**
+     * @return le temps passé dans le ramasse-miettes en millisecondes depuis l'appel précédent
+     */
+    public long pollGcTime() {
+        long gcTime = getGcTime();
+        long result = gcTime - lastGcTime;
+        lastGcTime = gcTime;
+        return result;
+    }
+
+    /**
+     * @return le nombre d'octets alloués par le thread de rendu depuis l'appel précédent, ou -1 si la JVM ne le
+     * mesure pas
+     */
+    public long pollAllocatedBytes() {
+        long allocated = getAllocatedBytes();
+        if (allocated < 0) {
+            return -1;
+        }
+        long result = allocated - lastAllocated;
+        lastAllocated = allocated;
+        return result;
+    }
+
+    /**
+     * Commence la mesure d'une transition vers un nouvel écran. Si les mesures sont activées, la pire durée de frame
+     * des {@value #TRANSITION_FRAMES} frames suivantes est affichée.
+     * @param screen nom du nouvel écran
+     */
+    public void beginTransition(String screen) {
+        transitionName = screen;
+        transitionFrames = TRANSITION_FRAMES;
+        worstTransitionFrame = 0;
+    }
+
+    /**
+     * Enregistre la durée d'une frame pour la transition en cours
+     * @param delta durée de la frame précédente, en secondes
+     */
+    public void recordTransitionFrame(float delta) {
+        if (transitionFrames <= 0) {
+            return;
+        }
+        if (!enabled) {
+            // une transition commencée sans le profiler n'est pas mesurée
+            transitionFrames = 0;
+            return;
+        }
+        worstTransitionFrame = Math.max(worstTransitionFrame, delta);
+        if (--transitionFrames == 0) {
+            System.out.println("Transition vers " + transitionName + " : pire frame de "
+                    + Math.round(worstTransitionFrame * 1000) + " ms");
+        }
+    }
+
+    /**
+     * Exporte l'historique des frames dans un fichier CSV local
+     * @return le fichier écrit, ou null en cas d'erreur
+     */
+    public FileHandle dumpCsv() {
+        FileHandle file = Gdx.files.local("profile-" + System.currentTimeMillis() + ".csv");
+        try (Writer writer = file.writer(false, "UTF-8")) {
+            writer.write("frame,frame_ms,cpu_ms");
+            for (Section section : SECTIONS) {
+                writer.write("," + section.name().toLowerCase() + "_ms");
+            }
+            writer.write(",draw_calls\n");
+
+            int first = (next - count + HISTORY) % HISTORY;
+            for (int i = 0; i < count; ++i) {
+                int slot = (first + i) % HISTORY;
+                StringBuilder line = new StringBuilder();
+                line.append(i).append(',').append(frameTimes[slot] / 1e6f).append(',').append(cpuTimes[slot] / 1e6f);
+                for (int s = 0; s < SECTIONS.length; ++s) {
+                    line.append(',').append(sectionTimes[s][slot] / 1e6f);
+                }
+                line.append(',').append(drawCalls[slot]).append('\n');
+                writer.write(line.toString());
+            }
+        } catch (IOException e) {
+            System.out.println("Impossible d'écrire le profil : " + e.getMessage());
+            return null;
+        }
+        return file;
+    }
+
+    private static long getGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long getGcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long getAllocatedBytes() {
+        if (ALLOCATED_BYTES == null) {
+            return -1;
+        }
+        try {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            return (Long) ALLOCATED_BYTES.invoke(threads, Thread.currentThread().getId());
+        } catch (ReflectiveOperationException e) {
+            return -1;
+        }
+    }
+}
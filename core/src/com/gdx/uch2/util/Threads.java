@@ -0,0 +1,75 @@
+package com.gdx.uch2.util;
+
+import java.lang.reflect.Method;
+
+/**
+ * Création des threads de connexion. Si la propriété système {@link #VIRTUAL_THREADS_PROPERTY} vaut true et que la
+ * JVM supporte les threads virtuels (Java 21 ou ultérieur), les threads sont créés virtuels, ce qui permet de garder
+ * des lectures bloquantes tout en supportant un grand nombre de connexions. Sinon, ce sont des threads classiques.
+ * Le projet étant compilé pour Java 7, l'API des threads virtuels est appelée par réflexion.
+ */
+public class Threads {
+
+    /**
+     * Propriété système activant les threads virtuels
+     */
+    public static final String VIRTUAL_THREADS_PROPERTY = "uch2.virtualThreads";
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method UNSTARTED;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method unstarted = null;
+        if (Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY)) {
+            try {
+                Class<?> builder = Class.forName("java.lang.Thread$Builder");
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                name = builder.getMethod("name", String.class);
+                unstarted = builder.getMethod("unstarted", Runnable.class);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("Threads virtuels non supportés par cette JVM, utilisation des threads classiques");
+                ofVirtual = null;
+            }
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        UNSTARTED = unstarted;
+    }
+
+    private Threads() {
+    }
+
+    /**
+     * @return true si les threads créés par cette classe sont virtuels
+     */
+    public static boolean isVirtual() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Crée et démarre un thread
+     * @param runnable tâche à exécuter
+     * @param name nom du thread
+     * @return le thread démarré
+     */
+    public static Thread start(Runnable runnable, String name) {
+        Thread t = null;
+        if (OF_VIRTUAL != null) {
+            try {
+                Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+                t = (Thread) UNSTARTED.invoke(builder, runnable);
+            } catch (ReflectiveOperationException e) {
+                t = null;
+            }
+        }
+
+        if (t == null) {
+            t = new Thread(runnable, name);
+        }
+        t.start();
+        return t;
+    }
+}
@@ -2,9 +2,12 @@ package com.gdx.uch2.view;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
@@ -14,8 +17,11 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.gdx.uch2.entities.*;
 import com.gdx.uch2.entities.Player.State;
+import com.gdx.uch2.util.Assets;
 import com.gdx.uch2.util.Constants;
 
+import java.util.Arrays;
+
 /**
  * Gère l'affichage des différents éléments présents dans un World
  */
@@ -27,8 +33,8 @@ public class WorldRenderer {
     private World world;
     private OrthographicCamera cam;
 
-    /** for debug rendering **/
-    ShapeRenderer debugRenderer = new ShapeRenderer();
+    /** for debug rendering, created the first time debug is drawn **/
+    ShapeRenderer debugRenderer;
 
     /** Textures **/
     private TextureRegion boxTexture;
@@ -68,11 +74,31 @@ public class WorldRenderer {
     private Animation<TextureAtlas.AtlasRegion>  opponentIdleLeftAnimation;
 
     private Batch spriteBatch;
+    private boolean unifiedAtlas;
+
+    /**
+     * Cache des blocks du niveau, un cache par chunk visible. Un chunk modifié est redéfini sur place, ou ajouté à la
+     * suite des autres s'il a grandi ; le cache n'est reconstruit entièrement que lorsque la vue change de chunks ou
+     * que les caches abandonnés occupent plus du quart de la place utilisée, toute la géométrie étant renvoyée au GPU
+     * après chaque modification.
+     **/
+    private SpriteCache blockCache;
+    private int blockCacheSize;
+    private int blockCacheUsed;
+    private int blockCacheAbandoned;
+    private int lastCacheId = -1;
+    private int[] chunkCacheIds;
+    private int[] chunkCacheCapacities;
+    private int[] chunkCacheVersions;
+    private int cachedX0, cachedY0, cachedX1 = -1, cachedY1 = -1;
     private boolean debug = false;
     private int width;
     private int height;
     private float ppuX;	// pixels per unit on the X axis
     private float ppuY;	// pixels per unit on the Y axis
+    private float interpolationAlpha = 1;
+    private int lastDrawCalls;
+    private final Vector2 drawPosition = new Vector2();
 
     /**
      * Donne une taille au renderer
@@ -101,6 +127,14 @@ public class WorldRenderer {
         this.debug = debug;
     }
 
+    /**
+     * Indique où en est le temps affiché entre les deux derniers pas de la simulation du joueur local
+     * @param alpha avancement entre le pas précédent (0) et le pas actuel (1)
+     */
+    public void setInterpolationAlpha(float alpha) {
+        this.interpolationAlpha = alpha;
+    }
+
     /**
      * Constructeur
      * @param world le monde à afficher
@@ -109,12 +143,20 @@ public class WorldRenderer {
      */
     public WorldRenderer(World world, Batch batch, boolean debug) {
         this.world = world;
-        camera_width = world.getLevel().getWidth();
-        camera_height = world.getLevel().getHeight();
+        camera_width = Math.min(world.getLevel().getWidth(), Constants.MAX_VIEW_WIDTH);
+        camera_height = Math.min(world.getLevel().getHeight(), Constants.MAX_VIEW_HEIGHT);
         this.cam = new OrthographicCamera(camera_width, camera_height);
-//        this.cam.position.set(world.getPlayer().getPosition().x, world.getPlayer().getPosition().y, 0);
-		this.cam.position.set(camera_width / 2f, camera_height / 2f, 0);
-        this.cam.update();
+        updateCamera();
+
+        // at most this many chunks can be partly visible at once
+        int chunksInView = ((int) Math.ceil(camera_width / Level.CHUNK_SIZE) + 1)
+                * ((int) Math.ceil(camera_height / Level.CHUNK_SIZE) + 1);
+        blockCacheSize = chunksInView * Level.CHUNK_SIZE * Level.CHUNK_SIZE;
+        blockCache = new SpriteCache(blockCacheSize, false);
+        int nbChunks = world.getLevel().getChunksX() * world.getLevel().getChunksY();
+        chunkCacheIds = new int[nbChunks];
+        chunkCacheCapacities = new int[nbChunks];
+        chunkCacheVersions = new int[nbChunks];
 
         this.debug = debug;
         spriteBatch = batch;
@@ -122,24 +164,39 @@ public class WorldRenderer {
     }
 
     private void loadTextures() {
-        TextureAtlas playerAtlas = new TextureAtlas(Gdx.files.internal(Constants.PLAYER_1_ATLAS));
-        TextureAtlas blocksAtlas = new TextureAtlas(Gdx.files.internal(Constants.BLOCKS_ATLAS));
-        TextureAtlas opponentsAtlas = new TextureAtlas(Gdx.files.internal(Constants.OPPONENTS_ATLAS));
-
-        boxTexture = blocksAtlas.findRegion("box");
-        blockTexture = blocksAtlas.findRegion("stone");
-        gUpTexture = blocksAtlas.findRegion("liquidWater");
-        gDownTexture = blocksAtlas.findRegion("liquidLava");
-        lethalBlockTexture = blocksAtlas.findRegion("boxExplosive");
-        spawnTexture = blocksAtlas.findRegion("signRight");
-        finishTexture = blocksAtlas.findRegion("signExit");
-        protectedArea = blocksAtlas.findRegion("castleCenter");
-        bomb = blocksAtlas.findRegion("antiblock");
+        // L'atlas unique permet de dessiner blocks et personnages sans changer de texture
+        TextureAtlas playerAtlas;
+        TextureAtlas blocksAtlas;
+        TextureAtlas opponentsAtlas;
+        String playerPrefix = "";
+        String blocksPrefix = "";
+        String opponentsPrefix = "";
+        unifiedAtlas = Gdx.files.internal(Constants.GAME_ATLAS).exists();
+        if (unifiedAtlas) {
+            playerAtlas = blocksAtlas = opponentsAtlas = Assets.getInstance().acquireAtlas(Constants.GAME_ATLAS);
+            playerPrefix = Constants.PLAYER_PREFIX + "/";
+            blocksPrefix = Constants.BLOCKS_PREFIX + "/";
+            opponentsPrefix = Constants.OPPONENTS_PREFIX + "/";
+        } else {
+            playerAtlas = Assets.getInstance().acquireAtlas(Constants.PLAYER_1_ATLAS);
+            blocksAtlas = Assets.getInstance().acquireAtlas(Constants.BLOCKS_ATLAS);
+            opponentsAtlas = Assets.getInstance().acquireAtlas(Constants.OPPONENTS_ATLAS);
+        }
+
+        boxTexture = blocksAtlas.findRegion(blocksPrefix + "box");
+        blockTexture = blocksAtlas.findRegion(blocksPrefix + "stone");
+        gUpTexture = blocksAtlas.findRegion(blocksPrefix + "liquidWater");
+        gDownTexture = blocksAtlas.findRegion(blocksPrefix + "liquidLava");
+        lethalBlockTexture = blocksAtlas.findRegion(blocksPrefix + "boxExplosive");
+        spawnTexture = blocksAtlas.findRegion(blocksPrefix + "signRight");
+        finishTexture = blocksAtlas.findRegion(blocksPrefix + "signExit");
+        protectedArea = blocksAtlas.findRegion(blocksPrefix + "castleCenter");
+        bomb = blocksAtlas.findRegion(blocksPrefix + "antiblock");
 
         Array<TextureAtlas.AtlasRegion> idleRightFrames = new Array<TextureAtlas.AtlasRegion>();
         Array<TextureAtlas.AtlasRegion> idleLeftFrames = new Array<TextureAtlas.AtlasRegion>();
         for(int i = 1; i <= 4; i++){
-            idleRightFrames.add(playerAtlas.findRegion("idle" + i));
+            idleRightFrames.add(playerAtlas.findRegion(playerPrefix + "idle" + i));
             TextureAtlas.AtlasRegion tmp = new TextureAtlas.AtlasRegion(idleRightFrames.get(i-1));
             tmp.flip(true, false);
             idleLeftFrames.add(tmp);
@@ -150,7 +207,7 @@ public class WorldRenderer {
         Array<TextureAtlas.AtlasRegion> walkingRightFrames = new Array<TextureAtlas.AtlasRegion>();
         Array<TextureAtlas.AtlasRegion> walkingLeftFrames = new Array<TextureAtlas.AtlasRegion>();
         for(int i = 1; i <= 7; i++){
-            walkingRightFrames.add(playerAtlas.findRegion("walk-right" + i));
+            walkingRightFrames.add(playerAtlas.findRegion(playerPrefix + "walk-right" + i));
             TextureAtlas.AtlasRegion tmp = new TextureAtlas.AtlasRegion(walkingRightFrames.get(i-1));
             tmp.flip(true, false);
             walkingLeftFrames.add(tmp);
@@ -158,13 +215,13 @@ public class WorldRenderer {
         walkRightAnimation = new Animation<>(Constants.LOOP_SPEED, walkingRightFrames, Animation.PlayMode.LOOP);
         walkLeftAnimation = new Animation<>(Constants.LOOP_SPEED, walkingLeftFrames, Animation.PlayMode.LOOP);
 
-        playerJumpRight = playerAtlas.findRegion("jump1");
+        playerJumpRight = playerAtlas.findRegion(playerPrefix + "jump1");
         playerJumpLeft = new TextureRegion(playerJumpRight);
         playerJumpLeft.flip(true, false);
-        playerFallRight = playerAtlas.findRegion("jump2");
+        playerFallRight = playerAtlas.findRegion(playerPrefix + "jump2");
         playerFallLeft = new TextureRegion(playerFallRight);
         playerFallLeft.flip(true, false);
-        playerDeadRight = playerAtlas.findRegion("dead");
+        playerDeadRight = playerAtlas.findRegion(playerPrefix + "dead");
         playerDeadLeft = new TextureRegion((playerDeadRight));
         playerDeadLeft.flip(true, false);
 
@@ -173,7 +230,7 @@ public class WorldRenderer {
         Array<TextureAtlas.AtlasRegion> opponentIdleRightFrames = new Array<TextureAtlas.AtlasRegion>();
         Array<TextureAtlas.AtlasRegion> opponentIdleLeftFrames = new Array<TextureAtlas.AtlasRegion>();
         for(int i = 1; i <= 4; i++){
-            opponentIdleRightFrames.add(opponentsAtlas.findRegion("idle" + i));
+            opponentIdleRightFrames.add(opponentsAtlas.findRegion(opponentsPrefix + "idle" + i));
             TextureAtlas.AtlasRegion tmp = new TextureAtlas.AtlasRegion(opponentIdleRightFrames.get(i-1));
             tmp.flip(true, false);
             opponentIdleLeftFrames.add(tmp);
@@ -185,7 +242,7 @@ public class WorldRenderer {
         Array<TextureAtlas.AtlasRegion> opponentWalkingRightFrames = new Array<TextureAtlas.AtlasRegion>();
         Array<TextureAtlas.AtlasRegion> opponentWalkingLeftFrames = new Array<TextureAtlas.AtlasRegion>();
         for(int i = 1; i <= 7; i++){
-            opponentWalkingRightFrames.add(opponentsAtlas.findRegion("walk-right" + i));
+            opponentWalkingRightFrames.add(opponentsAtlas.findRegion(opponentsPrefix + "walk-right" + i));
             TextureAtlas.AtlasRegion tmp = new TextureAtlas.AtlasRegion(opponentWalkingRightFrames.get(i-1));
             tmp.flip(true, false);
             opponentWalkingLeftFrames.add(tmp);
@@ -193,18 +250,32 @@ public class WorldRenderer {
         opponentWalkRightAnimation = new Animation<>(Constants.LOOP_SPEED, opponentWalkingRightFrames, Animation.PlayMode.LOOP);
         opponentWalkLeftAnimation = new Animation<>(Constants.LOOP_SPEED, opponentWalkingLeftFrames, Animation.PlayMode.LOOP);
 
-        opponentJumpRight = opponentsAtlas.findRegion("jump1");
+        opponentJumpRight = opponentsAtlas.findRegion(opponentsPrefix + "jump1");
         opponentJumpLeft = new TextureRegion(opponentJumpRight);
         opponentJumpLeft.flip(true, false);
-        opponentFallRight = opponentsAtlas.findRegion("jump2");
+        opponentFallRight = opponentsAtlas.findRegion(opponentsPrefix + "jump2");
         opponentFallLeft = new TextureRegion(opponentFallRight);
         opponentFallLeft.flip(true, false);
-        opponentDeadRight = opponentsAtlas.findRegion("dead");
+        opponentDeadRight = opponentsAtlas.findRegion(opponentsPrefix + "dead");
         opponentDeadLeft = new TextureRegion((opponentDeadRight));
         opponentDeadLeft.flip(true, false);
     }
 
 
+    /**
+     * Centre la caméra sur le joueur local, sans sortir des limites du niveau
+     */
+    private void updateCamera() {
+        Player player = world.getPlayer();
+        player.getInterpolatedPosition(interpolationAlpha, drawPosition);
+        float x = drawPosition.x + Player.SIZE / 2;
+        float y = drawPosition.y + Player.SIZE / 2;
+        x = Math.max(camera_width / 2, Math.min(x, world.getLevel().getWidth() - camera_width / 2));
+        y = Math.max(camera_height / 2, Math.min(y, world.getLevel().getHeight() - camera_height / 2));
+        cam.position.set(x, y, 0);
+        cam.update();
+    }
+
     /**
      * Render les objets
      */
@@ -213,36 +284,100 @@ public class WorldRenderer {
         spriteBatch.begin();
         drawOnlinePlayers();
         drawPlayer();
-        spriteBatch.end();
-        if (debug) {
-            drawDebug();
-            drawCollisionBlocks();
-        }
+        end();
     }
 
     /**
-     * Render l'image de fond
+     * Render l'image de fond. Place aussi la caméra pour la frame courante : doit être appelée avant les autres
+     * méthodes de rendu.
      */
     public void renderBackground() {
-        spriteBatch.setProjectionMatrix(cam.combined);
-        spriteBatch.begin();
-        drawBlocks();
+        begin();
         spriteBatch.end();
+        lastDrawCalls += getBatchRenderCalls();
     }
 
     /**
-     * Render un block
-     * @param block le block à render
-     * @param pos la position du block
+     * Commence une passe de rendu : place la caméra, dessine le fond et ouvre le Batch. Les blocks et les
+     * personnages sont ensuite ajoutés au même Batch jusqu'à {@link #end()}.
+     * Les blocks partagent une même texture : pour limiter les changements de texture, ils doivent tous être dessinés
+     * avant {@link #drawPlayers()}.
      */
-    public void renderBlock(Block.Type block, Vector2 pos) {
+    public void begin() {
+        updateCamera();
+        drawBlocks();
+        lastDrawCalls = blockCache.renderCalls;
         spriteBatch.setProjectionMatrix(cam.combined);
         spriteBatch.begin();
-        drawBlock(block, pos);
+        drawSigns();
+    }
+
+    /**
+     * Ajoute un block à la passe de rendu en cours (block fantôme d'un adversaire ou curseur du joueur)
+     * @param block le type du block
+     * @param pos la position du block
+     */
+    public void drawBlock(Block.Type block, Vector2 pos) {
+        drawBlock(block, pos.x, pos.y);
+    }
+
+    /**
+     * Ajoute les personnages à la passe de rendu en cours, adversaires puis joueur local
+     */
+    public void drawPlayers() {
+        drawOnlinePlayers();
+        drawPlayer();
+    }
+
+    /**
+     * Termine la passe de rendu en cours
+     */
+    public void end() {
         spriteBatch.end();
+        lastDrawCalls += getBatchRenderCalls();
+        if (debug) {
+            if (debugRenderer == null) {
+                debugRenderer = new ShapeRenderer();
+            }
+            drawDebug();
+            drawCollisionBlocks();
+        }
+    }
+
+    /**
+     * @return le nombre d'appels de dessin envoyés au GPU par le renderer depuis le début de la frame courante
+     */
+    public int getLastDrawCalls() {
+        return lastDrawCalls;
+    }
+
+    // SpriteBatch compte ses appels depuis son dernier begin()
+    private int getBatchRenderCalls() {
+        return spriteBatch instanceof SpriteBatch ? ((SpriteBatch) spriteBatch).renderCalls : 0;
+    }
+
+    /**
+     * Libère les ressources graphiques du renderer
+     */
+    public void dispose() {
+        blockCache.dispose();
+        if (debugRenderer != null) {
+            debugRenderer.dispose();
+        }
+        if (unifiedAtlas) {
+            Assets.getInstance().release(Constants.GAME_ATLAS);
+        } else {
+            Assets.getInstance().release(Constants.PLAYER_1_ATLAS);
+            Assets.getInstance().release(Constants.BLOCKS_ATLAS);
+            Assets.getInstance().release(Constants.OPPONENTS_ATLAS);
+        }
     }
 
-    private void drawBlock(Block.Type block, Vector2 pos) {
+    private void drawBlock(Block.Type block, float x, float y) {
+        spriteBatch.draw(getBlockTexture(block), x, y, Block.SIZE, Block.SIZE);
+    }
+
+    private TextureRegion getBlockTexture(Block.Type block) {
         TextureRegion texture;
         switch (block){
             case BOX: texture = boxTexture; break;
@@ -254,42 +389,186 @@ public class WorldRenderer {
             case ANTIBLOCK: texture = bomb; break;
             default: texture = boxTexture; break;
         }
-        spriteBatch.draw(texture, pos.x, pos.y, Block.SIZE, Block.SIZE);
+        return texture;
     }
 
     // Scaling pixel -> level unit
 
     /**
-     * Echelonne un vecteur
-     * @param v le vecteur à échelonner
+     * Convertit une position à l'écran (en pixels, origine en bas à gauche) en position dans le niveau
+     * @param v le vecteur à convertir
      */
     public void scale(Vector2 v) {
-        v.x = v.x / ppuX;
-        v.y = v.y / ppuY;
+        v.x = v.x / ppuX + getViewLeft();
+        v.y = v.y / ppuY + getViewBottom();
     }
 
+    /**
+     * Convertit une position dans le niveau en position à l'écran (en pixels, origine en bas à gauche)
+     * @param v le vecteur à convertir
+     */
     public void unscale(Vector2 v) {
-        v.x = v.x * ppuX;
-        v.y = v.y * ppuY;
+        v.x = (v.x - getViewLeft()) * ppuX;
+        v.y = (v.y - getViewBottom()) * ppuY;
+    }
+
+    private float getViewLeft() {
+        return cam.position.x - camera_width / 2;
+    }
+
+    private float getViewBottom() {
+        return cam.position.y - camera_height / 2;
     }
 
 
     private void drawBlocks() {
+        // only the chunks inside the view are drawn, each one from its cached geometry
+        Level level = world.getLevel();
+        int x0 = Math.max(0, (int) Math.floor(getViewLeft())) / Level.CHUNK_SIZE;
+        int y0 = Math.max(0, (int) Math.floor(getViewBottom())) / Level.CHUNK_SIZE;
+        int x1 = (Math.min(level.getWidth(), (int) Math.ceil(getViewLeft() + camera_width)) - 1) / Level.CHUNK_SIZE;
+        int y1 = (Math.min(level.getHeight(), (int) Math.ceil(getViewBottom() + camera_height)) - 1) / Level.CHUNK_SIZE;
+
+        if (x0 != cachedX0 || y0 != cachedY0 || x1 != cachedX1 || y1 != cachedY1
+                || !refreshChunkCaches(x0, y0, x1, y1)) {
+            rebuildBlockCache(x0, y0, x1, y1);
+        }
+
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        blockCache.setProjectionMatrix(cam.combined);
+        blockCache.begin();
+        for (int cx = x0; cx <= x1; ++cx) {
+            for (int cy = y0; cy <= y1; ++cy) {
+                int id = chunkCacheIds[cy * level.getChunksX() + cx];
+                if (id >= 0) {
+                    blockCache.draw(id);
+                }
+            }
+        }
+        blockCache.end();
+    }
 
-        for(Block[] blockArray : World.currentWorld.getLevel().getBlocks()){
-            for(Block block : blockArray){
-                if(block != null)
-                    drawBlock(block.getType(), block.getPosition());
+    // Reconstruit entièrement le cache pour les chunks donnés
+    private void rebuildBlockCache(int x0, int y0, int x1, int y1) {
+        Level level = world.getLevel();
+        blockCache.clear();
+        blockCacheUsed = 0;
+        blockCacheAbandoned = 0;
+        lastCacheId = -1;
+        Arrays.fill(chunkCacheIds, -1);
+        for (int cx = x0; cx <= x1; ++cx) {
+            for (int cy = y0; cy <= y1; ++cy) {
+                int i = cy * level.getChunksX() + cx;
+                chunkCacheVersions[i] = level.getChunkVersion(cx, cy);
+                if (level.isChunkAllocated(cx, cy)) {
+                    appendChunkCache(cx, cy);
+                }
             }
         }
+        cachedX0 = x0;
+        cachedY0 = y0;
+        cachedX1 = x1;
+        cachedY1 = y1;
+    }
 
+    // Met à jour le cache des chunks modifiés, retourne false s'ils ne peuvent pas être mis à jour sans tout
+    // reconstruire
+    private boolean refreshChunkCaches(int x0, int y0, int x1, int y1) {
+        Level level = world.getLevel();
+        for (int cx = x0; cx <= x1; ++cx) {
+            for (int cy = y0; cy <= y1; ++cy) {
+                if (level.getChunkVersion(cx, cy) != chunkCacheVersions[cy * level.getChunksX() + cx]
+                        && !refreshChunkCache(cx, cy)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Met à jour le cache d'un seul chunk, retourne false s'il ne peut pas être mis à jour sans tout reconstruire
+    private boolean refreshChunkCache(int cx, int cy) {
+        Level level = world.getLevel();
+        int i = cy * level.getChunksX() + cx;
+        int id = chunkCacheIds[i];
+        int count = countChunkSprites(cx, cy);
+        if (id >= 0 && id == lastCacheId) {
+            // the last cache is recreated at the same place and can grow into the free space behind it
+            if (blockCacheUsed - chunkCacheCapacities[i] + count > blockCacheSize) {
+                return false;
+            }
+            blockCacheUsed += count - chunkCacheCapacities[i];
+            chunkCacheCapacities[i] = count;
+            blockCache.beginCache(id);
+            addChunkSprites(cx, cy);
+            blockCache.endCache();
+        } else if (id >= 0 && count <= chunkCacheCapacities[i]) {
+            // other caches can only be redefined with at most as many sprites as when they were created
+            blockCache.beginCache(id);
+            addChunkSprites(cx, cy);
+            blockCache.endCache();
+        } else if (count > 0) {
+            // the chunk grew: its old cache is abandoned until the next full rebuild, done early enough to keep the
+            // geometry uploaded after each change close to the live one
+            int abandoned = blockCacheAbandoned + (id >= 0 ? chunkCacheCapacities[i] : 0);
+            if (blockCacheUsed + count > blockCacheSize || 4 * abandoned > blockCacheUsed + count) {
+                return false;
+            }
+            blockCacheAbandoned = abandoned;
+            appendChunkCache(cx, cy);
+        }
+        chunkCacheVersions[i] = level.getChunkVersion(cx, cy);
+        return true;
+    }
+
+    // Crée un nouveau cache pour un chunk, à la suite des caches existants
+    private void appendChunkCache(int cx, int cy) {
+        int i = cy * world.getLevel().getChunksX() + cx;
+        blockCache.beginCache();
+        chunkCacheCapacities[i] = addChunkSprites(cx, cy);
+        chunkCacheIds[i] = lastCacheId = blockCache.endCache();
+        blockCacheUsed += chunkCacheCapacities[i];
+    }
+
+    private int addChunkSprites(int cx, int cy) {
+        Level level = world.getLevel();
+        int count = 0;
+        int xEnd = Math.min((cx + 1) * Level.CHUNK_SIZE, level.getWidth());
+        int yEnd = Math.min((cy + 1) * Level.CHUNK_SIZE, level.getHeight());
+        for (int x = cx * Level.CHUNK_SIZE; x < xEnd; ++x) {
+            for (int y = cy * Level.CHUNK_SIZE; y < yEnd; ++y) {
+                Block.Type type = level.getType(x, y);
+                if (type != null) {
+                    blockCache.add(getBlockTexture(type), x, y, Block.SIZE, Block.SIZE);
+                    ++count;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int countChunkSprites(int cx, int cy) {
+        Level level = world.getLevel();
+        int count = 0;
+        int xEnd = Math.min((cx + 1) * Level.CHUNK_SIZE, level.getWidth());
+        int yEnd = Math.min((cy + 1) * Level.CHUNK_SIZE, level.getHeight());
+        for (int x = cx * Level.CHUNK_SIZE; x < xEnd; ++x) {
+            for (int y = cy * Level.CHUNK_SIZE; y < yEnd; ++y) {
+                if (level.getTypeCode(x, y) != Level.EMPTY) {
+                    ++count;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void drawSigns() {
         spriteBatch.draw(spawnTexture, world.getLevel().getSpawnPosition().x, world.getLevel().getSpawnPosition().y, Block.SIZE, Block.SIZE);
 
         for(Vector2 finishPos : world.getLevel().getFinishPositions()){
             spriteBatch.draw(finishTexture, finishPos.x, finishPos.y, Block.SIZE, Block.SIZE);
         }
-
-
     }
 
     private void drawOnlinePlayers() {
@@ -326,22 +605,29 @@ public class WorldRenderer {
             }
         }
 
-        spriteBatch.draw(playerFrame, player.getPosition().x, player.getPosition().y, Player.SIZE, Player.SIZE);
+        player.getInterpolatedPosition(interpolationAlpha, drawPosition);
+        spriteBatch.draw(playerFrame, drawPosition.x, drawPosition.y, Player.SIZE, Player.SIZE);
     }
 
     private void drawDebug() {
         // render blocks
         debugRenderer.setProjectionMatrix(cam.combined);
         debugRenderer.begin(ShapeType.Line);
-        for (Block block : world.getDrawableBlocks((int) camera_width, (int) camera_height)) {
-            Rectangle rect = block.getBounds();
-            debugRenderer.setColor(new Color(1, 0, 0, 1));
-            debugRenderer.rect(rect.x, rect.y, rect.width, rect.height);
+        debugRenderer.setColor(Color.RED);
+        Level level = world.getLevel();
+        int xEnd = Math.min(level.getWidth(), (int) Math.ceil(getViewLeft() + camera_width));
+        int yEnd = Math.min(level.getHeight(), (int) Math.ceil(getViewBottom() + camera_height));
+        for (int x = Math.max(0, (int) getViewLeft()); x < xEnd; ++x) {
+            for (int y = Math.max(0, (int) getViewBottom()); y < yEnd; ++y) {
+                if (level.getTypeCode(x, y) != Level.EMPTY) {
+                    debugRenderer.rect(x, y, Block.SIZE, Block.SIZE);
+                }
+            }
         }
         // render Player
         Player player = world.getPlayer();
         Rectangle rect = player.getBounds();
-        debugRenderer.setColor(new Color(0, 1, 0, 1));
+        debugRenderer.setColor(Color.GREEN);
         debugRenderer.rect(rect.x, rect.y, rect.width, rect.height);
         debugRenderer.end();
     }
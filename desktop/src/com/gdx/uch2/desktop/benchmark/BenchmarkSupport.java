@@ -0,0 +1,175 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.entities.OnlinePlayerManager;
+import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.client.MessageSender;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Mise en place commune aux benchmarks sans fenêtre
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Remplace l'API OpenGL par une implémentation factice qui compte les appels
+     * @return le compteur d'appels installé
+     */
+    static CountingGL20 installCountingGL() {
+        CountingGL20 gl = new CountingGL20();
+        Gdx.gl = Gdx.gl20 = gl.createProxy();
+        // les shaders factices n'exposent aucun uniform
+        ShaderProgram.pedantic = false;
+        return gl;
+    }
+
+    /**
+     * Crée le joueur local (ID 0) et des adversaires, connectés à un serveur factice qui ignore les messages envoyés
+     * @param nbPlayers nombre total de joueurs
+     */
+    static void initPlayers(int nbPlayers) {
+        OnlinePlayerManager.getInstance().init(0, "local");
+        for (int i = 1; i < nbPlayers; ++i) {
+            OnlinePlayerManager.getInstance().initPlayer(i, "player" + i);
+        }
+        MessageSender.getInstance().setPlayerID(0);
+        MessageSender.getInstance().setContext(new PlayerContext(new Socket() {
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+
+            @Override
+            public OutputStream getOutputStream() {
+                return new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                    }
+                };
+            }
+        }));
+    }
+
+    /**
+     * Crée un niveau de la taille donnée, plus grand que ceux livrés avec le jeu : un sol, des plateformes régulières
+     * toutes les 6 lignes et le départ au milieu
+     * @param width largeur du niveau
+     * @param height hauteur du niveau
+     * @return le niveau créé
+     */
+    static Level syntheticLevel(int width, int height) {
+        Level level = new Level(width, height);
+        for (int x = 0; x < width; ++x) {
+            level.setType(x, 0, Block.Type.BLOCK);
+            for (int y = 6; y < height; y += 6) {
+                if ((x / 4 + y / 6) % 3 == 0) {
+                    level.setType(x, y, Block.Type.BLOCK);
+                }
+            }
+        }
+        level.setSpawnPosition(new Vector2(width / 2 + 0.5f, height / 2 + 1));
+        return level;
+    }
+
+    /**
+     * Crée l'image d'un niveau de la taille donnée : plateformes, pièges et zones protégées répartis régulièrement
+     * sur un fond blanc, départ en haut à gauche et arrivée en bas à droite
+     * @param width largeur du niveau
+     * @param height hauteur du niveau
+     * @return l'image créée, à libérer par l'appelant
+     */
+    static Pixmap syntheticLevelImage(int width, int height) {
+        Pixmap pixmap = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+        pixmap.setColor(Color.WHITE);
+        pixmap.fill();
+        for (int row = 8; row < height; row += 8) {
+            for (int col = (row * 7) % 40; col + 20 < width; col += 40) {
+                pixmap.setColor(row % 24 == 0 ? new Color(0x444444ff) : Color.BLACK);
+                pixmap.drawLine(col, row, col + 19, row);
+            }
+        }
+        pixmap.setColor(Color.MAGENTA);
+        pixmap.fillRectangle(0, height - 4, 4, 4);
+        pixmap.drawPixel(1, height - 3, Color.rgba8888(Color.GREEN));
+        pixmap.drawPixel(width - 2, 1, Color.rgba8888(Color.RED));
+        return pixmap;
+    }
+
+    /**
+     * Construit la représentation d'origine d'un niveau : une grille d'objets {@link Block}, avec une position et des
+     * bornes par case occupée
+     * @param level le niveau à représenter
+     * @return la grille, indexée par x puis y
+     */
+    static Block[][] blockGrid(Level level) {
+        Block[][] grid = new Block[level.getWidth()][level.getHeight()];
+        for (int x = 0; x < level.getWidth(); ++x) {
+            for (int y = 0; y < level.getHeight(); ++y) {
+                Block.Type type = level.getType(x, y);
+                if (type != null) {
+                    grid[x][y] = Block.create(type, new Vector2(x, y));
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Crée des objets indépendants dont la mémoire est mesurée
+     */
+    interface Factory {
+        Object create();
+    }
+
+    /**
+     * Mesure la mémoire retenue par un objet, moyennée sur plusieurs copies gardées en vie ensemble
+     * @param copies nombre de copies créées
+     * @param factory création d'une copie
+     * @return le nombre moyen d'octets retenus par copie
+     */
+    static long retainedBytesPerCopy(int copies, Factory factory) {
+        Object[] retained = new Object[copies];
+        long before = usedMemory();
+        for (int i = 0; i < copies; ++i) {
+            retained[i] = factory.create();
+        }
+        long bytes = usedMemory() - before;
+        // les copies restent référencées jusqu'ici, après la mesure
+        Arrays.fill(retained, null);
+        return bytes / copies;
+    }
+
+    /**
+     * @return la mémoire occupée par les objets encore référencés, après plusieurs collectes
+     */
+    static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; ++i) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
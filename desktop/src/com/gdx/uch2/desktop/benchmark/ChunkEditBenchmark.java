@@ -0,0 +1,157 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.entities.World;
+import com.gdx.uch2.util.Constants;
+import com.gdx.uch2.view.WorldRenderer;
+
+import java.util.Arrays;
+
+/**
+ * Benchmark sans fenêtre du cache des blocks du {@link WorldRenderer} pendant la modification du niveau. Des blocks
+ * sont posés dans la vue, un par frame, jusqu'à remplir les cases libres, puis retirés, comme pendant une phase de
+ * placement très chargée. Les niveaux livrés tiennent dans un ou deux chunks : un niveau synthétique de
+ * {@value #SYNTHETIC_WIDTH}x{@value #SYNTHETIC_HEIGHT}, dont la vue couvre plusieurs chunks, est mesuré en plus.
+ * Affiche, sans modification et avec une modification par frame, la durée CPU du rendu des blocks, les appels de
+ * dessin et les octets de sommets envoyés au GPU, seule mesure du travail GPU disponible sans fenêtre.
+ * Lancé par la tâche gradle {@code chunkEditBenchmark}, avec les arguments optionnels
+ * {@code --levels=1,3 --frames=2000}.
+ */
+public class ChunkEditBenchmark extends ApplicationAdapter {
+    private static final int WARMUP_FRAMES = 300;
+    private static final int SYNTHETIC_WIDTH = 256;
+    private static final int SYNTHETIC_HEIGHT = 128;
+
+    private final int[] levels;
+    private final int frames;
+    private CountingGL20 gl;
+
+    /**
+     * Constructeur
+     * @param levels numéros des niveaux à mesurer
+     * @param frames nombre de frames mesurées par niveau et par mode
+     */
+    public ChunkEditBenchmark(int[] levels, int frames) {
+        this.levels = levels;
+        this.frames = frames;
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --levels=... et --frames=..., tous optionnels
+     */
+    public static void main(String[] args) {
+        int[] levels = {1, 3};
+        int frames = 2000;
+        for (String arg : args) {
+            if (arg.startsWith("--levels=")) {
+                String[] parts = arg.substring("--levels=".length()).split(",");
+                levels = new int[parts.length];
+                for (int i = 0; i < parts.length; ++i) {
+                    levels[i] = Integer.parseInt(parts[i].trim());
+                }
+            } else if (arg.startsWith("--frames=")) {
+                frames = Integer.parseInt(arg.substring("--frames=".length()));
+            }
+        }
+        new HeadlessApplication(new ChunkEditBenchmark(levels, frames));
+    }
+
+    @Override
+    public void create() {
+        gl = BenchmarkSupport.installCountingGL();
+        BenchmarkSupport.initPlayers(1);
+        for (int level : levels) {
+            run("level=" + level, new World(level), false);
+            run("level=" + level, new World(level), true);
+        }
+        run("level=synthetic", new World(BenchmarkSupport.syntheticLevel(SYNTHETIC_WIDTH, SYNTHETIC_HEIGHT)), false);
+        run("level=synthetic", new World(BenchmarkSupport.syntheticLevel(SYNTHETIC_WIDTH, SYNTHETIC_HEIGHT)), true);
+        Gdx.app.exit();
+    }
+
+    private void run(String name, World world, boolean edit) {
+        world.stopMusic();
+        Level level = world.getLevel();
+        SpriteBatch batch = new SpriteBatch();
+        WorldRenderer renderer = new WorldRenderer(world, batch, false);
+        renderer.setSize(1200, 675);
+
+        IntArray cells = emptyCellsInView(world);
+        int next = 0;
+        boolean placing = true;
+
+        long[] times = new long[frames];
+        long drawCalls = 0;
+        long uploaded = 0;
+        for (int frame = -WARMUP_FRAMES; frame < frames; ++frame) {
+            if (edit && cells.size > 0) {
+                int x = cells.get(2 * next);
+                int y = cells.get(2 * next + 1);
+                level.setType(x, y, placing ? Block.Type.BOX : null);
+                if (++next == cells.size / 2) {
+                    next = 0;
+                    placing = !placing;
+                }
+            }
+
+            gl.reset();
+            long start = System.nanoTime();
+            renderer.renderBackground();
+            long elapsed = System.nanoTime() - start;
+            if (frame >= 0) {
+                times[frame] = elapsed;
+                drawCalls += gl.getDrawCalls();
+                uploaded += gl.getUploadedBytes();
+            }
+        }
+
+        double mean = 0;
+        for (long time : times) {
+            mean += time;
+        }
+        mean /= frames;
+        Arrays.sort(times);
+
+        System.out.println(name
+                + " size=" + level.getWidth() + "x" + level.getHeight()
+                + " mode=" + (edit ? "edit_every_frame" : "idle")
+                + " free_cells=" + cells.size / 2
+                + " mean_us=" + Math.round(mean / 1e3)
+                + " p50_us=" + Math.round(times[frames / 2] / 1e3)
+                + " p99_us=" + Math.round(times[(int) (frames * 0.99)] / 1e3)
+                + " draw_calls_per_frame=" + (float) drawCalls / frames
+                + " uploaded_bytes_per_frame=" + uploaded / frames);
+
+        renderer.dispose();
+        batch.dispose();
+    }
+
+    // Cases libres visibles depuis le point de départ, où le joueur reste pendant la mesure (x puis y)
+    private static IntArray emptyCellsInView(World world) {
+        Level level = world.getLevel();
+        Vector2 spawn = level.getSpawnPosition();
+        int halfWidth = (int) Math.min(level.getWidth(), Constants.MAX_VIEW_WIDTH) / 2 - 1;
+        int halfHeight = (int) Math.min(level.getHeight(), Constants.MAX_VIEW_HEIGHT) / 2 - 1;
+        int x0 = Math.max(0, (int) spawn.x - halfWidth);
+        int y0 = Math.max(0, (int) spawn.y - halfHeight);
+        int x1 = Math.min(level.getWidth(), (int) spawn.x + halfWidth);
+        int y1 = Math.min(level.getHeight(), (int) spawn.y + halfHeight);
+        IntArray cells = new IntArray();
+        for (int x = x0; x < x1; ++x) {
+            for (int y = y0; y < y1; ++y) {
+                if (level.getTypeCode(x, y) == Level.EMPTY && !level.isFinish(x, y)) {
+                    cells.add(x, y);
+                }
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,178 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Rectangle;
+import com.gdx.uch2.controller.LevelFile;
+import com.gdx.uch2.controller.LevelLoader;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.entities.Player;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Benchmark des requêtes de collision et de la mémoire des niveaux. Une requête teste toutes les cases couvertes par
+ * la hitbox du joueur à une position aléatoire du niveau, comme un balayage de la physique. Elle est mesurée sur la
+ * couche de collision de {@link Level} ({@link Level#isSolid(int, int)} sur des coordonnées entières), et sur une
+ * grille d'objets {@link Block} construite à partir du niveau, la représentation d'origine, où chaque case occupée
+ * est testée par {@link Block#isSolid()} et l'intersection de ses bornes. Les deux représentations doivent trouver
+ * les mêmes cases solides. Affiche les requêtes par seconde et les octets occupés par niveau dans chaque
+ * représentation. Les niveaux livrés tenant dans un ou deux chunks, un niveau synthétique de
+ * {@value #SYNTHETIC_WIDTH}x{@value #SYNTHETIC_HEIGHT} est mesuré en plus.
+ * Lancé par la tâche gradle {@code collisionBenchmark}, avec les arguments optionnels
+ * {@code --levels=1,2,3 --queries=1000000}.
+ */
+public class CollisionBenchmark extends ApplicationAdapter {
+    private static final int SYNTHETIC_WIDTH = 1024;
+    private static final int SYNTHETIC_HEIGHT = 512;
+    private static final int MEASURED_PASSES = 10;
+    private static final long MEMORY_CELLS = 4000000;
+
+    private final int[] levels;
+    private final int queries;
+
+    /**
+     * Constructeur
+     * @param levels numéros des niveaux à mesurer
+     * @param queries nombre de positions testées par passe
+     */
+    public CollisionBenchmark(int[] levels, int queries) {
+        this.levels = levels;
+        this.queries = queries;
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --levels=... et --queries=..., tous optionnels
+     */
+    public static void main(String[] args) {
+        int[] levels = {1, 2, 3};
+        int queries = 1000000;
+        for (String arg : args) {
+            if (arg.startsWith("--levels=")) {
+                String[] parts = arg.substring("--levels=".length()).split(",");
+                levels = new int[parts.length];
+                for (int i = 0; i < parts.length; ++i) {
+                    levels[i] = Integer.parseInt(parts[i].trim());
+                }
+            } else if (arg.startsWith("--queries=")) {
+                queries = Integer.parseInt(arg.substring("--queries=".length()));
+            }
+        }
+        new HeadlessApplication(new CollisionBenchmark(levels, queries));
+    }
+
+    @Override
+    public void create() {
+        for (int level : levels) {
+            run("level=" + level, LevelLoader.loadLevel(level));
+        }
+        run("level=synthetic", BenchmarkSupport.syntheticLevel(SYNTHETIC_WIDTH, SYNTHETIC_HEIGHT));
+        Gdx.app.exit();
+    }
+
+    private void run(String name, Level level) {
+        float[] positions = randomPositions(level);
+        Block[][] grid = BenchmarkSupport.blockGrid(level);
+
+        // premier passage pour la compilation JIT
+        long packedSolid = queryPacked(level, positions);
+        long objectSolid = queryObjects(grid, positions);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_PASSES; ++i) {
+            packedSolid = queryPacked(level, positions);
+        }
+        long packedTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_PASSES; ++i) {
+            objectSolid = queryObjects(grid, positions);
+        }
+        long objectTime = System.nanoTime() - start;
+
+        final byte[] data = LevelFile.write(level);
+        long levelBytes = BenchmarkSupport.retainedBytesPerCopy(copies(level), new BenchmarkSupport.Factory() {
+            @Override
+            public Object create() {
+                return LevelFile.read(ByteBuffer.wrap(data));
+            }
+        });
+        final Level source = level;
+        long gridBytes = BenchmarkSupport.retainedBytesPerCopy(copies(level), new BenchmarkSupport.Factory() {
+            @Override
+            public Object create() {
+                return BenchmarkSupport.blockGrid(source);
+            }
+        });
+
+        long total = (long) MEASURED_PASSES * queries;
+        System.out.println(name
+                + " size=" + level.getWidth() + "x" + level.getHeight()
+                + " packed_queries_per_s=" + Math.round(total / (packedTime / 1e9))
+                + " objects_queries_per_s=" + Math.round(total / (objectTime / 1e9))
+                + " same_results=" + (packedSolid == objectSolid ? "yes" : "no")
+                + " packed_bytes_per_level=" + levelBytes
+                + " objects_bytes_per_level=" + gridBytes
+                + " packed_bytes_per_cell=" + (float) levelBytes / level.getWidth() / level.getHeight()
+                + " objects_bytes_per_cell=" + (float) gridBytes / level.getWidth() / level.getHeight());
+    }
+
+    // Positions du coin inférieur gauche de la hitbox, x puis y, entièrement dans le niveau
+    private float[] randomPositions(Level level) {
+        RandomXS128 random = new RandomXS128(1);
+        float[] positions = new float[2 * queries];
+        for (int i = 0; i < queries; ++i) {
+            positions[2 * i] = random.nextFloat() * (level.getWidth() - Player.HITBOX_WIDTH);
+            positions[2 * i + 1] = random.nextFloat() * (level.getHeight() - Player.HITBOX_HEIGHT);
+        }
+        return positions;
+    }
+
+    // Nombre de cases solides touchées, testées sur la couche de collision
+    private static long queryPacked(Level level, float[] positions) {
+        long solid = 0;
+        for (int i = 0; i < positions.length; i += 2) {
+            float x = positions[i];
+            float y = positions[i + 1];
+            int endX = (int) Math.ceil(x + Player.HITBOX_WIDTH) - 1;
+            int endY = (int) Math.ceil(y + Player.HITBOX_HEIGHT) - 1;
+            for (int col = (int) x; col <= endX; ++col) {
+                for (int row = (int) y; row <= endY; ++row) {
+                    if (level.isSolid(col, row)) {
+                        ++solid;
+                    }
+                }
+            }
+        }
+        return solid;
+    }
+
+    // Nombre de cases solides touchées, testées sur les objets Block
+    private static long queryObjects(Block[][] grid, float[] positions) {
+        long solid = 0;
+        Rectangle hitbox = new Rectangle(0, 0, Player.HITBOX_WIDTH, Player.HITBOX_HEIGHT);
+        for (int i = 0; i < positions.length; i += 2) {
+            hitbox.setPosition(positions[i], positions[i + 1]);
+            int endX = (int) Math.ceil(hitbox.x + hitbox.width) - 1;
+            int endY = (int) Math.ceil(hitbox.y + hitbox.height) - 1;
+            for (int col = (int) hitbox.x; col <= endX; ++col) {
+                for (int row = (int) hitbox.y; row <= endY; ++row) {
+                    Block block = grid[col][row];
+                    if (block != null && block.isSolid() && block.getBounds().overlaps(hitbox)) {
+                        ++solid;
+                    }
+                }
+            }
+        }
+        return solid;
+    }
+
+    // Nombre de copies mesurées, assez pour couvrir MEMORY_CELLS cases
+    private static int copies(Level level) {
+        return (int) Math.max(4, MEMORY_CELLS / ((long) level.getWidth() * level.getHeight()));
+    }
+}
@@ -0,0 +1,287 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.gdx.uch2.controller.LevelCache;
+import com.gdx.uch2.entities.LevelTemplate;
+import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.messages.MessageType;
+import com.gdx.uch2.networking.server.CentralGameManager;
+import com.gdx.uch2.networking.server.GameServer;
+import com.gdx.uch2.networking.server.PlayerHandler;
+import com.gdx.uch2.util.Threads;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Benchmark des threads de connexion du serveur, classiques ou virtuels (voir {@link Threads}). Un serveur écoute
+ * sur la boucle locale et démarre un {@link PlayerHandler} réel par connexion, comme {@link GameServer}. Des bots,
+ * tous gérés par un seul thread non bloquant pour que leur coût ne dépende pas du mode mesuré, envoient un Ping
+ * chacun, en rafale, et attendent le Pong renvoyé par leur PlayerHandler. Affiche :
+ * <ul>
+ *     <li>la durée de connexion de tous les bots, démarrage des threads compris</li>
+ *     <li>la latence de traitement d'un Ping (médiane, 99e centile et maximum) et la durée d'une rafale</li>
+ *     <li>la mémoire par connexion : tas après GC, mémoire résidente du processus (Linux) et threads de la JVM</li>
+ * </ul>
+ * Les bots et leurs tampons sont dans le même processus et comptent dans la mémoire, identiquement dans les deux
+ * modes. Chaque mesure s'exécute dans une JVM séparée, la propriété {@link Threads#VIRTUAL_THREADS_PROPERTY} étant lue
+ * une seule fois ; le mode virtuel demande de lancer le benchmark sur une JVM 21 ou ultérieure, sinon il se rabat sur
+ * des threads classiques, ce qu'indique la colonne {@code virtual}.
+ * Lancé par la tâche gradle {@code connectionBenchmark}, avec les arguments optionnels
+ * {@code --modes=platform,virtual --bots=100,1000,5000 --rounds=20}, et la JVM choisie par la propriété
+ * {@code -PbenchmarkJava=<chemin de java>}.
+ */
+public class ConnectionBenchmark extends ApplicationAdapter {
+    private static final int PORT = 42200;
+    private static final int LEVEL = 1;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int PING_SIZE = 16;
+
+    private final int nbBots;
+    private final int rounds;
+
+    private ServerSocket serverSocket;
+    private Selector selector;
+    private SocketChannel[] bots;
+    private ByteBuffer[] buffers;
+
+    /**
+     * Constructeur
+     * @param nbBots nombre de bots connectés
+     * @param rounds nombre de rafales de Ping mesurées
+     */
+    public ConnectionBenchmark(int nbBots, int rounds) {
+        this.nbBots = nbBots;
+        this.rounds = rounds;
+    }
+
+    /**
+     * Point d'entrée. Sans l'argument --mode, lance une JVM par mode et par nombre de bots.
+     * @param args --modes=..., --bots=..., --rounds=... et --mode=..., tous optionnels
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String[] modes = {"platform", "virtual"};
+        int[] counts = {100, 1000, 5000};
+        int rounds = 20;
+        String mode = null;
+        for (String arg : args) {
+            if (arg.startsWith("--modes=")) {
+                modes = arg.substring("--modes=".length()).split(",");
+            } else if (arg.startsWith("--bots=")) {
+                String[] parts = arg.substring("--bots=".length()).split(",");
+                counts = new int[parts.length];
+                for (int i = 0; i < parts.length; ++i) {
+                    counts[i] = Integer.parseInt(parts[i].trim());
+                }
+            } else if (arg.startsWith("--rounds=")) {
+                rounds = Integer.parseInt(arg.substring("--rounds=".length()));
+            } else if (arg.startsWith("--mode=")) {
+                mode = arg.substring("--mode=".length());
+            }
+        }
+
+        if (mode != null) {
+            // doit précéder le premier usage de Threads, qui lit la propriété une seule fois
+            System.setProperty(Threads.VIRTUAL_THREADS_PROPERTY, String.valueOf(mode.equals("virtual")));
+            new HeadlessApplication(new ConnectionBenchmark(counts[0], rounds));
+            return;
+        }
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (String m : modes) {
+            for (int count : counts) {
+                Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        ConnectionBenchmark.class.getName(), "--mode=" + m, "--bots=" + count, "--rounds=" + rounds)
+                        .inheritIO().start();
+                process.waitFor();
+            }
+        }
+    }
+
+    @Override
+    public void create() {
+        try {
+            LevelTemplate template = LevelCache.getInstance().getTemplate(LEVEL);
+            // dimensionne la table des joueurs, que chaque PlayerHandler vide à la déconnexion de son client
+            new GameServer(PORT, template, nbBots, 1);
+            CentralGameManager manager = new CentralGameManager(template, template.instantiate(), 1);
+
+            long heapBefore = usedHeap();
+            long rssBefore = residentMemory();
+            int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+            long start = System.nanoTime();
+            CountDownLatch accepted = startServer(manager);
+            connectBots();
+            accepted.await();
+            long connectTime = System.nanoTime() - start;
+
+            for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+                pingAll(null, 0);
+            }
+            long[] latencies = new long[rounds * nbBots];
+            long burstTime = 0;
+            for (int i = 0; i < rounds; ++i) {
+                burstTime += pingAll(latencies, i * nbBots);
+            }
+            Arrays.sort(latencies);
+
+            long heap = usedHeap() - heapBefore;
+            long rss = residentMemory() - rssBefore;
+            int threads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+
+            System.out.println("mode=" + (Boolean.getBoolean(Threads.VIRTUAL_THREADS_PROPERTY) ? "virtual" : "platform")
+                    + " virtual=" + (Threads.isVirtual() ? "yes" : "no")
+                    + " bots=" + nbBots
+                    + " connect_ms=" + Math.round(connectTime / 1e6)
+                    + " ping_p50_us=" + Math.round(latencies[latencies.length / 2] / 1e3)
+                    + " ping_p99_us=" + Math.round(latencies[(int) (latencies.length * 0.99)] / 1e3)
+                    + " ping_max_us=" + Math.round(latencies[latencies.length - 1] / 1e3)
+                    + " burst_ms=" + Math.round(burstTime / 1e6 / rounds)
+                    + " heap_bytes_per_connection=" + heap / nbBots
+                    + " rss_bytes_per_connection=" + (rssBefore < 0 ? "n/a" : String.valueOf(rss / nbBots))
+                    + " jvm_threads_per_connection=" + (float) threads / nbBots);
+
+            closeBots();
+        } catch (IOException | InterruptedException e) {
+            System.out.println("SRV: " + e);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    // Accepte les connexions des bots et démarre un PlayerHandler pour chacune, comme GameServer
+    private CountDownLatch startServer(final CentralGameManager manager) throws IOException {
+        serverSocket = new ServerSocket(PORT, nbBots, InetAddress.getLoopbackAddress());
+        final CountDownLatch accepted = new CountDownLatch(nbBots);
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int id = 0; id < nbBots; ++id) {
+                        Socket socket = serverSocket.accept();
+                        PlayerContext ctx = new PlayerContext(id, socket);
+                        Threads.start(new PlayerHandler(manager, ctx), "player-handler-" + id);
+                        accepted.countDown();
+                    }
+                    serverSocket.close();
+                } catch (IOException e) {
+                    System.out.println("SRV: " + e);
+                }
+            }
+        }, "benchmark-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return accepted;
+    }
+
+    private void connectBots() throws IOException {
+        selector = Selector.open();
+        bots = new SocketChannel[nbBots];
+        buffers = new ByteBuffer[nbBots];
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), PORT);
+        for (int i = 0; i < nbBots; ++i) {
+            bots[i] = SocketChannel.open(address);
+            bots[i].socket().setTcpNoDelay(true);
+            bots[i].configureBlocking(false);
+            bots[i].register(selector, SelectionKey.OP_READ, i);
+            buffers[i] = ByteBuffer.allocate(PING_SIZE);
+        }
+    }
+
+    // Envoie un Ping par bot et attend tous les Pong, range les latences à partir de offset, retourne la durée totale
+    private long pingAll(long[] latencies, int offset) throws IOException {
+        long start = System.nanoTime();
+        ByteBuffer ping = ByteBuffer.allocate(PING_SIZE);
+        for (int i = 0; i < nbBots; ++i) {
+            ping.clear();
+            ping.putInt(MessageType.Ping.ordinal()).putInt(i).putLong(System.nanoTime()).flip();
+            while (ping.hasRemaining()) {
+                bots[i].write(ping);
+            }
+        }
+
+        int received = 0;
+        while (received < nbBots) {
+            selector.select();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                int bot = (Integer) key.attachment();
+                ByteBuffer buffer = buffers[bot];
+                if (bots[bot].read(buffer) < 0) {
+                    throw new IOException("connexion du bot " + bot + " fermée");
+                }
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    if (buffer.getInt() != MessageType.Pong.ordinal() || buffer.getInt() != bot) {
+                        throw new IOException("réponse inattendue pour le bot " + bot);
+                    }
+                    long latency = System.nanoTime() - buffer.getLong();
+                    buffer.clear();
+                    if (latencies != null) {
+                        latencies[offset + bot] = latency;
+                    }
+                    ++received;
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void closeBots() throws IOException {
+        ByteBuffer close = ByteBuffer.allocate(4);
+        for (SocketChannel bot : bots) {
+            close.clear();
+            close.putInt(MessageType.CloseConnection.ordinal()).flip();
+            while (close.hasRemaining()) {
+                bot.write(close);
+            }
+            bot.close();
+        }
+        selector.close();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Mémoire résidente du processus en octets, lue dans /proc, -1 hors de Linux
+    private static long residentMemory() {
+        File status = new File("/proc/self/status");
+        if (!status.exists()) {
+            return -1;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(status))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim()) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+        return -1;
+    }
+}
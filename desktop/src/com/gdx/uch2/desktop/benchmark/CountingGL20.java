@@ -0,0 +1,216 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.graphics.GL20;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Implémentation factice de GL20 pour les benchmarks sans fenêtre : aucun appel n'atteint un GPU, mais les
+ * changements de texture, les appels de dessin et les octets envoyés dans les buffers sont comptés. La taille des
+ * textures et des buffers encore alloués est aussi suivie, comme estimation de la mémoire GPU occupée.
+ */
+public class CountingGL20 implements InvocationHandler {
+    private int textureBinds;
+    private int drawCalls;
+    private long uploadedBytes;
+    private long textureUploadedBytes;
+
+    // objets GL vivants et leur taille en octets, par nom
+    private final Map<Integer, Long> textures = new HashMap<>();
+    private final Map<Integer, Long> buffers = new HashMap<>();
+    private final Map<Integer, Integer> boundBuffers = new HashMap<>();
+    private int boundTexture;
+    private int nextName = 1;
+
+    /**
+     * @return une instance de GL20 comptant ses appels dans ce compteur
+     */
+    public GL20 createProxy() {
+        return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] {GL20.class}, this);
+    }
+
+    /**
+     * Remet les compteurs à zéro
+     */
+    public void reset() {
+        textureBinds = 0;
+        drawCalls = 0;
+        uploadedBytes = 0;
+        textureUploadedBytes = 0;
+    }
+
+    /**
+     * @return le nombre d'appels à glBindTexture depuis le dernier reset
+     */
+    public int getTextureBinds() {
+        return textureBinds;
+    }
+
+    /**
+     * @return le nombre d'appels à glDrawArrays et glDrawElements depuis le dernier reset
+     */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * @return le nombre d'octets envoyés par glBufferData et glBufferSubData depuis le dernier reset, c'est-à-dire les
+     * données de sommets transférées vers le GPU
+     */
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    /**
+     * @return le nombre d'octets de pixels envoyés par glTexImage2D et glTexSubImage2D depuis le dernier reset
+     */
+    public long getTextureUploadedBytes() {
+        return textureUploadedBytes;
+    }
+
+    /**
+     * @return le nombre de textures créées et pas encore supprimées
+     */
+    public int getLiveTextures() {
+        return textures.size();
+    }
+
+    /**
+     * @return la taille totale des textures et des buffers créés et pas encore supprimés
+     */
+    public long getLiveBytes() {
+        long bytes = 0;
+        for (long size : textures.values()) {
+            bytes += size;
+        }
+        for (long size : buffers.values()) {
+            bytes += size;
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        switch (name) {
+            case "glBindTexture":
+                ++textureBinds;
+                boundTexture = (Integer) args[1];
+                return null;
+            case "glGenTexture":
+                textures.put(nextName, 0L);
+                return nextName++;
+            case "glGenTextures":
+                for (int i = 0; i < (Integer) args[0]; ++i) {
+                    textures.put(nextName, 0L);
+                    ((IntBuffer) args[1]).put(i, nextName++);
+                }
+                return null;
+            case "glDeleteTexture":
+                textures.remove(args[0]);
+                return null;
+            case "glDeleteTextures":
+                for (int i = 0; i < (Integer) args[0]; ++i) {
+                    textures.remove(((IntBuffer) args[1]).get(i));
+                }
+                return null;
+            case "glTexImage2D": {
+                // target, level, internalformat, width, height, border, format, type, pixels
+                long size = (long) (Integer) args[3] * (Integer) args[4]
+                        * bytesPerPixel((Integer) args[6], (Integer) args[7]);
+                textureUploadedBytes += size;
+                if ((Integer) args[1] == 0 && textures.containsKey(boundTexture)) {
+                    textures.put(boundTexture, size);
+                }
+                return null;
+            }
+            case "glTexSubImage2D":
+                // target, level, xoffset, yoffset, width, height, format, type, pixels
+                textureUploadedBytes += (long) (Integer) args[4] * (Integer) args[5]
+                        * bytesPerPixel((Integer) args[6], (Integer) args[7]);
+                return null;
+            case "glGenBuffer":
+                buffers.put(nextName, 0L);
+                return nextName++;
+            case "glGenBuffers":
+                for (int i = 0; i < (Integer) args[0]; ++i) {
+                    buffers.put(nextName, 0L);
+                    ((IntBuffer) args[1]).put(i, nextName++);
+                }
+                return null;
+            case "glDeleteBuffer":
+                buffers.remove(args[0]);
+                return null;
+            case "glDeleteBuffers":
+                for (int i = 0; i < (Integer) args[0]; ++i) {
+                    buffers.remove(((IntBuffer) args[1]).get(i));
+                }
+                return null;
+            case "glBindBuffer":
+                boundBuffers.put((Integer) args[0], (Integer) args[1]);
+                return null;
+            case "glDrawArrays":
+            case "glDrawElements":
+                ++drawCalls;
+                return null;
+            case "glBufferData": {
+                uploadedBytes += (Integer) args[1];
+                Integer buffer = boundBuffers.get(args[0]);
+                if (buffer != null && buffers.containsKey(buffer)) {
+                    buffers.put(buffer, (long) (Integer) args[1]);
+                }
+                return null;
+            }
+            case "glBufferSubData":
+                uploadedBytes += (Integer) args[2];
+                return null;
+            case "glGetError":
+                return GL20.GL_NO_ERROR;
+            case "glGetShaderiv":
+            case "glGetProgramiv":
+                // shaders compile and link, and expose no active attribute or uniform to enumerate
+                int pname = (Integer) args[1];
+                boolean ok = pname == GL20.GL_COMPILE_STATUS || pname == GL20.GL_LINK_STATUS;
+                ((IntBuffer) args[2]).put(0, ok ? 1 : 0);
+                return null;
+            default:
+                break;
+        }
+
+        Class<?> type = method.getReturnType();
+        if (type == int.class) {
+            // object names (textures, buffers, shaders) must not be 0
+            return 1;
+        } else if (type == boolean.class) {
+            return false;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == String.class) {
+            return "";
+        }
+        return null;
+    }
+
+    // Taille d'un pixel selon le format et le type passés à glTexImage2D
+    private static int bytesPerPixel(int format, int type) {
+        if (type == GL20.GL_UNSIGNED_SHORT_5_6_5 || type == GL20.GL_UNSIGNED_SHORT_4_4_4_4
+                || type == GL20.GL_UNSIGNED_SHORT_5_5_5_1) {
+            return 2;
+        }
+        switch (format) {
+            case GL20.GL_RGBA:
+                return 4;
+            case GL20.GL_RGB:
+                return 3;
+            case GL20.GL_LUMINANCE_ALPHA:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+}
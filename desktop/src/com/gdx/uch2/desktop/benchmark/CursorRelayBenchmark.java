@@ -0,0 +1,202 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.networking.messages.MessageType;
+import com.gdx.uch2.networking.metrics.NetworkMetrics;
+import com.gdx.uch2.networking.server.GameServer;
+import com.gdx.uch2.util.Constants;
+import com.gdx.uch2.util.Threads;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+
+/**
+ * Benchmark du trafic du serveur pendant la phase de placement. Un serveur réel est lancé sur la boucle locale avec
+ * des bots qui déplacent leur block d'une case à chaque frame, comme une souris en mouvement continu, sans jamais le
+ * poser. Les bots envoient leurs positions au plus une fois par intervalle, seule la dernière étant envoyée, comme le
+ * client, ou à chaque changement de case avec un intervalle de 0. Affiche les messages par seconde envoyés et reçus
+ * par le serveur, mesurés par les {@link NetworkMetrics}.
+ * Lancé par la tâche gradle {@code cursorRelayBenchmark} depuis le dossier des assets, avec les arguments optionnels
+ * {@code --players=16 --interval=125 --seconds=5}.
+ */
+public class CursorRelayBenchmark extends ApplicationAdapter {
+    private static final int PORT = 42000;
+    private static final int LEVEL = 1;
+    private static final int FRAME_MILLIS = 16;
+    private static final int WARMUP_MILLIS = 2000;
+
+    private final int nbPlayers;
+    private final int interval;
+    private final int seconds;
+    private volatile boolean running = true;
+
+    /**
+     * Constructeur
+     * @param nbPlayers nombre de bots connectés
+     * @param interval intervalle minimal en millisecondes entre deux envois de position d'un bot, 0 pour envoyer
+     *                 chaque changement de case
+     * @param seconds durée de la mesure en secondes
+     */
+    public CursorRelayBenchmark(int nbPlayers, int interval, int seconds) {
+        this.nbPlayers = nbPlayers;
+        this.interval = interval;
+        this.seconds = seconds;
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --players=..., --interval=... et --seconds=..., tous optionnels
+     */
+    public static void main(String[] args) {
+        int nbPlayers = 16;
+        int interval = Constants.BLOCK_POSITION_INTERVAL;
+        int seconds = 5;
+        for (String arg : args) {
+            if (arg.startsWith("--players=")) {
+                nbPlayers = Integer.parseInt(arg.substring("--players=".length()));
+            } else if (arg.startsWith("--interval=")) {
+                interval = Integer.parseInt(arg.substring("--interval=".length()));
+            } else if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            }
+        }
+        new HeadlessApplication(new CursorRelayBenchmark(nbPlayers, interval, seconds));
+    }
+
+    @Override
+    public void create() {
+        NetworkMetrics metrics = NetworkMetrics.getInstance();
+        metrics.setEnabled(true);
+        Threads.start(new GameServer(PORT, LEVEL, nbPlayers, 1), "game-server");
+        sleep(200);
+
+        try {
+            Bot[] bots = new Bot[nbPlayers];
+            for (int i = 0; i < nbPlayers; ++i) {
+                bots[i] = new Bot(i);
+                Threads.start(bots[i], "bot-" + i);
+                // l'identifiant d'un joueur est son ordre de connexion
+                sleep(20);
+            }
+
+            sleep(WARMUP_MILLIS);
+            metrics.reset();
+            long start = System.nanoTime();
+            sleep(seconds * 1000L);
+            float elapsed = (System.nanoTime() - start) / 1e9f;
+
+            long out = metrics.getMessagesOut();
+            long in = metrics.getMessagesIn();
+            String dump = metrics.dump();
+            long cursorsIn = count(dump, "uch2_messages_in", MessageType.BlockPosition);
+            long cursorsOut = count(dump, "uch2_messages_out", MessageType.BlockPositions);
+
+            System.out.println("players=" + nbPlayers
+                    + " interval_ms=" + interval
+                    + " server_msgs_out_per_s=" + Math.round(out / elapsed)
+                    + " server_msgs_in_per_s=" + Math.round(in / elapsed)
+                    + " cursor_msgs_in_per_s=" + Math.round(cursorsIn / elapsed)
+                    + " cursor_msgs_out_per_s=" + Math.round(cursorsOut / elapsed)
+                    + " bytes_out_per_s=" + Math.round(metrics.getBytesOut() / elapsed));
+        } catch (IOException e) {
+            System.out.println("CLI: " + e.getMessage());
+        }
+
+        running = false;
+        GameServer.closeConnection();
+        Gdx.app.exit();
+    }
+
+    // Lit la valeur d'un compteur par type de message dans le texte des métriques
+    private static long count(String dump, String name, MessageType type) {
+        String prefix = name + "{type=\"" + type + "\"} ";
+        for (String line : dump.split("\n")) {
+            if (line.startsWith(prefix)) {
+                return Long.parseLong(line.substring(prefix.length()).trim());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Joueur simulé, qui parle directement le protocole du jeu et ignore tout ce qu'il reçoit
+     */
+    private class Bot implements Runnable {
+        private final int id;
+        private final Socket socket;
+        private final DataOutputStream out;
+
+        Bot(int id) throws IOException {
+            this.id = id;
+            socket = new Socket("localhost", PORT);
+            socket.setTcpNoDelay(true);
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeUTF("bot" + id);
+            out.flush();
+        }
+
+        @Override
+        public void run() {
+            Threads.start(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            }, "bot-reader-" + id);
+
+            try {
+                // le GameStart est envoyé une fois tous les bots connectés
+                sleep(nbPlayers * 20 + 500);
+                out.writeInt(MessageType.AckGameStart.ordinal());
+                out.flush();
+
+                long lastSent = 0;
+                int cell = 0;
+                while (running) {
+                    // la souris passe sur une nouvelle case à chaque frame
+                    ++cell;
+                    long now = System.currentTimeMillis();
+                    if (now - lastSent >= interval) {
+                        out.writeInt(MessageType.BlockPosition.ordinal());
+                        out.writeInt(id);
+                        out.writeInt(Block.Type.BLOCK.ordinal());
+                        out.writeFloat(cell % 40);
+                        out.writeFloat(5 + id % 10);
+                        out.flush();
+                        lastSent = now;
+                    }
+                    sleep(FRAME_MILLIS);
+                }
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("CLI: " + e.getMessage());
+                }
+            }
+        }
+
+        private void drain() {
+            byte[] buffer = new byte[8192];
+            try {
+                InputStream in = socket.getInputStream();
+                while (in.read(buffer) >= 0) {
+                    // ignoré
+                }
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.gdx.uch2.entities.Player;
+import com.gdx.uch2.entities.World;
+import com.gdx.uch2.networking.GamePhase;
+import com.gdx.uch2.networking.client.GameClientHandler;
+import com.gdx.uch2.ui.GameScreen;
+
+/**
+ * Vérification de l'indépendance de la simulation vis-à-vis de la fréquence d'affichage. Le GameScreen est exécuté
+ * sans fenêtre à {@value #BASE_FPS}, 60 et 240 frames par seconde avec la même séquence de touches, dont les
+ * événements tombent sur des frames communes à toutes les fréquences. La position et la vitesse du joueur local sont
+ * relevées toutes les 1/{@value #BASE_FPS} s et doivent être identiques au bit près. Affiche aussi l'étendue des
+ * positions atteintes à chaque fréquence, pour s'assurer que le joueur s'est bien déplacé.
+ * Lancé par la tâche gradle {@code fixedStepCheck}, avec les arguments optionnels {@code --level=3 --seconds=20},
+ * termine avec le code 1 si une trajectoire diffère.
+ */
+public class FixedStepCheck extends ApplicationAdapter {
+    private static final int BASE_FPS = 30;
+    private static final int[] FPS = {BASE_FPS, 60, 240};
+
+    private final int level;
+    private final int seconds;
+
+    /**
+     * Constructeur
+     * @param level numéro du niveau simulé
+     * @param seconds durée simulée pour chaque fréquence
+     */
+    public FixedStepCheck(int level, int seconds) {
+        this.level = level;
+        this.seconds = seconds;
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --level=... et --seconds=..., tous optionnels
+     */
+    public static void main(String[] args) {
+        int level = 3;
+        int seconds = 20;
+        for (String arg : args) {
+            if (arg.startsWith("--level=")) {
+                level = Integer.parseInt(arg.substring("--level=".length()));
+            } else if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            }
+        }
+        new HeadlessApplication(new FixedStepCheck(level, seconds));
+    }
+
+    @Override
+    public void create() {
+        BenchmarkSupport.installCountingGL();
+        BenchmarkSupport.initPlayers(1);
+
+        int[][] trajectories = new int[FPS.length][];
+        boolean ok = true;
+        for (int i = 0; i < FPS.length; ++i) {
+            trajectories[i] = run(FPS[i]);
+            int divergence = firstDifference(trajectories[0], trajectories[i]);
+            ok &= divergence < 0;
+            System.out.println("level=" + level
+                    + " fps=" + FPS[i]
+                    + " samples=" + trajectories[i].length / 4
+                    + " x_range=" + range(trajectories[i], 0)
+                    + " y_range=" + range(trajectories[i], 1)
+                    + " identical_to_" + BASE_FPS + "fps=" + (divergence < 0
+                    ? "yes" : "no (t=" + (float) divergence / BASE_FPS + "s)"));
+        }
+        System.out.println(ok ? "OK" : "ECHEC");
+        System.exit(ok ? 0 : 1);
+    }
+
+    // Joue la séquence à la fréquence donnée, retourne x, y, vx et vy (bits) toutes les 1/BASE_FPS s
+    private int[] run(int fps) {
+        GameClientHandler.currentPhase = GamePhase.Moving;
+        World world = new World(level);
+        World.currentWorld = world;
+        world.stopMusic();
+        GameScreen screen = new GameScreen(world);
+        screen.show();
+        screen.resize(1200, 675);
+        Player player = world.getPlayer();
+
+        int framesPerSample = fps / BASE_FPS;
+        int[] trajectory = new int[seconds * BASE_FPS * 4];
+        for (int sample = 0; sample < seconds * BASE_FPS; ++sample) {
+            script(screen, sample);
+            for (int frame = 0; frame < framesPerSample; ++frame) {
+                screen.render(1f / fps);
+            }
+            trajectory[4 * sample] = Float.floatToIntBits(player.getPosition().x);
+            trajectory[4 * sample + 1] = Float.floatToIntBits(player.getPosition().y);
+            trajectory[4 * sample + 2] = Float.floatToIntBits(player.getVelocity().x);
+            trajectory[4 * sample + 3] = Float.floatToIntBits(player.getVelocity().y);
+        }
+        screen.dispose();
+        return trajectory;
+    }
+
+    // Touches appuyées au début d'un relevé : course à droite puis à gauche, sauts courts et longs
+    private static void script(GameScreen screen, int sample) {
+        int phase = sample % 120;
+        if (phase == 0) {
+            screen.keyUp(Keys.A);
+            screen.keyDown(Keys.D);
+        } else if (phase == 60) {
+            screen.keyUp(Keys.D);
+            screen.keyDown(Keys.A);
+        }
+        int jump = sample % 40;
+        if (jump == 0) {
+            screen.keyDown(Keys.W);
+        } else if (jump == (sample % 80 < 40 ? 2 : 12)) {
+            screen.keyUp(Keys.W);
+        }
+    }
+
+    // Numéro du premier relevé qui diffère, -1 si les trajectoires sont identiques
+    private static int firstDifference(int[] expected, int[] actual) {
+        for (int i = 0; i < expected.length; ++i) {
+            if (expected[i] != actual[i]) {
+                return i / 4;
+            }
+        }
+        return -1;
+    }
+
+    // Etendue d'une coordonnée (0 pour x, 1 pour y) sur toute la trajectoire
+    private static float range(int[] trajectory, int axis) {
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (int i = axis; i < trajectory.length; i += 4) {
+            float value = Float.intBitsToFloat(trajectory[i]);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return max - min;
+    }
+}
@@ -0,0 +1,207 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.entities.OnlinePlayerManager;
+import com.gdx.uch2.entities.Player;
+import com.gdx.uch2.entities.World;
+import com.gdx.uch2.networking.messages.GameState;
+import com.gdx.uch2.networking.messages.PlayerState;
+import com.gdx.uch2.ui.GameScreen;
+import com.gdx.uch2.util.Constants;
+import com.gdx.uch2.util.FrameProfiler;
+
+/**
+ * Benchmark sans fenêtre de la boucle de jeu du client. Le GameScreen est exécuté tel quel sur le backend headless,
+ * avec un OpenGL factice, un flux de GameStates pré-enregistré pour les adversaires et une séquence de touches
+ * scriptée pour le joueur local. Les niveaux livrés tenant entièrement dans la vue, un niveau synthétique bien plus
+ * grand est mesuré en plus, pour comparer le coût d'une frame sur un petit et sur un grand niveau. Affiche, pour
+ * chaque niveau et nombre de joueurs, les frames par seconde, les durées de frame et les allocations par frame, sous
+ * forme de lignes clé=valeur faciles à suivre en intégration continue.
+ * Lancé par la tâche gradle {@code gameLoopBenchmark}, avec les arguments optionnels
+ * {@code --players=2,8,16 --levels=1,3 --large=2000x1000 --frames=3000}, {@code --large=none} pour ne pas mesurer le
+ * niveau synthétique.
+ */
+public class GameLoopBenchmark extends ApplicationAdapter {
+    private static final float FRAME_TIME = 1 / 60f;
+    private static final float TICK_TIME = Constants.TICK_DURATION / 1000f;
+    private static final int WARMUP_FRAMES = 600;
+    private static final int STREAM_TICKS = 256;
+
+    private final int[] playerCounts;
+    private final int[] levels;
+    private final int largeWidth;
+    private final int largeHeight;
+    private final int frames;
+    private CountingGL20 gl;
+
+    /**
+     * Constructeur
+     * @param playerCounts nombres de joueurs à mesurer
+     * @param levels numéros des niveaux à mesurer
+     * @param largeWidth largeur du niveau synthétique, 0 pour ne pas le mesurer
+     * @param largeHeight hauteur du niveau synthétique
+     * @param frames nombre de frames mesurées par configuration
+     */
+    public GameLoopBenchmark(int[] playerCounts, int[] levels, int largeWidth, int largeHeight, int frames) {
+        this.playerCounts = playerCounts;
+        this.levels = levels;
+        this.largeWidth = largeWidth;
+        this.largeHeight = largeHeight;
+        this.frames = frames;
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --players=..., --levels=..., --large=... et --frames=..., tous optionnels
+     */
+    public static void main(String[] args) {
+        int[] playerCounts = {2, 8, 16};
+        int[] levels = {1, 3};
+        int largeWidth = 2000;
+        int largeHeight = 1000;
+        int frames = 3000;
+        for (String arg : args) {
+            if (arg.startsWith("--players=")) {
+                playerCounts = parseList(arg.substring("--players=".length()));
+            } else if (arg.startsWith("--levels=")) {
+                levels = parseList(arg.substring("--levels=".length()));
+            } else if (arg.startsWith("--large=")) {
+                String size = arg.substring("--large=".length());
+                if (size.equals("none")) {
+                    largeWidth = 0;
+                } else {
+                    largeWidth = Integer.parseInt(size.substring(0, size.indexOf('x')));
+                    largeHeight = Integer.parseInt(size.substring(size.indexOf('x') + 1));
+                }
+            } else if (arg.startsWith("--frames=")) {
+                frames = Integer.parseInt(arg.substring("--frames=".length()));
+            }
+        }
+        new HeadlessApplication(new GameLoopBenchmark(playerCounts, levels, largeWidth, largeHeight, frames));
+    }
+
+    @Override
+    public void create() {
+        gl = BenchmarkSupport.installCountingGL();
+        for (int level : levels) {
+            for (int nbPlayers : playerCounts) {
+                BenchmarkSupport.initPlayers(nbPlayers);
+                run(Integer.toString(level), new World(level), nbPlayers);
+            }
+        }
+        if (largeWidth > 0) {
+            for (int nbPlayers : playerCounts) {
+                BenchmarkSupport.initPlayers(nbPlayers);
+                run("synthetic", new World(BenchmarkSupport.syntheticLevel(largeWidth, largeHeight)), nbPlayers);
+            }
+        }
+        Gdx.app.exit();
+    }
+
+    private void run(String level, World world, int nbPlayers) {
+        World.currentWorld = world;
+        world.stopMusic();
+        GameState[] stream = recordStream(world, nbPlayers);
+        // comme en jeu, un premier GameState est reçu avant l'affichage de l'écran
+        OnlinePlayerManager.getInstance().update(stream[0]);
+
+        GameScreen screen = new GameScreen(world);
+        screen.show();
+        screen.resize(1200, 675);
+
+        FrameProfiler profiler = FrameProfiler.getInstance();
+        int frame = 0;
+        for (; frame < WARMUP_FRAMES; ++frame) {
+            runFrame(screen, stream, frame);
+        }
+
+        profiler.setEnabled(true);
+        gl.reset();
+        long start = System.nanoTime();
+        for (int end = frame + frames; frame < end; ++frame) {
+            runFrame(screen, stream, frame);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = profiler.pollAllocatedBytes();
+        long gcCount = profiler.pollGcCount();
+
+        System.out.println("level=" + level
+                + " size=" + world.getLevel().getWidth() + "x" + world.getLevel().getHeight()
+                + " players=" + nbPlayers
+                + " fps=" + Math.round(frames / (elapsed / 1e9))
+                + " p50_ms=" + round(profiler.getFramePercentile(50))
+                + " p99_ms=" + round(profiler.getFramePercentile(99))
+                + " bytes_per_frame=" + (allocated < 0 ? "n/a" : Long.toString(allocated / frames))
+                + " gc=" + gcCount
+                + " draw_calls_per_frame=" + (float) gl.getDrawCalls() / frames
+                + " texture_binds_per_frame=" + (float) gl.getTextureBinds() / frames);
+
+        profiler.setEnabled(false);
+        screen.dispose();
+    }
+
+    // Une frame du jeu : GameStates arrivés pendant la frame, touches du script, puis rendu de l'écran
+    private void runFrame(GameScreen screen, GameState[] stream, int frame) {
+        int tickBefore = (int) (frame * FRAME_TIME / TICK_TIME);
+        int tickAfter = (int) ((frame + 1) * FRAME_TIME / TICK_TIME);
+        for (int tick = tickBefore + 1; tick <= tickAfter; ++tick) {
+            OnlinePlayerManager.getInstance().update(stream[tick % stream.length]);
+        }
+
+        // le joueur court à droite puis à gauche, en sautant régulièrement
+        int phase = frame % 240;
+        if (phase == 0) {
+            screen.keyUp(Keys.A);
+            screen.keyDown(Keys.D);
+        } else if (phase == 120) {
+            screen.keyUp(Keys.D);
+            screen.keyDown(Keys.A);
+        }
+        if (frame % 45 == 0) {
+            screen.keyDown(Keys.W);
+        } else if (frame % 45 == 10) {
+            screen.keyUp(Keys.W);
+        }
+
+        screen.render(FRAME_TIME);
+    }
+
+    // Flux de GameStates des adversaires, qui se déplacent en boucle autour du point de départ
+    private static GameState[] recordStream(World world, int nbPlayers) {
+        Vector2 spawn = world.getLevel().getSpawnPosition();
+        float maxX = world.getLevel().getWidth() - Player.SIZE;
+        float maxY = world.getLevel().getHeight() - Player.SIZE;
+        GameState[] stream = new GameState[STREAM_TICKS];
+        for (int tick = 0; tick < STREAM_TICKS; ++tick) {
+            PlayerState[] states = new PlayerState[nbPlayers - 1];
+            for (int i = 1; i < nbPlayers; ++i) {
+                float angle = tick * 0.2f + i;
+                float x = MathUtils.clamp(spawn.x + i % 8 + 3 * MathUtils.sin(angle), 0, maxX);
+                float y = MathUtils.clamp(spawn.y + i / 8 + Math.abs(MathUtils.cos(angle)), 0, maxY);
+                Player.State state = tick % 8 < 6 ? Player.State.WALKING : Player.State.JUMPING;
+                states[i - 1] = new PlayerState(i, state, x, y, tick * Constants.TICK_DURATION * 1000000L);
+            }
+            stream[tick] = new GameState(states);
+        }
+        return stream;
+    }
+
+    // Arrondi au millième de milliseconde
+    private static float round(float ms) {
+        return Math.round(ms * 1000) / 1000f;
+    }
+
+    private static int[] parseList(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; ++i) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+}
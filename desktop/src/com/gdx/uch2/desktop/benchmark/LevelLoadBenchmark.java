@@ -0,0 +1,216 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.gdx.uch2.controller.LevelFile;
+import com.gdx.uch2.controller.LevelLoader;
+import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.entities.LevelTemplate;
+import com.gdx.uch2.util.Assets;
+import com.gdx.uch2.util.FrameProfiler;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Benchmark du chargement des niveaux : décodage de l'image puis parcours de ses pixels, parcours seul, et lecture du
+ * format compilé. Mesure le temps et les allocations pour chaque niveau livré et pour un niveau synthétique, de
+ * 4096x1024 cases par défaut.
+ * Pour le niveau synthétique, mesure aussi le chargement par chunks : création du modèle, qui garde ses chunks sous
+ * forme compacte, puis d'une partie qui ne décode que les chunks autour du joueur ({@link Level#streamChunks}), et
+ * affiche les octets de tas retenus par le niveau entièrement décodé, par le modèle et par la partie. Un joueur
+ * traverse ensuite le niveau de gauche à droite : le nombre de chunks décodés doit rester borné.
+ * Lancé par la tâche gradle {@code levelLoadBenchmark} depuis le dossier des assets, avec les arguments optionnels
+ * {@code --width=4096 --height=1024}.
+ */
+public class LevelLoadBenchmark extends ApplicationAdapter {
+    private static final int ITERATIONS = 200;
+    private static final int SYNTHETIC_ITERATIONS = 5;
+    private static final int MEMORY_COPIES = 4;
+    private static final int STREAM_RADIUS = 1;
+
+    private final int width;
+    private final int height;
+
+    /**
+     * Constructeur
+     * @param width largeur du niveau synthétique
+     * @param height hauteur du niveau synthétique
+     */
+    public LevelLoadBenchmark(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --width=... et --height=..., tous optionnels
+     */
+    public static void main(String[] args) {
+        int width = 4096;
+        int height = 1024;
+        for (String arg : args) {
+            if (arg.startsWith("--width=")) {
+                width = Integer.parseInt(arg.substring("--width=".length()));
+            } else if (arg.startsWith("--height=")) {
+                height = Integer.parseInt(arg.substring("--height=".length()));
+            }
+        }
+        new HeadlessApplication(new LevelLoadBenchmark(width, height));
+    }
+
+    /**
+     * Une façon de charger un niveau
+     */
+    private interface Loader {
+        Level load();
+    }
+
+    @Override
+    public void create() {
+        for (int number : Assets.LEVELS) {
+            final FileHandle png = Gdx.files.internal(Assets.levelPath(number));
+            final Pixmap pixmap = new Pixmap(png);
+            final byte[] compiled = LevelFile.write(LevelLoader.fromPixmap(pixmap));
+            String name = png.name() + " " + pixmap.getWidth() + "x" + pixmap.getHeight();
+            if (!Arrays.equals(compiled, LevelFile.write(LevelFile.read(ByteBuffer.wrap(compiled))))) {
+                System.out.println(name + " : le niveau compilé diffère de l'image");
+            }
+
+            measure(name, "png decode + scan", ITERATIONS, new Loader() {
+                @Override
+                public Level load() {
+                    Pixmap decoded = new Pixmap(png);
+                    Level level = LevelLoader.fromPixmap(decoded);
+                    decoded.dispose();
+                    return level;
+                }
+            });
+            measure(name, "pixel scan", ITERATIONS, new Loader() {
+                @Override
+                public Level load() {
+                    return LevelLoader.fromPixmap(pixmap);
+                }
+            });
+            measure(name, "compiled (" + compiled.length + " B)", ITERATIONS, new Loader() {
+                @Override
+                public Level load() {
+                    return LevelFile.read(ByteBuffer.wrap(compiled));
+                }
+            });
+            pixmap.dispose();
+        }
+
+        final Pixmap synthetic = BenchmarkSupport.syntheticLevelImage(width, height);
+        final byte[] compiled = LevelFile.write(LevelLoader.fromPixmap(synthetic));
+        String name = "synthetic " + width + "x" + height;
+        measure(name, "pixel scan", SYNTHETIC_ITERATIONS, new Loader() {
+            @Override
+            public Level load() {
+                return LevelLoader.fromPixmap(synthetic);
+            }
+        });
+        measure(name, "compiled (" + compiled.length + " B)", SYNTHETIC_ITERATIONS, new Loader() {
+            @Override
+            public Level load() {
+                return LevelFile.read(ByteBuffer.wrap(compiled));
+            }
+        });
+        synthetic.dispose();
+        measureStreaming(name, compiled);
+
+        Gdx.app.exit();
+    }
+
+    // Chargement par chunks du niveau synthétique, comparé au niveau entièrement décodé
+    private void measureStreaming(String name, final byte[] compiled) {
+        measure(name, "template (compiled + unload)", SYNTHETIC_ITERATIONS, new Loader() {
+            @Override
+            public Level load() {
+                return newTemplate(compiled).instantiate();
+            }
+        });
+        final LevelTemplate template = newTemplate(compiled);
+        measure(name, "instance + spawn chunks", ITERATIONS, new Loader() {
+            @Override
+            public Level load() {
+                return streamedInstance(template);
+            }
+        });
+
+        long decodedBytes = BenchmarkSupport.retainedBytesPerCopy(MEMORY_COPIES, new BenchmarkSupport.Factory() {
+            @Override
+            public Object create() {
+                return LevelFile.read(ByteBuffer.wrap(compiled));
+            }
+        });
+        long templateBytes = BenchmarkSupport.retainedBytesPerCopy(MEMORY_COPIES, new BenchmarkSupport.Factory() {
+            @Override
+            public Object create() {
+                return newTemplate(compiled);
+            }
+        });
+        long instanceBytes = BenchmarkSupport.retainedBytesPerCopy(MEMORY_COPIES, new BenchmarkSupport.Factory() {
+            @Override
+            public Object create() {
+                return streamedInstance(template);
+            }
+        });
+        Level spawn = streamedInstance(template);
+        System.out.println(name + " | heap"
+                + " | decoded " + decodedBytes / 1024 + " KB"
+                + " | template " + templateBytes / 1024 + " KB"
+                + " | streamed instance " + instanceBytes / 1024 + " KB"
+                + " | chunks loaded " + spawn.getLoadedChunks() + "/" + spawn.getAllocatedChunks());
+
+        // un joueur traverse le niveau à mi-hauteur, le niveau étant rechargé à chaque changement de chunk
+        Level level = template.instantiate();
+        int[] center = {0, level.getChunksY() / 2};
+        int maxLoaded = 0;
+        long start = System.nanoTime();
+        for (int cx = 0; cx < level.getChunksX(); ++cx) {
+            center[0] = cx;
+            level.streamChunks(center, 1, STREAM_RADIUS);
+            maxLoaded = Math.max(maxLoaded, level.getLoadedChunks());
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println(name + " | traversal"
+                + " | " + Math.round(elapsed / 1e3 / level.getChunksX()) + " us per chunk change"
+                + " | max chunks loaded " + maxLoaded
+                + " | chunk loads " + level.getChunkLoads());
+    }
+
+    private static LevelTemplate newTemplate(byte[] compiled) {
+        return new LevelTemplate(0, compiled, LevelFile.read(ByteBuffer.wrap(compiled)));
+    }
+
+    // Partie ne décodant que les chunks autour du point de départ
+    private static Level streamedInstance(LevelTemplate template) {
+        Level level = template.instantiate();
+        int[] center = {(int) level.getSpawnPosition().x / Level.CHUNK_SIZE,
+                (int) level.getSpawnPosition().y / Level.CHUNK_SIZE};
+        level.streamChunks(center, 1, STREAM_RADIUS);
+        return level;
+    }
+
+    private static void measure(String level, String method, int iterations, Loader loader) {
+        // premier passage pour la compilation JIT
+        for (int i = 0; i < iterations; ++i) {
+            loader.load();
+        }
+        FrameProfiler profiler = FrameProfiler.getInstance();
+        profiler.pollAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            loader.load();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = profiler.pollAllocatedBytes();
+        System.out.println(level + " | " + method
+                + " | " + Math.round(elapsed / 1e3 / iterations) + " us"
+                + " | " + (allocated < 0 ? "n/a" : (allocated / iterations / 1024) + " KB") + " alloués");
+    }
+}
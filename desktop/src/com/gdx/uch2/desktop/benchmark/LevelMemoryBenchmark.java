@@ -0,0 +1,152 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.controller.LevelCache;
+import com.gdx.uch2.controller.LevelFile;
+import com.gdx.uch2.controller.LevelLoader;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.entities.LevelTemplate;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Benchmark de la mémoire occupée par les niveaux d'un serveur hébergeant de nombreuses parties sur le même niveau.
+ * Compare un niveau analysé pour chaque partie à des copies d'un modèle partagé ({@link LevelCache}), après quelques
+ * placements de blocks dans chaque partie. Les niveaux livrés tenant dans un ou deux chunks, un niveau synthétique
+ * de {@value #SYNTHETIC_WIDTH}x{@value #SYNTHETIC_HEIGHT} cases est aussi mesuré.
+ * Lancé par la tâche gradle {@code levelMemoryBenchmark} depuis le dossier des assets, avec les arguments optionnels
+ * {@code --rooms=500 --levels=1,3 --edits=40}.
+ */
+public class LevelMemoryBenchmark extends ApplicationAdapter {
+    private static final int SYNTHETIC_WIDTH = 1024;
+    private static final int SYNTHETIC_HEIGHT = 256;
+
+    private final int rooms;
+    private final int[] levels;
+    private final int edits;
+
+    /**
+     * Constructeur
+     * @param rooms nombre de parties simultanées
+     * @param levels numéros des niveaux à mesurer
+     * @param edits nombre de blocks placés dans chaque partie
+     */
+    public LevelMemoryBenchmark(int rooms, int[] levels, int edits) {
+        this.rooms = rooms;
+        this.levels = levels;
+        this.edits = edits;
+    }
+
+    /**
+     * Une façon d'obtenir le niveau d'une partie
+     */
+    private interface Loader {
+        Level load();
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --rooms=..., --levels=... et --edits=..., tous optionnels
+     */
+    public static void main(String[] args) {
+        int rooms = 500;
+        int[] levels = {1, 3};
+        int edits = 40;
+        for (String arg : args) {
+            if (arg.startsWith("--rooms=")) {
+                rooms = Integer.parseInt(arg.substring("--rooms=".length()));
+            } else if (arg.startsWith("--levels=")) {
+                String[] parts = arg.substring("--levels=".length()).split(",");
+                levels = new int[parts.length];
+                for (int i = 0; i < parts.length; ++i) {
+                    levels[i] = Integer.parseInt(parts[i].trim());
+                }
+            } else if (arg.startsWith("--edits=")) {
+                edits = Integer.parseInt(arg.substring("--edits=".length()));
+            }
+        }
+        new HeadlessApplication(new LevelMemoryBenchmark(rooms, levels, edits));
+    }
+
+    @Override
+    public void create() {
+        for (final int number : levels) {
+            measure("level-" + number, new Loader() {
+                @Override
+                public Level load() {
+                    return LevelLoader.loadLevel(number);
+                }
+            }, LevelCache.getInstance().getTemplate(number));
+        }
+
+        final byte[] synthetic = LevelFile.write(createSyntheticLevel());
+        measure("synthetic", new Loader() {
+            @Override
+            public Level load() {
+                return LevelFile.read(ByteBuffer.wrap(synthetic));
+            }
+        }, new LevelTemplate(0, synthetic, LevelFile.read(ByteBuffer.wrap(synthetic))));
+        Gdx.app.exit();
+    }
+
+    private void measure(String name, Loader parser, LevelTemplate template) {
+        long before = BenchmarkSupport.usedMemory();
+        Level[] parsed = new Level[rooms];
+        for (int i = 0; i < rooms; ++i) {
+            parsed[i] = parser.load();
+            edit(parsed[i], i);
+        }
+        report(name, "parse per room", BenchmarkSupport.usedMemory() - before, parsed);
+        parsed = null;
+
+        before = BenchmarkSupport.usedMemory();
+        Level[] copies = new Level[rooms];
+        for (int i = 0; i < rooms; ++i) {
+            copies[i] = template.instantiate();
+            edit(copies[i], i);
+        }
+        report(name, "shared template", BenchmarkSupport.usedMemory() - before, copies);
+    }
+
+    // Placements aléatoires, propres à chaque partie mais reproductibles
+    private void edit(Level level, int room) {
+        RandomXS128 random = new RandomXS128(room + 1);
+        for (int i = 0; i < edits; ++i) {
+            level.setType(random.nextInt(level.getWidth()), random.nextInt(level.getHeight()), Block.Type.BOX);
+        }
+    }
+
+    private void report(String name, String method, long bytes, Level[] levels) {
+        long owned = 0;
+        for (Level level : levels) {
+            owned += level.getOwnedChunks();
+        }
+        System.out.println("level=" + name
+                + " size=" + levels[0].getWidth() + "x" + levels[0].getHeight()
+                + " rooms=" + rooms
+                + " edits=" + edits
+                + " method=" + method
+                + " retained_kb=" + bytes / 1024
+                + " kb_per_room=" + Math.round(bytes / 1024f / rooms * 10) / 10f
+                + " owned_chunks_per_room=" + (float) owned / rooms);
+    }
+
+    // Plateformes régulières sur toute la largeur
+    private static Level createSyntheticLevel() {
+        Level level = new Level(SYNTHETIC_WIDTH, SYNTHETIC_HEIGHT);
+        for (int y = 0; y < SYNTHETIC_HEIGHT; y += 6) {
+            for (int x = (y * 7) % 30; x + 12 < SYNTHETIC_WIDTH; x += 30) {
+                for (int i = 0; i < 12; ++i) {
+                    level.setType(x + i, y, y % 18 == 0 ? Block.Type.LETHAL : Block.Type.BLOCK);
+                }
+            }
+        }
+        level.setSpawnPosition(new Vector2(1, 1));
+        return level;
+    }
+}
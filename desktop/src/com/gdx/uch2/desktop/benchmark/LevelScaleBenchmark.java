@@ -0,0 +1,133 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.gdx.uch2.controller.LevelFile;
+import com.gdx.uch2.controller.LevelLoader;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Benchmark de la mémoire et du chargement des niveaux selon leur taille, des niveaux livrés jusqu'à 2000x2000 cases.
+ * Pour chaque taille, un niveau synthétique (plateformes, pièges et zones protégées réguliers) est chargé depuis son
+ * image et depuis le format compilé. Affiche la durée moyenne de chaque chargement et les octets de tas retenus par
+ * case, pour le {@link Level} et, en comparaison, pour une grille d'objets {@link Block} équivalente, la
+ * représentation d'origine avec un block, un Vector2 et un Rectangle par case occupée.
+ * Lancé par la tâche gradle {@code levelScaleBenchmark}, avec l'argument optionnel
+ * {@code --sizes=50x30,200x120,500x300,1000x1000,2000x2000}.
+ */
+public class LevelScaleBenchmark extends ApplicationAdapter {
+    private static final long LOADED_CELLS = 20000000;
+    private static final long MEMORY_CELLS = 4000000;
+
+    private final int[][] sizes;
+
+    /**
+     * Constructeur
+     * @param sizes largeur et hauteur de chaque niveau mesuré
+     */
+    public LevelScaleBenchmark(int[][] sizes) {
+        this.sizes = sizes;
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --sizes=..., optionnel
+     */
+    public static void main(String[] args) {
+        String sizes = "50x30,200x120,500x300,1000x1000,2000x2000";
+        for (String arg : args) {
+            if (arg.startsWith("--sizes=")) {
+                sizes = arg.substring("--sizes=".length());
+            }
+        }
+        String[] parts = sizes.split(",");
+        int[][] parsed = new int[parts.length][];
+        for (int i = 0; i < parts.length; ++i) {
+            String[] size = parts[i].trim().split("x");
+            parsed[i] = new int[]{Integer.parseInt(size[0]), Integer.parseInt(size[1])};
+        }
+        new HeadlessApplication(new LevelScaleBenchmark(parsed));
+    }
+
+    @Override
+    public void create() {
+        for (int[] size : sizes) {
+            run(size[0], size[1]);
+        }
+        Gdx.app.exit();
+    }
+
+    private void run(int width, int height) {
+        final Pixmap image = BenchmarkSupport.syntheticLevelImage(width, height);
+        final Level level = LevelLoader.fromPixmap(image);
+        final byte[] compiled = LevelFile.write(level);
+        long cells = (long) width * height;
+
+        int iterations = (int) Math.max(3, Math.min(200, LOADED_CELLS / cells));
+        long scanTime = loadTime(iterations, new BenchmarkSupport.Factory() {
+            @Override
+            public Object create() {
+                return LevelLoader.fromPixmap(image);
+            }
+        });
+        long compiledTime = loadTime(iterations, new BenchmarkSupport.Factory() {
+            @Override
+            public Object create() {
+                return LevelFile.read(ByteBuffer.wrap(compiled));
+            }
+        });
+        image.dispose();
+
+        int copies = (int) Math.max(1, Math.min(100, MEMORY_CELLS / cells));
+        long levelBytes = BenchmarkSupport.retainedBytesPerCopy(copies, new BenchmarkSupport.Factory() {
+            @Override
+            public Object create() {
+                return LevelFile.read(ByteBuffer.wrap(compiled));
+            }
+        });
+        long gridBytes = BenchmarkSupport.retainedBytesPerCopy(copies, new BenchmarkSupport.Factory() {
+            @Override
+            public Object create() {
+                return BenchmarkSupport.blockGrid(level);
+            }
+        });
+
+        System.out.println("size=" + width + "x" + height
+                + " occupied_cells=" + occupiedCells(level)
+                + " allocated_chunks=" + level.getAllocatedChunks() + "/" + level.getChunksX() * level.getChunksY()
+                + " image_scan_ms=" + scanTime / 1e6f
+                + " compiled_read_ms=" + compiledTime / 1e6f
+                + " compiled_bytes=" + compiled.length
+                + " level_bytes_per_cell=" + (float) levelBytes / cells
+                + " block_objects_bytes_per_cell=" + (float) gridBytes / cells);
+    }
+
+    // Durée moyenne d'un chargement, après un premier passage pour la compilation JIT
+    private static long loadTime(int iterations, BenchmarkSupport.Factory loader) {
+        for (int i = 0; i < iterations; ++i) {
+            loader.create();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            loader.create();
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private static int occupiedCells(Level level) {
+        int occupied = 0;
+        for (int x = 0; x < level.getWidth(); ++x) {
+            for (int y = 0; y < level.getHeight(); ++y) {
+                if (level.getTypeCode(x, y) != Level.EMPTY) {
+                    ++occupied;
+                }
+            }
+        }
+        return occupied;
+    }
+}
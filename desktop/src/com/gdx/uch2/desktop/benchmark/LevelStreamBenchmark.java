@@ -0,0 +1,144 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.controller.LevelCache;
+import com.gdx.uch2.controller.LevelFile;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.entities.LevelTemplate;
+import com.gdx.uch2.networking.client.GameClient;
+import com.gdx.uch2.networking.client.GameClientHandler;
+import com.gdx.uch2.networking.server.GameServer;
+import com.gdx.uch2.util.Constants;
+import com.gdx.uch2.util.Threads;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Benchmark du temps entre la réception du GameStart et le moment où le client est prêt à jouer, selon l'endroit où
+ * le client trouve le niveau annoncé : en mémoire, dans le cache local, parmi les niveaux livrés, ou téléchargé depuis
+ * le serveur. Un serveur et un client réels sont lancés sur la boucle locale pour chaque mesure.
+ * Lancé par la tâche gradle {@code levelStreamBenchmark} depuis le dossier des assets.
+ */
+public class LevelStreamBenchmark extends ApplicationAdapter {
+    private static final int BASE_PORT = 41000;
+    private static final int RUNS = 5;
+    private static final int SHIPPED_LEVEL = 3;
+    private static final int SYNTHETIC_WIDTH = 1024;
+    private static final int SYNTHETIC_HEIGHT = 256;
+
+    private int port = BASE_PORT;
+
+    /**
+     * Point d'entrée
+     * @param args non utilisés
+     */
+    public static void main(String[] args) {
+        new HeadlessApplication(new LevelStreamBenchmark());
+    }
+
+    /**
+     * Préparation du cache avant une mesure
+     */
+    private enum Cache {
+        MEMORY, DISK, SHIPPED, NONE
+    }
+
+    @Override
+    public void create() {
+        LevelTemplate shipped = LevelCache.getInstance().getTemplate(SHIPPED_LEVEL);
+        measure("level-" + SHIPPED_LEVEL, shipped, Cache.MEMORY);
+        measure("level-" + SHIPPED_LEVEL, shipped, Cache.SHIPPED);
+
+        byte[] data = LevelFile.write(createSyntheticLevel());
+        LevelTemplate synthetic = new LevelTemplate(0, data, LevelFile.read(ByteBuffer.wrap(data)));
+        String name = "synthetic " + SYNTHETIC_WIDTH + "x" + SYNTHETIC_HEIGHT;
+        measure(name, synthetic, Cache.NONE);
+        measure(name, synthetic, Cache.DISK);
+        measure(name, synthetic, Cache.MEMORY);
+
+        byte[] compressed = LevelFile.compress(data);
+        System.out.println("level=" + name + " encoded_bytes=" + data.length + " compressed_bytes=" + compressed.length
+                + " chunks=" + (compressed.length + Constants.LEVEL_CHUNK_SIZE - 1) / Constants.LEVEL_CHUNK_SIZE);
+        Gdx.files.local(LevelCache.cachePath(synthetic.getHash())).delete();
+        Gdx.app.exit();
+    }
+
+    private void measure(String name, LevelTemplate template, Cache cache) {
+        long[] times = new long[RUNS];
+        boolean downloaded = false;
+        for (int i = 0; i < RUNS; ++i) {
+            switch (cache) {
+                case NONE:
+                    Gdx.files.local(LevelCache.cachePath(template.getHash())).delete();
+                    LevelCache.getInstance().clear();
+                    break;
+                case DISK:
+                case SHIPPED:
+                    LevelCache.getInstance().clear();
+                    break;
+                case MEMORY:
+                    break;
+            }
+            times[i] = join(template);
+            downloaded = GameClient.isLevelDownloaded();
+        }
+        Arrays.sort(times);
+        System.out.println("level=" + name
+                + " cache=" + cache.name().toLowerCase()
+                + " downloaded=" + downloaded
+                + " join_to_ready_ms_median=" + times[RUNS / 2]
+                + " max=" + times[RUNS - 1]);
+    }
+
+    // Lance un serveur d'un joueur et s'y connecte, puis attend que le client ait chargé le niveau. Comme en jeu, le
+    // monde est créé par ce thread, qui tient lieu de thread de rendu.
+    private long join(LevelTemplate template) {
+        int current = port++;
+        Threads.start(new GameServer(current, template, 1, 1), "game-server");
+        sleep(100);
+        new GameClient("localhost", current, "bench");
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (GameClient.getLevelReadyMillis() < 0 && System.currentTimeMillis() < deadline) {
+            GameClientHandler.applyPendingUpdates();
+            sleep(1);
+        }
+        long ready = GameClient.getLevelReadyMillis();
+        GameServer.closeConnection();
+        sleep(200);
+        return ready;
+    }
+
+    // Plateformes régulières sur toute la largeur, et blocks isolés pour que le niveau compressé tienne en plusieurs
+    // morceaux
+    private static Level createSyntheticLevel() {
+        Level level = new Level(SYNTHETIC_WIDTH, SYNTHETIC_HEIGHT);
+        RandomXS128 random = new RandomXS128(1);
+        for (int i = 0; i < SYNTHETIC_WIDTH * SYNTHETIC_HEIGHT / 20; ++i) {
+            level.setType(random.nextInt(SYNTHETIC_WIDTH), random.nextInt(SYNTHETIC_HEIGHT), Block.Type.BOX);
+        }
+        for (int y = 0; y < SYNTHETIC_HEIGHT; y += 6) {
+            for (int x = (y * 7) % 30; x + 12 < SYNTHETIC_WIDTH; x += 30) {
+                for (int i = 0; i < 12; ++i) {
+                    level.setType(x + i, y, y % 18 == 0 ? Block.Type.LETHAL : Block.Type.BLOCK);
+                }
+            }
+        }
+        level.setSpawnPosition(new Vector2(1, 1));
+        return level;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.controller.LevelFile;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.entities.LevelTemplate;
+import com.gdx.uch2.networking.client.LevelReplica;
+import com.gdx.uch2.networking.messages.LevelEdit;
+import com.gdx.uch2.networking.serialization.EncoderStream;
+import com.gdx.uch2.networking.server.LevelEditLog;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Vérification de la réplication du journal des modifications du niveau. Une partie de {@value #ROUNDS} rounds à
+ * {@value #PLAYERS} joueurs est simulée sans réseau : chaque client perd une partie des modifications et se
+ * resynchronise par lots. À la fin, le niveau de chaque client, ainsi que celui d'un client arrivé en dernier, est
+ * comparé case par case et par somme de contrôle à celui du serveur. Affiche aussi la taille du lot de rattrapage
+ * comparée à celle de toutes les modifications rejouées une à une.
+ * Lancé par la tâche gradle {@code levelSyncCheck}, termine avec le code 1 si un niveau diffère.
+ */
+public class LevelSyncCheck {
+    private static final int ROUNDS = 100;
+    private static final int PLAYERS = 8;
+    private static final int WIDTH = 48;
+    private static final int HEIGHT = 27;
+    private static final Block.Type[] PLACEABLE = {
+            Block.Type.BLOCK, Block.Type.BOX, Block.Type.LETHAL, Block.Type.G_UP, Block.Type.G_DOWN,
+            Block.Type.ANTIBLOCK
+    };
+
+    private final RandomXS128 random = new RandomXS128(42);
+    private final Level serverLevel;
+    private final LevelEditLog log;
+    private final LevelReplica[] clients = new LevelReplica[PLAYERS];
+    private final float[] lossRates = new float[PLAYERS];
+    private int syncs;
+
+    private LevelSyncCheck(LevelTemplate template) {
+        serverLevel = template.instantiate();
+        log = new LevelEditLog(serverLevel);
+        for (int i = 0; i < PLAYERS; ++i) {
+            clients[i] = new LevelReplica(template.instantiate());
+            lossRates[i] = i * 0.05f;
+        }
+    }
+
+    /**
+     * Point d'entrée
+     * @param args non utilisés
+     */
+    public static void main(String[] args) {
+        Level base = new Level(WIDTH, HEIGHT);
+        for (int x = 0; x < WIDTH; ++x) {
+            base.setType(x, 0, Block.Type.BLOCK);
+        }
+        base.setSpawnPosition(new Vector2(0, 1));
+        LevelTemplate template = new LevelTemplate(0, LevelFile.write(base), base);
+
+        LevelSyncCheck check = new LevelSyncCheck(template);
+        long replayBytes = check.play();
+        LevelReplica lateJoiner = new LevelReplica(template.instantiate());
+        lateJoiner.apply(check.log.getSince(0));
+
+        boolean ok = true;
+        for (int i = 0; i < PLAYERS; ++i) {
+            ok &= check.compare("client " + i + " (perte " + Math.round(check.lossRates[i] * 100) + "%)",
+                    check.clients[i].getLevel());
+        }
+        ok &= check.compare("client arrivé en dernier", lateJoiner.getLevel());
+
+        System.out.println("rounds=" + ROUNDS + " players=" + PLAYERS
+                + " edits=" + check.log.getVersion()
+                + " syncs=" + check.syncs
+                + " replay_bytes=" + replayBytes
+                + " batch_blocks=" + check.log.getSince(0).getBlocks().length
+                + " batch_bytes=" + size(check.log, 0));
+        System.out.println(ok ? "OK" : "ECHEC");
+        System.exit(ok ? 0 : 1);
+    }
+
+    // Joue la partie et retourne la taille de toutes les modifications envoyées une à une
+    private long play() {
+        long replayBytes = 0;
+        for (int round = 0; round < ROUNDS; ++round) {
+            for (int player = 0; player < PLAYERS; ++player) {
+                Block.Type type = PLACEABLE[random.nextInt(PLACEABLE.length)];
+                int x = random.nextInt(WIDTH);
+                int y = 1 + random.nextInt(HEIGHT - 1);
+                LevelEdit edit = log.append(player, Block.create(type, new Vector2(x, y)));
+                replayBytes += size(edit);
+                for (int i = 0; i < PLAYERS; ++i) {
+                    if (random.nextFloat() >= lossRates[i]) {
+                        sync(i, clients[i].apply(edit));
+                    }
+                }
+            }
+            // le changement de phase annonce le numéro de la dernière modification
+            for (int i = 0; i < PLAYERS; ++i) {
+                sync(i, clients[i].check(log.getVersion()));
+            }
+        }
+        return replayBytes;
+    }
+
+    private void sync(int client, int fromSeq) {
+        while (fromSeq != LevelReplica.IN_SYNC) {
+            ++syncs;
+            fromSeq = clients[client].apply(log.getSince(fromSeq));
+        }
+    }
+
+    private boolean compare(String name, Level level) {
+        boolean same = level.getChecksum() == log.getChecksum();
+        for (int y = 0; y < HEIGHT && same; ++y) {
+            for (int x = 0; x < WIDTH && same; ++x) {
+                same = level.getTypeCode(x, y) == serverLevel.getTypeCode(x, y);
+            }
+        }
+        System.out.println(name + " : " + (same ? "identique" : "différent") + " au serveur");
+        return same;
+    }
+
+    private static int size(LevelEdit edit) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EncoderStream out = new EncoderStream(bytes);
+        out.writeMessage(edit);
+        return bytes.size();
+    }
+
+    private static int size(LevelEditLog log, int fromSeq) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EncoderStream out = new EncoderStream(bytes);
+        out.writeMessage(log.getSince(fromSeq));
+        return bytes.size();
+    }
+}
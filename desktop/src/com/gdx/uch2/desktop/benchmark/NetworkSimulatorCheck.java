@@ -0,0 +1,244 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.messages.MessageType;
+import com.gdx.uch2.networking.messages.Ping;
+import com.gdx.uch2.networking.simulation.NetworkClock;
+import com.gdx.uch2.networking.simulation.NetworkConditions;
+import com.gdx.uch2.networking.simulation.NetworkSimulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Vérification du simulateur de conditions réseau, sur une horloge manuelle ({@link NetworkClock#manual()}) pour que
+ * le résultat ne dépende pas de la machine :
+ * <ul>
+ *     <li>deux exécutions de la même séquence d'écritures avec la même graine livrent les mêmes données aux mêmes
+ *     heures, et deux connexions d'une même exécution subissent des séquences de gigue et de pertes différentes</li>
+ *     <li>les données sont livrées complètes et dans l'ordre, jamais avant la latence configurée, et pas plus vite
+ *     que la bande passante</li>
+ *     <li>sur la boucle locale, un client et un serveur reliés par des {@link PlayerContext} dégradés dans les deux
+ *     sens échangent des Ping et des Pong : toutes les réponses arrivent, dans l'ordre, après au moins la somme des
+ *     latences des deux sens</li>
+ * </ul>
+ * Lancé par la tâche gradle {@code networkSimulatorCheck}, termine avec le code 1 si une vérification échoue.
+ */
+public class NetworkSimulatorCheck {
+    private static final int PORT = 42300;
+    private static final NetworkConditions UP = new NetworkConditions(40, 30, 0.1f, 16000, 7);
+    private static final NetworkConditions DOWN = new NetworkConditions(25, 10, 0.05f, 0, 7);
+    private static final int MESSAGES = 200;
+    private static final int MESSAGE_INTERVAL = 10; // millisecondes
+    private static final int MAX_DRAIN = 60000; // millisecondes
+
+    private boolean ok = true;
+
+    /**
+     * Point d'entrée
+     * @param args non utilisés
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        NetworkSimulatorCheck check = new NetworkSimulatorCheck();
+        check.checkStreams();
+        check.checkLoopback();
+        NetworkSimulator.getInstance().reset();
+        System.out.println(check.ok ? "OK" : "ECHEC");
+        System.exit(check.ok ? 0 : 1);
+    }
+
+    private void checkStreams() throws InterruptedException {
+        RecordingStream[] first = play();
+        RecordingStream[] second = play();
+
+        check("même graine, mêmes livraisons", first[0].deliveries.equals(second[0].deliveries)
+                && first[1].deliveries.equals(second[1].deliveries));
+        check("graines différentes par connexion", !first[0].deliveries.equals(first[1].deliveries));
+
+        for (int i = 0; i < first.length; ++i) {
+            RecordingStream stream = first[i];
+            check("connexion " + i + " : données complètes et dans l'ordre",
+                    Arrays.equals(stream.received.toByteArray(), expectedData()));
+            long minDelay = Long.MAX_VALUE;
+            long totalDelay = 0;
+            for (int m = 0; m < stream.deliveries.size(); ++m) {
+                long delay = stream.deliveries.get(m).get(0) - (long) m * MESSAGE_INTERVAL;
+                minDelay = Math.min(minDelay, delay);
+                totalDelay += delay;
+            }
+            long last = stream.deliveries.get(stream.deliveries.size() - 1).get(0);
+            long minDuration = (long) stream.received.size() * 1000 / UP.getBandwidth();
+            check("connexion " + i + " : latence respectée", minDelay >= UP.getLatency());
+            check("connexion " + i + " : bande passante respectée", last >= minDuration);
+            System.out.println("stream=" + i
+                    + " segments=" + stream.deliveries.size()
+                    + " min_delay_ms=" + minDelay
+                    + " mean_delay_ms=" + totalDelay / stream.deliveries.size()
+                    + " last_delivery_ms=" + last);
+        }
+    }
+
+    // Écrit les mêmes messages sur deux streams dégradés, un toutes les MESSAGE_INTERVAL ms, et les livre
+    private static RecordingStream[] play() throws InterruptedException {
+        NetworkSimulator simulator = NetworkSimulator.getInstance();
+        simulator.reset();
+        NetworkClock clock = NetworkClock.manual();
+        simulator.setClock(clock);
+        simulator.setConditions(NetworkSimulator.Direction.UPSTREAM, UP);
+
+        RecordingStream[] sinks = {new RecordingStream(clock), new RecordingStream(clock)};
+        OutputStream[] streams = new OutputStream[sinks.length];
+        for (int i = 0; i < sinks.length; ++i) {
+            streams[i] = simulator.wrap(sinks[i], NetworkSimulator.Direction.UPSTREAM);
+        }
+        byte[] message = new byte[64];
+        try {
+            for (int m = 0; m < MESSAGES; ++m) {
+                Arrays.fill(message, (byte) m);
+                for (OutputStream stream : streams) {
+                    stream.write(message);
+                    stream.flush();
+                }
+                clock.advance(MESSAGE_INTERVAL);
+            }
+            for (OutputStream stream : streams) {
+                stream.close();
+            }
+        } catch (IOException e) {
+            // impossible en mémoire
+            throw new IllegalStateException(e);
+        }
+        clock.advance(MAX_DRAIN);
+        return sinks;
+    }
+
+    private static byte[] expectedData() {
+        byte[] data = new byte[64 * MESSAGES];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (byte) (i / 64);
+        }
+        return data;
+    }
+
+    // Ping et Pong entre un client et un serveur réels sur la boucle locale, dégradés dans les deux sens
+    private void checkLoopback() throws IOException, InterruptedException {
+        NetworkSimulator simulator = NetworkSimulator.getInstance();
+        simulator.reset();
+        final NetworkClock clock = NetworkClock.manual();
+        simulator.setClock(clock);
+        simulator.setConditions(NetworkSimulator.Direction.UPSTREAM, UP);
+        simulator.setConditions(NetworkSimulator.Direction.DOWNSTREAM, DOWN);
+
+        ServerSocket serverSocket = new ServerSocket(PORT, 1, InetAddress.getLoopbackAddress());
+        final PlayerContext client = new PlayerContext(new Socket(InetAddress.getLoopbackAddress(), PORT));
+        final PlayerContext server = new PlayerContext(0, serverSocket.accept());
+        serverSocket.close();
+
+        // le serveur renvoie chaque Ping, comme PlayerHandler
+        Thread echo = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (server.in.getType() == MessageType.Ping) {
+                    Ping ping = server.in.readPing();
+                    if (ping == null) {
+                        return;
+                    }
+                    server.out.writeMessage(ping, true);
+                }
+            }
+        }, "netsim-echo");
+        echo.setDaemon(true);
+        echo.start();
+
+        final long[] rtts = new long[MESSAGES];
+        final int[] received = {0};
+        final boolean[] ordered = {true};
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int m = 0; m < MESSAGES; ++m) {
+                    if (client.in.getType() != MessageType.Pong) {
+                        return;
+                    }
+                    Ping pong = client.in.readPing();
+                    if (pong == null) {
+                        return;
+                    }
+                    synchronized (rtts) {
+                        ordered[0] &= pong.getSequence() == m;
+                        rtts[m] = clock.now() - pong.getTimestamp();
+                        ++received[0];
+                    }
+                }
+            }
+        }, "netsim-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        for (int m = 0; m < MESSAGES; ++m) {
+            client.out.writeMessage(new Ping(m, clock.now()), false);
+            clock.advance(MESSAGE_INTERVAL);
+        }
+        for (int t = 0; t < MAX_DRAIN && reader.isAlive(); t += MESSAGE_INTERVAL) {
+            clock.advance(MESSAGE_INTERVAL);
+            // laisse les threads du serveur et du client lire ce qui vient d'être livré
+            Thread.sleep(1);
+        }
+        client.out.writeMessage(MessageType.CloseConnection);
+        clock.advance(MAX_DRAIN);
+        client.getSocket().close();
+        server.getSocket().close();
+
+        synchronized (rtts) {
+            long[] sorted = Arrays.copyOf(rtts, received[0]);
+            Arrays.sort(sorted);
+            long minRtt = UP.getLatency() + DOWN.getLatency();
+            check("boucle locale : toutes les réponses reçues", received[0] == MESSAGES);
+            check("boucle locale : réponses dans l'ordre", ordered[0]);
+            check("boucle locale : aller-retour d'au moins " + minRtt + " ms",
+                    sorted.length > 0 && sorted[0] >= minRtt);
+            if (sorted.length > 0) {
+                System.out.println("loopback pongs=" + received[0]
+                        + " rtt_min_ms=" + sorted[0]
+                        + " rtt_p50_ms=" + sorted[sorted.length / 2]
+                        + " rtt_max_ms=" + sorted[sorted.length - 1]);
+            }
+        }
+    }
+
+    private void check(String name, boolean passed) {
+        ok &= passed;
+        System.out.println(name + " : " + (passed ? "ok" : "ECHEC"));
+    }
+
+    /**
+     * Stream de destination qui garde les données reçues et, pour chaque écriture, l'heure de l'horloge et la taille
+     */
+    private static class RecordingStream extends OutputStream {
+        final NetworkClock clock;
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final List<List<Long>> deliveries = new ArrayList<>();
+
+        RecordingStream(NetworkClock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            received.write(b, off, len);
+            deliveries.add(Arrays.asList(clock.now(), (long) len));
+        }
+    }
+}
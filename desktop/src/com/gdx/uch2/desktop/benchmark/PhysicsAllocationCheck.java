@@ -0,0 +1,181 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.controller.InputLog;
+import com.gdx.uch2.controller.PlayerController;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.entities.World;
+import com.gdx.uch2.networking.GamePhase;
+import com.gdx.uch2.networking.client.GameClientHandler;
+import com.gdx.uch2.util.Constants;
+import com.gdx.uch2.util.FrameProfiler;
+
+/**
+ * Vérification que le pas de simulation du joueur n'alloue rien : test d'arrivée, balayages des collisions, actions
+ * des pièges et somme de contrôle, ainsi que {@link PlayerController#update}, qui l'exécute avec les entrées du joueur
+ * et publie l'état du joueur pour l'envoi au serveur. Une séquence de touches est enregistrée dans un {@link InputLog}, puis rejouée par
+ * {@link PlayerController#replay}, qui n'exécute que le pas de simulation, et les octets alloués par le thread sont
+ * mesurés pendant le rejeu, une fois le code compilé par le JIT. Les niveaux mesurés sont les niveaux donnés et un
+ * niveau synthétique dont le sol alterne blocks, pièges de gravité et arrivée.
+ * Les allocations de {@link PlayerController#update} sont mesurées de même, sur la même séquence de touches jouée
+ * sans enregistrement.
+ * Lancé par la tâche gradle {@code physicsAllocationCheck}, avec l'argument optionnel {@code --levels=1,2,3},
+ * termine avec le code 1 si le pas de simulation ou update allouent, ou si la JVM ne mesure pas les allocations.
+ */
+public class PhysicsAllocationCheck extends ApplicationAdapter {
+    private static final float STEP = Constants.PHYSICS_STEP;
+    private static final int RECORDED_STEPS = 2400;
+    private static final int WARMUP_REPLAYS = 50;
+    private static final int MEASURED_REPLAYS = 20;
+
+    private final int[] levels;
+    private final FrameProfiler profiler = FrameProfiler.getInstance();
+    private boolean ok = true;
+
+    /**
+     * Constructeur
+     * @param levels numéros des niveaux à mesurer
+     */
+    public PhysicsAllocationCheck(int[] levels) {
+        this.levels = levels;
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --levels=..., optionnel
+     */
+    public static void main(String[] args) {
+        int[] levels = {1, 2, 3};
+        for (String arg : args) {
+            if (arg.startsWith("--levels=")) {
+                String[] parts = arg.substring("--levels=".length()).split(",");
+                levels = new int[parts.length];
+                for (int i = 0; i < parts.length; ++i) {
+                    levels[i] = Integer.parseInt(parts[i].trim());
+                }
+            }
+        }
+        new HeadlessApplication(new PhysicsAllocationCheck(levels));
+    }
+
+    @Override
+    public void create() {
+        BenchmarkSupport.initPlayers(1);
+        GameClientHandler.currentPhase = GamePhase.Moving;
+        if (profiler.pollAllocatedBytes() < 0) {
+            System.out.println("Cette JVM ne mesure pas les allocations par thread");
+            System.out.println("ECHEC");
+            System.exit(1);
+        }
+
+        for (int level : levels) {
+            run("level=" + level, new World(level));
+        }
+        run("level=traps", new World(trapLevel()));
+
+        System.out.println(ok ? "OK" : "ECHEC");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private void run(String name, World world) {
+        world.stopMusic();
+        PlayerController controller = new PlayerController(world);
+
+        InputLog log = new InputLog();
+        controller.setInputLog(log);
+        for (int step = 0; step < RECORDED_STEPS; ++step) {
+            play(controller, step);
+        }
+        controller.setInputLog(null);
+
+        boolean replayed = true;
+        for (int i = 0; i < WARMUP_REPLAYS; ++i) {
+            replayed &= controller.replay(log, STEP) == -1;
+        }
+        long baseline = pollBaseline();
+        profiler.pollAllocatedBytes();
+        for (int i = 0; i < MEASURED_REPLAYS; ++i) {
+            replayed &= controller.replay(log, STEP) == -1;
+        }
+        long allocated = Math.max(0, profiler.pollAllocatedBytes() - baseline);
+        long steps = (long) MEASURED_REPLAYS * log.size();
+
+        long updateBytes = measureUpdate(controller);
+
+        boolean passed = replayed && allocated == 0 && updateBytes == 0;
+        ok &= passed;
+        System.out.println(name
+                + " steps=" + steps
+                + " step_allocated_bytes=" + allocated
+                + " step_bytes_per_step=" + (float) allocated / steps
+                + " update_allocated_bytes=" + updateBytes
+                + " update_bytes_per_step=" + (float) updateBytes / steps
+                + " replay_identical=" + (replayed ? "yes" : "no")
+                + " allocation_free=" + (passed ? "yes" : "no"));
+        controller.dispose();
+    }
+
+    // Joue la séquence de touches avec update(), sans enregistrement, et retourne les octets alloués une fois compilé
+    private long measureUpdate(PlayerController controller) {
+        for (int i = 0; i < WARMUP_REPLAYS; ++i) {
+            for (int step = 0; step < RECORDED_STEPS; ++step) {
+                play(controller, step);
+            }
+        }
+        long baseline = pollBaseline();
+        profiler.pollAllocatedBytes();
+        for (int i = 0; i < MEASURED_REPLAYS; ++i) {
+            for (int step = 0; step < RECORDED_STEPS; ++step) {
+                play(controller, step);
+            }
+        }
+        return Math.max(0, profiler.pollAllocatedBytes() - baseline);
+    }
+
+    // Octets alloués par la mesure elle-même, entre deux relevés consécutifs
+    private long pollBaseline() {
+        long baseline = Long.MAX_VALUE;
+        for (int i = 0; i < 10; ++i) {
+            profiler.pollAllocatedBytes();
+            baseline = Math.min(baseline, profiler.pollAllocatedBytes());
+        }
+        return baseline;
+    }
+
+    // Un pas du joueur : il court à droite puis à gauche, en sautant régulièrement
+    private static void play(PlayerController controller, int step) {
+        int phase = step % 480;
+        if (phase == 0) {
+            controller.leftReleased();
+            controller.rightPressed();
+        } else if (phase == 240) {
+            controller.rightReleased();
+            controller.leftPressed();
+        }
+        if (step % 90 == 0) {
+            controller.jumpPressed();
+        } else if (step % 90 == 20) {
+            controller.jumpReleased();
+        }
+        controller.update(STEP);
+    }
+
+    // Sol alternant blocks et pièges de gravité, murs aux extrémités et arrivée au-dessus du sol à droite
+    private static Level trapLevel() {
+        Level level = new Level(48, 12);
+        Block.Type[] floor = {Block.Type.BLOCK, Block.Type.G_UP, Block.Type.BLOCK, Block.Type.G_DOWN};
+        for (int x = 0; x < 48; ++x) {
+            level.setType(x, 0, floor[x / 4 % floor.length]);
+        }
+        for (int y = 1; y < 12; ++y) {
+            level.setType(0, y, Block.Type.BLOCK);
+            level.setType(47, y, Block.Type.BLOCK);
+        }
+        level.addFinishPosition(new Vector2(44, 1));
+        level.setSpawnPosition(new Vector2(24, 1));
+        return level;
+    }
+}
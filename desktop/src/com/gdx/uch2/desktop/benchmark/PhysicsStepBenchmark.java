@@ -0,0 +1,115 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.gdx.uch2.controller.PlayerController;
+import com.gdx.uch2.entities.World;
+import com.gdx.uch2.networking.GamePhase;
+import com.gdx.uch2.networking.client.GameClientHandler;
+
+/**
+ * Benchmark du coût d'un pas de la simulation du joueur. Le {@link PlayerController} est exécuté seul, sans rendu,
+ * avec une séquence de touches scriptée ; le joueur est remis à son état initial toutes les
+ * {@value #RESET_SECONDS} secondes simulées pour ne pas mesurer un joueur mort ou arrivé. Affiche, pour chaque
+ * fréquence de simulation, la durée moyenne d'un pas et le coût d'une seconde simulée ; les fréquences basses
+ * correspondent aux grands pas dont {@link TunnelingCheck} vérifie les collisions.
+ * Lancé par la tâche gradle {@code physicsStepBenchmark}, avec les arguments optionnels
+ * {@code --level=3 --rates=120,60,30,15 --seconds=3000}.
+ */
+public class PhysicsStepBenchmark extends ApplicationAdapter {
+    private static final int RESET_SECONDS = 10;
+    private static final int WARMUP_SECONDS = 300;
+
+    private final int level;
+    private final int[] rates;
+    private final int seconds;
+
+    /**
+     * Constructeur
+     * @param level numéro du niveau simulé
+     * @param rates fréquences de simulation mesurées, en pas par seconde
+     * @param seconds durée simulée mesurée pour chaque fréquence
+     */
+    public PhysicsStepBenchmark(int level, int[] rates, int seconds) {
+        this.level = level;
+        this.rates = rates;
+        this.seconds = seconds;
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --level=..., --rates=... et --seconds=..., tous optionnels
+     */
+    public static void main(String[] args) {
+        int level = 3;
+        int[] rates = {120, 60, 30, 15};
+        int seconds = 3000;
+        for (String arg : args) {
+            if (arg.startsWith("--level=")) {
+                level = Integer.parseInt(arg.substring("--level=".length()));
+            } else if (arg.startsWith("--rates=")) {
+                String[] parts = arg.substring("--rates=".length()).split(",");
+                rates = new int[parts.length];
+                for (int i = 0; i < parts.length; ++i) {
+                    rates[i] = Integer.parseInt(parts[i].trim());
+                }
+            } else if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            }
+        }
+        new HeadlessApplication(new PhysicsStepBenchmark(level, rates, seconds));
+    }
+
+    @Override
+    public void create() {
+        BenchmarkSupport.initPlayers(1);
+        GameClientHandler.currentPhase = GamePhase.Moving;
+        for (int rate : rates) {
+            World world = new World(level);
+            world.stopMusic();
+            PlayerController controller = new PlayerController(world);
+            PlayerController.Snapshot start = controller.saveState();
+
+            simulate(controller, start, rate, WARMUP_SECONDS);
+            long begin = System.nanoTime();
+            int steps = simulate(controller, start, rate, seconds);
+            long elapsed = System.nanoTime() - begin;
+
+            System.out.println("level=" + level
+                    + " rate_hz=" + rate
+                    + " steps=" + steps
+                    + " ns_per_step=" + elapsed / steps
+                    + " us_per_simulated_second=" + Math.round(elapsed / 1e3 / seconds));
+            controller.dispose();
+        }
+        Gdx.app.exit();
+    }
+
+    // Simule la durée donnée à la fréquence donnée, retourne le nombre de pas effectués
+    private static int simulate(PlayerController controller, PlayerController.Snapshot start, int rate, int seconds) {
+        float step = 1f / rate;
+        int steps = seconds * rate;
+        for (int i = 0; i < steps; ++i) {
+            if (i % (RESET_SECONDS * rate) == 0) {
+                controller.restoreState(start);
+            }
+            // touches tenues pendant des durées fixes, quelle que soit la fréquence
+            float time = (float) i / rate;
+            if (time % 4 < 2) {
+                controller.leftReleased();
+                controller.rightPressed();
+            } else {
+                controller.rightReleased();
+                controller.leftPressed();
+            }
+            if (i % (rate * 3 / 4) == 0) {
+                controller.jumpPressed();
+            } else if (i % (rate * 3 / 4) == rate / 6) {
+                controller.jumpReleased();
+            }
+            controller.update(step);
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,93 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.OnlinePlayerManager;
+import com.gdx.uch2.entities.Player;
+import com.gdx.uch2.entities.World;
+import com.gdx.uch2.networking.messages.PlayerState;
+import com.gdx.uch2.util.Constants;
+import com.gdx.uch2.view.WorldRenderer;
+
+/**
+ * Benchmark sans fenêtre du rendu d'une frame à 16 joueurs. Compte les appels de dessin et les changements de
+ * texture de la phase de placement et de la phase de jeu.
+ * Lancé par la tâche gradle {@code renderBenchmark} depuis le dossier des assets.
+ */
+public class RenderBenchmark extends ApplicationAdapter {
+    private static final int NB_PLAYERS = 16;
+    private static final int LEVEL = 1;
+
+    private CountingGL20 gl;
+
+    /**
+     * Point d'entrée
+     * @param args non utilisés
+     */
+    public static void main(String[] args) {
+        new HeadlessApplication(new RenderBenchmark());
+    }
+
+    @Override
+    public void create() {
+        gl = BenchmarkSupport.installCountingGL();
+
+        BenchmarkSupport.initPlayers(NB_PLAYERS);
+        World world = new World(LEVEL);
+        World.currentWorld = world;
+        world.stopMusic();
+        for (int i = 1; i < NB_PLAYERS; ++i) {
+            Vector2 pos = world.getLevel().getSpawnPosition();
+            OnlinePlayerManager.getInstance().getPlayer(i).addUpdate(
+                    new PlayerState(i, Player.State.WALKING, pos.x + i % 4, pos.y + i / 4, i));
+            OnlinePlayerManager.getInstance().setBlockPosition(i,
+                    Block.create(i % 2 == 0 ? Block.Type.BOX : Block.Type.LETHAL, new Vector2(i, 1)));
+        }
+        OnlinePlayerManager.getInstance().updatePlayers(1);
+
+        SpriteBatch batch = new SpriteBatch();
+        WorldRenderer renderer = new WorldRenderer(world, batch, false);
+        renderer.setSize(1200, 675);
+        Vector2 cursor = new Vector2(0, 1);
+
+        System.out.println("Unified atlas: " + Gdx.files.internal(Constants.GAME_ATLAS).exists());
+
+        // la première frame construit le cache des blocks, elle n'est pas mesurée
+        renderPlacement(renderer, cursor);
+        gl.reset();
+        renderPlacement(renderer, cursor);
+        report("Placement frame", renderer);
+
+        renderer.renderBackground();
+        renderer.renderPlayers();
+        gl.reset();
+        renderer.renderBackground();
+        renderer.renderPlayers();
+        report("Game frame", renderer);
+
+        renderer.dispose();
+        batch.dispose();
+        Gdx.app.exit();
+    }
+
+    // Même séquence que PlacementScreen.render avec les personnages en plus
+    private void renderPlacement(WorldRenderer renderer, Vector2 cursor) {
+        renderer.begin();
+        for (int i = 1; i < NB_PLAYERS; ++i) {
+            Block b = OnlinePlayerManager.getInstance().getPlayer(i).getPlacementBlock();
+            renderer.drawBlock(b.getType(), b.getPosition());
+        }
+        renderer.drawBlock(Block.Type.BOX, cursor);
+        renderer.drawPlayers();
+        renderer.end();
+    }
+
+    private void report(String name, WorldRenderer renderer) {
+        System.out.println(name + ": renderCalls=" + renderer.getLastDrawCalls()
+                + ", glDraw*=" + gl.getDrawCalls() + ", texture binds=" + gl.getTextureBinds());
+    }
+}
@@ -0,0 +1,120 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.gdx.uch2.controller.InputLog;
+import com.gdx.uch2.controller.PlayerController;
+import com.gdx.uch2.entities.World;
+import com.gdx.uch2.networking.GamePhase;
+import com.gdx.uch2.networking.client.GameClientHandler;
+import com.gdx.uch2.networking.client.MessageSender;
+import com.gdx.uch2.networking.messages.PlayerState;
+import com.gdx.uch2.util.Constants;
+
+/**
+ * Vérification du rejeu d'un {@link InputLog}. Le joueur local est simulé sur un niveau avec une séquence de touches
+ * scriptée, puis le journal, commencé en cours de partie, est rejoué :
+ * <ul>
+ *     <li>par le même contrôleur, depuis l'état final de l'enregistrement</li>
+ *     <li>par un nouveau contrôleur, sur un nouveau monde</li>
+ *     <li>sans son état initial, depuis un état différent, ce qui doit être détecté dès le premier pas</li>
+ * </ul>
+ * Vérifie aussi que le rejeu n'envoie rien au {@link MessageSender}.
+ * Lancé par la tâche gradle {@code replayCheck}, avec l'argument optionnel {@code --level=1}, termine avec le code 1
+ * si une vérification échoue.
+ */
+public class ReplayCheck extends ApplicationAdapter {
+    private static final float STEP = Constants.PHYSICS_STEP;
+    private static final int WARMUP_STEPS = 300;
+    private static final int RECORDED_STEPS = 2400;
+
+    private final int level;
+    private boolean ok = true;
+
+    /**
+     * Constructeur
+     * @param level numéro du niveau simulé
+     */
+    public ReplayCheck(int level) {
+        this.level = level;
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --level=..., optionnel
+     */
+    public static void main(String[] args) {
+        int level = 1;
+        for (String arg : args) {
+            if (arg.startsWith("--level=")) {
+                level = Integer.parseInt(arg.substring("--level=".length()));
+            }
+        }
+        new HeadlessApplication(new ReplayCheck(level));
+    }
+
+    @Override
+    public void create() {
+        BenchmarkSupport.initPlayers(1);
+        GameClientHandler.currentPhase = GamePhase.Moving;
+
+        World world = new World(level);
+        world.stopMusic();
+        PlayerController controller = new PlayerController(world);
+
+        // l'enregistrement commence en cours de partie, avec des minuteries de saut et un temps simulé non nuls
+        int step = 0;
+        for (; step < WARMUP_STEPS; ++step) {
+            play(controller, step);
+        }
+        InputLog log = new InputLog();
+        controller.setInputLog(log);
+        for (int end = step + RECORDED_STEPS; step < end; ++step) {
+            play(controller, step);
+        }
+        controller.setInputLog(null);
+        int recorded = controller.getChecksum();
+
+        PlayerState sent = MessageSender.getInstance().getCurrentState();
+        check("rejeu par le même contrôleur", controller.replay(log, STEP) == -1);
+        check("état final identique", controller.getChecksum() == recorded);
+        check("aucun état envoyé pendant le rejeu", MessageSender.getInstance().getCurrentState().getTime() == sent.getTime());
+
+        World other = new World(level);
+        other.stopMusic();
+        PlayerController fresh = new PlayerController(other);
+        check("rejeu par un nouveau contrôleur", fresh.replay(log, STEP) == -1);
+
+        log.setInitialState(null);
+        check("rejeu sans état initial détecté au premier pas", controller.replay(log, STEP) == 0);
+
+        System.out.println("level=" + level + " recorded_steps=" + log.size() + " step_ms=" + STEP * 1000);
+        System.out.println(ok ? "OK" : "ECHEC");
+        controller.dispose();
+        fresh.dispose();
+        System.exit(ok ? 0 : 1);
+    }
+
+    // Un pas du joueur : il court à droite puis à gauche, en sautant régulièrement
+    private static void play(PlayerController controller, int step) {
+        int phase = step % 480;
+        if (phase == 0) {
+            controller.leftReleased();
+            controller.rightPressed();
+        } else if (phase == 240) {
+            controller.rightReleased();
+            controller.leftPressed();
+        }
+        if (step % 90 == 0) {
+            controller.jumpPressed();
+        } else if (step % 90 == 20) {
+            controller.jumpReleased();
+        }
+        controller.update(STEP);
+    }
+
+    private void check(String name, boolean passed) {
+        System.out.println(name + " : " + (passed ? "ok" : "échec"));
+        ok &= passed;
+    }
+}
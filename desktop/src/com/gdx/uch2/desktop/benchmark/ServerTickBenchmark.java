@@ -0,0 +1,167 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Player;
+import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.messages.ObjectPlacement;
+import com.gdx.uch2.networking.messages.PlayerState;
+import com.gdx.uch2.networking.metrics.NetworkMetrics;
+import com.gdx.uch2.networking.server.SendUpdate;
+import com.gdx.uch2.networking.server.ServerGameStateTickManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Timer;
+
+/**
+ * Benchmark du coût des {@link NetworkMetrics} sur le tick du serveur. Des joueurs sont connectés sur la boucle locale
+ * à des lecteurs qui ignorent tout ce qu'ils reçoivent, et le tick ({@link SendUpdate}) est exécuté en boucle, avec
+ * à chaque tick de nouveaux PlayerStates et les positions de quelques blocks en cours de placement. Les ticks sont
+ * mesurés par séries, alternativement avec la collecte activée et désactivée pour que les deux modes subissent les
+ * mêmes variations de la machine. Affiche la durée médiane d'un tick dans chaque mode et le surcoût de la collecte
+ * en pourcentage du tick, dont l'objectif est de rester sous 1 %.
+ * Lancé par la tâche gradle {@code serverTickBenchmark}, avec les arguments optionnels
+ * {@code --players=16 --ticks=2000 --series=40}.
+ */
+public class ServerTickBenchmark {
+    private static final int PORT = 42400;
+    private static final int MOVING_BLOCKS = 4;
+    private static final float TARGET_PERCENT = 1;
+
+    private final int nbPlayers;
+    private final int ticks;
+    private final int series;
+    private final PlayerContext[] players;
+    private final SendUpdate tick;
+    private long tickCount;
+
+    private ServerTickBenchmark(int nbPlayers, int ticks, int series) throws IOException {
+        this.nbPlayers = nbPlayers;
+        this.ticks = ticks;
+        this.series = series;
+
+        players = new PlayerContext[nbPlayers];
+        ServerSocket serverSocket = new ServerSocket(PORT, nbPlayers, InetAddress.getLoopbackAddress());
+        for (int i = 0; i < nbPlayers; ++i) {
+            final Socket client = new Socket(InetAddress.getLoopbackAddress(), PORT);
+            players[i] = new PlayerContext(i, serverSocket.accept());
+            Thread reader = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    drain(client);
+                }
+            }, "tick-reader-" + i);
+            reader.setDaemon(true);
+            reader.start();
+        }
+        serverSocket.close();
+
+        // le GameState initial, sans lancer l'envoi régulier
+        ServerGameStateTickManager manager = ServerGameStateTickManager.getInstance();
+        manager.setPlayers(players);
+        manager.start(Integer.MAX_VALUE, Integer.MAX_VALUE, new Vector2(2, 2));
+        tick = new SendUpdate(new Timer(true), players);
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --players=..., --ticks=... et --series=..., tous optionnels
+     */
+    public static void main(String[] args) throws IOException {
+        int nbPlayers = 16;
+        int ticks = 2000;
+        int series = 40;
+        for (String arg : args) {
+            if (arg.startsWith("--players=")) {
+                nbPlayers = Integer.parseInt(arg.substring("--players=".length()));
+            } else if (arg.startsWith("--ticks=")) {
+                ticks = Integer.parseInt(arg.substring("--ticks=".length()));
+            } else if (arg.startsWith("--series=")) {
+                series = Integer.parseInt(arg.substring("--series=".length()));
+            }
+        }
+        new ServerTickBenchmark(nbPlayers, ticks, series).run();
+        System.exit(0);
+    }
+
+    private void run() {
+        NetworkMetrics metrics = NetworkMetrics.getInstance();
+        // compilation JIT des deux chemins
+        for (int i = 0; i < 4; ++i) {
+            metrics.setEnabled(i % 2 == 0);
+            runSeries();
+        }
+
+        long[] disabled = new long[series];
+        long[] enabled = new long[series];
+        for (int s = 0; s < series; ++s) {
+            // l'ordre alterne pour qu'aucun mode ne profite systématiquement de la série précédente
+            boolean enabledFirst = s % 2 == 0;
+            metrics.setEnabled(enabledFirst);
+            long first = runSeries();
+            metrics.setEnabled(!enabledFirst);
+            long second = runSeries();
+            enabled[s] = enabledFirst ? first : second;
+            disabled[s] = enabledFirst ? second : first;
+        }
+        metrics.setEnabled(false);
+
+        for (PlayerContext ctx : players) {
+            if (ctx.out.e != null) {
+                System.out.println("SRV: " + ctx.out.e.getMessage());
+            }
+        }
+
+        long disabledTick = median(disabled);
+        long enabledTick = median(enabled);
+        System.out.println("players=" + nbPlayers
+                + " ticks=" + (long) ticks * series * 2
+                + " tick_disabled_us=" + disabledTick / 1e3f
+                + " tick_enabled_us=" + enabledTick / 1e3f
+                + " overhead_percent=" + 100f * (enabledTick - disabledTick) / disabledTick
+                + " target_percent=" + TARGET_PERCENT
+                + " recorded_ticks=" + metrics.getTickCount());
+    }
+
+    // Exécute une série de ticks, retourne la durée moyenne d'un tick en nanosecondes
+    private long runSeries() {
+        ServerGameStateTickManager manager = ServerGameStateTickManager.getInstance();
+        long total = 0;
+        for (int t = 0; t < ticks; ++t) {
+            ++tickCount;
+            for (int i = 0; i < nbPlayers; ++i) {
+                manager.setPlayerState(new PlayerState(i, Player.State.WALKING, tickCount % 40, 2 + i, tickCount));
+            }
+            for (int i = 0; i < MOVING_BLOCKS && i < nbPlayers; ++i) {
+                manager.setBlockPosition(new ObjectPlacement(i,
+                        new Block(new Vector2(tickCount % 40, 5 + i), Block.Type.BLOCK)));
+            }
+            long start = System.nanoTime();
+            tick.run();
+            total += System.nanoTime() - start;
+        }
+        return total / ticks;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static void drain(Socket socket) {
+        byte[] buffer = new byte[8192];
+        try {
+            InputStream in = socket.getInputStream();
+            while (in.read(buffer) >= 0) {
+                // ignoré
+            }
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.entities.OnlinePlayerManager;
+import com.gdx.uch2.entities.Player;
+import com.gdx.uch2.entities.World;
+import com.gdx.uch2.networking.PlayerContext;
+import com.gdx.uch2.networking.client.GameClientHandler;
+import com.gdx.uch2.networking.messages.GameState;
+import com.gdx.uch2.networking.messages.MessageType;
+import com.gdx.uch2.networking.messages.PlayerState;
+import com.gdx.uch2.ui.GameScreen;
+import com.gdx.uch2.util.Threads;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Benchmark de la durée des frames du client pendant la réception d'un flux de GameStates à 60 Hz sur la boucle
+ * locale. Les GameStates sont décodés par un thread réseau, puis appliqués de deux manières :
+ * <ul>
+ *     <li>direct : le thread réseau modifie lui-même l'OnlinePlayerManager, pendant que le thread de rendu le lit</li>
+ *     <li>queued : le thread réseau les confie au {@link GameClientHandler}, qui garde le dernier reçu jusqu'au
+ *     début de la frame suivante, où le thread de rendu l'applique, comme en jeu</li>
+ * </ul>
+ * Le thread de rendu exécute le GameScreen au rythme de 60 frames par seconde. Affiche, pour chaque mode, la durée
+ * moyenne des frames, leur écart type, leurs percentiles et le nombre d'exceptions causées par les accès concurrents.
+ * Lancé par la tâche gradle {@code snapshotHandoffBenchmark}, avec les arguments optionnels
+ * {@code --players=16 --frames=900}.
+ */
+public class SnapshotHandoffBenchmark extends ApplicationAdapter {
+    private static final int PORT = 42100;
+    private static final int LEVEL = 1;
+    private static final long FRAME_NANOS = 1000000000L / 60;
+    private static final long SNAPSHOT_NANOS = 1000000000L / 60;
+    private static final int WARMUP_FRAMES = 120;
+
+    private final int nbPlayers;
+    private final int frames;
+    private volatile boolean streaming;
+    private volatile int networkErrors;
+
+    /**
+     * Constructeur
+     * @param nbPlayers nombre de joueurs de la partie
+     * @param frames nombre de frames mesurées par mode
+     */
+    public SnapshotHandoffBenchmark(int nbPlayers, int frames) {
+        this.nbPlayers = nbPlayers;
+        this.frames = frames;
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --players=... et --frames=..., tous optionnels
+     */
+    public static void main(String[] args) {
+        int nbPlayers = 16;
+        int frames = 900;
+        for (String arg : args) {
+            if (arg.startsWith("--players=")) {
+                nbPlayers = Integer.parseInt(arg.substring("--players=".length()));
+            } else if (arg.startsWith("--frames=")) {
+                frames = Integer.parseInt(arg.substring("--frames=".length()));
+            }
+        }
+        new HeadlessApplication(new SnapshotHandoffBenchmark(nbPlayers, frames));
+    }
+
+    @Override
+    public void create() {
+        BenchmarkSupport.installCountingGL();
+        try {
+            run(false, PORT);
+            run(true, PORT + 1);
+        } catch (IOException e) {
+            System.out.println("CLI: " + e.getMessage());
+        }
+        Gdx.app.exit();
+    }
+
+    private void run(final boolean queued, int port) throws IOException {
+        BenchmarkSupport.initPlayers(nbPlayers);
+        World world = new World(LEVEL);
+        World.currentWorld = world;
+        world.stopMusic();
+        final Vector2 spawn = world.getLevel().getSpawnPosition();
+
+        // serveur envoyant les GameStates, client les décodant sur son propre thread
+        final ServerSocket serverSocket = new ServerSocket(port);
+        Socket clientSocket = new Socket("localhost", port);
+        final PlayerContext server = new PlayerContext(0, serverSocket.accept());
+        final PlayerContext client = new PlayerContext(clientSocket);
+        serverSocket.close();
+        final GameClientHandler handler = new GameClientHandler(client);
+        OnlinePlayerManager.getInstance().update(snapshot(spawn, 0));
+
+        streaming = true;
+        networkErrors = 0;
+        Threads.start(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                for (int tick = 0; streaming; ++tick) {
+                    server.out.writeMessage(snapshot(spawn, tick));
+                    sleepUntil(start + (tick + 1) * SNAPSHOT_NANOS);
+                }
+            }
+        }, "snapshot-stream");
+        Threads.start(new Runnable() {
+            @Override
+            public void run() {
+                MessageType type;
+                while ((type = client.in.getType()) != null) {
+                    try {
+                        if (queued) {
+                            handler.readMessage(type);
+                        } else if (type == MessageType.GameStateUpdate) {
+                            OnlinePlayerManager.getInstance().update(client.in.readGameState());
+                        }
+                    } catch (RuntimeException e) {
+                        ++networkErrors;
+                    }
+                }
+            }
+        }, "snapshot-reader");
+
+        GameScreen screen = new GameScreen(world);
+        screen.show();
+        screen.resize(1200, 675);
+
+        long[] times = new long[frames];
+        int renderErrors = 0;
+        long next = System.nanoTime();
+        for (int frame = -WARMUP_FRAMES; frame < frames; ++frame) {
+            long start = System.nanoTime();
+            try {
+                // comme UltimateChickenHorse2.render
+                GameClientHandler.applyPendingUpdates();
+                screen.render(FRAME_NANOS / 1e9f);
+            } catch (RuntimeException e) {
+                ++renderErrors;
+            }
+            if (frame >= 0) {
+                times[frame] = System.nanoTime() - start;
+            }
+            next += FRAME_NANOS;
+            sleepUntil(next);
+        }
+
+        streaming = false;
+        server.getSocket().close();
+        client.getSocket().close();
+        screen.dispose();
+        GameClientHandler.reset();
+
+        double mean = 0;
+        for (long time : times) {
+            mean += time;
+        }
+        mean /= frames;
+        double variance = 0;
+        for (long time : times) {
+            variance += (time - mean) * (time - mean);
+        }
+        variance /= frames;
+        Arrays.sort(times);
+
+        System.out.println("mode=" + (queued ? "queued" : "direct")
+                + " players=" + nbPlayers
+                + " snapshots_hz=60"
+                + " frames=" + frames
+                + " mean_ms=" + round(mean / 1e6)
+                + " stddev_ms=" + round(Math.sqrt(variance) / 1e6)
+                + " p50_ms=" + round(times[frames / 2] / 1e6)
+                + " p99_ms=" + round(times[(int) (frames * 0.99)] / 1e6)
+                + " max_ms=" + round(times[frames - 1] / 1e6)
+                + " render_errors=" + renderErrors
+                + " network_errors=" + networkErrors);
+    }
+
+    // GameState du tick donné : les adversaires tournent autour du point de départ
+    private GameState snapshot(Vector2 spawn, int tick) {
+        PlayerState[] states = new PlayerState[nbPlayers - 1];
+        for (int i = 1; i < nbPlayers; ++i) {
+            float angle = tick * 0.05f + i;
+            states[i - 1] = new PlayerState(i, Player.State.WALKING, spawn.x + i % 8 + 3 * MathUtils.sin(angle),
+                    spawn.y + i / 8 + Math.abs(MathUtils.cos(angle)), tick * SNAPSHOT_NANOS);
+        }
+        return new GameState(states);
+    }
+
+    // Arrondi au millième de milliseconde
+    private static double round(double ms) {
+        return Math.round(ms * 1000) / 1000.0;
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining > 0) {
+            try {
+                Thread.sleep(remaining / 1000000, (int) (remaining % 1000000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.ScreenManager;
+import com.gdx.uch2.UltimateChickenHorse2;
+import com.gdx.uch2.entities.OnlinePlayerManager;
+import com.gdx.uch2.entities.Player;
+import com.gdx.uch2.entities.World;
+import com.gdx.uch2.networking.GamePhase;
+import com.gdx.uch2.networking.client.GameClientHandler;
+import com.gdx.uch2.networking.messages.PlayerState;
+import com.gdx.uch2.ui.GameScreen;
+import com.gdx.uch2.ui.PlacementScreen;
+import com.gdx.uch2.ui.ScoreScreen;
+import com.gdx.uch2.util.Assets;
+
+/**
+ * Benchmark sans fenêtre des changements d'écran d'une partie complète. Après le préchargement de l'écran de
+ * chargement, chaque manche enchaîne, par le {@link ScreenManager} comme dans le jeu, l'écran de placement, l'écran de
+ * jeu et l'écran des scores, avec quelques frames rendues sur chacun. Affiche pour chaque manche :
+ * <ul>
+ *     <li>la durée de chaque transition : affichage du nouvel écran, libération du précédent et première frame</li>
+ *     <li>les octets de textures envoyés au GPU pendant la manche, nuls si aucune ressource n'est rechargée</li>
+ *     <li>la taille des textures et des buffers encore alloués à la fin de la manche, estimation de la mémoire GPU
+ *     suivie par {@link CountingGL20}, qui doit rester stable d'une manche à l'autre</li>
+ * </ul>
+ * Lancé par la tâche gradle {@code transitionBenchmark}, avec les arguments optionnels
+ * {@code --rounds=20 --frames=30}.
+ */
+public class TransitionBenchmark extends ApplicationAdapter {
+    private static final int LEVEL = 1;
+    private static final int NB_PLAYERS = 4;
+    private static final float FRAME_TIME = 1 / 60f;
+
+    private final int rounds;
+    private final int frames;
+    private CountingGL20 gl;
+    private UltimateChickenHorse2 game;
+
+    /**
+     * Constructeur
+     * @param rounds nombre de manches de la partie
+     * @param frames nombre de frames rendues sur chaque écran
+     */
+    public TransitionBenchmark(int rounds, int frames) {
+        this.rounds = rounds;
+        this.frames = frames;
+    }
+
+    /**
+     * Point d'entrée
+     * @param args --rounds=... et --frames=..., tous optionnels
+     */
+    public static void main(String[] args) {
+        int rounds = 20;
+        int frames = 30;
+        for (String arg : args) {
+            if (arg.startsWith("--rounds=")) {
+                rounds = Integer.parseInt(arg.substring("--rounds=".length()));
+            } else if (arg.startsWith("--frames=")) {
+                frames = Integer.parseInt(arg.substring("--frames=".length()));
+            }
+        }
+        new HeadlessApplication(new TransitionBenchmark(rounds, frames));
+    }
+
+    @Override
+    public void create() {
+        gl = BenchmarkSupport.installCountingGL();
+        BenchmarkSupport.initPlayers(NB_PLAYERS);
+        OnlinePlayerManager.getInstance().setNbRound(rounds);
+
+        // comme l'écran de chargement
+        long start = System.nanoTime();
+        Assets.getInstance().queuePreload();
+        while (!Assets.getInstance().update()) {
+            Thread.yield();
+        }
+        System.out.println("preload_ms=" + Math.round((System.nanoTime() - start) / 1e6)
+                + " live_gpu_kb=" + gl.getLiveBytes() / 1024
+                + " live_textures=" + gl.getLiveTextures());
+
+        game = new UltimateChickenHorse2();
+        ScreenManager.getInstance().initialize(game);
+        World world = new World(LEVEL);
+        World.currentWorld = world;
+        // les adversaires restent au point de départ
+        Vector2 spawn = world.getLevel().getSpawnPosition();
+        for (int i = 1; i < NB_PLAYERS; ++i) {
+            OnlinePlayerManager.getInstance().getPlayer(i).addUpdate(
+                    new PlayerState(i, Player.State.IDLE, spawn.x + i, spawn.y, i));
+        }
+        OnlinePlayerManager.getInstance().updatePlayers(1);
+        PlacementScreen placement = new PlacementScreen();
+        ScreenManager.getInstance().setPlacementScreen(placement);
+
+        long[] worst = new long[3];
+        long[] total = new long[3];
+        long firstLive = 0;
+        long lastLive = 0;
+        for (int round = 1; round <= rounds; ++round) {
+            gl.reset();
+            GameClientHandler.currentPhase = GamePhase.Editing;
+            long placementTime = transition(placement);
+            GameClientHandler.currentPhase = GamePhase.Moving;
+            long gameTime = transition(new GameScreen(world));
+            int[] scores = new int[NB_PLAYERS];
+            for (int i = 0; i < NB_PLAYERS; ++i) {
+                scores[i] = round * (i + 1) % (2 * NB_PLAYERS);
+            }
+            OnlinePlayerManager.getInstance().setScores(scores);
+            long scoreTime = transition(new ScoreScreen(round));
+
+            long[] times = {placementTime, gameTime, scoreTime};
+            for (int i = 0; i < times.length; ++i) {
+                worst[i] = Math.max(worst[i], times[i]);
+                total[i] += times[i];
+            }
+            lastLive = gl.getLiveBytes();
+            if (round == 1) {
+                firstLive = lastLive;
+            }
+            System.out.println("round=" + round
+                    + " to_placement_ms=" + times[0] / 1e6f
+                    + " to_game_ms=" + times[1] / 1e6f
+                    + " to_score_ms=" + times[2] / 1e6f
+                    + " texture_uploaded_kb=" + gl.getTextureUploadedBytes() / 1024
+                    + " live_gpu_kb=" + lastLive / 1024
+                    + " live_textures=" + gl.getLiveTextures());
+        }
+
+        String[] names = {"placement", "game", "score"};
+        StringBuilder summary = new StringBuilder("rounds=" + rounds);
+        for (int i = 0; i < names.length; ++i) {
+            summary.append(" to_").append(names[i]).append("_mean_ms=").append(total[i] / rounds / 1e6f)
+                    .append(" to_").append(names[i]).append("_max_ms=").append(worst[i] / 1e6f);
+        }
+        summary.append(" live_gpu_growth_kb=").append((lastLive - firstLive) / 1024);
+        System.out.println(summary);
+
+        game.getScreen().dispose();
+        world.stopMusic();
+        game.dispose();
+        System.exit(0);
+    }
+
+    // Affiche l'écran comme le jeu et rend ses frames, retourne la durée de la transition et de la première frame
+    private long transition(Screen screen) {
+        long start = System.nanoTime();
+        ScreenManager.getInstance().showScreen(screen);
+        game.resize(1200, 675);
+        screen.render(FRAME_TIME);
+        long elapsed = System.nanoTime() - start;
+        for (int frame = 1; frame < frames; ++frame) {
+            screen.render(FRAME_TIME);
+        }
+        return elapsed;
+    }
+}
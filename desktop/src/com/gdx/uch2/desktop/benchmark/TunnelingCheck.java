@@ -0,0 +1,134 @@
+package com.gdx.uch2.desktop.benchmark;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.gdx.uch2.controller.PlayerController;
+import com.gdx.uch2.entities.Block;
+import com.gdx.uch2.entities.Level;
+import com.gdx.uch2.entities.World;
+import com.gdx.uch2.networking.GamePhase;
+import com.gdx.uch2.networking.client.GameClientHandler;
+
+/**
+ * Vérification de la détection des collisions avec de grands pas de simulation. Le joueur est simulé avec des pas
+ * allant de 1/120 s à 0,25 s, la durée maximale d'un pas, contre des obstacles d'une seule case d'épaisseur :
+ * <ul>
+ *     <li>un sol, sur lequel il tombe de haut, à la vitesse de chute maximale</li>
+ *     <li>un mur, vers lequel il court</li>
+ *     <li>un plafond bas, contre lequel il saute</li>
+ * </ul>
+ * À chaque pas, la hitbox du joueur ne doit jamais passer de l'autre côté de l'obstacle. Affiche aussi si le joueur
+ * a touché l'obstacle : avec les plus grands pas, la gravité appliquée dès le premier pas limite le saut sous le
+ * plafond.
+ * Lancé par la tâche gradle {@code tunnelingCheck}, termine avec le code 1 si le joueur traverse un obstacle.
+ */
+public class TunnelingCheck extends ApplicationAdapter {
+    private static final float[] STEPS = {1 / 120f, 1 / 30f, 1 / 15f, 0.1f, 0.25f};
+    private static final float SECONDS = 10;
+    private static final float EPSILON = 1e-3f;
+
+    private boolean ok = true;
+
+    /**
+     * Point d'entrée
+     * @param args non utilisés
+     */
+    public static void main(String[] args) {
+        new HeadlessApplication(new TunnelingCheck());
+    }
+
+    @Override
+    public void create() {
+        BenchmarkSupport.initPlayers(1);
+        GameClientHandler.currentPhase = GamePhase.Moving;
+        for (float step : STEPS) {
+            checkFloor(step);
+            checkWall(step);
+            checkCeiling(step);
+        }
+        System.out.println(ok ? "OK" : "ECHEC");
+        System.exit(ok ? 0 : 1);
+    }
+
+    // Chute de 190 cases sur un sol d'une case d'épaisseur (ligne 2)
+    private void checkFloor(float step) {
+        Level level = new Level(16, 200);
+        for (int x = 0; x < 16; ++x) {
+            level.setType(x, 2, Block.Type.BLOCK);
+        }
+        level.setSpawnPosition(new Vector2(8, 190));
+        World world = new World(level);
+        world.stopMusic();
+        PlayerController controller = new PlayerController(world);
+
+        float lowest = Float.MAX_VALUE;
+        for (float time = 0; time < SECONDS; time += step) {
+            controller.update(step);
+            lowest = Math.min(lowest, world.getPlayer().getBounds().y);
+        }
+        report("floor", step, lowest >= 3 - EPSILON && !world.getPlayer().isDead(), "lowest_y=" + lowest,
+                lowest <= 3 + EPSILON);
+        controller.dispose();
+    }
+
+    // Course vers un mur d'une case d'épaisseur (colonne 40)
+    private void checkWall(float step) {
+        Level level = new Level(64, 10);
+        for (int x = 0; x < 64; ++x) {
+            level.setType(x, 0, Block.Type.BLOCK);
+        }
+        for (int y = 1; y < 10; ++y) {
+            level.setType(40, y, Block.Type.BLOCK);
+        }
+        level.setSpawnPosition(new Vector2(30, 1));
+        World world = new World(level);
+        world.stopMusic();
+        PlayerController controller = new PlayerController(world);
+
+        controller.rightPressed();
+        float rightmost = -Float.MAX_VALUE;
+        for (float time = 0; time < SECONDS; time += step) {
+            controller.update(step);
+            Rectangle bounds = world.getPlayer().getBounds();
+            rightmost = Math.max(rightmost, bounds.x + bounds.width);
+        }
+        report("wall", step, rightmost <= 40 + EPSILON, "rightmost_x=" + rightmost, rightmost >= 40 - EPSILON);
+        controller.dispose();
+    }
+
+    // Sauts répétés sous un plafond d'une case d'épaisseur (ligne 3), à 0,35 case de la tête du joueur
+    private void checkCeiling(float step) {
+        Level level = new Level(16, 10);
+        for (int x = 0; x < 16; ++x) {
+            level.setType(x, 0, Block.Type.BLOCK);
+            level.setType(x, 3, Block.Type.BLOCK);
+        }
+        level.setSpawnPosition(new Vector2(8, 1));
+        World world = new World(level);
+        world.stopMusic();
+        PlayerController controller = new PlayerController(world);
+
+        float highest = -Float.MAX_VALUE;
+        int tick = 0;
+        for (float time = 0; time < SECONDS; time += step, ++tick) {
+            if (tick % 2 == 0) {
+                controller.jumpPressed();
+            } else {
+                controller.jumpReleased();
+            }
+            controller.update(step);
+            Rectangle bounds = world.getPlayer().getBounds();
+            highest = Math.max(highest, bounds.y + bounds.height);
+        }
+        report("ceiling", step, highest <= 3 + EPSILON, "highest_y=" + highest, highest >= 3 - EPSILON);
+        controller.dispose();
+    }
+
+    private void report(String obstacle, float step, boolean passed, String detail, boolean contact) {
+        System.out.println("obstacle=" + obstacle + " step_s=" + step + " " + detail
+                + " contact=" + (contact ? "yes" : "no") + " tunneled=" + (passed ? "no" : "yes"));
+        ok &= passed;
+    }
+}
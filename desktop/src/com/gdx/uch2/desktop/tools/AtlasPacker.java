@@ -0,0 +1,51 @@
+package com.gdx.uch2.desktop.tools;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import com.badlogic.gdx.tools.texturepacker.TextureUnpacker;
+import com.gdx.uch2.util.Constants;
+
+import java.io.File;
+
+/**
+ * Outil de build regroupant les atlas du jeu (joueur, adversaires, blocks) dans un seul atlas d'une page, pour que le
+ * rendu d'une frame n'ait besoin que d'une texture. Les régions sont préfixées par le nom de leur atlas d'origine
+ * ({@link Constants#PLAYER_PREFIX}, {@link Constants#OPPONENTS_PREFIX}, {@link Constants#BLOCKS_PREFIX}).
+ * Lancé par la tâche gradle {@code packAtlas} depuis le dossier des assets.
+ */
+public class AtlasPacker {
+
+    /**
+     * Point d'entrée
+     * @param args dossier temporaire où extraire les images (optionnel)
+     */
+    public static void main(String[] args) {
+        File sources = new File(args.length > 0 ? args[0] : "../desktop/build/atlas-sources");
+
+        TextureUnpacker unpacker = new TextureUnpacker();
+        unpacker.setQuiet(true);
+        unpack(unpacker, Constants.PLAYER_1_ATLAS, new File(sources, Constants.PLAYER_PREFIX));
+        unpack(unpacker, Constants.OPPONENTS_ATLAS, new File(sources, Constants.OPPONENTS_PREFIX));
+        unpack(unpacker, Constants.BLOCKS_ATLAS, new File(sources, Constants.BLOCKS_PREFIX));
+
+        TexturePacker.Settings settings = new TexturePacker.Settings();
+        settings.maxWidth = 2048;
+        settings.maxHeight = 2048;
+        settings.filterMin = Texture.TextureFilter.Nearest;
+        settings.filterMag = Texture.TextureFilter.Nearest;
+        settings.combineSubdirectories = true;
+        settings.duplicatePadding = true;
+        settings.useIndexes = false;
+
+        String atlas = Constants.GAME_ATLAS;
+        TexturePacker.process(settings, sources.getPath(), ".", atlas.substring(0, atlas.lastIndexOf('.')));
+    }
+
+    private static void unpack(TextureUnpacker unpacker, String atlas, File output) {
+        FileHandle packFile = new FileHandle(new File(atlas));
+        TextureAtlas.TextureAtlasData data = new TextureAtlas.TextureAtlasData(packFile, packFile.parent(), false);
+        unpacker.splitAtlas(data, output.getPath());
+    }
+}
@@ -0,0 +1,51 @@
+package com.gdx.uch2.desktop.tools;
+
+import com.gdx.uch2.controller.LevelFile;
+import com.gdx.uch2.controller.LevelLoader;
+import com.gdx.uch2.entities.Level;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Outil de build compilant les images des niveaux (levels/level-N.png) dans le format binaire de {@link LevelFile},
+ * à côté de chaque image. Lancé par la tâche gradle {@code compileLevels} depuis le dossier des assets.
+ */
+public class LevelCompiler {
+
+    /**
+     * Point d'entrée
+     * @param args dossier contenant les images des niveaux (optionnel)
+     */
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : "levels");
+        File[] images = dir.listFiles();
+        if (images == null) {
+            System.out.println("Dossier des niveaux introuvable : " + dir);
+            return;
+        }
+
+        for (File image : images) {
+            String name = image.getName();
+            if (!name.startsWith("level-") || !name.endsWith(".png")) {
+                continue;
+            }
+            BufferedImage img = ImageIO.read(image);
+            int width = img.getWidth();
+            int height = img.getHeight();
+            int[] rgb = img.getRGB(0, 0, width, height, null, 0, width);
+            Level level = LevelLoader.fromRgb(width, height, rgb);
+
+            byte[] data = LevelFile.write(level);
+            File output = new File(dir, name.substring(0, name.length() - ".png".length()) + LevelFile.EXTENSION);
+            try (OutputStream out = new FileOutputStream(output)) {
+                out.write(data);
+            }
+            System.out.println(name + " -> " + output.getName() + " (" + data.length + " octets)");
+        }
+    }
+}